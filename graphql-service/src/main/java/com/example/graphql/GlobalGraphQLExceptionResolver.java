@@ -1,5 +1,6 @@
 package com.example.graphql;
 
+import com.example.graphql.ironbucket.SentinelGearOverloadedException;
 import org.springframework.graphql.execution.DataFetcherExceptionResolver;
 import org.springframework.graphql.execution.ErrorType;
 import graphql.GraphqlErrorBuilder;
@@ -10,6 +11,7 @@ import graphql.schema.DataFetcher;
 import reactor.core.publisher.Mono;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -28,7 +30,11 @@ public class GlobalGraphQLExceptionResolver implements DataFetcherExceptionResol
                         case ItemNotFoundException ex -> createNotFoundError(ex, env);
                         case ItemOperationDisabledException ex -> createOperationDisabledError(ex, env);
                         case ItemDatabaseException ex -> createDatabaseError(ex, env);
+                        case ItemVersionConflictException ex -> createVersionConflictError(ex, env);
+                        case IdempotentRequestInProgressException ex -> createRequestInProgressError(ex, env);
+                        case IdempotencyKeyReusedException ex -> createKeyReusedError(ex, env);
                         case IllegalArgumentException ex -> createInvalidArgumentError(ex, env);
+                        case SentinelGearOverloadedException ex -> createServiceOverloadedError(ex, env);
                         case null, default -> createInternalError(exception, env);
                 };
                         return Mono.just(List.of(error));
@@ -70,6 +76,45 @@ public class GlobalGraphQLExceptionResolver implements DataFetcherExceptionResol
                 .build();
     }
 
+    private GraphQLError createVersionConflictError(ItemVersionConflictException ex, DataFetchingEnvironment env) {
+        Map<String, Object> extensions = new HashMap<>();
+        extensions.put("code", "VERSION_CONFLICT");
+        extensions.put("itemId", ex.getItemId());
+        if (ex.getExpectedVersion() != null) {
+            extensions.put("expectedVersion", ex.getExpectedVersion());
+        }
+        extensions.put("timestamp", System.currentTimeMillis());
+        return GraphqlErrorBuilder.newError()
+                .message(ex.getMessage())
+                .errorType(ErrorType.BAD_REQUEST)
+                .extensions(extensions)
+                .build();
+    }
+
+    private GraphQLError createRequestInProgressError(IdempotentRequestInProgressException ex, DataFetchingEnvironment env) {
+        return GraphqlErrorBuilder.newError()
+                .message(ex.getMessage())
+                .errorType(ErrorType.BAD_REQUEST)
+                .extensions(Map.of(
+                        "code", "REQUEST_IN_PROGRESS",
+                        "idempotencyKey", ex.getIdempotencyKey(),
+                        "timestamp", System.currentTimeMillis()
+                ))
+                .build();
+    }
+
+    private GraphQLError createKeyReusedError(IdempotencyKeyReusedException ex, DataFetchingEnvironment env) {
+        return GraphqlErrorBuilder.newError()
+                .message(ex.getMessage())
+                .errorType(ErrorType.BAD_REQUEST)
+                .extensions(Map.of(
+                        "code", "IDEMPOTENCY_KEY_REUSED",
+                        "idempotencyKey", ex.getIdempotencyKey(),
+                        "timestamp", System.currentTimeMillis()
+                ))
+                .build();
+    }
+
     private GraphQLError createInvalidArgumentError(IllegalArgumentException ex, DataFetchingEnvironment env) {
         return GraphqlErrorBuilder.newError()
                 .message("Invalid argument: " + ex.getMessage())
@@ -82,6 +127,20 @@ public class GlobalGraphQLExceptionResolver implements DataFetcherExceptionResol
                 .build();
     }
 
+    private GraphQLError createServiceOverloadedError(SentinelGearOverloadedException ex, DataFetchingEnvironment env) {
+        return GraphqlErrorBuilder.newError()
+                .message("Storage service is overloaded, try again later")
+                .errorType(ErrorType.INTERNAL_ERROR)
+                .extensions(Map.of(
+                        "code", "SERVICE_OVERLOADED",
+                        "endpointGroup", ex.getEndpointGroup(),
+                        "reason", ex.getReason().name(),
+                        "retryAfterMs", ex.getRetryAfter().toMillis(),
+                        "timestamp", System.currentTimeMillis()
+                ))
+                .build();
+    }
+
     private GraphQLError createInternalError(Throwable exception, DataFetchingEnvironment env) {
         String message = exception != null ? exception.getMessage() : "Unknown error";
         return GraphqlErrorBuilder.newError()
@@ -0,0 +1,84 @@
+package com.example.graphql;
+
+import graphql.GraphQLContext;
+import graphql.execution.CoercedVariables;
+import graphql.language.IntValue;
+import graphql.language.StringValue;
+import graphql.language.Value;
+import graphql.schema.Coercing;
+import graphql.schema.CoercingParseLiteralException;
+import graphql.schema.CoercingParseValueException;
+import graphql.schema.CoercingSerializeException;
+import graphql.schema.GraphQLScalarType;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.RuntimeWiringConfigurer;
+
+import java.math.BigInteger;
+import java.util.Locale;
+
+/**
+ * Custom GraphQL scalars.
+ *
+ * <p>{@code Long} carries 64-bit integers such as {@link Item#version()}, which do not fit the
+ * 32-bit {@code Int}. It is written as a JSON number and accepts numbers or numeric strings.</p>
+ */
+@Configuration
+public class GraphqlScalarConfig {
+
+    /** 64-bit signed integer scalar. */
+    static final GraphQLScalarType LONG = GraphQLScalarType.newScalar()
+            .name("Long")
+            .description("64-bit signed integer")
+            .coercing(new LongCoercing())
+            .build();
+
+    /**
+     * Registers the custom scalars with the schema.
+     *
+     * @return wiring configurer adding the scalars
+     */
+    @Bean
+    public RuntimeWiringConfigurer scalarWiringConfigurer() {
+        return wiring -> wiring.scalar(LONG);
+    }
+
+    private static final class LongCoercing implements Coercing<Long, Long> {
+
+        @Override
+        public Long serialize(Object value, GraphQLContext context, Locale locale) {
+            if (value instanceof Number number) {
+                return number.longValue();
+            }
+            throw new CoercingSerializeException("Expected a number but was " + value);
+        }
+
+        @Override
+        public Long parseValue(Object input, GraphQLContext context, Locale locale) {
+            try {
+                return switch (input) {
+                    case Long number -> number;
+                    case Integer number -> number.longValue();
+                    case BigInteger number -> number.longValueExact();
+                    case String text -> Long.parseLong(text);
+                    default -> throw new CoercingParseValueException("Expected a 64-bit integer but was " + input);
+                };
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new CoercingParseValueException("Expected a 64-bit integer but was " + input, e);
+            }
+        }
+
+        @Override
+        public Long parseLiteral(Value<?> input, CoercedVariables variables, GraphQLContext context, Locale locale) {
+            try {
+                return switch (input) {
+                    case IntValue number -> number.getValue().longValueExact();
+                    case StringValue text -> Long.parseLong(text.getValue());
+                    default -> throw new CoercingParseLiteralException("Expected a 64-bit integer literal");
+                };
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new CoercingParseLiteralException("Expected a 64-bit integer literal", e);
+            }
+        }
+    }
+}
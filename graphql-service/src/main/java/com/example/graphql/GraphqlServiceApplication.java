@@ -3,6 +3,7 @@ package com.example.graphql;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Entry point for the GraphQL CRUD microservice.
@@ -12,6 +13,7 @@ import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
  */
 @SpringBootApplication
 @EnableR2dbcRepositories
+@EnableScheduling
 public class GraphqlServiceApplication {
 
     /**
@@ -0,0 +1,18 @@
+package com.example.graphql;
+
+/**
+ * Exception thrown when an idempotency key is reused for a request with different arguments.
+ */
+public class IdempotencyKeyReusedException extends ItemException {
+    private final String idempotencyKey;
+
+    public IdempotencyKeyReusedException(String idempotencyKey) {
+        super(String.format("Idempotency key '%s' was already used for a request with different arguments",
+                idempotencyKey));
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+}
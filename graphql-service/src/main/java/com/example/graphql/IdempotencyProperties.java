@@ -0,0 +1,36 @@
+package com.example.graphql;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration of idempotency keys for item mutations.
+ *
+ * <p>The purge interval for expired keys is configured with
+ * {@code items.idempotency.purge-interval-ms}.</p>
+ */
+@Component
+@ConfigurationProperties(prefix = "items.idempotency")
+public class IdempotencyProperties {
+    /** How long a key replays its original result. */
+    private Duration ttl = Duration.ofHours(24);
+    /** How long a claimed key blocks retries before its result is stored. */
+    private Duration lease = Duration.ofSeconds(30);
+    /** Maximum number of results kept in the in-process cache. */
+    private int maxCachedEntries = 10_000;
+
+    /** @return key time-to-live */
+    public Duration getTtl() { return ttl; }
+    /** @param ttl key time-to-live */
+    public void setTtl(Duration ttl) { this.ttl = ttl; }
+    /** @return claim lease */
+    public Duration getLease() { return lease; }
+    /** @param lease claim lease */
+    public void setLease(Duration lease) { this.lease = lease; }
+    /** @return in-process cache bound */
+    public int getMaxCachedEntries() { return maxCachedEntries; }
+    /** @param maxCachedEntries in-process cache bound */
+    public void setMaxCachedEntries(int maxCachedEntries) { this.maxCachedEntries = maxCachedEntries; }
+}
@@ -0,0 +1,40 @@
+package com.example.graphql;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stored outcome of an idempotent mutation.
+ *
+ * @param requestKey operation name, caller scope and client key, e.g. {@code createItem:9a0e...:7f3c...}
+ * @param requestHash hash of the operation and arguments of the original request
+ * @param result encoded result (items as JSON), null while the mutation is still running
+ * @param expiresAt when the key may be reused (UTC); a short lease while the mutation is running
+ */
+@Table("idempotency_keys")
+public record IdempotencyRecord(
+        @Id
+        String requestKey,
+        String requestHash,
+        String result,
+        LocalDateTime expiresAt
+) {
+    /**
+     * @param now current time (UTC)
+     * @return true if the record is past its TTL
+     */
+    public boolean isExpired(LocalDateTime now) {
+        return !expiresAt.isAfter(now);
+    }
+
+    /**
+     * @param hash hash of a retried request
+     * @return true if the retry carries the same arguments as the original request
+     */
+    public boolean matches(String hash) {
+        // Keys stored before hashes were recorded cannot be checked
+        return requestHash == null || requestHash.equals(hash);
+    }
+}
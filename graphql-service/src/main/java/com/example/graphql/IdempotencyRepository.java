@@ -0,0 +1,49 @@
+package com.example.graphql;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reactive repository for idempotency keys.
+ */
+public interface IdempotencyRepository extends ReactiveCrudRepository<IdempotencyRecord, String> {
+
+    /**
+     * Claim a key before running the mutation; fails with a data integrity violation if the key exists.
+     *
+     * @param requestKey operation name, caller scope and client key
+     * @param requestHash hash of the operation and arguments
+     * @param expiresAt expiry of the claim's lease (UTC)
+     * @return Mono with the number of inserted rows
+     */
+    @Modifying
+    @Query("INSERT INTO idempotency_keys (request_key, request_hash, expires_at)" +
+           " VALUES (:requestKey, :requestHash, :expiresAt)")
+    Mono<Integer> claim(String requestKey, String requestHash, LocalDateTime expiresAt);
+
+    /**
+     * Store the result of a claimed key and extend its lease to the full TTL.
+     *
+     * @param requestKey operation name, caller scope and client key
+     * @param result encoded result
+     * @param expiresAt when the result stops being replayed (UTC)
+     * @return Mono with the number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE idempotency_keys SET result = :result, expires_at = :expiresAt WHERE request_key = :requestKey")
+    Mono<Integer> complete(String requestKey, String result, LocalDateTime expiresAt);
+
+    /**
+     * Delete keys past their TTL.
+     *
+     * @param now current time (UTC)
+     * @return Mono with the number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM idempotency_keys WHERE expires_at <= :now")
+    Mono<Integer> deleteExpired(LocalDateTime now);
+}
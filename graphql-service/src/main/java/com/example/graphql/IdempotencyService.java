@@ -0,0 +1,253 @@
+package com.example.graphql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Makes item mutations safe to retry with a client-supplied idempotency key.
+ *
+ * <p>Keys are scoped by operation and caller. The first request for a key claims it in
+ * {@code idempotency_keys} together with a hash of its arguments, runs the mutation and stores the
+ * encoded result; claim, mutation and result share one transaction, so they commit or roll back
+ * together. Retries within the TTL replay that result without writing again, and reusing a key with
+ * different arguments fails with {@link IdempotencyKeyReusedException}. Concurrent duplicates on
+ * the same instance share the in-flight {@link Mono}; a duplicate hitting another instance while the
+ * original is still running fails with {@link IdempotentRequestInProgressException}. A claim only
+ * holds a short lease until its result is stored, so a claim left behind by a crashed instance
+ * frees the key quickly. Recent results are kept in a bounded in-process cache in front of the
+ * table.</p>
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final int MAX_KEY_LENGTH = 128;
+
+    /** Caller scope of unauthenticated requests. */
+    private static final String ANONYMOUS = "anonymous";
+
+    /** Hex digits of the principal hash used as the caller scope. */
+    private static final int SCOPE_LENGTH = 32;
+
+    private final IdempotencyRepository repository;
+    private final IdempotencyProperties properties;
+    private final TransactionalOperator transactionalOperator;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, IdempotencyRecord> recent;
+
+    public IdempotencyService(IdempotencyRepository repository, IdempotencyProperties properties,
+                              TransactionalOperator transactionalOperator) {
+        this.repository = repository;
+        this.properties = properties;
+        this.transactionalOperator = transactionalOperator;
+        this.recent = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                return size() > properties.getMaxCachedEntries();
+            }
+        };
+    }
+
+    /**
+     * Runs a mutation at most once per operation, caller and idempotency key.
+     *
+     * @param operation mutation name, scoping the key
+     * @param idempotencyKey client-supplied key (1-128 characters)
+     * @param arguments mutation arguments; a retry must repeat them
+     * @param mutation the mutation to run on first use of the key
+     * @param encoder encodes the result for storage
+     * @param decoder rebuilds the result of a replayed request
+     * @param <T> result type
+     * @return Mono of the original result
+     * @throws IllegalArgumentException if the key is blank or too long
+     * @throws IdempotencyKeyReusedException if the key was used for different arguments
+     * @throws IdempotentRequestInProgressException if the original request is still running elsewhere
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(String operation, String idempotencyKey, List<?> arguments,
+                               Supplier<Mono<T>> mutation, Function<T, String> encoder,
+                               Function<String, Mono<T>> decoder) {
+        if (idempotencyKey == null || idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            return Mono.error(new IllegalArgumentException(
+                    "Idempotency key must be between 1 and " + MAX_KEY_LENGTH + " characters"));
+        }
+        String requestHash = requestHash(operation, arguments);
+        return currentPrincipal().flatMap(principal -> {
+            String requestKey = operation + ":" + scope(principal) + ":" + idempotencyKey;
+            IdempotencyRecord cached = cachedRecord(requestKey);
+            if (cached != null) {
+                if (!cached.matches(requestHash)) {
+                    return Mono.error(new IdempotencyKeyReusedException(idempotencyKey));
+                }
+                log.debug("Replaying cached result for {}", requestKey);
+                return decoder.apply(cached.result());
+            }
+            InFlight running = inFlight.computeIfAbsent(requestKey, k -> new InFlight(requestHash,
+                    claimAndRun(k, requestHash, idempotencyKey, mutation, encoder, decoder, true)
+                            .doFinally(signal -> inFlight.remove(k))
+                            .cache()));
+            if (!running.requestHash().equals(requestHash)) {
+                return Mono.error(new IdempotencyKeyReusedException(idempotencyKey));
+            }
+            return (Mono<T>) running.result();
+        });
+    }
+    /**
+     * Deletes expired keys from the table.
+     *
+     * @return Mono with the number of purged keys
+     */
+    @Scheduled(fixedDelayString = "${items.idempotency.purge-interval-ms:600000}")
+    public Mono<Integer> purgeExpired() {
+        return repository.deleteExpired(now())
+                .doOnNext(purged -> {
+                    if (purged > 0) {
+                        log.debug("Purged {} expired idempotency keys", purged);
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.warn("Failed to purge expired idempotency keys", e);
+                    return Mono.just(0);
+                });
+    }
+
+    private <T> Mono<T> claimAndRun(String requestKey, String requestHash, String idempotencyKey,
+                                    Supplier<Mono<T>> mutation, Function<T, String> encoder,
+                                    Function<String, Mono<T>> decoder, boolean reclaimExpired) {
+        return repository.claim(requestKey, requestHash, now().plus(properties.getLease()))
+                .onErrorMap(DataIntegrityViolationException.class, KeyClaimedException::new)
+                .onErrorMap(PessimisticLockingFailureException.class,
+                        e -> new IdempotentRequestInProgressException(idempotencyKey))
+                .then(Mono.defer(mutation))
+                .flatMap(result -> {
+                    String encoded = encoder.apply(result);
+                    LocalDateTime expiresAt = now().plus(properties.getTtl());
+                    return repository.complete(requestKey, encoded, expiresAt)
+                            .thenReturn(new Completed<>(result,
+                                    new IdempotencyRecord(requestKey, requestHash, encoded, expiresAt)));
+                })
+                // A failed mutation or result write rolls back the claim too, so the client can retry
+                .as(transactionalOperator::transactional)
+                .doOnNext(completed -> cache(completed.record()))
+                .map(Completed::result)
+                .onErrorResume(KeyClaimedException.class,
+                        e -> replay(requestKey, requestHash, idempotencyKey, mutation, encoder, decoder, reclaimExpired));
+    }
+
+    private <T> Mono<T> replay(String requestKey, String requestHash, String idempotencyKey,
+                               Supplier<Mono<T>> mutation, Function<T, String> encoder,
+                               Function<String, Mono<T>> decoder, boolean reclaimExpired) {
+        return repository.findById(requestKey)
+                .switchIfEmpty(Mono.error(new IdempotentRequestInProgressException(idempotencyKey)))
+                .flatMap(record -> {
+                    if (record.isExpired(now()) && reclaimExpired) {
+                        return repository.deleteById(requestKey)
+                                .then(claimAndRun(requestKey, requestHash, idempotencyKey, mutation, encoder,
+                                        decoder, false));
+                    }
+                    if (!record.matches(requestHash)) {
+                        return Mono.error(new IdempotencyKeyReusedException(idempotencyKey));
+                    }
+                    if (record.result() == null) {
+                        return Mono.error(new IdempotentRequestInProgressException(idempotencyKey));
+                    }
+                    cache(record);
+                    log.debug("Replaying stored result for {}", requestKey);
+                    return decoder.apply(record.result());
+                });
+    }
+
+    private IdempotencyRecord cachedRecord(String requestKey) {
+        synchronized (recent) {
+            IdempotencyRecord record = recent.get(requestKey);
+            if (record != null && record.isExpired(now())) {
+                recent.remove(requestKey);
+                return null;
+            }
+            return record;
+        }
+    }
+
+    private void cache(IdempotencyRecord record) {
+        synchronized (recent) {
+            recent.put(record.requestKey(), record);
+        }
+    }
+
+    private static LocalDateTime now() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+
+    private static Mono<String> currentPrincipal() {
+        return ReactiveSecurityContextHolder.getContext()
+                .mapNotNull(SecurityContext::getAuthentication)
+                .filter(Authentication::isAuthenticated)
+                .map(Authentication::getName)
+                .defaultIfEmpty(ANONYMOUS);
+    }
+
+    /** Fixed-length caller scope, keeping request keys within the column size. */
+    private static String scope(String principal) {
+        return sha256(List.of(principal)).substring(0, SCOPE_LENGTH);
+    }
+
+    private static String requestHash(String operation, List<?> arguments) {
+        List<Object> parts = new ArrayList<>(arguments.size() + 1);
+        parts.add(operation);
+        parts.addAll(arguments);
+        return sha256(parts);
+    }
+
+    private static String sha256(List<?> parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                // Length-prefixed, so argument boundaries (and null) are unambiguous
+                String value = part == null ? "" : part.toString();
+                String prefix = part == null ? "-1:" : value.length() + ":";
+                digest.update(prefix.getBytes(StandardCharsets.UTF_8));
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /** In-flight request with the hash of its arguments. */
+    private record InFlight(String requestHash, Mono<?> result) {}
+
+    /** Result of a completed mutation with the record stored for it. */
+    private record Completed<T>(T result, IdempotencyRecord record) {}
+
+    /** Signals that the key was claimed before; the original result is replayed. */
+    private static final class KeyClaimedException extends RuntimeException {
+        KeyClaimedException(Throwable cause) {
+            super(cause.getMessage(), cause, false, false);
+        }
+    }
+}
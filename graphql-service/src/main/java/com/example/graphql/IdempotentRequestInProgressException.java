@@ -0,0 +1,18 @@
+package com.example.graphql;
+
+/**
+ * Exception thrown when a mutation is retried while the original request with the same
+ * idempotency key is still running on another instance.
+ */
+public class IdempotentRequestInProgressException extends ItemException {
+    private final String idempotencyKey;
+
+    public IdempotentRequestInProgressException(String idempotencyKey) {
+        super(String.format("Request with idempotency key '%s' is still in progress", idempotencyKey));
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+}
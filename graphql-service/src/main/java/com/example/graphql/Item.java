@@ -3,8 +3,12 @@ package com.example.graphql;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Table;
 
+import java.time.LocalDateTime;
+
 /**
  * Domain model for a hierarchical Item entity.
  *
@@ -16,6 +20,8 @@ import org.springframework.data.relational.core.mapping.Table;
  * @param name item name (required, non-blank, 1-255 characters)
  * @param description item description (optional, max 2000 characters)
  * @param parentId optional parent item ID for hierarchical relationships
+ * @param version optimistic-locking version (null for items not yet persisted)
+ * @param updatedAt time of the last write in UTC, set on every save by R2DBC auditing
  */
 @Table("items")
 public record Item(
@@ -26,7 +32,11 @@ public record Item(
         String name,
         @Size(max = 2000, message = "Item description must not exceed 2000 characters")
         String description,
-        String parentId
+        String parentId,
+        @Version
+        Long version,
+        @LastModifiedDate
+        LocalDateTime updatedAt
 ) {
     /**
      * Compact constructor for validation.
@@ -45,4 +55,29 @@ public record Item(
     public Item(String id, String name, String description) {
         this(id, name, description, null);
     }
+
+    /**
+     * Constructor for items not yet persisted.
+     *
+     * @param id unique identifier
+     * @param name item name
+     * @param description item description
+     * @param parentId optional parent item ID
+     */
+    public Item(String id, String name, String description, String parentId) {
+        this(id, name, description, parentId, null);
+    }
+
+    /**
+     * Constructor for items whose last-modified time is set when they are saved.
+     *
+     * @param id unique identifier
+     * @param name item name
+     * @param description item description
+     * @param parentId optional parent item ID
+     * @param version optimistic-locking version
+     */
+    public Item(String id, String name, String description, String parentId, Long version) {
+        this(id, name, description, parentId, version, null);
+    }
 }
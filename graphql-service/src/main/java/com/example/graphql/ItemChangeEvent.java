@@ -0,0 +1,34 @@
+package com.example.graphql;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Item change event as stored in the transactional outbox.
+ *
+ * <p>Delete events only carry the item ID.</p>
+ *
+ * @param id outbox sequence number
+ * @param itemId the changed item
+ * @param type kind of change
+ * @param name item name after the change
+ * @param description item description after the change
+ * @param parentId parent item ID after the change
+ * @param occurredAt when the change was committed
+ */
+@Table("item_outbox")
+public record ItemChangeEvent(
+        @Id
+        Long id,
+        String itemId,
+        @Column("event_type")
+        ItemChangeType type,
+        String name,
+        String description,
+        String parentId,
+        LocalDateTime occurredAt
+) {
+}
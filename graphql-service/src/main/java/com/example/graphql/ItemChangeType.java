@@ -0,0 +1,14 @@
+package com.example.graphql;
+
+/**
+ * Kinds of item change events written to the outbox.
+ */
+public enum ItemChangeType {
+    CREATED,
+    UPDATED,
+    MOVED,
+    /** The item was deleted; descendants removed by cascade are not reported individually. */
+    DELETED,
+    /** The item and all of its descendants were deleted; no per-descendant events follow. */
+    SUBTREE_DELETED
+}
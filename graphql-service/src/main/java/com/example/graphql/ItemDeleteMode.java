@@ -0,0 +1,11 @@
+package com.example.graphql;
+
+/**
+ * How an item and its descendants are deleted.
+ */
+public enum ItemDeleteMode {
+    /** Delete the item in one statement; descendants go with it via ON DELETE CASCADE. */
+    IMMEDIATE,
+    /** Tombstone the subtree at once and reclaim descendants in bounded background batches. */
+    DEFERRED
+}
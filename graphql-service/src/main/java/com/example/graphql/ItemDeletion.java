@@ -0,0 +1,38 @@
+package com.example.graphql;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a deferred subtree deletion.
+ *
+ * @param rootId the tombstoned subtree root
+ * @param requestedAt when the deletion was requested
+ * @param totalItems number of descendants to reclaim (null until counted)
+ * @param reclaimedItems number of descendants reclaimed so far
+ * @param completedAt when the root itself was reclaimed (null while pending)
+ */
+@Table("item_deletions")
+public record ItemDeletion(
+        @Id
+        String rootId,
+        LocalDateTime requestedAt,
+        Long totalItems,
+        long reclaimedItems,
+        LocalDateTime completedAt
+) {
+    /**
+     * Lifecycle state of a deferred deletion.
+     */
+    public enum Status { PENDING, IN_PROGRESS, COMPLETED }
+
+    /** @return the current state derived from the progress counters */
+    public Status status() {
+        if (completedAt != null) {
+            return Status.COMPLETED;
+        }
+        return reclaimedItems > 0 ? Status.IN_PROGRESS : Status.PENDING;
+    }
+}
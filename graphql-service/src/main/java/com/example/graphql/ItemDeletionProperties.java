@@ -0,0 +1,31 @@
+package com.example.graphql;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Tuning for deferred subtree deletion.
+ *
+ * <p>Descendants are reclaimed in batches of {@code batchSize} rows with a pause between
+ * batches, so a huge subtree never holds locks long enough to stall other writers.
+ * The polling interval is configured with {@code items.deletion.reclaim-interval-ms}.</p>
+ */
+@Component
+@ConfigurationProperties(prefix = "items.deletion")
+public class ItemDeletionProperties {
+    /** Maximum number of rows deleted per statement. */
+    private int batchSize = 500;
+    /** Pause between two batches of the same subtree. */
+    private Duration batchPause = Duration.ofMillis(50);
+
+    /** @return maximum rows per batch */
+    public int getBatchSize() { return batchSize; }
+    /** @param batchSize maximum rows per batch */
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    /** @return pause between batches */
+    public Duration getBatchPause() { return batchPause; }
+    /** @param batchPause pause between batches */
+    public void setBatchPause(Duration batchPause) { this.batchPause = batchPause; }
+}
@@ -0,0 +1,54 @@
+package com.example.graphql;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive repository for deferred deletion progress records.
+ */
+public interface ItemDeletionRepository extends ReactiveCrudRepository<ItemDeletion, String> {
+
+    /**
+     * Register a deferred deletion for a freshly tombstoned root.
+     *
+     * @param rootId the subtree root
+     * @return Mono with the number of inserted rows
+     */
+    @Modifying
+    @Query("INSERT INTO item_deletions (root_id, requested_at, reclaimed_items) VALUES (:rootId, CURRENT_TIMESTAMP, 0)")
+    Mono<Integer> register(String rootId);
+
+    /**
+     * Record the number of descendants found when reclamation starts.
+     *
+     * @param rootId the subtree root
+     * @param totalItems number of descendants
+     * @return Mono with the number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE item_deletions SET total_items = :totalItems WHERE root_id = :rootId AND total_items IS NULL")
+    Mono<Integer> setTotal(String rootId, long totalItems);
+
+    /**
+     * Add a reclaimed batch to the progress counter.
+     *
+     * @param rootId the subtree root
+     * @param count number of reclaimed descendants
+     * @return Mono with the number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE item_deletions SET reclaimed_items = reclaimed_items + :count WHERE root_id = :rootId")
+    Mono<Integer> addReclaimed(String rootId, long count);
+
+    /**
+     * Mark a deferred deletion as completed.
+     *
+     * @param rootId the subtree root
+     * @return Mono with the number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE item_deletions SET completed_at = CURRENT_TIMESTAMP WHERE root_id = :rootId")
+    Mono<Integer> complete(String rootId);
+}
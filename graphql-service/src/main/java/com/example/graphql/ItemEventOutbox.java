@@ -0,0 +1,42 @@
+package com.example.graphql;
+
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Writes item change events to the transactional outbox.
+ *
+ * <p>Callers compose {@code append} into the same reactive transaction as the item mutation,
+ * so an event is recorded if and only if the change is committed.</p>
+ */
+@Component
+public class ItemEventOutbox {
+
+    private final ItemOutboxRepository outbox;
+
+    public ItemEventOutbox(ItemOutboxRepository outbox) {
+        this.outbox = outbox;
+    }
+
+    /**
+     * Records a change carrying the item state after the mutation.
+     *
+     * @param type kind of change
+     * @param item item state after the change
+     * @return Mono completing when the event row is written
+     */
+    public Mono<Void> append(ItemChangeType type, Item item) {
+        return outbox.append(item.id(), type.name(), item.name(), item.description(), item.parentId()).then();
+    }
+
+    /**
+     * Records a change that only carries the item ID (deletions).
+     *
+     * @param type kind of change
+     * @param itemId the changed item
+     * @return Mono completing when the event row is written
+     */
+    public Mono<Void> append(ItemChangeType type, String itemId) {
+        return outbox.append(itemId, type.name(), null, null, null).then();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.graphql;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Destination for item change events drained from the outbox.
+ *
+ * <p>Implementations publish a whole batch at once and complete only when the batch is durably
+ * accepted; the relay deletes the rows afterwards. Delivery is at-least-once, so consumers must
+ * tolerate duplicates (the outbox {@code id} is a stable deduplication key).</p>
+ */
+public interface ItemEventSink {
+
+    /**
+     * Publishes a batch of events.
+     *
+     * @param events events in outbox sequence order
+     * @return Mono completing when the batch has been accepted
+     */
+    Mono<Void> publish(List<ItemChangeEvent> events);
+}
@@ -0,0 +1,41 @@
+package com.example.graphql;
+
+import java.time.Instant;
+
+/**
+ * Server-side filter for item queries.
+ *
+ * <p>Every non-null field narrows the result set; all predicates are combined with AND
+ * and compiled into parameterized SQL by {@link ItemQuerySpec}. Nothing is filtered in memory.</p>
+ *
+ * @param namePrefix case-sensitive name prefix (index friendly)
+ * @param nameContains case-insensitive substring of the name
+ * @param createdAfter inclusive lower bound on the creation timestamp
+ * @param createdBefore exclusive upper bound on the creation timestamp
+ * @param updatedAfter inclusive lower bound on the last update timestamp
+ * @param updatedBefore exclusive upper bound on the last update timestamp
+ * @param hasChildren restrict to items that do (true) or do not (false) have children
+ */
+public record ItemFilter(
+        String namePrefix,
+        String nameContains,
+        Instant createdAfter,
+        Instant createdBefore,
+        Instant updatedAfter,
+        Instant updatedBefore,
+        Boolean hasChildren
+) {
+    /**
+     * @return true if no predicate is set
+     */
+    public boolean isEmpty() {
+        return isBlank(namePrefix) && isBlank(nameContains)
+                && createdAfter == null && createdBefore == null
+                && updatedAfter == null && updatedBefore == null
+                && hasChildren == null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isEmpty();
+    }
+}
@@ -6,6 +6,12 @@ import org.springframework.graphql.data.method.annotation.*;
 import org.springframework.stereotype.Controller;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * GraphQL Controller for managing Item entities.
@@ -21,6 +27,14 @@ public class ItemGraphqlController {
     @Autowired
     private ItemService service;
 
+    /** Replays mutations retried with the same idempotency key. */
+    @Autowired
+    private IdempotencyService idempotency;
+
+    /** Encodes items stored for replay. */
+    @Autowired
+    private JsonMapper jsonMapper;
+
     /**
      * Validates that a string ID is not null or blank.
      * 
@@ -49,13 +63,61 @@ public class ItemGraphqlController {
     }
 
     /**
-     * Returns all items if read is enabled.
+     * Runs a mutation, deduplicated by idempotency key if the client supplied one.
+     *
+     * @param idempotencyKey client-supplied key (optional)
+     * @param operation mutation name
+     * @param arguments mutation arguments a retry must repeat
+     * @param mutation the mutation
+     * @param encoder encodes the result for replay
+     * @param decoder rebuilds a replayed result
+     * @return Mono of the mutation result
+     */
+    private <T> Mono<T> idempotent(String idempotencyKey, String operation, List<?> arguments,
+                                   Supplier<Mono<T>> mutation, Function<T, String> encoder,
+                                   Function<String, Mono<T>> decoder) {
+        if (idempotencyKey == null) {
+            return Mono.defer(mutation);
+        }
+        return idempotency.execute(operation, idempotencyKey, arguments, mutation, encoder, decoder);
+    }
+
+    /**
+     * Runs an item mutation, replaying a retried request with the item the original request returned.
+     */
+    private Mono<Item> idempotentItem(String idempotencyKey, String operation, List<?> arguments,
+                                      Supplier<Mono<Item>> mutation) {
+        return idempotent(idempotencyKey, operation, arguments, mutation, jsonMapper::writeValueAsString,
+                this::storedItem);
+    }
+
+    /**
+     * Rebuilds a stored item. Keys stored before items were kept as JSON hold only the item ID and
+     * replay the item's current state.
      *
+     * @param stored item JSON, or an item ID
+     * @return Mono of the item
+     */
+    private Mono<Item> storedItem(String stored) {
+        if (!stored.startsWith("{")) {
+            return service.getItemById(stored);
+        }
+        return Mono.fromCallable(() -> jsonMapper.readValue(stored, Item.class));
+    }
+
+    /**
+     * Returns all items matching an optional filter and ordering if read is enabled.
+     *
+     * @param filter filter predicates (optional)
+     * @param orderBy ordering (optional)
      * @return Flux of Item
      */
     @QueryMapping
-    public Flux<Item> items() {
-        return service.getAllItems();
+    public Flux<Item> items(@Argument ItemFilter filter, @Argument ItemOrderBy orderBy) {
+        if ((filter == null || filter.isEmpty()) && orderBy == null) {
+            return service.getAllItems();
+        }
+        return service.findItems(null, filter, orderBy);
     }
 
     /**
@@ -75,16 +137,15 @@ public class ItemGraphqlController {
      * @param name item name (required)
      * @param description item description (optional)
      * @param parentId parent item ID (optional, for hierarchical creation)
+     * @param idempotencyKey key making retries safe (optional)
      * @return Mono of created Item
      */
     @MutationMapping
     public Mono<Item> createItem(@Argument String name, @Argument String description, 
-                                 @Argument String parentId) {
+                                 @Argument String parentId, @Argument String idempotencyKey) {
         return validateNonBlankName(name)
-                .then(Mono.defer(() -> {
-                    Item item = new Item(null, name, description, parentId);
-                    return service.createItem(item);
-                }));
+                .then(idempotentItem(idempotencyKey, "createItem", Arrays.asList(name, description, parentId),
+                        () -> service.createItem(new Item(null, name, description, parentId))));
     }
 
     /**
@@ -93,25 +154,50 @@ public class ItemGraphqlController {
      * @param id item ID
      * @param name new name (optional)
      * @param description new description (optional)
+     * @param expectedVersion version the client last read; rejects the update if stale (optional)
+     * @param idempotencyKey key making retries safe (optional)
      * @return Mono of updated Item
      */
     @MutationMapping
     public Mono<Item> updateItem(@Argument String id, @Argument String name,
-                                 @Argument String description) {
+                                 @Argument String description, @Argument Long expectedVersion,
+                                 @Argument String idempotencyKey) {
         return validateNonBlankId(id, "Item ID")
-                .then(Mono.defer(() -> service.updateItem(id, name, description)));
+                .then(idempotentItem(idempotencyKey, "updateItem",
+                        Arrays.asList(id, name, description, expectedVersion),
+                        () -> service.updateItem(id, name, description, expectedVersion)));
     }
 
     /**
      * Deletes an item by ID if delete is enabled.
      *
      * @param id item ID
+     * @param mode deletion mode (optional, defaults to {@link ItemDeleteMode#IMMEDIATE})
+     * @param idempotencyKey key making retries safe (optional)
      * @return Mono of true if deleted
      */
     @MutationMapping
-    public Mono<Boolean> deleteItem(@Argument String id) {
+    public Mono<Boolean> deleteItem(@Argument String id, @Argument ItemDeleteMode mode,
+                                    @Argument String idempotencyKey) {
         return validateNonBlankId(id, "Item ID")
-                .then(Mono.defer(() -> service.deleteItem(id)));
+                .then(idempotent(idempotencyKey, "deleteItem", Arrays.asList(id, mode == null ? ItemDeleteMode.IMMEDIATE : mode),
+                        () -> mode == ItemDeleteMode.DEFERRED
+                                ? service.deleteItemDeferred(id)
+                                : service.deleteItem(id),
+                        String::valueOf,
+                        stored -> Mono.just(Boolean.valueOf(stored))));
+    }
+
+    /**
+     * Returns the progress of a deferred subtree deletion.
+     *
+     * @param rootId the deleted subtree root ID
+     * @return Mono of deletion progress
+     */
+    @QueryMapping
+    public Mono<ItemDeletion> itemDeletion(@Argument String rootId) {
+        return validateNonBlankId(rootId, "Item ID")
+                .then(Mono.defer(() -> service.getItemDeletion(rootId)));
     }
 
     /**
@@ -128,14 +214,20 @@ public class ItemGraphqlController {
      * Returns all children of a parent item.
      *
      * @param parentId the parent item ID
+     * @param filter filter predicates (optional)
+     * @param orderBy ordering (optional)
      * @return Flux of child items
      */
     @QueryMapping
-    public Flux<Item> childrenByParent(@Argument String parentId) {
+    public Flux<Item> childrenByParent(@Argument String parentId, @Argument ItemFilter filter,
+                                       @Argument ItemOrderBy orderBy) {
         if (parentId == null || parentId.isBlank()) {
             return Flux.error(new IllegalArgumentException("Parent ID is required and cannot be blank"));
         }
-        return service.getChildrenByParent(parentId);
+        if ((filter == null || filter.isEmpty()) && orderBy == null) {
+            return service.getChildrenByParent(parentId);
+        }
+        return service.findItems(parentId, filter, orderBy);
     }
 
     /**
@@ -143,12 +235,16 @@ public class ItemGraphqlController {
      *
      * @param id the item to move
      * @param parentId the new parent ID
+     * @param expectedVersion version the client last read; rejects the move if stale (optional)
+     * @param idempotencyKey key making retries safe (optional)
      * @return Mono of moved item
      */
     @MutationMapping
-    public Mono<Item> moveItem(@Argument String id, @Argument String parentId) {
+    public Mono<Item> moveItem(@Argument String id, @Argument String parentId,
+                               @Argument Long expectedVersion, @Argument String idempotencyKey) {
         return validateNonBlankId(id, "Item ID")
                 .then(validateNonBlankId(parentId, "Parent ID"))
-                .then(Mono.defer(() -> service.moveItemToParent(id, parentId)));
+                .then(idempotentItem(idempotencyKey, "moveItem", Arrays.asList(id, parentId, expectedVersion),
+                        () -> service.moveItemToParent(id, parentId, expectedVersion)));
     }
 }
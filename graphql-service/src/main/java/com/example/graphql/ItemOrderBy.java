@@ -0,0 +1,21 @@
+package com.example.graphql;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Ordering for item queries.
+ *
+ * @param field the sort key
+ * @param direction sort direction (defaults to ascending)
+ */
+public record ItemOrderBy(ItemSortField field, Sort.Direction direction) {
+
+    public ItemOrderBy {
+        if (field == null) {
+            throw new IllegalArgumentException("Sort field is required");
+        }
+        if (direction == null) {
+            direction = Sort.Direction.ASC;
+        }
+    }
+}
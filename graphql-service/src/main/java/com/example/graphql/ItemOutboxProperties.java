@@ -0,0 +1,55 @@
+package com.example.graphql;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the item change outbox relay.
+ *
+ * <p>The polling interval is configured with {@code items.outbox.poll-interval-ms}. While the relay
+ * is enabled a durable sink must be configured; with the relay disabled, events are kept in the
+ * outbox table until it is enabled again.</p>
+ */
+@Component
+@ConfigurationProperties(prefix = "items.outbox")
+public class ItemOutboxProperties {
+    /** Whether the relay drains the outbox. */
+    private boolean enabled = true;
+    /** Sink receiving the events: {@code rabbit}. No default, events must not be dropped silently. */
+    private String sink;
+    /** Maximum number of events drained, published and deleted per round trip. */
+    private int batchSize = 1000;
+    /** Exchange used by the RabbitMQ sink. */
+    private String exchange = "graphite-forge.items";
+    /** Routing key prefix used by the RabbitMQ sink; the event type is appended in lower case. */
+    private String routingKeyPrefix = "item.";
+    /** Maximum time to wait for broker confirms of one batch. */
+    private Duration confirmTimeout = Duration.ofSeconds(10);
+
+    /** @return whether the relay is enabled */
+    public boolean isEnabled() { return enabled; }
+    /** @param enabled whether the relay is enabled */
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    /** @return configured sink */
+    public String getSink() { return sink; }
+    /** @param sink configured sink */
+    public void setSink(String sink) { this.sink = sink; }
+    /** @return events per batch */
+    public int getBatchSize() { return batchSize; }
+    /** @param batchSize events per batch */
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    /** @return RabbitMQ exchange */
+    public String getExchange() { return exchange; }
+    /** @param exchange RabbitMQ exchange */
+    public void setExchange(String exchange) { this.exchange = exchange; }
+    /** @return RabbitMQ routing key prefix */
+    public String getRoutingKeyPrefix() { return routingKeyPrefix; }
+    /** @param routingKeyPrefix RabbitMQ routing key prefix */
+    public void setRoutingKeyPrefix(String routingKeyPrefix) { this.routingKeyPrefix = routingKeyPrefix; }
+    /** @return broker confirm timeout */
+    public Duration getConfirmTimeout() { return confirmTimeout; }
+    /** @param confirmTimeout broker confirm timeout */
+    public void setConfirmTimeout(Duration confirmTimeout) { this.confirmTimeout = confirmTimeout; }
+}
@@ -0,0 +1,98 @@
+package com.example.graphql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background relay draining the item change outbox.
+ *
+ * <p>Each round trip reads up to {@link ItemOutboxProperties#getBatchSize()} events, publishes them
+ * to the {@link ItemEventSink} as one batch and deletes them with one statement. Full batches are
+ * followed immediately by the next one, so a backlog drains at batch speed rather than poll speed.
+ * Rows are only deleted after the sink accepted them (at-least-once delivery).</p>
+ *
+ * <p>Disabled with {@code items.outbox.enabled=false}. When enabled, startup fails unless a sink is
+ * configured with {@code items.outbox.sink}.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "items.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class ItemOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemOutboxRelay.class);
+
+    private final ItemOutboxRepository outbox;
+    private final ItemEventSink sink;
+    private final ItemOutboxProperties properties;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    public ItemOutboxRelay(ItemOutboxRepository outbox, ObjectProvider<ItemEventSink> sinks,
+                           ItemOutboxProperties properties) {
+        this(outbox, requireSink(sinks.getIfUnique(), properties), properties);
+    }
+
+    ItemOutboxRelay(ItemOutboxRepository outbox, ItemEventSink sink, ItemOutboxProperties properties) {
+        this.outbox = outbox;
+        this.sink = sink;
+        this.properties = properties;
+    }
+
+    private static ItemEventSink requireSink(ItemEventSink sink, ItemOutboxProperties properties) {
+        if (sink == null) {
+            throw new IllegalStateException("The item outbox relay is enabled but no event sink is configured for"
+                    + " items.outbox.sink=" + properties.getSink() + "; configure a sink (rabbit) or set"
+                    + " items.outbox.enabled=false");
+        }
+        return sink;
+    }
+
+    /**
+     * Drains the outbox until a batch comes back partially filled.
+     *
+     * @return Mono with the number of events published in this run
+     */
+    @Scheduled(fixedDelayString = "${items.outbox.poll-interval-ms:500}")
+    public Mono<Long> drain() {
+        return Mono.defer(() -> {
+            if (!running.compareAndSet(false, true)) {
+                return Mono.just(0L);
+            }
+            return drainFrom(0L)
+                    .doOnNext(published -> {
+                        if (published > 0) {
+                            log.debug("Outbox relay published {} item events", published);
+                        }
+                    })
+                    .doOnError(e -> log.error("Outbox relay failed; events will be retried", e))
+                    .onErrorResume(e -> Mono.just(0L))
+                    .doFinally(signal -> running.set(false));
+        });
+    }
+
+    private Mono<Long> drainFrom(long publishedSoFar) {
+        int batchSize = properties.getBatchSize();
+        return outbox.findBatch(batchSize)
+                .collectList()
+                .flatMap(batch -> {
+                    if (batch.isEmpty()) {
+                        return Mono.just(publishedSoFar);
+                    }
+                    List<Long> ids = batch.stream().map(ItemChangeEvent::id).toList();
+                    Mono<Long> published = sink.publish(batch)
+                            .then(outbox.deleteByIdIn(ids))
+                            .thenReturn(publishedSoFar + batch.size());
+                    return batch.size() < batchSize
+                            ? published
+                            : published.flatMap(this::drainFrom);
+                });
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.graphql;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Reactive repository for the item change outbox.
+ */
+public interface ItemOutboxRepository extends ReactiveCrudRepository<ItemChangeEvent, Long> {
+
+    /**
+     * Append an event; must run in the transaction of the item mutation.
+     *
+     * @param itemId the changed item
+     * @param eventType kind of change
+     * @param name item name after the change
+     * @param description item description after the change
+     * @param parentId parent item ID after the change
+     * @return Mono with the number of inserted rows
+     */
+    @Modifying
+    @Query("INSERT INTO item_outbox (item_id, event_type, name, description, parent_id)" +
+           " VALUES (:itemId, :eventType, :name, :description, :parentId)")
+    Mono<Integer> append(String itemId, String eventType, String name, String description, String parentId);
+
+    /**
+     * Fetch the oldest pending events.
+     *
+     * @param limit maximum number of events
+     * @return Flux of events in sequence order
+     */
+    @Query("SELECT * FROM item_outbox ORDER BY id LIMIT :limit")
+    Flux<ItemChangeEvent> findBatch(int limit);
+
+    /**
+     * Remove published events in one statement.
+     *
+     * @param ids sequence numbers of published events
+     * @return Mono with the number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM item_outbox WHERE id IN (:ids)")
+    Mono<Integer> deleteByIdIn(Collection<Long> ids);
+}
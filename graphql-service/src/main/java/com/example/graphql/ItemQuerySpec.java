@@ -0,0 +1,149 @@
+package com.example.graphql;
+
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles an {@link ItemFilter} and {@link ItemOrderBy} into a parameterized SQL statement.
+ *
+ * <p>User input only ever reaches the database as bind parameters; column names come from
+ * {@link ItemSortField}. The {@code hasChildren} predicate needs a correlated {@code EXISTS}
+ * subquery, which is why the statement is rendered here rather than through
+ * {@code Criteria}.</p>
+ */
+final class ItemQuerySpec {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private final String sql;
+    private final Map<String, Object> bindings;
+
+    private ItemQuerySpec(String sql, Map<String, Object> bindings) {
+        this.sql = sql;
+        this.bindings = Collections.unmodifiableMap(bindings);
+    }
+
+    /**
+     * Builds the statement for the given scope, filter and ordering.
+     *
+     * @param parentId restrict to children of this parent (optional)
+     * @param filter filter predicates (optional)
+     * @param orderBy ordering (optional, defaults to newest first)
+     * @return the compiled statement
+     */
+    static ItemQuerySpec of(String parentId, ItemFilter filter, ItemOrderBy orderBy) {
+        List<String> predicates = new ArrayList<>();
+        Map<String, Object> bindings = new LinkedHashMap<>();
+
+        // Tombstoned subtrees are invisible until reclaimed. Children of a visible parent are
+        // visible unless tombstoned themselves; without a parent, walk down from the live roots.
+        String visibility;
+        if (parentId != null) {
+            visibility = ItemRepository.PARENT_ANCESTORS_CTE;
+            predicates.add("i.parent_id = :parentId");
+            predicates.add("i.deleted_at IS NULL");
+            predicates.add("NOT EXISTS (SELECT 1 FROM parent_ancestors WHERE deleted_at IS NOT NULL)");
+            bindings.put("parentId", parentId);
+        } else {
+            visibility = ItemRepository.VISIBLE_ITEMS_CTE;
+            predicates.add("i.id IN (SELECT id FROM visible)");
+        }
+
+        if (filter != null) {
+            if (filter.namePrefix() != null && !filter.namePrefix().isEmpty()) {
+                predicates.add("i.name LIKE :namePrefix ESCAPE '\\'");
+                bindings.put("namePrefix", escapeLike(filter.namePrefix()) + "%");
+            }
+            if (filter.nameContains() != null && !filter.nameContains().isEmpty()) {
+                predicates.add("LOWER(i.name) LIKE :nameContains ESCAPE '\\'");
+                bindings.put("nameContains", "%" + escapeLike(filter.nameContains().toLowerCase()) + "%");
+            }
+            addRange(predicates, bindings, "created_at", "createdAfter", filter.createdAfter(),
+                    "createdBefore", filter.createdBefore());
+            addRange(predicates, bindings, "updated_at", "updatedAfter", filter.updatedAfter(),
+                    "updatedBefore", filter.updatedBefore());
+            if (filter.hasChildren() != null) {
+                predicates.add((filter.hasChildren() ? "" : "NOT ")
+                        + "EXISTS (SELECT 1 FROM items c WHERE c.parent_id = i.id)");
+            }
+        }
+
+        StringBuilder sql = new StringBuilder(visibility)
+                .append("SELECT i.* FROM items i WHERE ")
+                .append(String.join(" AND ", predicates));
+        if (orderBy != null) {
+            sql.append(" ORDER BY i.").append(orderBy.field().column())
+               .append(' ').append(orderBy.direction().name());
+        } else {
+            sql.append(" ORDER BY i.created_at DESC");
+        }
+        // Stable ordering for rows sharing the same sort key
+        sql.append(", i.id ASC");
+
+        return new ItemQuerySpec(sql.toString(), bindings);
+    }
+
+    /** @return the SQL statement with named parameters */
+    String sql() {
+        return sql;
+    }
+
+    /** @return bind values keyed by parameter name */
+    Map<String, Object> bindings() {
+        return bindings;
+    }
+
+    /**
+     * Runs the statement.
+     *
+     * @param template template providing the connection and the entity mapping
+     * @return Flux of matching items
+     */
+    Flux<Item> execute(R2dbcEntityTemplate template) {
+        DatabaseClient.GenericExecuteSpec statement = template.getDatabaseClient().sql(sql);
+        for (var binding : bindings.entrySet()) {
+            statement = statement.bind(binding.getKey(), binding.getValue());
+        }
+        return statement
+                .map((row, metadata) -> template.getConverter().read(Item.class, row, metadata))
+                .all();
+    }
+
+    private static void addRange(List<String> predicates, Map<String, Object> bindings, String column,
+                                 String lowerName, Instant lower, String upperName, Instant upper) {
+        if (lower != null) {
+            predicates.add("i." + column + " >= :" + lowerName);
+            bindings.put(lowerName, toTimestamp(lower));
+        }
+        if (upper != null) {
+            predicates.add("i." + column + " < :" + upperName);
+            bindings.put(upperName, toTimestamp(upper));
+        }
+    }
+
+    private static LocalDateTime toTimestamp(Instant instant) {
+        // Columns are TIMESTAMP WITHOUT TIME ZONE and populated in UTC
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 4);
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
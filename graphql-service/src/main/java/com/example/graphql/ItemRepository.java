@@ -1,24 +1,99 @@
 package com.example.graphql;
 
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 /**
  * Reactive repository for hierarchical Item entities.
  *
  * <p>Extends ReactiveCrudRepository to provide non-blocking CRUD operations
- * for Item records. Includes custom queries for hierarchical relationships.</p>
+ * for Item records. Includes custom queries for hierarchical relationships.
+ * Read methods hide tombstoned subtrees that are still waiting to be reclaimed. Tombstoning
+ * detaches the subtree root, so an item is hidden exactly when the root of its tree is
+ * tombstoned: lookups walk up from the item in O(depth), listings walk down from live roots,
+ * and neither depends on how many items are pending reclamation.</p>
  */
 public interface ItemRepository extends ReactiveCrudRepository<Item, String> {
-    
+
+    /**
+     * Common table expression {@code visible(id)} walking down from every live root. Tombstoned
+     * items are detached roots, so their subtrees are never reached.
+     */
+    String VISIBLE_ITEMS_CTE =
+            "WITH RECURSIVE visible(id) AS (" +
+            "  SELECT id FROM items WHERE parent_id IS NULL AND deleted_at IS NULL" +
+            "  UNION ALL" +
+            "  SELECT c.id FROM items c INNER JOIN visible v ON c.parent_id = v.id" +
+            ") ";
+
+    /**
+     * Common table expression {@code ancestors} walking from {@code :id} up to its root,
+     * used to check visibility of a single item in O(depth).
+     */
+    String ANCESTORS_CTE =
+            "WITH RECURSIVE ancestors(id, parent_id, deleted_at) AS (" +
+            "  SELECT id, parent_id, deleted_at FROM items WHERE id = :id" +
+            "  UNION ALL" +
+            "  SELECT p.id, p.parent_id, p.deleted_at FROM items p" +
+            "  INNER JOIN ancestors a ON p.id = a.parent_id" +
+            ") ";
+
+    /**
+     * Common table expression {@code parent_ancestors} walking from {@code :parentId} up to its root,
+     * used to check that children of a parent are visible in O(depth).
+     */
+    String PARENT_ANCESTORS_CTE =
+            "WITH RECURSIVE parent_ancestors(id, parent_id, deleted_at) AS (" +
+            "  SELECT id, parent_id, deleted_at FROM items WHERE id = :parentId" +
+            "  UNION ALL" +
+            "  SELECT p.id, p.parent_id, p.deleted_at FROM items p" +
+            "  INNER JOIN parent_ancestors a ON p.id = a.parent_id" +
+            ") ";
+
+    /**
+     * Find all visible items.
+     *
+     * @return Flux of items outside tombstoned subtrees
+     */
+    @Override
+    @Query(VISIBLE_ITEMS_CTE + "SELECT * FROM items WHERE id IN (SELECT id FROM visible)")
+    Flux<Item> findAll();
+
+    /**
+     * Find a visible item by ID.
+     *
+     * @param id the item ID
+     * @return Mono of the item, empty if missing or inside a tombstoned subtree
+     */
+    @Override
+    @Query(ANCESTORS_CTE + "SELECT * FROM items WHERE id = :id" +
+           " AND NOT EXISTS (SELECT 1 FROM ancestors WHERE deleted_at IS NOT NULL)")
+    Mono<Item> findById(String id);
+
+    /**
+     * Check whether a visible item exists.
+     *
+     * @param id the item ID
+     * @return Mono containing true if the item exists and is not tombstoned
+     */
+    @Override
+    @Query(ANCESTORS_CTE + "SELECT COUNT(*) > 0 FROM ancestors WHERE id = :id" +
+           " AND NOT EXISTS (SELECT 1 FROM ancestors WHERE deleted_at IS NOT NULL)")
+    Mono<Boolean> existsById(String id);
+
     /**
      * Find all children of a parent item.
      * 
      * @param parentId the parent item ID
-     * @return Flux of child items
+     * @return Flux of child items, empty if the parent is inside a tombstoned subtree
      */
+    @Query(PARENT_ANCESTORS_CTE + "SELECT * FROM items WHERE parent_id = :parentId AND deleted_at IS NULL" +
+           " AND NOT EXISTS (SELECT 1 FROM parent_ancestors WHERE deleted_at IS NOT NULL)")
     Flux<Item> findByParentId(String parentId);
 
     /**
@@ -26,7 +101,7 @@ public interface ItemRepository extends ReactiveCrudRepository<Item, String> {
      * 
      * @return Flux of root items ordered by creation date
      */
-    @Query("SELECT * FROM items WHERE parent_id IS NULL ORDER BY created_at DESC")
+    @Query("SELECT * FROM items WHERE parent_id IS NULL AND deleted_at IS NULL ORDER BY created_at DESC")
     Flux<Item> findRootItems();
 
     /**
@@ -56,4 +131,65 @@ public interface ItemRepository extends ReactiveCrudRepository<Item, String> {
      */
     @Query("SELECT COUNT(*) FROM items WHERE parent_id = :parentId")
     Mono<Long> countChildren(String parentId);
+
+    /**
+     * Detach an item from its parent and tombstone it, hiding its whole subtree.
+     *
+     * @param id the subtree root
+     * @return Mono with the number of updated rows (0 if missing or already tombstoned)
+     */
+    @Modifying
+    @Query("UPDATE items SET deleted_at = CURRENT_TIMESTAMP, parent_id = NULL, version = version + 1" +
+           " WHERE id = :id AND deleted_at IS NULL")
+    Mono<Integer> tombstone(String id);
+
+    /**
+     * Find IDs of all tombstoned subtree roots.
+     *
+     * @return Flux of root IDs, oldest tombstone first
+     */
+    @Query("SELECT id FROM items WHERE deleted_at IS NOT NULL ORDER BY deleted_at")
+    Flux<String> findTombstonedRootIds();
+
+    /**
+     * Count all descendants of an item.
+     *
+     * @param rootId the subtree root
+     * @return Mono with the number of descendants (excluding the root)
+     */
+    @Query("WITH RECURSIVE subtree(id) AS (" +
+           "  SELECT id FROM items WHERE parent_id = :rootId" +
+           "  UNION ALL" +
+           "  SELECT c.id FROM items c INNER JOIN subtree s ON c.parent_id = s.id" +
+           ") SELECT COUNT(*) FROM subtree")
+    Mono<Long> countDescendants(String rootId);
+
+    /**
+     * Find a bounded batch of direct children of an item.
+     *
+     * @param parentId the parent item ID
+     * @param limit maximum number of IDs to return
+     * @return Flux of child IDs
+     */
+    @Query("SELECT id FROM items WHERE parent_id = :parentId ORDER BY id LIMIT :limit")
+    Flux<String> findChildIds(String parentId, int limit);
+
+    /**
+     * Find which of the given items have children.
+     *
+     * @param ids the candidate parent IDs
+     * @return Flux of the IDs that are the parent of at least one item
+     */
+    @Query("SELECT DISTINCT parent_id FROM items WHERE parent_id IN (:ids)")
+    Flux<String> findParentIdsIn(Collection<String> ids);
+
+    /**
+     * Delete a batch of items by ID.
+     *
+     * @param ids the IDs to delete
+     * @return Mono with the number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM items WHERE id IN (:ids)")
+    Mono<Integer> deleteByIdIn(Collection<String> ids);
 }
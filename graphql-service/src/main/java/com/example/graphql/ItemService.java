@@ -3,7 +3,10 @@ package com.example.graphql;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -11,7 +14,8 @@ import reactor.core.publisher.Mono;
  * Service layer for Item business logic.
  *
  * <p>Encapsulates CRUD operations, validation, and feature toggle checks.
- * Provides a clean separation between the GraphQL controller and repository layer.</p>
+ * Provides a clean separation between the GraphQL controller and repository layer.
+ * Every mutation records an {@link ItemChangeEvent} in the outbox within its transaction.</p>
  */
 @Service
 public class ItemService {
@@ -22,6 +26,18 @@ public class ItemService {
     @Autowired
     private CrudFeatures features;
 
+    @Autowired
+    private R2dbcEntityTemplate template;
+
+    @Autowired
+    private ItemDeletionRepository deletions;
+
+    @Autowired
+    private TransactionalOperator transactionalOperator;
+
+    @Autowired
+    private ItemEventOutbox outbox;
+
     /**
      * Retrieves all items if read is enabled.
      *
@@ -36,6 +52,28 @@ public class ItemService {
                 .onErrorResume(e -> Flux.error(new ItemDatabaseException("Failed to retrieve items", e)));
     }
 
+    /**
+     * Retrieves items matching a filter and ordering if read is enabled.
+     *
+     * <p>The filter and ordering are compiled into a single parameterized SQL statement,
+     * so only matching rows leave the database.</p>
+     *
+     * @param parentId restrict to children of this parent (optional)
+     * @param filter filter predicates (optional)
+     * @param orderBy ordering (optional)
+     * @return Flux of matching items
+     * @throws IllegalStateException if read operation is disabled
+     * @throws ItemDatabaseException if database error occurs
+     */
+    public Flux<Item> findItems(String parentId, ItemFilter filter, ItemOrderBy orderBy) {
+        if (!features.isReadEnabled()) {
+            return Flux.error(new ItemOperationDisabledException("Read operation is disabled"));
+        }
+        return ItemQuerySpec.of(parentId, filter, orderBy)
+                .execute(template)
+                .onErrorResume(e -> Flux.error(new ItemDatabaseException("Failed to query items", e)));
+    }
+
     /**
      * Retrieves a single item by ID if read is enabled.
      *
@@ -74,38 +112,49 @@ public class ItemService {
         // Create with null ID so database generates it
         Item newItem = new Item(null, item.name(), item.description());
         return repo.save(newItem)
+                .flatMap(saved -> outbox.append(ItemChangeType.CREATED, saved).thenReturn(saved))
+                .as(transactionalOperator::transactional)
                 .onErrorResume(e -> Mono.error(new ItemDatabaseException("Failed to create item", e)));
     }
 
     /**
      * Updates an existing item if update is enabled.
      *
+     * <p>The write is conditional on the version that was read; a concurrent update in
+     * between fails with {@link ItemVersionConflictException} instead of being overwritten.</p>
+     *
      * @param id item ID (must not be blank)
      * @param name new name (optional)
      * @param description new description (optional)
+     * @param expectedVersion version the client last read (optional)
      * @return Mono of updated Item
      * @throws IllegalStateException if update operation is disabled
      * @throws ItemNotFoundException if item not found
+     * @throws ItemVersionConflictException if the item was modified concurrently
      * @throws ItemDatabaseException if database error occurs
      */
     public Mono<Item> updateItem(
             @NotBlank(message = "Item ID cannot be blank") String id,
             String name,
-            String description) {
+            String description,
+            Long expectedVersion) {
         if (!features.isUpdateEnabled()) {
             return Mono.error(new ItemOperationDisabledException("Update operation is disabled"));
         }
 
         return repo.findById(id)
                 .switchIfEmpty(Mono.error(new ItemNotFoundException(id)))
+                .flatMap(existingItem -> checkVersion(existingItem, expectedVersion))
                 .map(existingItem -> new Item(
                         existingItem.id(),
                         name != null && !name.isBlank() ? name : existingItem.name(),
-                        description != null ? description : existingItem.description()
+                        description != null ? description : existingItem.description(),
+                        existingItem.parentId(),
+                        existingItem.version()
                 ))
-                .flatMap(updatedItem -> repo.save(updatedItem)
-                        .onErrorResume(e -> Mono.error(new ItemDatabaseException("Failed to update item: " + id, e))))
-                .onErrorResume(ItemNotFoundException.class, e -> Mono.error(e));
+                .flatMap(updatedItem -> saveVersioned(updatedItem, ItemChangeType.UPDATED)
+                        .onErrorMap(e -> !(e instanceof ItemVersionConflictException),
+                                e -> new ItemDatabaseException("Failed to update item: " + id, e)));
     }
 
     /**
@@ -128,11 +177,66 @@ public class ItemService {
                         return Mono.error(new ItemNotFoundException(id));
                     }
                     return repo.deleteById(id)
+                            .then(outbox.append(ItemChangeType.DELETED, id))
                             .thenReturn(true)
+                            .as(transactionalOperator::transactional)
                             .onErrorResume(e -> Mono.error(new ItemDatabaseException("Failed to delete item: " + id, e)));
                 });
     }
 
+    /**
+     * Deletes an item and its subtree without a single large transaction, if delete is enabled.
+     *
+     * <p>The item is detached from its parent and tombstoned in one short statement, which hides
+     * the whole subtree from reads immediately. Descendants are reclaimed in bounded batches by
+     * {@link ItemSubtreeReclaimer}; progress is available through {@link #getItemDeletion(String)}.</p>
+     *
+     * @param id subtree root ID (must not be blank)
+     * @return Mono of true if the subtree was tombstoned
+     * @throws IllegalStateException if delete operation is disabled
+     * @throws ItemNotFoundException if item not found
+     * @throws ItemDatabaseException if database error occurs
+     */
+    public Mono<Boolean> deleteItemDeferred(@NotBlank(message = "Item ID cannot be blank") String id) {
+        if (!features.isDeleteEnabled()) {
+            return Mono.error(new ItemOperationDisabledException("Delete operation is disabled"));
+        }
+
+        return repo.existsById(id)
+                .flatMap(exists -> {
+                    if (!exists) {
+                        return Mono.error(new ItemNotFoundException(id));
+                    }
+                    return repo.tombstone(id)
+                            .flatMap(updated -> updated > 0
+                                    ? deletions.register(id)
+                                            .then(outbox.append(ItemChangeType.SUBTREE_DELETED, id))
+                                            .thenReturn(true)
+                                    : Mono.error(new ItemNotFoundException(id)))
+                            .as(transactionalOperator::transactional)
+                            .onErrorResume(e -> !(e instanceof ItemNotFoundException),
+                                    e -> Mono.error(new ItemDatabaseException("Failed to delete item: " + id, e)));
+                });
+    }
+
+    /**
+     * Retrieves the progress of a deferred subtree deletion if read is enabled.
+     *
+     * @param rootId the subtree root ID passed to {@link #deleteItemDeferred(String)}
+     * @return Mono of the deletion progress
+     * @throws IllegalStateException if read operation is disabled
+     * @throws ItemNotFoundException if no deferred deletion exists for the ID
+     */
+    public Mono<ItemDeletion> getItemDeletion(@NotBlank(message = "Item ID cannot be blank") String rootId) {
+        if (!features.isReadEnabled()) {
+            return Mono.error(new ItemOperationDisabledException("Read operation is disabled"));
+        }
+        return deletions.findById(rootId)
+                .switchIfEmpty(Mono.error(new ItemNotFoundException(rootId)))
+                .onErrorMap(e -> !(e instanceof ItemNotFoundException),
+                        e -> new ItemDatabaseException("Failed to retrieve deletion: " + rootId, e));
+    }
+
     /**
      * Retrieves all root items (items without parent) if read is enabled.
      *
@@ -165,19 +269,23 @@ public class ItemService {
 
     /**
      * Moves an item to a new parent if update is enabled.
-     * Prevents circular references.
+     * Prevents circular references and moves under a parent that is hidden by a pending
+     * deletion, which would hide the item too and have it reclaimed with that subtree.
      *
      * @param itemId the item to move (must not be blank)
      * @param parentId the new parent ID (must not be blank)
+     * @param expectedVersion version the client last read (optional)
      * @return Mono of updated Item
      * @throws IllegalStateException if update operation is disabled
-     * @throws ItemNotFoundException if item not found
+     * @throws ItemNotFoundException if the item or the parent is not found or being deleted
      * @throws IllegalArgumentException if circular reference detected
+     * @throws ItemVersionConflictException if the item was modified concurrently
      * @throws ItemDatabaseException if database error occurs
      */
     public Mono<Item> moveItemToParent(
             @NotBlank(message = "Item ID cannot be blank") String itemId,
-            @NotBlank(message = "Parent ID cannot be blank") String parentId) {
+            @NotBlank(message = "Parent ID cannot be blank") String parentId,
+            Long expectedVersion) {
         if (!features.isUpdateEnabled()) {
             return Mono.error(new ItemOperationDisabledException("Update operation is disabled"));
         }
@@ -189,6 +297,11 @@ public class ItemService {
 
         return repo.findById(itemId)
                 .switchIfEmpty(Mono.error(new ItemNotFoundException(itemId)))
+                .flatMap(existingItem -> checkVersion(existingItem, expectedVersion))
+                .flatMap(existingItem -> repo.existsById(parentId)
+                        .flatMap(exists -> exists
+                                ? Mono.just(existingItem)
+                                : Mono.error(new ItemNotFoundException(parentId))))
                 .flatMap(existingItem -> 
                     // Check for circular reference
                     repo.isValidParent(itemId, parentId)
@@ -200,12 +313,36 @@ public class ItemService {
                             }
                             // Create updated item with new parent
                             Item movedItem = new Item(existingItem.id(), existingItem.name(), 
-                                                     existingItem.description(), parentId);
-                            return repo.save(movedItem);
+                                                     existingItem.description(), parentId,
+                                                     existingItem.version());
+                            return saveVersioned(movedItem, ItemChangeType.MOVED);
                         })
                 )
                 .onErrorResume(ItemNotFoundException.class, e -> Mono.error(e))
+                .onErrorResume(ItemVersionConflictException.class, e -> Mono.error(e))
                 .onErrorResume(IllegalArgumentException.class, e -> Mono.error(e))
                 .onErrorResume(e -> Mono.error(new ItemDatabaseException("Failed to move item: " + itemId, e)));
     }
+
+    /**
+     * Fails fast if the client's expected version is already stale.
+     */
+    private Mono<Item> checkVersion(Item existingItem, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(existingItem.version())) {
+            return Mono.error(new ItemVersionConflictException(existingItem.id(), expectedVersion));
+        }
+        return Mono.just(existingItem);
+    }
+
+    /**
+     * Saves an item with a version-conditional update and records the change in the outbox.
+     * A lost race surfaces as {@link ItemVersionConflictException}.
+     */
+    private Mono<Item> saveVersioned(Item item, ItemChangeType changeType) {
+        return repo.save(item)
+                .flatMap(saved -> outbox.append(changeType, saved).thenReturn(saved))
+                .as(transactionalOperator::transactional)
+                .onErrorMap(OptimisticLockingFailureException.class,
+                        e -> new ItemVersionConflictException(item.id(), item.version(), e));
+    }
 }
@@ -0,0 +1,23 @@
+package com.example.graphql;
+
+/**
+ * Sort keys supported by item queries.
+ *
+ * <p>Each key maps to an indexed column (see {@code V1.2__Add_Item_Query_Indexes.sql}).</p>
+ */
+public enum ItemSortField {
+    NAME("name"),
+    CREATED_AT("created_at"),
+    UPDATED_AT("updated_at");
+
+    private final String column;
+
+    ItemSortField(String column) {
+        this.column = column;
+    }
+
+    /** @return the database column backing this sort key */
+    public String column() {
+        return column;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.graphql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background job reclaiming tombstoned subtrees in bounded batches.
+ *
+ * <p>Each run picks up every tombstoned root and walks its subtree once, depth first: children are
+ * read in batches of {@link ItemDeletionProperties#getBatchSize()} rows, the subtrees below them
+ * are reclaimed first, and then the batch itself is deleted. Deleting an item without children
+ * never cascades, so every statement touches a bounded number of rows and other writers are
+ * never blocked for long. The root itself is deleted last. Progress is recorded in
+ * {@code item_deletions} after every batch.</p>
+ */
+@Component
+public class ItemSubtreeReclaimer {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemSubtreeReclaimer.class);
+
+    private final ItemRepository items;
+    private final ItemDeletionRepository deletions;
+    private final ItemDeletionProperties properties;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ItemSubtreeReclaimer(ItemRepository items, ItemDeletionRepository deletions,
+                                ItemDeletionProperties properties) {
+        this.items = items;
+        this.deletions = deletions;
+        this.properties = properties;
+    }
+
+    /**
+     * Reclaims all pending tombstoned subtrees, one root at a time.
+     *
+     * @return Mono completing when every pending subtree has been reclaimed
+     */
+    @Scheduled(fixedDelayString = "${items.deletion.reclaim-interval-ms:5000}")
+    public Mono<Void> reclaimPending() {
+        return Mono.defer(() -> {
+            if (!running.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            return items.findTombstonedRootIds()
+                    .concatMap(this::reclaim)
+                    .then()
+                    .doOnError(e -> log.error("Subtree reclamation failed", e))
+                    .onErrorResume(e -> Mono.empty())
+                    .doFinally(signal -> running.set(false));
+        });
+    }
+
+    /**
+     * Reclaims one tombstoned subtree.
+     *
+     * @param rootId the tombstoned root
+     * @return Mono with the number of reclaimed descendants
+     */
+    Mono<Long> reclaim(String rootId) {
+        return items.countDescendants(rootId)
+                .flatMap(total -> deletions.setTotal(rootId, total)
+                        .doOnNext(updated -> log.info("Reclaiming subtree {} ({} descendants)", rootId, total)))
+                .then(drain(rootId, rootId))
+                .flatMap(reclaimed -> items.deleteById(rootId)
+                        .then(deletions.complete(rootId))
+                        .doOnSuccess(updated -> log.info("Reclaimed subtree {} ({} descendants)", rootId, reclaimed))
+                        .thenReturn(reclaimed));
+    }
+
+    /**
+     * Deletes all descendants of an item, one batch of children at a time.
+     *
+     * @return Mono with the number of deleted descendants
+     */
+    private Mono<Long> drain(String rootId, String parentId) {
+        return items.findChildIds(parentId, properties.getBatchSize())
+                .collectList()
+                .flatMap(batch -> {
+                    if (batch.isEmpty()) {
+                        return Mono.just(0L);
+                    }
+                    return items.findParentIdsIn(batch)
+                            .concatMap(child -> drain(rootId, child))
+                            .reduce(0L, Long::sum)
+                            .flatMap(nested -> items.deleteByIdIn(batch)
+                                    .flatMap(deleted -> deletions.addReclaimed(rootId, deleted)
+                                            .thenReturn(nested + deleted)))
+                            .doOnNext(reclaimed -> log.debug("Subtree {}: {} descendants of {} reclaimed",
+                                    rootId, reclaimed, parentId))
+                            .flatMap(reclaimed -> {
+                                // A partial batch was the last one; only full batches pause, so
+                                // many small subtrees do not add up to a long run
+                                if (batch.size() < properties.getBatchSize()) {
+                                    return Mono.just(reclaimed);
+                                }
+                                return Mono.delay(properties.getBatchPause())
+                                        .then(drain(rootId, parentId))
+                                        .map(more -> reclaimed + more);
+                            });
+                });
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.graphql;
+
+/**
+ * Exception thrown when an item was modified concurrently: the version the client read
+ * (or the service loaded) no longer matches the stored version.
+ */
+public class ItemVersionConflictException extends ItemException {
+    private final String itemId;
+    private final Long expectedVersion;
+
+    public ItemVersionConflictException(String itemId, Long expectedVersion) {
+        super(String.format("Item with ID '%s' was modified concurrently (expected version %s)",
+                itemId, expectedVersion));
+        this.itemId = itemId;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public ItemVersionConflictException(String itemId, Long expectedVersion, Throwable cause) {
+        super(String.format("Item with ID '%s' was modified concurrently (expected version %s)",
+                itemId, expectedVersion), cause);
+        this.itemId = itemId;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public String getItemId() {
+        return itemId;
+    }
+
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+}
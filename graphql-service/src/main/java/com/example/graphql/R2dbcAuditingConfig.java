@@ -0,0 +1,32 @@
+package com.example.graphql;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.data.r2dbc.config.EnableR2dbcAuditing;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+/**
+ * R2DBC auditing configuration.
+ *
+ * <p>Populates {@link org.springframework.data.annotation.LastModifiedDate} columns on every save.
+ * Timestamp columns are {@code TIMESTAMP WITHOUT TIME ZONE} holding UTC (see {@link ItemQuerySpec}),
+ * so the clock is UTC regardless of the JVM's default zone.</p>
+ */
+@Configuration
+@EnableR2dbcAuditing(dateTimeProviderRef = "utcDateTimeProvider")
+public class R2dbcAuditingConfig {
+
+    /**
+     * Clock for auditing timestamps.
+     *
+     * @return provider of the current UTC time
+     */
+    @Bean
+    public DateTimeProvider utcDateTimeProvider() {
+        return () -> Optional.of(LocalDateTime.now(ZoneOffset.UTC));
+    }
+}
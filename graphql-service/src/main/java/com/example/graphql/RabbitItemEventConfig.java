@@ -0,0 +1,43 @@
+package com.example.graphql;
+
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.support.converter.JacksonJsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * RabbitMQ topology and serialization for item change events.
+ *
+ * <p>The exchange is declared by the auto-configured {@code RabbitAdmin} on first connect. Events
+ * are serialized with the application's {@link JsonMapper}, which the auto-configured
+ * {@code RabbitTemplate} picks up through the {@link MessageConverter} bean.</p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "items.outbox.sink", havingValue = "rabbit")
+public class RabbitItemEventConfig {
+
+    /**
+     * Durable topic exchange receiving item change events, routed by event type.
+     *
+     * @param properties outbox configuration naming the exchange
+     * @return the exchange declaration
+     */
+    @Bean
+    public TopicExchange itemEventExchange(ItemOutboxProperties properties) {
+        return new TopicExchange(properties.getExchange(), true, false);
+    }
+
+    /**
+     * JSON converter for published events.
+     *
+     * @param jsonMapper application JSON mapper
+     * @return message converter
+     */
+    @Bean
+    public MessageConverter itemEventMessageConverter(JsonMapper jsonMapper) {
+        return new JacksonJsonMessageConverter(jsonMapper);
+    }
+}
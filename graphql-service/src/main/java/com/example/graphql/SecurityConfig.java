@@ -40,6 +40,7 @@ public class SecurityConfig {
                 .pathMatchers("/actuator/health", "/actuator/health/live", "/actuator/health/ready").permitAll()  // Health checks + Kubernetes probes
                 .pathMatchers("/actuator/**").authenticated()  // Protect other actuator endpoints
                 .pathMatchers("/graphql").authenticated()  // Protect GraphQL endpoint
+                .pathMatchers("/api/v1/objects/**").authenticated()  // Object content streaming
                 .pathMatchers("/graphiql").permitAll()  // GraphQL IDE for development
                 .anyExchange().permitAll()
             )
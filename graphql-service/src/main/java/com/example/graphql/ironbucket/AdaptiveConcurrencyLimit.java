@@ -0,0 +1,85 @@
+package com.example.graphql.ironbucket;
+
+/**
+ * Concurrency limit that follows observed latency, in the style of a gradient limiter.
+ *
+ * <p>A long-term average of round-trip times serves as the no-load baseline. After each call the
+ * limit moves towards {@code limit * gradient + sqrt(limit)}, where the gradient is the baseline
+ * (with 50% tolerance) divided by the call's latency, clamped to [0.5, 1]: while latency stays near
+ * the baseline the limit grows by the square-root headroom, and once calls queue up inside
+ * Sentinel-Gear it shrinks in proportion. Calls that were dropped (server errors, timeouts) back the
+ * limit off multiplicatively. The limit only grows while at least half of it is in use.</p>
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double BACKOFF_RATIO = 0.9;
+    /** Weight of one sample in the baseline, about a 600-call average. */
+    private static final double BASELINE_WEIGHT = 2.0 / 601;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private double limit;
+    private double baselineRttNanos;
+    private int inFlight;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double smoothing) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.smoothing = smoothing;
+        this.limit = Math.clamp(initialLimit, this.minLimit, this.maxLimit);
+    }
+
+    /** @return true if the call may proceed; it must then be completed or released */
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /** Give back a permit without a latency sample, e.g. for a cancelled call. */
+    synchronized void release() {
+        inFlight--;
+    }
+
+    /**
+     * Give back a permit and adjust the limit.
+     *
+     * @param rttNanos latency of the call
+     * @param dropped whether the call failed in a way that signals overload
+     */
+    synchronized void complete(long rttNanos, boolean dropped) {
+        int inFlightBefore = inFlight--;
+        if (dropped) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+            return;
+        }
+        double rtt = Math.max(1, rttNanos);
+        baselineRttNanos = baselineRttNanos == 0
+                ? rtt
+                : baselineRttNanos * (1 - BASELINE_WEIGHT) + rtt * BASELINE_WEIGHT;
+        if (baselineRttNanos > 2 * rtt) {
+            // Latency fell well below the baseline (e.g. after recovering from a slowdown): catch up faster
+            baselineRttNanos *= 0.95;
+        }
+        if (inFlightBefore < limit / 2) {
+            return;
+        }
+        double gradient = Math.clamp(RTT_TOLERANCE * baselineRttNanos / rtt, 0.5, 1.0);
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.clamp(limit * (1 - smoothing) + target * smoothing, minLimit, maxLimit);
+    }
+
+    /** @return current limit */
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    /** @return calls in flight */
+    synchronized int inFlight() {
+        return inFlight;
+    }
+}
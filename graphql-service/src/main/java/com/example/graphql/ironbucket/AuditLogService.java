@@ -16,6 +16,7 @@ import java.util.Map;
 /**
  * Service for querying audit logs from IronBucket audit service.
  * All audit operations flow through Sentinel-Gear for authentication.
+ * Queries (other than streams) are hedged when request hedging is enabled.
  */
 @Service
 public class AuditLogService {
@@ -23,16 +24,22 @@ public class AuditLogService {
     private static final Logger log = LoggerFactory.getLogger(AuditLogService.class);
 
     private final WebClient webClient;
+    private final Retry retrySpec;
+    private final RetryBudget retryBudget;
+    private final RequestHedging hedging;
     private final String sentinelGearBaseUrl;
 
     public AuditLogService(
             WebClient.Builder webClientBuilder,
-            @Value("${ironbucket.sentinel-gear.base-url:http://localhost:8080}") String sentinelGearBaseUrl
+            @Value("${ironbucket.sentinel-gear.base-url:http://localhost:8080}") String sentinelGearBaseUrl,
+            IronBucketHttpClient httpClient,
+            RequestHedging hedging
     ) {
         this.sentinelGearBaseUrl = sentinelGearBaseUrl;
-        this.webClient = webClientBuilder
-                .baseUrl(sentinelGearBaseUrl)
-                .build();
+        this.webClient = httpClient.webClient(webClientBuilder, sentinelGearBaseUrl);
+        this.retrySpec = httpClient.retrySpec("audit");
+        this.retryBudget = httpClient.retryBudget("audit");
+        this.hedging = hedging;
         log.info("AuditLogService initialized with Sentinel-Gear at {}", sentinelGearBaseUrl);
     }
 
@@ -52,7 +59,8 @@ public class AuditLogService {
                 .retrieve()
                 .bodyToFlux(AuditLogEntryDto.class)
                 .map(this::toAuditLogEntry)
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("getAuditLogs", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get audit logs", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -69,7 +77,8 @@ public class AuditLogService {
                 .retrieve()
                 .bodyToFlux(AuditLogEntryDto.class)
                 .map(this::toAuditLogEntry)
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("getAuditLogsByUser", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get audit logs for user: {}", user, e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -86,7 +95,8 @@ public class AuditLogService {
                 .retrieve()
                 .bodyToFlux(AuditLogEntryDto.class)
                 .map(this::toAuditLogEntry)
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("getAuditLogsByBucket", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get audit logs for bucket: {}", bucketName, e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -103,7 +113,8 @@ public class AuditLogService {
                 .retrieve()
                 .bodyToFlux(AuditLogEntryDto.class)
                 .map(this::toAuditLogEntry)
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("getAuditLogsByAction", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get audit logs for action: {}", action, e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -124,7 +135,8 @@ public class AuditLogService {
                 .retrieve()
                 .bodyToFlux(AuditLogEntryDto.class)
                 .map(this::toAuditLogEntry)
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("getAuditLogsByDateRange", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get audit logs for date range", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -140,7 +152,8 @@ public class AuditLogService {
                 .header("Authorization", "Bearer " + jwtToken)
                 .retrieve()
                 .bodyToMono(Long.class)
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("countAuditLogs", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to count audit logs", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -157,7 +170,8 @@ public class AuditLogService {
                 .retrieve()
                 .bodyToFlux(AuditLogEntryDto.class)
                 .map(this::toAuditLogEntry)
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("getAuditLogsByResult", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get audit logs by result: {}", result, e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -177,7 +191,8 @@ public class AuditLogService {
                 .retrieve()
                 .bodyToFlux(AuditLogEntryDto.class)
                 .map(this::toAuditLogEntry)
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("getRecentAuditLogs", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get recent audit logs", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -215,7 +230,8 @@ public class AuditLogService {
                 .retrieve()
                 .bodyToFlux(AuditLogEntryDto.class)
                 .map(this::toAuditLogEntry)
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("filterAuditLogs", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to filter audit logs", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -232,7 +248,7 @@ public class AuditLogService {
                 .bodyValue(filter)
                 .retrieve()
                 .bodyToMono(byte[].class)
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to export audit logs to CSV", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -249,7 +265,7 @@ public class AuditLogService {
                 .bodyValue(filter)
                 .retrieve()
                 .bodyToMono(byte[].class)
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to export audit logs to JSON", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -266,7 +282,7 @@ public class AuditLogService {
                 .bodyValue(Map.of("filter", filter, "format", format))
                 .retrieve()
                 .bodyToMono(byte[].class)
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to export audit logs with custom format", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -298,7 +314,7 @@ public class AuditLogService {
                 .retrieve()
                 .bodyToFlux(AuditLogEntryDto.class)
                 .map(this::toAuditLogEntry)
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to stream filtered audit logs", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -318,7 +334,8 @@ public class AuditLogService {
                 .retrieve()
                 .bodyToFlux(AuditLogEntryDto.class)
                 .map(this::toAuditLogEntry)
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("getAuditLogsByDate", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get audit logs by date", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -335,7 +352,8 @@ public class AuditLogService {
                 .retrieve()
                 .bodyToFlux(AuditLogEntryDto.class)
                 .map(this::toAuditLogEntry)
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("searchAuditLogsByObjectKey", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to search audit logs by object key: {}", objectKey, e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -352,7 +370,8 @@ public class AuditLogService {
                 .retrieve()
                 .bodyToFlux(AuditLogEntryDto.class)
                 .map(this::toAuditLogEntry)
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("getAuditLogsByIpAddress", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get audit logs by IP: {}", ipAddress, e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -369,7 +388,7 @@ public class AuditLogService {
                 .retrieve()
                 .bodyToFlux(AuditLogEntryDto.class)
                 .map(this::toAuditLogEntry)
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to stream audit logs", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -402,7 +421,8 @@ public class AuditLogService {
                 .bodyToMono(AuditStatisticsDto.class)
                 .map(dto -> new AuditStatistics(dto.totalOperations(), dto.successfulOperations(),
                                                  dto.failedOperations(), dto.uniqueUsers()))
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("getAuditStatistics", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get audit statistics", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -420,7 +440,8 @@ public class AuditLogService {
                 .bodyToFlux(UserActivitySummaryDto.class)
                 .map(dto -> new UserActivitySummary(dto.user(), dto.totalOperations(),
                                                      dto.successfulOperations(), dto.failedOperations()))
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("getTopUsersByActivity", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get top users", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -437,7 +458,8 @@ public class AuditLogService {
                 .retrieve()
                 .bodyToFlux(BucketAccessSummaryDto.class)
                 .map(dto -> new BucketAccessSummary(dto.bucket(), dto.accessCount(), dto.uniqueUsers()))
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("getMostAccessedBuckets", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get most accessed buckets", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -454,7 +476,8 @@ public class AuditLogService {
                 .retrieve()
                 .bodyToFlux(OperationCountDto.class)
                 .map(dto -> new OperationCount(dto.operation(), dto.count()))
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("getOperationDistribution", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get operation distribution", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -471,7 +494,8 @@ public class AuditLogService {
                 .retrieve()
                 .bodyToFlux(HourlyActivityDto.class)
                 .map(dto -> new HourlyActivity(dto.hour(), dto.operationCount()))
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("getHourlyActivity", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get hourly activity", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -489,7 +513,8 @@ public class AuditLogService {
                 .bodyToMono(AuditRetentionPolicyDto.class)
                 .map(dto -> new AuditRetentionPolicy(Duration.ofDays(dto.retentionDays()),
                                                       dto.archiveEnabled(), dto.archiveLocation()))
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("getRetentionPolicy", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get retention policy", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -509,7 +534,7 @@ public class AuditLogService {
                 .bodyToMono(AuditRetentionPolicyDto.class)
                 .map(dto -> new AuditRetentionPolicy(Duration.ofDays(dto.retentionDays()),
                                                       dto.archiveEnabled(), dto.archiveLocation()))
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to update retention policy", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -527,7 +552,7 @@ public class AuditLogService {
                 .bodyToMono(ArchiveResultDto.class)
                 .map(dto -> new ArchiveResult(dto.success(), dto.archivedCount(),
                                                dto.archiveLocation(), dto.archiveTime()))
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to archive audit logs", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -562,14 +587,6 @@ public class AuditLogService {
         return Mono.error(new IronBucketServiceException("IronBucket audit service error: " + e.getMessage(), e));
     }
 
-    private Retry retrySpec() {
-        return Retry.backoff(3, Duration.ofMillis(100))
-                .maxBackoff(Duration.ofSeconds(2))
-                .filter(throwable -> throwable instanceof WebClientResponseException.ServiceUnavailable
-                        || throwable instanceof WebClientResponseException.GatewayTimeout)
-                .doBeforeRetry(signal -> log.warn("Retrying request, attempt: {}", signal.totalRetries() + 1));
-    }
-
     // --- DTOs ---
 
     record AuditLogEntryDto(
@@ -0,0 +1,34 @@
+package com.example.graphql.ironbucket;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Storage used below a bucket prefix.
+ *
+ * @param bucketName Bucket name
+ * @param prefix Key prefix, empty for the whole bucket
+ * @param size Total size in bytes of all objects below the prefix
+ * @param objectCount Number of objects below the prefix
+ * @param byContentType Totals by content type, largest first
+ * @param byAge Totals by age bracket, youngest first
+ * @param computedAt When the listing the totals come from started
+ * @param stale Whether objects below the prefix were written since; uploads and copies are included, but the
+ *              totals are only exact again once reconciled with a listing
+ */
+public record BucketUsage(
+    String bucketName,
+    String prefix,
+    long size,
+    long objectCount,
+    List<UsageBreakdown> byContentType,
+    List<UsageBreakdown> byAge,
+    Instant computedAt,
+    boolean stale
+) {
+    /** @return these totals with the given staleness */
+    public BucketUsage withStale(boolean stale) {
+        return stale == this.stale ? this : new BucketUsage(bucketName, prefix, size, objectCount,
+                byContentType, byAge, computedAt, stale);
+    }
+}
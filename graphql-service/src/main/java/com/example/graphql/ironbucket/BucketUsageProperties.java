@@ -0,0 +1,50 @@
+package com.example.graphql.ironbucket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration of bucket usage aggregation.
+ *
+ * <p>Computed totals are kept per principal scope, bucket and prefix, and objects uploaded or copied
+ * below their prefix are added to them. They are reconciled with a fresh listing once older than
+ * {@code reconcile-interval}, or once older than {@code min-refresh-interval} after a deletion or
+ * another write whose effect on them is unknown.</p>
+ */
+@Component
+@ConfigurationProperties(prefix = "ironbucket.usage")
+public class BucketUsageProperties {
+    /** Whether computed totals are kept between requests. */
+    private boolean enabled = true;
+    /** Age after which unchanged totals are reconciled. */
+    private Duration reconcileInterval = Duration.ofHours(1);
+    /** Minimum age of stale totals, after a write of unknown effect or an applied upload, before they are reconciled. */
+    private Duration minRefreshInterval = Duration.ofMinutes(1);
+    /** Number of prefix shards listed in parallel while computing totals. */
+    private int listingParallelism = 8;
+    /** Maximum number of kept totals across all tenants. */
+    private int maxEntries = 10_000;
+
+    /** @return whether totals are kept */
+    public boolean isEnabled() { return enabled; }
+    /** @param enabled whether totals are kept */
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    /** @return age after which totals are reconciled */
+    public Duration getReconcileInterval() { return reconcileInterval; }
+    /** @param reconcileInterval age after which totals are reconciled */
+    public void setReconcileInterval(Duration reconcileInterval) { this.reconcileInterval = reconcileInterval; }
+    /** @return minimum age before a write triggers reconciliation */
+    public Duration getMinRefreshInterval() { return minRefreshInterval; }
+    /** @param minRefreshInterval minimum age before a write triggers reconciliation */
+    public void setMinRefreshInterval(Duration minRefreshInterval) { this.minRefreshInterval = minRefreshInterval; }
+    /** @return shards listed in parallel */
+    public int getListingParallelism() { return listingParallelism; }
+    /** @param listingParallelism shards listed in parallel */
+    public void setListingParallelism(int listingParallelism) { this.listingParallelism = listingParallelism; }
+    /** @return maximum kept totals */
+    public int getMaxEntries() { return maxEntries; }
+    /** @param maxEntries maximum kept totals */
+    public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+}
@@ -0,0 +1,362 @@
+package com.example.graphql.ironbucket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Storage usage of buckets and key prefixes: total bytes and object count, with breakdowns by
+ * content type and by age.
+ *
+ * <p>Totals are computed from a prefix-sharded listing ({@link IronBucketS3Service#listObjectsSharded})
+ * with the caller's token and kept per principal scope, bucket and prefix. Writes through
+ * {@link IronBucketS3Service}, {@link S3BulkOperationService} and {@link S3MultipartUploader} are
+ * reported by the {@link MetadataCache}. Objects stored by uploads and copies are added to the
+ * totals of every prefix they fall under, replacing what an earlier upload of the same key added;
+ * since a write does not tell whether it replaced an object that was already listed, such totals
+ * are flagged as stale until reconciled. Deletions and other writes whose effect is unknown mark
+ * the totals stale without changing them.</p>
+ *
+ * <p>Kept totals are returned at once. Stale totals older than the minimum refresh interval, and
+ * any totals older than the reconcile interval, are recomputed from a full
+ * listing in the background by the request that finds them. Only the first request for a prefix
+ * waits for the listing, and concurrent requests share it. Lookups are counted in
+ * {@code ironbucket.usage.requests}, tagged by result.</p>
+ */
+@Service
+public class BucketUsageService {
+
+    private static final Logger log = LoggerFactory.getLogger(BucketUsageService.class);
+
+    private static final String DELIMITER = "/";
+    private static final String UNKNOWN = "unknown";
+
+    /** Stored objects applied to one prefix's totals between listings; further writes count as unknown. */
+    private static final int MAX_STORED_KEYS = 1_000;
+
+    /** Upper bounds of the age brackets; older objects fall into the last bracket. */
+    private static final List<Duration> AGE_LIMITS = List.of(
+            Duration.ofDays(1), Duration.ofDays(7), Duration.ofDays(30), Duration.ofDays(90), Duration.ofDays(365));
+    private static final List<String> AGE_LABELS = List.of("<1d", "<7d", "<30d", "<90d", "<1y", ">=1y", UNKNOWN);
+
+    private final IronBucketS3Service s3Service;
+    private final JwtClaimsExtractor claimsExtractor;
+    private final BucketUsageProperties properties;
+    private final Map<Key, Entry> entries;
+    /** Kept totals by bucket, prefix and scope, to find those a write falls under; guarded by the entries lock. */
+    private final Map<String, TreeMap<String, Map<String, Entry>>> prefixes = new HashMap<>();
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+
+    public BucketUsageService(IronBucketS3Service s3Service, JwtClaimsExtractor claimsExtractor,
+                              MetadataCache metadataCache, BucketUsageProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.s3Service = s3Service;
+        this.claimsExtractor = claimsExtractor;
+        this.properties = properties;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= properties.getMaxEntries()) {
+                    return false;
+                }
+                unindex(eldest.getKey());
+                return true;
+            }
+        };
+        this.hits = counter(meterRegistry, "hit");
+        this.staleHits = counter(meterRegistry, "stale");
+        this.misses = counter(meterRegistry, "miss");
+        metadataCache.onWrite(this::written);
+        metadataCache.onStore(this::stored);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("ironbucket.usage.requests")
+                .description("Bucket usage lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Storage used below a prefix.
+     *
+     * @param jwtToken JWT bearer token
+     * @param bucketName Bucket name
+     * @param prefix Key prefix (optional, whole bucket if null or empty)
+     * @return Mono of the usage totals
+     */
+    public Mono<BucketUsage> usage(String jwtToken, String bucketName, String prefix) {
+        if (jwtToken == null || jwtToken.isBlank()) {
+            throw new IllegalArgumentException("JWT token is required");
+        }
+        if (bucketName == null || bucketName.isBlank()) {
+            throw new IllegalArgumentException("Bucket name is required");
+        }
+        String keyPrefix = prefix != null ? prefix : "";
+        if (!properties.isEnabled()) {
+            return compute(jwtToken, bucketName, keyPrefix).map(tally -> tally.toUsage(bucketName, keyPrefix));
+        }
+
+        return claimsExtractor.principalScope(jwtToken).flatMap(scope -> {
+            Key key = new Key(scope, bucketName, keyPrefix);
+            BucketUsage current;
+            boolean stale;
+            Mono<BucketUsage> refresh = null;
+            synchronized (entries) {
+                Entry entry = entry(key);
+                current = entry.usage;
+                stale = entry.isStale();
+                if ((current == null || needsRefresh(entry, current)) && entry.refresh == null) {
+                    entry.refresh = refresh = refresh(jwtToken, key, entry);
+                }
+                if (current == null) {
+                    misses.increment();
+                    return entry.refresh;
+                }
+            }
+            if (refresh != null) {
+                // Reconcile in the background; this request is answered with the kept totals
+                refresh.subscribe(usage -> { }, e -> log.warn("Failed to reconcile usage of {}/{}",
+                        bucketName, keyPrefix, e));
+            }
+            (stale ? staleHits : hits).increment();
+            return Mono.just(current.withStale(stale || refresh != null));
+        });
+    }
+
+    private boolean needsRefresh(Entry entry, BucketUsage usage) {
+        Duration age = Duration.between(usage.computedAt(), Instant.now());
+        Duration limit = entry.isStale()
+                ? properties.getMinRefreshInterval()
+                : properties.getReconcileInterval();
+        return age.compareTo(limit) >= 0;
+    }
+
+    /** @return the kept totals of a key, added to the prefix index if new */
+    private Entry entry(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry();
+            // Indexed first: putting it may evict it right away
+            prefixes.computeIfAbsent(key.bucketName(), bucket -> new TreeMap<>())
+                    .computeIfAbsent(key.prefix(), prefix -> new HashMap<>())
+                    .put(key.scope(), entry);
+            entries.put(key, entry);
+        }
+        return entry;
+    }
+
+    private void unindex(Key key) {
+        TreeMap<String, Map<String, Entry>> byPrefix = prefixes.get(key.bucketName());
+        if (byPrefix == null) {
+            return;
+        }
+        Map<String, Entry> scopes = byPrefix.get(key.prefix());
+        if (scopes != null && scopes.remove(key.scope()) != null && scopes.isEmpty()) {
+            byPrefix.remove(key.prefix());
+            if (byPrefix.isEmpty()) {
+                prefixes.remove(key.bucketName());
+            }
+        }
+    }
+
+    /** @return a shared computation that stores its result in the entry */
+    private Mono<BucketUsage> refresh(String jwtToken, Key key, Entry entry) {
+        long writes = entry.writes;
+        return compute(jwtToken, key.bucketName(), key.prefix())
+                .map(tally -> {
+                    synchronized (entries) {
+                        entry.tally = tally;
+                        entry.usage = tally.toUsage(key.bucketName(), key.prefix());
+                        entry.computedWrites = writes;
+                        entry.adjusted = false;
+                        entry.stored.clear();
+                        return entry.usage.withStale(entry.writes != writes);
+                    }
+                })
+                .doFinally(signal -> {
+                    synchronized (entries) {
+                        entry.refresh = null;
+                    }
+                })
+                .cache();
+    }
+
+    private Mono<UsageTally> compute(String jwtToken, String bucketName, String prefix) {
+        return Mono.defer(() -> {
+            Instant startedAt = Instant.now();
+            return s3Service.listObjectsSharded(jwtToken, bucketName, prefix.isEmpty() ? null : prefix, DELIMITER,
+                            Math.max(1, properties.getListingParallelism()), false)
+                    .collect(() -> new UsageTally(startedAt), UsageTally::add)
+                    .doOnNext(tally -> log.debug("Computed usage of {}/{}: {} objects, {} bytes", bucketName,
+                            prefix, tally.objectCount, tally.size));
+        });
+    }
+
+    /** Mark the totals of every prefix a write falls under; drop a created or deleted bucket's totals. */
+    private void written(String bucketName, Collection<String> objectKeys) {
+        synchronized (entries) {
+            if (objectKeys.isEmpty()) {
+                entries.keySet().removeIf(key -> key.bucketName().equals(bucketName));
+                prefixes.remove(bucketName);
+                return;
+            }
+            TreeMap<String, Map<String, Entry>> byPrefix = prefixes.get(bucketName);
+            if (byPrefix == null) {
+                return;
+            }
+            Set<Entry> affected = new HashSet<>();
+            for (String objectKey : objectKeys) {
+                KeyPrefixes.forEachContaining(byPrefix, objectKey, scopes -> affected.addAll(scopes.values()));
+            }
+            affected.forEach(entry -> entry.writes++);
+        }
+    }
+
+    /** Add an uploaded or copied object to the totals of every prefix it falls under. */
+    private void stored(S3Object object) {
+        synchronized (entries) {
+            TreeMap<String, Map<String, Entry>> byPrefix = prefixes.get(object.bucketName());
+            if (byPrefix != null) {
+                KeyPrefixes.forEachContaining(byPrefix, object.key(),
+                        scopes -> scopes.values().forEach(entry -> entry.store(object)));
+            }
+        }
+    }
+
+    /** Running totals of a listing. */
+    static final class UsageTally {
+        private final Instant now;
+        private long size;
+        private long objectCount;
+        private final Map<String, long[]> byContentType = new HashMap<>();
+        private final long[][] byAge = new long[AGE_LABELS.size()][2];
+
+        UsageTally(Instant now) {
+            this.now = now;
+        }
+
+        void add(S3Object object) {
+            count(object, 1);
+        }
+
+        /** Take back an object added earlier. */
+        void remove(S3Object object) {
+            count(object, -1);
+        }
+
+        private void count(S3Object object, int sign) {
+            long objectSize = sign * (object.size() != null ? object.size() : 0);
+            size += objectSize;
+            objectCount += sign;
+            count(byContentType.computeIfAbsent(contentType(object.contentType()), type -> new long[2]), objectSize,
+                    sign);
+            count(byAge[ageBracket(object.lastModified())], objectSize, sign);
+        }
+
+        BucketUsage toUsage(String bucketName, String prefix) {
+            List<UsageBreakdown> types = new ArrayList<>(byContentType.size());
+            byContentType.forEach((type, totals) -> {
+                if (totals[1] > 0) {
+                    types.add(new UsageBreakdown(type, totals[0], totals[1]));
+                }
+            });
+            types.sort(Comparator.comparingLong(UsageBreakdown::size).reversed()
+                    .thenComparing(UsageBreakdown::label));
+            List<UsageBreakdown> ages = new ArrayList<>(byAge.length);
+            for (int i = 0; i < byAge.length; i++) {
+                if (byAge[i][1] > 0) {
+                    ages.add(new UsageBreakdown(AGE_LABELS.get(i), byAge[i][0], byAge[i][1]));
+                }
+            }
+            return new BucketUsage(bucketName, prefix, size, objectCount, types, ages, now, false);
+        }
+
+        private int ageBracket(Instant lastModified) {
+            if (lastModified == null) {
+                return AGE_LABELS.size() - 1;
+            }
+            Duration age = Duration.between(lastModified, now);
+            for (int i = 0; i < AGE_LIMITS.size(); i++) {
+                if (age.compareTo(AGE_LIMITS.get(i)) < 0) {
+                    return i;
+                }
+            }
+            return AGE_LIMITS.size();
+        }
+
+        /** @return the media type without parameters, lower case */
+        private static String contentType(String contentType) {
+            if (contentType == null || contentType.isBlank()) {
+                return UNKNOWN;
+            }
+            int parameters = contentType.indexOf(';');
+            return (parameters >= 0 ? contentType.substring(0, parameters) : contentType).trim().toLowerCase(Locale.ROOT);
+        }
+
+        private static void count(long[] totals, long objectSize, int objects) {
+            totals[0] += objectSize;
+            totals[1] += objects;
+        }
+    }
+
+    private record Key(String scope, String bucketName, String prefix) {
+    }
+
+    /** Kept totals of one prefix; guarded by the entries lock. */
+    private static final class Entry {
+        UsageTally tally;
+        BucketUsage usage;
+        /**
+         * Writes of unknown effect below the prefix so far, and up to the start of the listing
+         * {@link #tally} comes from.
+         */
+        long writes;
+        long computedWrites;
+        /** Whether stored objects were added to the listing's totals. */
+        boolean adjusted;
+        /** Objects added to the listing's totals, by key. */
+        final Map<String, S3Object> stored = new HashMap<>();
+        Mono<BucketUsage> refresh;
+
+        /** @return whether writes since the listing may have made the totals inexact */
+        boolean isStale() {
+            return writes != computedWrites || adjusted;
+        }
+
+        /** Add a stored object, or count it as a write of unknown effect while no listing can take it. */
+        void store(S3Object object) {
+            if (tally == null || refresh != null
+                    || (stored.size() >= MAX_STORED_KEYS && !stored.containsKey(object.key()))) {
+                writes++;
+                return;
+            }
+            S3Object previous = stored.put(object.key(), object);
+            if (previous != null) {
+                tally.remove(previous);
+            }
+            tally.add(object);
+            adjusted = true;
+            usage = tally.toUsage(usage.bucketName(), usage.prefix());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.graphql.ironbucket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of bulk object operations against IronBucket.
+ */
+@Component
+@ConfigurationProperties(prefix = "ironbucket.bulk")
+public class BulkOperationProperties {
+    /** Keys per multi-object request (S3 allows at most 1000). */
+    private int batchSize = 1000;
+    /** Multi-object requests in flight at once. */
+    private int batchConcurrency = 4;
+    /** Single-object requests in flight at once when fanning out. */
+    private int concurrency = 32;
+    /** Failed objects listed in an operation's summary; further failures are only counted. */
+    private int maxReportedFailures = 1000;
+
+    /** @return keys per multi-object request */
+    public int getBatchSize() { return batchSize; }
+    /** @param batchSize keys per multi-object request */
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    /** @return concurrent multi-object requests */
+    public int getBatchConcurrency() { return batchConcurrency; }
+    /** @param batchConcurrency concurrent multi-object requests */
+    public void setBatchConcurrency(int batchConcurrency) { this.batchConcurrency = batchConcurrency; }
+    /** @return concurrent single-object requests */
+    public int getConcurrency() { return concurrency; }
+    /** @param concurrency concurrent single-object requests */
+    public void setConcurrency(int concurrency) { this.concurrency = concurrency; }
+    /** @return failures listed per summary */
+    public int getMaxReportedFailures() { return maxReportedFailures; }
+    /** @param maxReportedFailures failures listed per summary */
+    public void setMaxReportedFailures(int maxReportedFailures) { this.maxReportedFailures = maxReportedFailures; }
+}
@@ -0,0 +1,66 @@
+package com.example.graphql.ironbucket;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Totals of a bulk operation, listing only the objects that failed.
+ *
+ * <p>Successful objects are only counted, so the summary of an operation over millions of keys
+ * stays small; at most a configured number of failures is kept.</p>
+ *
+ * @param processed Number of objects processed
+ * @param succeeded Number of objects the operation succeeded for
+ * @param failed Number of objects the operation failed for
+ * @param failures Failed objects, in the order they were reported, up to the configured maximum
+ * @param failuresTruncated Whether more objects failed than are listed
+ */
+public record BulkOperationSummary(
+    long processed,
+    long succeeded,
+    long failed,
+    List<ObjectOperationResult> failures,
+    boolean failuresTruncated
+) {
+    /**
+     * Consume a stream of per-object results into a summary.
+     *
+     * @param results per-object results
+     * @param maxFailures failures kept in the summary
+     * @return Mono of the summary, once every result was seen
+     */
+    static Mono<BulkOperationSummary> of(Flux<ObjectOperationResult> results, int maxFailures) {
+        return results.collect(() -> new Tally(Math.max(0, maxFailures)), Tally::add)
+                .map(Tally::summary);
+    }
+
+    private static final class Tally {
+        private final int maxFailures;
+        private final List<ObjectOperationResult> failures = new ArrayList<>();
+        private long succeeded;
+        private long failed;
+
+        Tally(int maxFailures) {
+            this.maxFailures = maxFailures;
+        }
+
+        void add(ObjectOperationResult result) {
+            if (result.success()) {
+                succeeded++;
+                return;
+            }
+            failed++;
+            if (failures.size() < maxFailures) {
+                failures.add(result);
+            }
+        }
+
+        BulkOperationSummary summary() {
+            return new BulkOperationSummary(succeeded + failed, succeeded, failed, List.copyOf(failures),
+                    failed > failures.size());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.graphql.ironbucket;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker with half-open probing.
+ *
+ * <p>While closed, the outcomes of the most recent calls are kept in a ring buffer; once enough
+ * calls were recorded and the failure rate reaches the threshold the circuit opens and rejects
+ * every call. After the open duration it turns half open and admits a fixed number of probes: if
+ * all of them succeed it closes with a fresh window, the first failure opens it again.</p>
+ */
+final class CircuitBreaker {
+
+    enum State { CLOSED, HALF_OPEN, OPEN }
+
+    /** How a call was admitted; passed back with its outcome. */
+    enum Admission { REJECTED, ADMITTED, PROBE }
+
+    private final OverloadProtectionProperties properties;
+    private final LongSupplier nanoClock;
+    private final boolean[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesInFlight;
+    private int probesSucceeded;
+
+    CircuitBreaker(OverloadProtectionProperties properties, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.outcomes = new boolean[Math.max(1, properties.getSlidingWindowSize())];
+    }
+
+    synchronized Admission tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < properties.getOpenDuration().toNanos()) {
+                return Admission.REJECTED;
+            }
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+            probesSucceeded = 0;
+        }
+        if (state == State.CLOSED) {
+            return Admission.ADMITTED;
+        }
+        if (probesInFlight + probesSucceeded >= properties.getHalfOpenProbes()) {
+            return Admission.REJECTED;
+        }
+        probesInFlight++;
+        return Admission.PROBE;
+    }
+
+    /** Record the outcome of an admitted call. */
+    synchronized void complete(Admission admission, boolean failed) {
+        if (admission == Admission.PROBE) {
+            if (state != State.HALF_OPEN) {
+                return;
+            }
+            probesInFlight--;
+            if (failed) {
+                open();
+            } else if (++probesSucceeded >= properties.getHalfOpenProbes()) {
+                close();
+            }
+            return;
+        }
+        if (admission != Admission.ADMITTED || state != State.CLOSED) {
+            // Calls admitted before the circuit opened do not count towards probing
+            return;
+        }
+        if (recorded == outcomes.length) {
+            failures -= outcomes[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failed;
+        failures += failed ? 1 : 0;
+        next = (next + 1) % outcomes.length;
+        if (recorded >= properties.getMinimumCalls()
+                && failures >= properties.getFailureRateThreshold() * recorded) {
+            open();
+        }
+    }
+
+    /** Give back an admission without an outcome, e.g. for a cancelled call. */
+    synchronized void release(Admission admission) {
+        if (admission == Admission.PROBE && state == State.HALF_OPEN) {
+            probesInFlight--;
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    /** @return time until an open circuit starts probing, zero otherwise */
+    synchronized Duration retryAfter() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        long remaining = properties.getOpenDuration().toNanos() - (nanoClock.getAsLong() - openedAt);
+        return Duration.ofNanos(Math.max(0, remaining));
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
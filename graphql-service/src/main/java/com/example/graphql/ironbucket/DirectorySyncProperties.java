@@ -0,0 +1,38 @@
+package com.example.graphql.ironbucket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration of directory-to-bucket synchronization.
+ *
+ * <p>Local files are hashed on {@code hash-parallelism} threads and transferred with at most
+ * {@code concurrency} requests in flight. The size, modification time and digest of every synced
+ * file are kept in a manifest under {@code manifest-directory}, so unchanged files are not re-read
+ * on the next run.</p>
+ */
+@Component
+@ConfigurationProperties(prefix = "ironbucket.sync")
+public class DirectorySyncProperties {
+    /** Maximum number of uploads and deletions in flight. */
+    private int concurrency = 8;
+    /** Number of files hashed in parallel. */
+    private int hashParallelism = Runtime.getRuntime().availableProcessors();
+    /** Directory holding sync manifests. */
+    private Path manifestDirectory = Path.of(System.getProperty("java.io.tmpdir"), "ironbucket-sync");
+
+    /** @return maximum transfers in flight */
+    public int getConcurrency() { return concurrency; }
+    /** @param concurrency maximum transfers in flight */
+    public void setConcurrency(int concurrency) { this.concurrency = concurrency; }
+    /** @return files hashed in parallel */
+    public int getHashParallelism() { return hashParallelism; }
+    /** @param hashParallelism files hashed in parallel */
+    public void setHashParallelism(int hashParallelism) { this.hashParallelism = hashParallelism; }
+    /** @return manifest directory */
+    public Path getManifestDirectory() { return manifestDirectory; }
+    /** @param manifestDirectory manifest directory */
+    public void setManifestDirectory(Path manifestDirectory) { this.manifestDirectory = manifestDirectory; }
+}
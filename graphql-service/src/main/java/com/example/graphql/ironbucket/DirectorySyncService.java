@@ -0,0 +1,348 @@
+package com.example.graphql.ironbucket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Incremental mirroring of a local directory into a bucket.
+ *
+ * <p>The directory is walked and every regular file mapped to the key {@code prefix + relative path}.
+ * Files whose size and modification time match the manifest of the previous run keep their recorded
+ * SHA-256 digest; only new or touched files are read and hashed, in parallel. The local state is
+ * compared with a listing of the prefix: a file is uploaded if its object is missing, differs in
+ * size, or carries (or was last synced with) a different digest. Objects without a local file are
+ * deleted on request. Uploads and deletions run with bounded concurrency, a failure is reported
+ * per object without aborting the rest, and the manifest is saved after every run.</p>
+ *
+ * <p>Files and directories that cannot be read, or vanish while the directory is scanned, are
+ * reported as failures with code {@code UNREADABLE}. Their objects, and any objects below an
+ * unreadable directory, are neither uploaded nor deleted, and their manifest entries are kept.</p>
+ *
+ * <p>Uploads record the digest as {@value IronBucketS3Service#CONTENT_SHA256_METADATA} metadata,
+ * so objects synced from another machine are recognized as unchanged.</p>
+ */
+@Service
+public class DirectorySyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(DirectorySyncService.class);
+
+    private final IronBucketS3Service s3Service;
+    private final DirectorySyncProperties properties;
+
+    public DirectorySyncService(IronBucketS3Service s3Service, DirectorySyncProperties properties) {
+        this.s3Service = s3Service;
+        this.properties = properties;
+    }
+
+    /**
+     * A regular file below the synced directory.
+     *
+     * @param key Object key the file is synced to
+     * @param path File path
+     * @param size File size in bytes
+     * @param modified Modification time in milliseconds
+     * @param sha256 Hex SHA-256 digest of the content
+     */
+    record LocalFile(String key, Path path, long size, long modified, String sha256) {
+    }
+
+    /**
+     * A local file with the digest it was last synced with.
+     *
+     * @param file Current file state
+     * @param syncedSha256 Digest recorded by the previous run, or null
+     */
+    record LocalFileState(LocalFile file, String syncedSha256) {
+    }
+
+    /**
+     * Local state of the synced directory.
+     *
+     * @param files Readable files by key, with the digests recorded by the previous run
+     * @param unreadable Keys of files and directories that could not be read, with the reason
+     */
+    record LocalScan(Map<String, LocalFileState> files, Map<String, String> unreadable) {
+
+        /** @return true if the key is, or lies below, a file or directory that could not be read */
+        boolean isUnreadable(String key) {
+            for (String failed : unreadable.keySet()) {
+                String below = failed.isEmpty() || failed.endsWith("/") ? failed : failed + "/";
+                if (key.equals(failed) || key.startsWith(below)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Changes needed to bring a bucket prefix in line with a directory.
+     *
+     * @param uploads Files to upload
+     * @param deletions Keys to delete
+     * @param unchanged Files already up to date
+     */
+    record SyncPlan(List<LocalFile> uploads, List<String> deletions, List<LocalFile> unchanged) {
+    }
+
+    /**
+     * Mirror a local directory into a bucket.
+     *
+     * @param jwtToken JWT bearer token
+     * @param directory Local directory to mirror
+     * @param bucketName Target bucket
+     * @param prefix Key prefix to mirror under (optional)
+     * @param delete Whether objects under the prefix without a local file are deleted
+     * @param dryRun Whether to only report the planned changes
+     * @return Mono of the sync report
+     */
+    public Mono<SyncReport> sync(String jwtToken, Path directory, String bucketName, String prefix,
+                                 boolean delete, boolean dryRun) {
+        if (jwtToken == null || jwtToken.isBlank()) {
+            throw new IllegalArgumentException("JWT token is required");
+        }
+        if (bucketName == null || bucketName.isBlank()) {
+            throw new IllegalArgumentException("Bucket name is required");
+        }
+        if (directory == null || !Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("Sync source must be a directory: " + directory);
+        }
+        String keyPrefix = prefix == null || prefix.isEmpty() || prefix.endsWith("/") ? nullToEmpty(prefix) : prefix + "/";
+        Path manifestFile = manifestFile(bucketName, keyPrefix, directory);
+
+        return Mono.fromCallable(() -> SyncManifest.load(manifestFile))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(manifest -> Mono.zip(
+                                scan(directory, keyPrefix, manifest),
+                                s3Service.listObjectsSharded(jwtToken, bucketName, keyPrefix, null, 1, false)
+                                        .collectMap(S3Object::key))
+                        .flatMap(snapshot -> {
+                            LocalScan local = snapshot.getT1();
+                            SyncPlan plan = plan(local, snapshot.getT2(), delete);
+                            log.info("Sync {} -> {}/{}: {} to upload, {} to delete, {} unchanged, {} unreadable{}",
+                                    directory, bucketName, keyPrefix, plan.uploads().size(), plan.deletions().size(),
+                                    plan.unchanged().size(), local.unreadable().size(), dryRun ? " (dry run)" : "");
+                            if (dryRun) {
+                                return Mono.just(report(bucketName, keyPrefix, true, plan,
+                                        unreadable(bucketName, local)));
+                            }
+                            return execute(jwtToken, bucketName, keyPrefix, plan, manifest, snapshot.getT1());
+                        }));
+    }
+
+    /**
+     * Decide which files to upload and which objects to delete.
+     *
+     * <p>A file is up to date if an object of the same size exists and carries the file's digest,
+     * or, for objects without a recorded digest, if the manifest shows the file was last synced with
+     * the same content.</p>
+     *
+     * @param local Local files, and the keys that could not be read and are left alone
+     * @param remote Existing objects under the prefix by key
+     * @param delete Whether objects without a local file are deleted
+     * @return the plan
+     */
+    static SyncPlan plan(LocalScan local, Map<String, S3Object> remote, boolean delete) {
+        List<LocalFile> uploads = new ArrayList<>();
+        List<LocalFile> unchanged = new ArrayList<>();
+        for (LocalFileState state : local.files().values()) {
+            LocalFile file = state.file();
+            S3Object object = remote.get(file.key());
+            if (object == null || object.size() == null || object.size() != file.size()) {
+                uploads.add(file);
+                continue;
+            }
+            String remoteDigest = object.metadata() != null
+                    ? object.metadata().get(IronBucketS3Service.CONTENT_SHA256_METADATA)
+                    : null;
+            String knownDigest = remoteDigest != null ? remoteDigest : state.syncedSha256();
+            (file.sha256().equals(knownDigest) ? unchanged : uploads).add(file);
+        }
+        List<String> deletions = new ArrayList<>();
+        if (delete) {
+            for (String key : remote.keySet()) {
+                if (!local.files().containsKey(key) && !local.isUnreadable(key)) {
+                    deletions.add(key);
+                }
+            }
+        }
+        uploads.sort(Comparator.comparing(LocalFile::key));
+        deletions.sort(null);
+        return new SyncPlan(uploads, deletions, unchanged);
+    }
+
+    private Mono<LocalScan> scan(Path directory, String keyPrefix, SyncManifest manifest) {
+        return Mono.defer(() -> {
+            Map<String, String> unreadable = new ConcurrentHashMap<>();
+            return Mono.fromCallable(() -> walk(directory, keyPrefix, unreadable))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMapMany(Flux::fromIterable)
+                    .parallel(Math.max(1, properties.getHashParallelism()))
+                    .runOn(Schedulers.boundedElastic())
+                    .flatMap(path -> {
+                        try {
+                            return Mono.just(inspect(directory, path, keyPrefix, manifest));
+                        } catch (IOException e) {
+                            unreadable.put(key(directory, path, keyPrefix), reason(path, e));
+                            return Mono.empty();
+                        }
+                    })
+                    .sequential()
+                    .collectMap(state -> state.file().key())
+                    .map(files -> new LocalScan(files, Map.copyOf(unreadable)));
+        });
+    }
+
+    /** Lists the regular files below the directory, recording what cannot be visited as unreadable. */
+    private static List<Path> walk(Path directory, String keyPrefix, Map<String, String> unreadable)
+            throws IOException {
+        List<Path> files = new ArrayList<>();
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                unreadable.put(key(directory, file, keyPrefix), reason(file, e));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+                if (e != null) {
+                    unreadable.put(key(directory, dir, keyPrefix), reason(dir, e));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files;
+    }
+
+    private static LocalFileState inspect(Path directory, Path path, String keyPrefix, SyncManifest manifest)
+            throws IOException {
+        String key = key(directory, path, keyPrefix);
+        long size = Files.size(path);
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        SyncManifest.Entry synced = manifest.get(key);
+        // Size and modification time unchanged: trust the recorded digest instead of reading the file
+        String sha256 = synced != null && synced.matches(size, modified) ? synced.sha256() : sha256(path);
+        return new LocalFileState(new LocalFile(key, path, size, modified, sha256),
+                synced != null ? synced.sha256() : null);
+    }
+
+    private static String key(Path directory, Path path, String keyPrefix) {
+        return keyPrefix + directory.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+    }
+
+    private static String reason(Path path, IOException e) {
+        return "Cannot read " + path + ": " + e;
+    }
+
+    private static List<ObjectOperationResult> unreadable(String bucketName, LocalScan local) {
+        return local.unreadable().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(failed -> ObjectOperationResult.failed(bucketName, failed.getKey(), "UNREADABLE",
+                        failed.getValue()))
+                .toList();
+    }
+
+    private Mono<SyncReport> execute(String jwtToken, String bucketName, String keyPrefix, SyncPlan plan,
+                                     SyncManifest manifest, LocalScan local) {
+        int concurrency = Math.max(1, properties.getConcurrency());
+        plan.unchanged().forEach(file -> manifest.put(file.key(), entry(file)));
+
+        Flux<ObjectOperationResult> uploads = Flux.fromIterable(plan.uploads())
+                .flatMap(file -> s3Service.uploadObjectFile(jwtToken, bucketName, file.key(), file.path(), null,
+                                Map.of(IronBucketS3Service.CONTENT_SHA256_METADATA, file.sha256()))
+                        .doOnNext(obj -> manifest.put(file.key(), entry(file)))
+                        .map(obj -> ObjectOperationResult.succeeded(bucketName, file.key()))
+                        .onErrorResume(e -> Mono.just(ObjectOperationResult.failed(bucketName, file.key(), e))),
+                        concurrency);
+        Flux<ObjectOperationResult> deletions = Flux.fromIterable(plan.deletions())
+                .flatMap(key -> s3Service.deleteObject(jwtToken, bucketName, key)
+                        .onErrorResume(ObjectNotFoundException.class, e -> Mono.just(true))
+                        .map(deleted -> ObjectOperationResult.succeeded(bucketName, key))
+                        .onErrorResume(e -> Mono.just(ObjectOperationResult.failed(bucketName, key, e))),
+                        concurrency);
+
+        return Flux.concat(Flux.fromIterable(unreadable(bucketName, local)), uploads, deletions)
+                .filter(result -> !result.success())
+                .collectList()
+                .flatMap(failures -> Mono.fromCallable(() -> {
+                            manifest.retainAll(key -> local.files().containsKey(key) || local.isUnreadable(key));
+                            manifest.save();
+                            return report(bucketName, keyPrefix, false, plan, failures);
+                        })
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .doOnNext(report -> log.info("Sync to {}/{} finished: {} uploaded, {} deleted, {} failed", bucketName,
+                        keyPrefix, report.uploaded().size(), report.deleted().size(), report.failures().size()));
+    }
+
+    private static SyncReport report(String bucketName, String keyPrefix, boolean dryRun, SyncPlan plan,
+                                     List<ObjectOperationResult> failures) {
+        List<String> failed = failures.stream().map(ObjectOperationResult::key).toList();
+        return new SyncReport(bucketName, keyPrefix, dryRun,
+                plan.uploads().stream().map(LocalFile::key).filter(key -> !failed.contains(key)).toList(),
+                plan.deletions().stream().filter(key -> !failed.contains(key)).toList(),
+                plan.unchanged().size(),
+                failures);
+    }
+
+    private static SyncManifest.Entry entry(LocalFile file) {
+        return new SyncManifest.Entry(file.size(), file.modified(), file.sha256());
+    }
+
+    private Path manifestFile(String bucketName, String keyPrefix, Path directory) {
+        String identity = bucketName + '\n' + keyPrefix + '\n' + directory.toAbsolutePath().normalize();
+        byte[] digest = digest().digest(identity.getBytes(StandardCharsets.UTF_8));
+        return properties.getManifestDirectory().resolve(HexFormat.of().formatHex(digest) + ".properties");
+    }
+
+    private static String sha256(Path path) throws IOException {
+        MessageDigest digest = digest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(path), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.graphql.ironbucket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Folder-style browsing of buckets, served from the {@link ObjectKeyIndex} where possible.
+ *
+ * <p>Listings with the {@code /} delimiter and recursive folder totals of an indexed bucket are
+ * answered from memory. The first browse of a bucket that is not indexed, or whose index is older
+ * than the configured maximum age, starts a background listing of the whole bucket with the
+ * caller's token and is itself answered by Sentinel-Gear, as is everything while the index is
+ * disabled or the bucket is too large for it.</p>
+ *
+ * <p>The index is shared by everyone who can read a bucket. Every request is authorized first by
+ * reading the bucket through {@link IronBucketS3Service#getBucket}, which is cached per principal
+ * scope, so the index must only be enabled where access is granted per bucket rather than per
+ * key prefix.</p>
+ */
+@Service
+public class FolderBrowsingService {
+
+    private static final Logger log = LoggerFactory.getLogger(FolderBrowsingService.class);
+
+    private static final String DELIMITER = "/";
+
+    private final IronBucketS3Service s3Service;
+    private final ObjectKeyIndex index;
+    private final ObjectKeyIndexProperties properties;
+
+    public FolderBrowsingService(IronBucketS3Service s3Service, ObjectKeyIndex index,
+                                 ObjectKeyIndexProperties properties) {
+        this.s3Service = s3Service;
+        this.index = index;
+        this.properties = properties;
+    }
+
+    /**
+     * List one page of objects, S3 ListObjectsV2 style.
+     *
+     * <p>Same contract as {@link IronBucketS3Service#listObjectsPage}. The first page of a folder
+     * listing ({@code /} delimiter, folder prefix) of an indexed bucket is served from the index if
+     * it fits in one page.</p>
+     */
+    public Mono<S3ObjectConnection> listObjectsPage(String jwtToken, String bucketName, String prefix,
+                                                    String delimiter, Integer maxKeys, String continuationToken) {
+        String folder = prefix != null ? prefix : "";
+        if (!index.isEnabled() || !DELIMITER.equals(delimiter) || continuationToken != null || !isFolder(folder)) {
+            return s3Service.listObjectsPage(jwtToken, bucketName, prefix, delimiter, maxKeys, continuationToken);
+        }
+        int pageSize = maxKeys != null ? maxKeys : IronBucketS3Service.MAX_KEYS_PER_PAGE;
+
+        return s3Service.getBucket(jwtToken, bucketName).flatMap(bucket -> {
+            S3ObjectConnection page = index.folder(bucketName, folder, pageSize);
+            if (page != null) {
+                return Mono.just(page);
+            }
+            indexInBackground(jwtToken, bucketName);
+            return s3Service.listObjectsPage(jwtToken, bucketName, prefix, delimiter, maxKeys, null);
+        });
+    }
+
+    /**
+     * Total size and object count of everything below a folder.
+     *
+     * <p>Served from the index when the bucket is indexed; otherwise the folder is listed in full
+     * and summed.</p>
+     *
+     * @param jwtToken JWT bearer token
+     * @param bucketName Bucket name
+     * @param prefix Folder prefix: empty or null for the whole bucket, otherwise ending with {@code /}
+     * @return Mono of the folder's totals
+     */
+    public Mono<FolderSummary> folderSummary(String jwtToken, String bucketName, String prefix) {
+        String folder = prefix != null ? prefix : "";
+        if (!isFolder(folder)) {
+            throw new IllegalArgumentException("Folder prefix must be empty or end with '" + DELIMITER + "'");
+        }
+
+        return s3Service.getBucket(jwtToken, bucketName).flatMap(bucket -> {
+            FolderSummary summary = index.summary(bucketName, folder);
+            if (summary != null) {
+                return Mono.just(summary);
+            }
+            indexInBackground(jwtToken, bucketName);
+            return s3Service.listObjectsSharded(jwtToken, bucketName, folder, DELIMITER,
+                            Math.max(1, properties.getListingParallelism()), false)
+                    .reduce(new FolderSummary(bucketName, folder, 0, 0), (total, object) -> new FolderSummary(
+                            bucketName, folder,
+                            total.size() + (object.size() != null ? object.size() : 0),
+                            total.objectCount() + 1));
+        });
+    }
+
+    private void indexInBackground(String jwtToken, String bucketName) {
+        if (!index.startBuild(bucketName)) {
+            return;
+        }
+        log.debug("Indexing bucket {} in the background", bucketName);
+        s3Service.listObjectsSharded(jwtToken, bucketName, null, DELIMITER,
+                        Math.max(1, properties.getListingParallelism()), false)
+                .doOnNext(object -> index.loaded(bucketName, object))
+                .subscribe(
+                        object -> { },
+                        e -> {
+                            log.warn("Failed to index bucket {}", bucketName, e);
+                            index.abandonBuild(bucketName);
+                        },
+                        () -> index.completeBuild(bucketName));
+    }
+
+    private static boolean isFolder(String prefix) {
+        return prefix.isEmpty() || prefix.endsWith(DELIMITER);
+    }
+}
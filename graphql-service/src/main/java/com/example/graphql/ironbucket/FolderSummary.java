@@ -0,0 +1,17 @@
+package com.example.graphql.ironbucket;
+
+/**
+ * Recursive totals of a virtual folder.
+ *
+ * @param bucketName Bucket name
+ * @param prefix Folder prefix, empty for the bucket root
+ * @param size Total size in bytes of all objects below the prefix
+ * @param objectCount Number of objects below the prefix
+ */
+public record FolderSummary(
+    String bucketName,
+    String prefix,
+    long size,
+    long objectCount
+) {
+}
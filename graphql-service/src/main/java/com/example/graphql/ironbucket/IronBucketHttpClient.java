@@ -0,0 +1,117 @@
+package com.example.graphql.ironbucket;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared Reactor Netty client for all Sentinel-Gear calls.
+ *
+ * <p>Owns the named {@code ironbucket} connection pool, so IronBucket services reuse warm
+ * connections instead of each opening their own, and applies the timeouts, compression and
+ * protocol settings from {@link IronBucketHttpProperties}. Pool gauges (active, idle, pending
+ * connections) are published to Micrometer under {@code reactor.netty.connection.provider.*}.
+ * Every WebClient it creates is guarded by {@link OverloadProtection}, which also holds the retry
+ * budget of each service.</p>
+ */
+@Component
+public class IronBucketHttpClient implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(IronBucketHttpClient.class);
+
+    static final String POOL_NAME = "ironbucket";
+
+    private static final String READ_TIMEOUT_HANDLER = "ironbucketReadTimeout";
+
+    private final ConnectionProvider connectionProvider;
+    private final HttpClient httpClient;
+    private final ClientHttpConnector connector;
+    private final OverloadProtection overloadProtection;
+
+    public IronBucketHttpClient(IronBucketHttpProperties properties, OverloadProtection overloadProtection) {
+        this.overloadProtection = overloadProtection;
+        this.connectionProvider = ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(properties.getPendingAcquireTimeout())
+                .maxIdleTime(properties.getMaxIdleTime())
+                .maxLifeTime(properties.getMaxLifeTime())
+                .evictInBackground(properties.getEvictionInterval())
+                .metrics(true)
+                .build();
+
+        long readTimeoutMillis = properties.getReadTimeout().toMillis();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(properties.getConnectTimeout().toMillis()))
+                .responseTimeout(properties.getResponseTimeout())
+                // Guards the response body only: handlers added per response are removed when the
+                // connection returns to the pool, so idle pooled connections are not timed out
+                .doOnResponse((response, connection) -> connection.addHandlerLast(READ_TIMEOUT_HANDLER,
+                        new ReadTimeoutHandler(readTimeoutMillis, TimeUnit.MILLISECONDS)))
+                .compress(properties.isCompression());
+        if (properties.isH2c()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        this.httpClient = httpClient;
+        this.connector = new ReactorClientHttpConnector(httpClient);
+        log.info("IronBucket HTTP client initialized (maxConnections={}, h2c={}, compression={})",
+                properties.getMaxConnections(), properties.isH2c(), properties.isCompression());
+    }
+
+    /**
+     * Create a WebClient for Sentinel-Gear on the shared connection pool.
+     *
+     * @param webClientBuilder application builder, cloned so its other customizations are kept
+     * @param baseUrl Sentinel-Gear base URL
+     * @return configured WebClient
+     */
+    public WebClient webClient(WebClient.Builder webClientBuilder, String baseUrl) {
+        return webClientBuilder.clone()
+                .clientConnector(connector)
+                .filter(overloadProtection.filter())
+                .baseUrl(baseUrl)
+                .build();
+    }
+
+    /**
+     * Retry spec for idempotent calls of a service, bounded by the service's retry budget.
+     *
+     * @param service name of the calling service
+     * @return reusable retry spec
+     */
+    public Retry retrySpec(String service) {
+        return overloadProtection.retrySpec(service);
+    }
+
+    /** @return retry budget of a service, also spent by its hedged requests */
+    RetryBudget retryBudget(String service) {
+        return overloadProtection.retryBudget(service);
+    }
+
+    /** @return the configured Reactor Netty client */
+    HttpClient httpClient() {
+        return httpClient;
+    }
+
+    /** @return the shared connection pool */
+    ConnectionProvider connectionProvider() {
+        return connectionProvider;
+    }
+
+    @Override
+    public void destroy() {
+        connectionProvider.disposeLater().block();
+    }
+}
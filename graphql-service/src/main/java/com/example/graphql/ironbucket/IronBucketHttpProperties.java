@@ -0,0 +1,85 @@
+package com.example.graphql.ironbucket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the HTTP client shared by all Sentinel-Gear calls.
+ *
+ * <p>One connection pool serves every IronBucket service. With {@code h2c} enabled, requests are
+ * multiplexed over cleartext HTTP/2 connections negotiated by upgrade, falling back to HTTP/1.1
+ * when Sentinel-Gear does not support it.</p>
+ */
+@Component
+@ConfigurationProperties(prefix = "ironbucket.http")
+public class IronBucketHttpProperties {
+    /** Maximum number of pooled connections. */
+    private int maxConnections = 200;
+    /** Maximum number of requests waiting for a free connection. */
+    private int pendingAcquireMaxCount = 1000;
+    /** How long a request may wait for a free connection. */
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+    /** Idle connections older than this are closed. */
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+    /** Connections are closed once they reach this age. */
+    private Duration maxLifeTime = Duration.ofMinutes(5);
+    /** Interval of background eviction of idle and expired connections. */
+    private Duration evictionInterval = Duration.ofSeconds(30);
+    /** TCP connect timeout. */
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    /** Time allowed until response headers arrive. */
+    private Duration responseTimeout = Duration.ofSeconds(30);
+    /** Maximum inactivity while reading a response body. */
+    private Duration readTimeout = Duration.ofSeconds(30);
+    /** Whether to negotiate cleartext HTTP/2. */
+    private boolean h2c = false;
+    /** Whether to request gzip-compressed responses. */
+    private boolean compression = true;
+
+    /** @return pool size */
+    public int getMaxConnections() { return maxConnections; }
+    /** @param maxConnections pool size */
+    public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+    /** @return pending acquire queue bound */
+    public int getPendingAcquireMaxCount() { return pendingAcquireMaxCount; }
+    /** @param pendingAcquireMaxCount pending acquire queue bound */
+    public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) { this.pendingAcquireMaxCount = pendingAcquireMaxCount; }
+    /** @return pending acquire timeout */
+    public Duration getPendingAcquireTimeout() { return pendingAcquireTimeout; }
+    /** @param pendingAcquireTimeout pending acquire timeout */
+    public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) { this.pendingAcquireTimeout = pendingAcquireTimeout; }
+    /** @return idle eviction age */
+    public Duration getMaxIdleTime() { return maxIdleTime; }
+    /** @param maxIdleTime idle eviction age */
+    public void setMaxIdleTime(Duration maxIdleTime) { this.maxIdleTime = maxIdleTime; }
+    /** @return connection lifetime */
+    public Duration getMaxLifeTime() { return maxLifeTime; }
+    /** @param maxLifeTime connection lifetime */
+    public void setMaxLifeTime(Duration maxLifeTime) { this.maxLifeTime = maxLifeTime; }
+    /** @return background eviction interval */
+    public Duration getEvictionInterval() { return evictionInterval; }
+    /** @param evictionInterval background eviction interval */
+    public void setEvictionInterval(Duration evictionInterval) { this.evictionInterval = evictionInterval; }
+    /** @return connect timeout */
+    public Duration getConnectTimeout() { return connectTimeout; }
+    /** @param connectTimeout connect timeout */
+    public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+    /** @return response timeout */
+    public Duration getResponseTimeout() { return responseTimeout; }
+    /** @param responseTimeout response timeout */
+    public void setResponseTimeout(Duration responseTimeout) { this.responseTimeout = responseTimeout; }
+    /** @return read timeout */
+    public Duration getReadTimeout() { return readTimeout; }
+    /** @param readTimeout read timeout */
+    public void setReadTimeout(Duration readTimeout) { this.readTimeout = readTimeout; }
+    /** @return whether h2c is negotiated */
+    public boolean isH2c() { return h2c; }
+    /** @param h2c whether h2c is negotiated */
+    public void setH2c(boolean h2c) { this.h2c = h2c; }
+    /** @return whether gzip is requested */
+    public boolean isCompression() { return compression; }
+    /** @param compression whether gzip is requested */
+    public void setCompression(boolean compression) { this.compression = compression; }
+}
@@ -1,20 +1,47 @@
 package com.example.graphql.ironbucket;
 
+import com.example.graphql.ironbucket.MetadataCache.Conditional;
+import com.example.graphql.ironbucket.MetadataCache.Validators;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ClientHttpRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
-import java.time.Duration;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 /**
  * Service for interacting with IronBucket S3-compatible storage through Sentinel-Gear.
@@ -30,42 +57,94 @@ public class IronBucketS3Service {
 
     private static final Logger log = LoggerFactory.getLogger(IronBucketS3Service.class);
 
+    /** Prefix of the request headers carrying custom object metadata. */
+    static final String METADATA_HEADER_PREFIX = "x-amz-meta-";
+
+    /** Upper bound on keys per listing page (S3 limit). */
+    static final int MAX_KEYS_PER_PAGE = 1000;
+
+    /** Metadata entry holding the hex SHA-256 digest of content uploaded with deduplication; informational only. */
+    static final String CONTENT_SHA256_METADATA = "content-sha256";
+
+    /** Upper bound on single-key presign requests in flight when batches are not supported. */
+    private static final int MAX_PRESIGNS_IN_FLIGHT = 16;
+
+    /** Upper bound on digests remembered for deduplicating uploads. */
+    private static final int MAX_REMEMBERED_DIGESTS = 10_000;
+
     private final WebClient webClient;
+    private final Retry retrySpec;
+    private final RetryBudget retryBudget;
+    private final RequestHedging hedging;
     private final String sentinelGearBaseUrl;
+    private final SingleFlight singleFlight;
+    private final MetadataCache metadataCache;
+    private final PresignedUrlCache presignedUrlCache;
+    private final ObjectKeyIndex objectKeyIndex;
+    private final AtomicBoolean batchPresignSupported = new AtomicBoolean(true);
+    private final JwtClaimsExtractor claimsExtractor;
+    /** Content uploaded through this service, keyed by principal scope and digest. */
+    private final Map<String, KnownContent> contentIndex = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, KnownContent> eldest) {
+            return size() > MAX_REMEMBERED_DIGESTS;
+        }
+    };
 
     public IronBucketS3Service(
             WebClient.Builder webClientBuilder,
-            @Value("${ironbucket.sentinel-gear.base-url:http://localhost:8080}") String sentinelGearBaseUrl
+            @Value("${ironbucket.sentinel-gear.base-url:http://localhost:8080}") String sentinelGearBaseUrl,
+            IronBucketHttpClient httpClient,
+            JwtClaimsExtractor claimsExtractor,
+            SingleFlight singleFlight,
+            MetadataCache metadataCache,
+            PresignedUrlCache presignedUrlCache,
+            ObjectKeyIndex objectKeyIndex,
+            RequestHedging hedging
     ) {
         this.sentinelGearBaseUrl = sentinelGearBaseUrl;
-        this.webClient = webClientBuilder
-                .baseUrl(sentinelGearBaseUrl)
-                .build();
+        this.webClient = httpClient.webClient(webClientBuilder, sentinelGearBaseUrl);
+        this.retrySpec = httpClient.retrySpec("s3");
+        this.retryBudget = httpClient.retryBudget("s3");
+        this.hedging = hedging;
+        this.claimsExtractor = claimsExtractor;
+        this.singleFlight = singleFlight;
+        this.metadataCache = metadataCache;
+        this.presignedUrlCache = presignedUrlCache;
+        this.objectKeyIndex = objectKeyIndex;
         log.info("IronBucketS3Service initialized with Sentinel-Gear at {}", sentinelGearBaseUrl);
     }
 
     /**
      * List all buckets accessible to the authenticated user.
+     *
+     * <p>Served from the metadata cache when possible.</p>
      * 
      * @param jwtToken JWT bearer token for authentication
      * @return Flux of buckets
      */
     public Flux<S3Bucket> listBuckets(String jwtToken) {
         validateJwt(jwtToken);
-        
+
+        return metadataCache.buckets(jwtToken, () -> fetchBuckets(jwtToken));
+    }
+
+    private Flux<S3Bucket> fetchBuckets(String jwtToken) {
         return webClient.get()
                 .uri("/api/v1/buckets")
                 .header("Authorization", "Bearer " + jwtToken)
                 .retrieve()
                 .bodyToFlux(S3BucketDto.class)
                 .map(this::toBucket)
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to list buckets", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
 
     /**
      * List buckets filtered by tenant.
+     *
+     * <p>Answered from the cached bucket list's tenant index when possible.</p>
      * 
      * @param jwtToken JWT bearer token
      * @param tenantId Tenant ID to filter by
@@ -74,9 +153,8 @@ public class IronBucketS3Service {
     public Flux<S3Bucket> listBucketsByTenant(String jwtToken, String tenantId) {
         validateJwt(jwtToken);
         validateTenant(tenantId);
-        
-        return listBuckets(jwtToken)
-                .filter(bucket -> tenantId.equals(bucket.ownerTenant()));
+
+        return metadataCache.bucketsOfTenant(jwtToken, tenantId, () -> fetchBuckets(jwtToken));
     }
 
     /**
@@ -94,14 +172,14 @@ public class IronBucketS3Service {
         
         S3BucketCreateRequest request = new S3BucketCreateRequest(bucketName, ownerTenant);
         
-        return webClient.post()
+        return metadataCache.invalidatingBucket(bucketName, webClient.post()
                 .uri("/api/v1/buckets")
                 .header("Authorization", "Bearer " + jwtToken)
                 .bodyValue(request)
                 .retrieve()
                 .bodyToMono(S3BucketDto.class)
                 .map(this::toBucket)
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnSuccess(bucket -> log.info("Created bucket: {}", bucketName))
                 .doOnError(e -> log.error("Failed to create bucket: {}", bucketName, e))
                 .onErrorResume(WebClientResponseException.class, e -> {
@@ -109,7 +187,7 @@ public class IronBucketS3Service {
                         return Mono.error(new BucketAlreadyExistsException(bucketName, e));
                     }
                     return handleWebClientError(e);
-                });
+                }));
     }
 
     /**
@@ -123,14 +201,17 @@ public class IronBucketS3Service {
         validateJwt(jwtToken);
         validateBucketName(bucketName);
         
-        return webClient.delete()
+        return metadataCache.invalidatingBucket(bucketName, webClient.delete()
                 .uri("/api/v1/buckets/{bucketName}", bucketName)
                 .header("Authorization", "Bearer " + jwtToken)
                 .retrieve()
                 .toBodilessEntity()
                 .map(response -> true)
-                .retryWhen(retrySpec())
-                .doOnSuccess(result -> log.info("Deleted bucket: {}", bucketName))
+                .retryWhen(retrySpec)
+                .doOnSuccess(result -> {
+                    log.info("Deleted bucket: {}", bucketName);
+                    objectKeyIndex.dropBucket(bucketName);
+                })
                 .doOnError(e -> log.error("Failed to delete bucket: {}", bucketName, e))
                 .onErrorResume(WebClientResponseException.class, e -> {
                     if (e.getStatusCode() == HttpStatus.CONFLICT) {
@@ -140,11 +221,14 @@ public class IronBucketS3Service {
                         return Mono.error(new BucketNotFoundException(bucketName, e));
                     }
                     return handleWebClientError(e);
-                });
+                }));
     }
 
     /**
      * Get bucket details.
+     *
+     * <p>Served from the metadata cache when possible; identical concurrent misses within the same
+     * principal scope share one request, which is hedged when request hedging is enabled.</p>
      * 
      * @param jwtToken JWT bearer token
      * @param bucketName Bucket name
@@ -153,14 +237,20 @@ public class IronBucketS3Service {
     public Mono<S3Bucket> getBucket(String jwtToken, String bucketName) {
         validateJwt(jwtToken);
         validateBucketName(bucketName);
-        
+
+        return metadataCache.bucket(jwtToken, bucketName, () -> singleFlight.mono(
+                jwtToken, "getBucket", List.of(bucketName), () -> fetchBucket(jwtToken, bucketName)));
+    }
+
+    private Mono<S3Bucket> fetchBucket(String jwtToken, String bucketName) {
         return webClient.get()
                 .uri("/api/v1/buckets/{bucketName}", bucketName)
                 .header("Authorization", "Bearer " + jwtToken)
                 .retrieve()
                 .bodyToMono(S3BucketDto.class)
                 .map(this::toBucket)
-                .retryWhen(retrySpec())
+                .transform(call -> hedging.hedge("getBucket", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get bucket: {}", bucketName, e))
                 .onErrorResume(WebClientResponseException.class, e -> {
                     if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
@@ -172,6 +262,11 @@ public class IronBucketS3Service {
 
     /**
      * List objects in a bucket.
+     *
+     * <p>Served from the metadata cache when possible and revalidated with a conditional request
+     * once stale. On a miss the listing is streamed from Sentinel-Gear as it arrives; listings too
+     * large for the cache are never buffered whole. Identical concurrent misses within the same
+     * principal scope share one streamed request.</p>
      * 
      * @param jwtToken JWT bearer token
      * @param bucketName Bucket name
@@ -181,7 +276,13 @@ public class IronBucketS3Service {
     public Flux<S3Object> listObjects(String jwtToken, String bucketName, String prefix) {
         validateJwt(jwtToken);
         validateBucketName(bucketName);
-        
+
+        return metadataCache.objects(jwtToken, bucketName, prefix,
+                validators -> fetchObjects(jwtToken, bucketName, prefix, validators));
+    }
+
+    private Mono<Conditional<Flux<S3Object>>> fetchObjects(String jwtToken, String bucketName, String prefix,
+                                                           Validators validators) {
         String uri = prefix != null && !prefix.isBlank()
                 ? "/api/v1/buckets/{bucketName}/objects?prefix={prefix}"
                 : "/api/v1/buckets/{bucketName}/objects";
@@ -189,16 +290,108 @@ public class IronBucketS3Service {
         return webClient.get()
                 .uri(uri, bucketName, prefix != null ? prefix : "")
                 .header("Authorization", "Bearer " + jwtToken)
+                .headers(headers -> conditionalHeaders(headers, validators))
                 .retrieve()
-                .bodyToFlux(S3ObjectDto.class)
-                .map(this::toObject)
-                .retryWhen(retrySpec())
+                .toEntityFlux(S3ObjectDto.class)
+                .map(entity -> conditional(entity, dtos -> dtos.map(this::toObject)
+                        .doOnError(e -> log.error("Failed to list objects in bucket: {}", bucketName, e))))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to list objects in bucket: {}", bucketName, e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
 
+    /**
+     * List one page of objects in a bucket, S3 ListObjectsV2 style.
+     *
+     * <p>With a delimiter (typically {@code /}), only one level is returned: keys below the next
+     * delimiter are rolled up into common prefixes, so folder-style browsing never pulls a whole
+     * subtree.</p>
+     *
+     * @param jwtToken JWT bearer token
+     * @param bucketName Bucket name
+     * @param prefix Optional prefix filter
+     * @param delimiter Optional delimiter for common prefixes
+     * @param maxKeys Maximum objects plus common prefixes per page (1-1000, default 1000)
+     * @param continuationToken Token from the previous page (optional)
+     * @return Mono of one listing page
+     */
+    public Mono<S3ObjectConnection> listObjectsPage(String jwtToken, String bucketName, String prefix,
+                                                    String delimiter, Integer maxKeys, String continuationToken) {
+        validateJwt(jwtToken);
+        validateBucketName(bucketName);
+        int pageSize = maxKeys != null ? maxKeys : MAX_KEYS_PER_PAGE;
+        if (pageSize < 1 || pageSize > MAX_KEYS_PER_PAGE) {
+            throw new IllegalArgumentException("maxKeys must be between 1 and " + MAX_KEYS_PER_PAGE);
+        }
+
+        return webClient.get()
+                .uri(builder -> builder
+                        .path("/api/v1/buckets/{bucketName}/objects")
+                        .queryParam("list-type", 2)
+                        .queryParam("max-keys", pageSize)
+                        .queryParamIfPresent("prefix", nonEmpty(prefix))
+                        .queryParamIfPresent("delimiter", nonEmpty(delimiter))
+                        .queryParamIfPresent("continuation-token", nonEmpty(continuationToken))
+                        .build(bucketName))
+                .header("Authorization", "Bearer " + jwtToken)
+                .retrieve()
+                .bodyToMono(S3ObjectPageDto.class)
+                .map(dto -> new S3ObjectConnection(
+                        dto.objects() != null ? dto.objects().stream().map(this::toObject).toList() : List.of(),
+                        dto.commonPrefixes(),
+                        dto.nextContinuationToken()))
+                .retryWhen(retrySpec)
+                .doOnError(e -> log.error("Failed to list objects page in bucket: {}", bucketName, e))
+                .onErrorResume(WebClientResponseException.class, e -> {
+                    if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+                        return Mono.error(new BucketNotFoundException(bucketName, e));
+                    }
+                    return handleWebClientError(e);
+                });
+    }
+
+    /**
+     * List every object below a prefix by listing prefix shards concurrently.
+     *
+     * <p>One delimiter listing at {@code prefix} discovers the shards: each common prefix becomes
+     * a shard that is listed page by page, and objects directly at that level are emitted as they
+     * are. Up to {@code parallelism} shards are listed at once. Ordered mode preserves global key
+     * order by emitting shards in key order (buffering shards that finish early); unordered mode
+     * emits keys as soon as any shard produces them. Pages are only fetched as downstream demand
+     * requires, so memory stays bounded by roughly one page per active shard.</p>
+     *
+     * @param jwtToken JWT bearer token
+     * @param bucketName Bucket name
+     * @param prefix Optional prefix to list below
+     * @param delimiter Delimiter used to discover shards (defaults to {@code /})
+     * @param parallelism Maximum shards listed concurrently
+     * @param ordered Whether to emit objects in key order
+     * @return Flux of all objects below the prefix
+     */
+    public Flux<S3Object> listObjectsSharded(String jwtToken, String bucketName, String prefix,
+                                             String delimiter, int parallelism, boolean ordered) {
+        validateJwt(jwtToken);
+        validateBucketName(bucketName);
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        String shardDelimiter = delimiter != null && !delimiter.isEmpty() ? delimiter : "/";
+
+        Flux<Flux<S3Object>> shards = listAllPages(jwtToken, bucketName, prefix, shardDelimiter)
+                .concatMapIterable(page -> shardsOf(jwtToken, bucketName, page));
+
+        return (ordered
+                ? shards.flatMapSequential(shard -> shard, parallelism)
+                : shards.flatMap(shard -> shard, parallelism))
+                .doOnError(e -> log.error("Sharded listing failed for bucket: {}", bucketName, e));
+    }
+
     /**
      * Get object metadata.
+     *
+     * <p>Served from the metadata cache when possible and revalidated with a conditional request
+     * once stale; identical concurrent misses within the same principal scope share one request,
+     * which is hedged when request hedging is enabled.</p>
      * 
      * @param jwtToken JWT bearer token
      * @param bucketName Bucket name
@@ -209,14 +402,23 @@ public class IronBucketS3Service {
         validateJwt(jwtToken);
         validateBucketName(bucketName);
         validateObjectKey(objectKey);
-        
+
+        return metadataCache.object(jwtToken, bucketName, objectKey, validators -> singleFlight.mono(
+                jwtToken, "getObject", List.of(bucketName, objectKey, validators),
+                () -> fetchObject(jwtToken, bucketName, objectKey, validators)));
+    }
+
+    private Mono<Conditional<S3Object>> fetchObject(String jwtToken, String bucketName, String objectKey,
+                                                    Validators validators) {
         return webClient.get()
                 .uri("/api/v1/buckets/{bucketName}/objects/{objectKey}", bucketName, objectKey)
                 .header("Authorization", "Bearer " + jwtToken)
+                .headers(headers -> conditionalHeaders(headers, validators))
                 .retrieve()
-                .bodyToMono(S3ObjectDto.class)
-                .map(this::toObject)
-                .retryWhen(retrySpec())
+                .toEntity(S3ObjectDto.class)
+                .map(entity -> conditional(entity, this::toObject))
+                .transform(call -> hedging.hedge("getObject", retryBudget, call))
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get object: {}/{}", bucketName, objectKey, e))
                 .onErrorResume(WebClientResponseException.class, e -> {
                     if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
@@ -226,6 +428,75 @@ public class IronBucketS3Service {
                 });
     }
 
+    /**
+     * Stream object content, optionally restricted to a byte range.
+     *
+     * <p>The returned entity carries the status and headers of the Sentinel-Gear response
+     * ({@code 200} or {@code 206} with {@code Content-Range}) and a body that emits buffers as they
+     * arrive from the network, so nothing is aggregated in memory. Only obtaining the response is
+     * retried; once the body has started streaming, errors propagate to the subscriber.</p>
+     *
+     * @param jwtToken JWT bearer token
+     * @param bucketName Bucket name
+     * @param objectKey Object key
+     * @param range HTTP {@code Range} header value, e.g. {@code bytes=0-1048575} (optional)
+     * @return Mono of the streaming response entity
+     */
+    public Mono<ResponseEntity<Flux<DataBuffer>>> downloadObject(String jwtToken, String bucketName,
+                                                                  String objectKey, String range) {
+        return downloadObject(jwtToken, bucketName, objectKey, range, null);
+    }
+
+    /**
+     * Stream object content unless it still matches a known ETag.
+     *
+     * @param jwtToken JWT bearer token
+     * @param bucketName Bucket name
+     * @param objectKey Object key
+     * @param range HTTP {@code Range} header value (optional)
+     * @param ifNoneMatch ETag of a copy the caller holds (optional); if it is current, the
+     *                    entity has status {@code 304 Not Modified} and an empty body
+     * @return Mono of the streaming response entity
+     */
+    public Mono<ResponseEntity<Flux<DataBuffer>>> downloadObject(String jwtToken, String bucketName,
+                                                                  String objectKey, String range,
+                                                                  String ifNoneMatch) {
+        validateJwt(jwtToken);
+        validateBucketName(bucketName);
+        validateObjectKey(objectKey);
+        if (range != null && !range.isBlank()) {
+            // Rejects malformed ranges before any request is made
+            HttpRange.parseRanges(range);
+        }
+
+        return webClient.get()
+                .uri("/api/v1/buckets/{bucketName}/objects/{objectKey}/content", bucketName, objectKey)
+                .header("Authorization", "Bearer " + jwtToken)
+                .headers(headers -> {
+                    if (range != null && !range.isBlank()) {
+                        headers.set(HttpHeaders.RANGE, range);
+                    }
+                    if (ifNoneMatch != null) {
+                        headers.set(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+                    }
+                })
+                .retrieve()
+                .toEntityFlux(DataBuffer.class)
+                .retryWhen(retrySpec)
+                .doOnSuccess(entity -> log.debug("Streaming object: {}/{} (status={}, range={})",
+                        bucketName, objectKey, entity.getStatusCode(), range))
+                .doOnError(e -> log.error("Failed to download object: {}/{}", bucketName, objectKey, e))
+                .onErrorResume(WebClientResponseException.class, e -> {
+                    if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+                        return Mono.error(new ObjectNotFoundException(bucketName, objectKey, e));
+                    }
+                    if (e.getStatusCode() == HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE) {
+                        return Mono.error(new RangeNotSatisfiableException(bucketName, objectKey, range, e));
+                    }
+                    return handleWebClientError(e);
+                });
+    }
+
     /**
      * Delete an object.
      * 
@@ -239,13 +510,13 @@ public class IronBucketS3Service {
         validateBucketName(bucketName);
         validateObjectKey(objectKey);
         
-        return webClient.delete()
+        return metadataCache.invalidatingObject(bucketName, objectKey, webClient.delete()
                 .uri("/api/v1/buckets/{bucketName}/objects/{objectKey}", bucketName, objectKey)
                 .header("Authorization", "Bearer " + jwtToken)
                 .retrieve()
                 .toBodilessEntity()
                 .map(response -> true)
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnSuccess(result -> log.info("Deleted object: {}/{}", bucketName, objectKey))
                 .doOnError(e -> log.error("Failed to delete object: {}/{}", bucketName, objectKey, e))
                 .onErrorResume(WebClientResponseException.class, e -> {
@@ -253,30 +524,295 @@ public class IronBucketS3Service {
                         return Mono.error(new ObjectNotFoundException(bucketName, objectKey, e));
                     }
                     return handleWebClientError(e);
-                });
+                })
+                .doOnSuccess(result -> objectKeyIndex.remove(bucketName, List.of(objectKey)))
+                .doOnError(ObjectNotFoundException.class, e -> objectKeyIndex.remove(bucketName, List.of(objectKey))));
+    }
+
+    /**
+     * Copy an object server-side, within or across buckets.
+     *
+     * <p>Sentinel-Gear copies the content inside the storage layer, so no object bytes pass
+     * through this service. Metadata and content type are copied with the object.</p>
+     *
+     * @param jwtToken JWT bearer token
+     * @param sourceBucket Bucket of the object to copy
+     * @param sourceKey Key of the object to copy
+     * @param targetBucket Destination bucket
+     * @param targetKey Destination key
+     * @return Mono of the new object
+     */
+    public Mono<S3Object> copyObject(String jwtToken, String sourceBucket, String sourceKey,
+                                     String targetBucket, String targetKey) {
+        validateJwt(jwtToken);
+        validateBucketName(sourceBucket);
+        validateObjectKey(sourceKey);
+        validateBucketName(targetBucket);
+        validateObjectKey(targetKey);
+        if (sourceBucket.equals(targetBucket) && sourceKey.equals(targetKey)) {
+            throw new IllegalArgumentException("Source and target of a copy must differ");
+        }
+
+        return copy(jwtToken, sourceBucket, sourceKey, targetBucket, targetKey).map(ResponseEntity::getBody);
+    }
+
+    /** Server-side copy, answering with the response headers so the copy's ETag can be checked. */
+    private Mono<ResponseEntity<S3Object>> copy(String jwtToken, String sourceBucket, String sourceKey,
+                                                String targetBucket, String targetKey) {
+        return metadataCache.invalidatingStore(targetBucket, targetKey, webClient.post()
+                .uri("/api/v1/buckets/{bucketName}/objects/{objectKey}/copy", targetBucket, targetKey)
+                .header("Authorization", "Bearer " + jwtToken)
+                .bodyValue(new S3CopyRequest(sourceBucket, sourceKey))
+                .retrieve()
+                .toEntity(S3ObjectDto.class)
+                .map(this::toObjectEntity)
+                .retryWhen(retrySpec)
+                .doOnSuccess(obj -> log.info("Copied object: {}/{} -> {}/{}", sourceBucket, sourceKey, targetBucket, targetKey))
+                .doOnNext(entity -> objectKeyIndex.put(entity.getBody()))
+                .doOnError(e -> log.error("Failed to copy object: {}/{} -> {}/{}", sourceBucket, sourceKey,
+                        targetBucket, targetKey, e))
+                .onErrorResume(WebClientResponseException.class, e -> {
+                    if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+                        return Mono.error(new ObjectNotFoundException(sourceBucket, sourceKey, e));
+                    }
+                    return handleWebClientError(e);
+                }), ResponseEntity::getBody);
+    }
+
+    /**
+     * Move an object server-side: a copy followed by deletion of the source.
+     *
+     * <p>If deleting the source fails, the copy is kept and the error is returned, so the object
+     * exists at least once at all times.</p>
+     *
+     * @param jwtToken JWT bearer token
+     * @param sourceBucket Bucket of the object to move
+     * @param sourceKey Key of the object to move
+     * @param targetBucket Destination bucket
+     * @param targetKey Destination key
+     * @return Mono of the moved object
+     */
+    public Mono<S3Object> moveObject(String jwtToken, String sourceBucket, String sourceKey,
+                                     String targetBucket, String targetKey) {
+        return copyObject(jwtToken, sourceBucket, sourceKey, targetBucket, targetKey)
+                .flatMap(copy -> deleteObject(jwtToken, sourceBucket, sourceKey).thenReturn(copy));
     }
 
     /**
      * Upload an object to a bucket.
+     *
+     * <p>The array is wrapped, not copied, and sent through the raw content path of
+     * {@link #uploadObjectStream}.</p>
      */
     public Mono<S3Object> uploadObject(String jwtToken, String bucketName, String objectKey,
                                         byte[] data, String contentType, Map<String, String> metadata) {
         validateJwt(jwtToken);
         validateBucketName(bucketName);
         validateObjectKey(objectKey);
-        
-        return webClient.put()
-                .uri("/api/v1/buckets/{bucketName}/objects/{objectKey}", bucketName, objectKey)
-                .header("Authorization", "Bearer " + jwtToken)
-                .header("Content-Type", contentType != null ? contentType : "application/octet-stream")
-                .bodyValue(new UploadRequest(data, metadata))
-                .retrieve()
-                .bodyToMono(S3ObjectDto.class)
-                .map(this::toObject)
-                .retryWhen(retrySpec())
-                .doOnSuccess(obj -> log.info("Uploaded object: {}/{}", bucketName, objectKey))
-                .doOnError(e -> log.error("Failed to upload object: {}/{}", bucketName, objectKey, e))
-                .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
+        if (data == null) {
+            throw new IllegalArgumentException("Object content cannot be null");
+        }
+
+        Flux<DataBuffer> content = Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(data)));
+        return putObjectContent(jwtToken, bucketName, objectKey, BodyInserters.fromDataBuffers(content),
+                data.length, contentType, metadata, true);
+    }
+
+    /**
+     * Upload an object from a stream of buffers.
+     *
+     * <p>The buffers are written to Sentinel-Gear as a raw request body as they arrive, so heap usage
+     * stays bounded by the buffers in flight regardless of object size. Metadata travels as
+     * {@code x-amz-meta-*} headers. The stream is consumed once, so the request is not retried.</p>
+     *
+     * @param jwtToken JWT bearer token
+     * @param bucketName Bucket name
+     * @param objectKey Object key
+     * @param content Object content
+     * @param contentLength Content length in bytes, or -1 if unknown (chunked transfer)
+     * @param contentType MIME type (defaults to application/octet-stream)
+     * @param metadata Custom metadata (optional)
+     * @return Mono of uploaded object
+     */
+    public Mono<S3Object> uploadObjectStream(String jwtToken, String bucketName, String objectKey,
+                                              Flux<DataBuffer> content, long contentLength, String contentType,
+                                              Map<String, String> metadata) {
+        validateJwt(jwtToken);
+        validateBucketName(bucketName);
+        validateObjectKey(objectKey);
+        if (content == null) {
+            throw new IllegalArgumentException("Object content cannot be null");
+        }
+
+        return putObjectContent(jwtToken, bucketName, objectKey, BodyInserters.fromDataBuffers(content),
+                contentLength, contentType, metadata, false);
+    }
+
+    /**
+     * Upload an object from a local file.
+     *
+     * <p>The file is sent as a {@link FileSystemResource}, which the Netty connector transfers with
+     * zero-copy file regions where the platform supports it. A file can be re-read, so transient
+     * gateway errors are retried.</p>
+     *
+     * @param jwtToken JWT bearer token
+     * @param bucketName Bucket name
+     * @param objectKey Object key
+     * @param file File to upload
+     * @param contentType MIME type (defaults to application/octet-stream)
+     * @param metadata Custom metadata (optional)
+     * @return Mono of uploaded object
+     */
+    public Mono<S3Object> uploadObjectFile(String jwtToken, String bucketName, String objectKey,
+                                            Path file, String contentType, Map<String, String> metadata) {
+        validateJwt(jwtToken);
+        validateBucketName(bucketName);
+        validateObjectKey(objectKey);
+        if (file == null || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Upload source must be a regular file: " + file);
+        }
+
+        return Mono.fromCallable(() -> Files.size(file))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(size -> putObjectContent(jwtToken, bucketName, objectKey,
+                        BodyInserters.fromResource(new FileSystemResource(file)),
+                        size, contentType, metadata, true));
+    }
+
+    /**
+     * Upload an object, skipping the transfer when identical content is already stored.
+     *
+     * <p>The stream is spooled to a temporary file while its SHA-256 digest is computed in the same
+     * pass. Content uploaded this way is remembered in a local index of recent uploads, keyed by the
+     * caller's principal scope and the digest, together with the ETag Sentinel-Gear computed for it.
+     * If the index knows an object with the same digest for the same principal, the target is
+     * written by a server-side copy instead of sending the bytes again, and the copy is only kept if
+     * its ETag still matches the remembered one. The digest is also recorded as
+     * {@value #CONTENT_SHA256_METADATA} metadata, but as anyone with write access can set metadata,
+     * it is never trusted. Any failure to reuse the known object, including an ETag mismatch or the
+     * caller not being allowed to read it, falls back to a regular upload of the spooled file, which
+     * overwrites whatever the copy wrote.</p>
+     *
+     * @param jwtToken JWT bearer token
+     * @param bucketName Bucket name
+     * @param objectKey Object key
+     * @param content Object content
+     * @param contentType MIME type (defaults to application/octet-stream)
+     * @param metadata Custom metadata (optional)
+     * @return Mono of uploaded object
+     */
+    public Mono<S3Object> uploadObjectDeduplicated(String jwtToken, String bucketName, String objectKey,
+                                                    Flux<DataBuffer> content, String contentType,
+                                                    Map<String, String> metadata) {
+        validateJwt(jwtToken);
+        validateBucketName(bucketName);
+        validateObjectKey(objectKey);
+        if (content == null) {
+            throw new IllegalArgumentException("Object content cannot be null");
+        }
+
+        return Mono.usingWhen(
+                Mono.fromCallable(() -> Files.createTempFile("ironbucket-upload-", ".tmp"))
+                        .subscribeOn(Schedulers.boundedElastic()),
+                spool -> Mono.zip(spool(content, spool), claimsExtractor.principalScope(jwtToken)).flatMap(digested -> {
+                    String digest = digested.getT1();
+                    String indexKey = digested.getT2() + ":" + digest;
+                    Map<String, String> tagged = new TreeMap<>(metadata != null ? metadata : Map.of());
+                    tagged.put(CONTENT_SHA256_METADATA, digest);
+                    return reuseContent(jwtToken, bucketName, objectKey, indexKey, contentType, tagged)
+                            .switchIfEmpty(Mono.defer(() -> uploadSpooled(
+                                    jwtToken, bucketName, objectKey, spool, contentType, tagged, indexKey)));
+                }),
+                spool -> Mono.fromCallable(() -> Files.deleteIfExists(spool))
+                        .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    /** Write the stream to the spool file, returning the hex SHA-256 digest of what was written. */
+    private static Mono<String> spool(Flux<DataBuffer> content, Path spool) {
+        return Mono.defer(() -> {
+            MessageDigest digest = sha256();
+            Flux<DataBuffer> digested = content.doOnNext(buffer -> {
+                try (DataBuffer.ByteBufferIterator buffers = buffer.readableByteBuffers()) {
+                    buffers.forEachRemaining(digest::update);
+                }
+            });
+            return DataBufferUtils.write(digested, spool, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+                    .then(Mono.fromCallable(() -> HexFormat.of().formatHex(digest.digest())));
+        });
+    }
+
+    /** Upload the spooled file and remember its content under the ETag Sentinel-Gear answered with. */
+    private Mono<S3Object> uploadSpooled(String jwtToken, String bucketName, String objectKey, Path spool,
+                                         String contentType, Map<String, String> metadata, String indexKey) {
+        return Mono.fromCallable(() -> Files.size(spool))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(size -> putObjectContentEntity(jwtToken, bucketName, objectKey,
+                        BodyInserters.fromResource(new FileSystemResource(spool)), size, contentType, metadata, true))
+                .doOnNext(entity -> rememberContent(indexKey, entity))
+                .map(ResponseEntity::getBody);
+    }
+
+    /**
+     * Write the target from known content with the same digest, or complete empty if there is none
+     * or the object holding it no longer has the ETag it was uploaded with.
+     */
+    private Mono<S3Object> reuseContent(String jwtToken, String bucketName, String objectKey, String indexKey,
+                                        String contentType, Map<String, String> metadata) {
+        KnownContent known;
+        synchronized (contentIndex) {
+            known = contentIndex.get(indexKey);
+        }
+        if (known == null || contentType != null && !contentType.equals(known.contentType())) {
+            return Mono.empty();
+        }
+        boolean sameObject = known.bucketName().equals(bucketName) && known.key().equals(objectKey);
+        // The ETag is computed by the storage layer, so a match proves the bytes are the ones uploaded
+        Mono<S3Object> verified = sameObject
+                ? fetchObject(jwtToken, bucketName, objectKey, Validators.NONE)
+                        .filter(current -> known.etag().equals(current.validators().etag()))
+                        .map(Conditional::value)
+                : copy(jwtToken, known.bucketName(), known.key(), bucketName, objectKey)
+                        .filter(copied -> known.etag().equals(copied.getHeaders().getETag()))
+                        .map(ResponseEntity::getBody);
+        return verified
+                .flatMap(reused -> metadata.equals(reused.metadata())
+                        ? Mono.just(reused)
+                        : setObjectMetadata(jwtToken, bucketName, objectKey, metadata))
+                .doOnNext(reused -> log.info("Deduplicated upload: {}/{} reuses content of {}/{}",
+                        bucketName, objectKey, known.bucketName(), known.key()))
+                .switchIfEmpty(Mono.fromRunnable(() -> forgetContent(indexKey, known)))
+                .onErrorResume(e -> {
+                    log.debug("Cannot reuse {}/{} for {}/{}, uploading", known.bucketName(), known.key(),
+                            bucketName, objectKey, e);
+                    forgetContent(indexKey, known);
+                    return Mono.empty();
+                });
+    }
+
+    private void rememberContent(String indexKey, ResponseEntity<S3Object> uploaded) {
+        String etag = uploaded.getHeaders().getETag();
+        if (etag == null) {
+            // Without a server-computed ETag a later copy could not be verified
+            return;
+        }
+        S3Object obj = uploaded.getBody();
+        synchronized (contentIndex) {
+            contentIndex.put(indexKey, new KnownContent(obj.bucketName(), obj.key(), etag, obj.contentType()));
+        }
+    }
+
+    private void forgetContent(String indexKey, KnownContent known) {
+        synchronized (contentIndex) {
+            contentIndex.remove(indexKey, known);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     /**
@@ -288,104 +824,245 @@ public class IronBucketS3Service {
         validateBucketName(bucketName);
         validateObjectKey(objectKey);
         
-        return webClient.patch()
+        return metadataCache.invalidatingObject(bucketName, objectKey, webClient.patch()
                 .uri("/api/v1/buckets/{bucketName}/objects/{objectKey}/metadata", bucketName, objectKey)
                 .header("Authorization", "Bearer " + jwtToken)
                 .bodyValue(metadata)
                 .retrieve()
                 .bodyToMono(S3ObjectDto.class)
                 .map(this::toObject)
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnSuccess(obj -> log.info("Updated metadata for: {}/{}", bucketName, objectKey))
+                .doOnNext(objectKeyIndex::put)
                 .doOnError(e -> log.error("Failed to update metadata: {}/{}", bucketName, objectKey, e))
-                .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
+                .onErrorResume(WebClientResponseException.class, this::handleWebClientError));
     }
 
     /**
      * Get a presigned URL for temporary access to an object.
+     *
+     * <p>Issued URLs are reused through the {@link PresignedUrlCache}, so the URL returned may have
+     * been issued earlier. It stays valid for at least the configured fraction of the requested
+     * lifetime and never longer than requested.</p>
      */
     public Mono<String> getPresignedUrl(String jwtToken, String bucketName, String objectKey, int expirationSeconds) {
         validateJwt(jwtToken);
         validateBucketName(bucketName);
         validateObjectKey(objectKey);
-        
+        validateExpiration(expirationSeconds);
+
+        return presignedUrlCache.url(jwtToken, bucketName, objectKey, expirationSeconds,
+                        () -> fetchPresignedUrl(jwtToken, bucketName, objectKey, expirationSeconds))
+                .map(PresignedUrl::url);
+    }
+
+    /**
+     * Get presigned URLs for many objects of a bucket.
+     *
+     * <p>Cached URLs are reused; the rest are requested from Sentinel-Gear's batch endpoint
+     * ({@code POST /api/v1/buckets/{bucket}/objects/presign}) in pages of {@value #MAX_KEYS_PER_PAGE}
+     * keys. If Sentinel-Gear does not offer it (it answers 405 or 501), this is remembered and keys
+     * are presigned one by one with bounded concurrency instead.</p>
+     *
+     * @param jwtToken JWT bearer token
+     * @param bucketName Bucket name
+     * @param objectKeys Object keys; duplicates are presigned once
+     * @param expirationSeconds Requested lifetime in seconds
+     * @return Flux of presigned URLs in key order
+     */
+    public Flux<PresignedUrl> getPresignedUrls(String jwtToken, String bucketName, List<String> objectKeys,
+                                               int expirationSeconds) {
+        validateJwt(jwtToken);
+        validateBucketName(bucketName);
+        if (objectKeys == null) {
+            throw new IllegalArgumentException("Object keys are required");
+        }
+        objectKeys.forEach(this::validateObjectKey);
+        validateExpiration(expirationSeconds);
+        List<String> keys = objectKeys.stream().distinct().toList();
+        if (keys.isEmpty()) {
+            return Flux.empty();
+        }
+
+        return presignedUrlCache.urls(jwtToken, bucketName, keys, expirationSeconds,
+                missing -> Flux.fromIterable(missing)
+                        .buffer(MAX_KEYS_PER_PAGE)
+                        .concatMap(page -> fetchPresignedUrls(jwtToken, bucketName, page, expirationSeconds))
+                        .collectMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    private Mono<String> fetchPresignedUrl(String jwtToken, String bucketName, String objectKey, int expirationSeconds) {
         return webClient.post()
                 .uri("/api/v1/buckets/{bucketName}/objects/{objectKey}/presign?expiration={exp}",
                      bucketName, objectKey, expirationSeconds)
                 .header("Authorization", "Bearer " + jwtToken)
                 .retrieve()
                 .bodyToMono(String.class)
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get presigned URL: {}/{}", bucketName, objectKey, e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
 
-    /**
-     * Extract tenant ID from JWT token.
-     */
-    public Mono<String> extractTenantFromJwt(String jwtToken) {
-        validateJwt(jwtToken);
-        
+    private Flux<Map.Entry<String, String>> fetchPresignedUrls(String jwtToken, String bucketName,
+                                                               List<String> objectKeys, int expirationSeconds) {
+        Flux<Map.Entry<String, String>> fanOut = Flux.fromIterable(objectKeys)
+                .flatMap(key -> fetchPresignedUrl(jwtToken, bucketName, key, expirationSeconds)
+                        .map(url -> Map.entry(key, url)), MAX_PRESIGNS_IN_FLIGHT);
+        if (!batchPresignSupported.get()) {
+            return fanOut;
+        }
         return webClient.post()
-                .uri("/api/v1/auth/extract/tenant")
+                .uri("/api/v1/buckets/{bucketName}/objects/presign?expiration={exp}", bucketName, expirationSeconds)
                 .header("Authorization", "Bearer " + jwtToken)
+                .bodyValue(new S3PresignBatchRequest(objectKeys))
                 .retrieve()
-                .bodyToMono(String.class)
-                .retryWhen(retrySpec())
-                .doOnError(e -> log.error("Failed to extract tenant from JWT", e))
+                .bodyToMono(S3PresignBatchResponse.class)
+                .retryWhen(retrySpec)
+                .flatMapIterable(response -> response.urls() != null ? response.urls() : List.<S3PresignedUrlDto>of())
+                .map(dto -> Map.entry(dto.key(), dto.url()))
                 .onErrorResume(WebClientResponseException.class, e -> {
-                    if (e.getStatusCode() == HttpStatus.UNAUTHORIZED) {
-                        return Mono.error(new UnauthorizedException("Invalid or expired JWT", e));
+                    // 404 also means the bucket does not exist, so only 405 and 501 show that the
+                    // endpoint itself is missing
+                    if (e.getStatusCode() == HttpStatus.METHOD_NOT_ALLOWED
+                            || e.getStatusCode() == HttpStatus.NOT_IMPLEMENTED) {
+                        if (batchPresignSupported.compareAndSet(true, false)) {
+                            log.warn("Sentinel-Gear has no batch presign endpoint, presigning keys one by one");
+                        }
+                        return fanOut;
                     }
+                    if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+                        return Mono.error(new BucketNotFoundException(bucketName, e));
+                    }
+                    log.error("Failed to get presigned URLs in bucket: {}", bucketName, e);
                     return handleWebClientError(e);
                 });
     }
 
+    /**
+     * Extract tenant ID from JWT token.
+     *
+     * @return Mono of the tenant, empty if the token carries none
+     * @see JwtClaimsExtractor#extract
+     */
+    public Mono<String> extractTenantFromJwt(String jwtToken) {
+        validateJwt(jwtToken);
+        return claimsExtractor.extract(jwtToken).mapNotNull(JwtClaims::tenant);
+    }
+
     /**
      * Extract roles from JWT token.
+     *
+     * @see JwtClaimsExtractor#extract
      */
     public Mono<List<String>> extractRolesFromJwt(String jwtToken) {
         validateJwt(jwtToken);
-        
-        return webClient.post()
-                .uri("/api/v1/auth/extract/roles")
-                .header("Authorization", "Bearer " + jwtToken)
-                .retrieve()
-                .bodyToFlux(String.class)
-                .collectList()
-                .retryWhen(retrySpec())
-                .doOnError(e -> log.error("Failed to extract roles from JWT", e))
-                .onErrorResume(WebClientResponseException.class, e -> {
-                    if (e.getStatusCode() == HttpStatus.UNAUTHORIZED) {
-                        return Mono.error(new UnauthorizedException("Invalid or expired JWT", e));
-                    }
-                    return handleWebClientError(e);
-                });
+        return claimsExtractor.extract(jwtToken).map(JwtClaims::roles);
     }
 
     /**
      * Extract subject (user ID) from JWT token.
+     *
+     * @return Mono of the subject, empty if the token carries none
+     * @see JwtClaimsExtractor#extract
      */
     public Mono<String> extractSubjectFromJwt(String jwtToken) {
         validateJwt(jwtToken);
-        
-        return webClient.post()
-                .uri("/api/v1/auth/extract/subject")
+        return claimsExtractor.extract(jwtToken).mapNotNull(JwtClaims::subject);
+    }
+
+    private Mono<S3Object> putObjectContent(String jwtToken, String bucketName, String objectKey,
+                                            BodyInserter<?, ? super ClientHttpRequest> body, long contentLength,
+                                            String contentType, Map<String, String> metadata, boolean replayable) {
+        return putObjectContentEntity(jwtToken, bucketName, objectKey, body, contentLength, contentType, metadata,
+                replayable).map(ResponseEntity::getBody);
+    }
+
+    private Mono<ResponseEntity<S3Object>> putObjectContentEntity(String jwtToken, String bucketName, String objectKey,
+                                                                 BodyInserter<?, ? super ClientHttpRequest> body,
+                                                                 long contentLength, String contentType,
+                                                                 Map<String, String> metadata, boolean replayable) {
+        Mono<ResponseEntity<S3Object>> upload = webClient.put()
+                .uri("/api/v1/buckets/{bucketName}/objects/{objectKey}/content", bucketName, objectKey)
                 .header("Authorization", "Bearer " + jwtToken)
-                .retrieve()
-                .bodyToMono(String.class)
-                .retryWhen(retrySpec())
-                .doOnError(e -> log.error("Failed to extract subject from JWT", e))
-                .onErrorResume(WebClientResponseException.class, e -> {
-                    if (e.getStatusCode() == HttpStatus.UNAUTHORIZED) {
-                        return Mono.error(new UnauthorizedException("Invalid or expired JWT", e));
+                .headers(headers -> {
+                    headers.setContentType(contentType != null
+                            ? MediaType.parseMediaType(contentType)
+                            : MediaType.APPLICATION_OCTET_STREAM);
+                    if (contentLength >= 0) {
+                        headers.setContentLength(contentLength);
                     }
-                    return handleWebClientError(e);
-                });
+                    if (metadata != null) {
+                        metadata.forEach((name, value) ->
+                                headers.set(METADATA_HEADER_PREFIX + name.toLowerCase(Locale.ROOT), value));
+                    }
+                })
+                .body(body)
+                .retrieve()
+                .toEntity(S3ObjectDto.class)
+                .map(this::toObjectEntity);
+
+        Mono<ResponseEntity<S3Object>> result = (replayable ? upload.retryWhen(retrySpec) : upload)
+                .doOnSuccess(obj -> log.info("Uploaded object: {}/{}", bucketName, objectKey))
+                .doOnNext(entity -> objectKeyIndex.put(entity.getBody()))
+                .doOnError(e -> log.error("Failed to upload object: {}/{}", bucketName, objectKey, e))
+                .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
+        return metadataCache.invalidatingStore(bucketName, objectKey, result, ResponseEntity::getBody);
+    }
+
+    private Flux<S3ObjectConnection> listAllPages(String jwtToken, String bucketName, String prefix, String delimiter) {
+        return listObjectsPage(jwtToken, bucketName, prefix, delimiter, MAX_KEYS_PER_PAGE, null)
+                .expand(page -> page.hasNextPage()
+                        ? listObjectsPage(jwtToken, bucketName, prefix, delimiter, MAX_KEYS_PER_PAGE,
+                                          page.nextContinuationToken())
+                        : Mono.empty());
+    }
+
+    /**
+     * Turns one delimiter listing page into shards in key order: a single-object shard per direct
+     * object and a full listing per common prefix. A key below a prefix never sorts between that
+     * prefix and a direct object, so concatenating shards in this order keeps global key order.
+     */
+    private List<Flux<S3Object>> shardsOf(String jwtToken, String bucketName, S3ObjectConnection page) {
+        record Shard(String sortKey, Flux<S3Object> listing) {}
+
+        List<Shard> shards = new ArrayList<>(page.keyCount());
+        for (S3Object object : page.objects()) {
+            shards.add(new Shard(object.key(), Flux.just(object)));
+        }
+        for (String commonPrefix : page.commonPrefixes()) {
+            shards.add(new Shard(commonPrefix, listAllPages(jwtToken, bucketName, commonPrefix, null)
+                    .concatMapIterable(S3ObjectConnection::objects)));
+        }
+        shards.sort(Comparator.comparing(Shard::sortKey));
+        return shards.stream().map(Shard::listing).toList();
+    }
+
+    // --- Conditional requests ---
+
+    private static void conditionalHeaders(HttpHeaders headers, Validators validators) {
+        if (validators.etag() != null) {
+            headers.set(HttpHeaders.IF_NONE_MATCH, validators.etag());
+        }
+        if (validators.lastModified() != null) {
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, validators.lastModified());
+        }
+    }
+
+    private static <B, T> Conditional<T> conditional(ResponseEntity<B> entity, Function<B, T> mapper) {
+        if (entity.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+            return Conditional.notModified();
+        }
+        return Conditional.of(mapper.apply(entity.getBody()),
+                entity.getHeaders().getETag(),
+                entity.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED));
     }
 
     // --- Validation ---
 
+    private static Optional<String> nonEmpty(String value) {
+        return value != null && !value.isEmpty() ? Optional.of(value) : Optional.empty();
+    }
+
     private void validateJwt(String jwtToken) {
         if (jwtToken == null || jwtToken.isBlank()) {
             throw new IllegalArgumentException("JWT token is required");
@@ -410,6 +1087,12 @@ public class IronBucketS3Service {
         }
     }
 
+    private void validateExpiration(int expirationSeconds) {
+        if (expirationSeconds <= 0) {
+            throw new IllegalArgumentException("Expiration must be positive");
+        }
+    }
+
     // --- Mapping ---
 
     private S3Bucket toBucket(S3BucketDto dto) {
@@ -427,6 +1110,10 @@ public class IronBucketS3Service {
         );
     }
 
+    private ResponseEntity<S3Object> toObjectEntity(ResponseEntity<S3ObjectDto> entity) {
+        return ResponseEntity.status(entity.getStatusCode()).headers(entity.getHeaders()).body(toObject(entity.getBody()));
+    }
+
     // --- Error Handling ---
 
     private <T> Mono<T> handleWebClientError(WebClientResponseException e) {
@@ -434,19 +1121,16 @@ public class IronBucketS3Service {
         return Mono.error(new IronBucketServiceException("IronBucket service error: " + e.getMessage(), e));
     }
 
-    private Retry retrySpec() {
-        return Retry.backoff(3, Duration.ofMillis(100))
-                .maxBackoff(Duration.ofSeconds(2))
-                .filter(throwable -> throwable instanceof WebClientResponseException.ServiceUnavailable
-                        || throwable instanceof WebClientResponseException.GatewayTimeout)
-                .doBeforeRetry(signal -> log.warn("Retrying request, attempt: {}", signal.totalRetries() + 1));
-    }
-
     // --- DTOs for wire format ---
 
     record S3BucketDto(String name, Instant creationDate, String ownerTenant) {}
     record S3BucketCreateRequest(String name, String ownerTenant) {}
+    record S3CopyRequest(String sourceBucket, String sourceKey) {}
+    record S3PresignBatchRequest(List<String> keys) {}
+    record S3PresignBatchResponse(List<S3PresignedUrlDto> urls) {}
+    record S3PresignedUrlDto(String key, String url) {}
+    private record KnownContent(String bucketName, String key, String etag, String contentType) {}
     record S3ObjectDto(String key, String bucketName, Long size, Instant lastModified, 
                        String contentType, Map<String, String> metadata) {}
-    record UploadRequest(byte[] data, Map<String, String> metadata) {}
+    record S3ObjectPageDto(List<S3ObjectDto> objects, List<String> commonPrefixes, String nextContinuationToken) {}
 }
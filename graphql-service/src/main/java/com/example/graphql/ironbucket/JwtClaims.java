@@ -0,0 +1,31 @@
+package com.example.graphql.ironbucket;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Identity claims of an IronBucket caller, parsed from a JWT.
+ *
+ * @param subject User ID ({@code sub})
+ * @param tenant Tenant the user belongs to
+ * @param roles Granted roles
+ * @param expiresAt Token expiry ({@code exp}), null if unknown
+ */
+public record JwtClaims(
+    String subject,
+    String tenant,
+    List<String> roles,
+    Instant expiresAt
+) {
+    public JwtClaims {
+        roles = roles != null ? List.copyOf(roles) : List.of();
+    }
+
+    /**
+     * @param now current time
+     * @return true if the token has expired
+     */
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+}
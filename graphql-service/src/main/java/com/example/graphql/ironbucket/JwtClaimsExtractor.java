@@ -0,0 +1,237 @@
+package com.example.graphql.ironbucket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.core.DelegatingOAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
+import org.springframework.security.oauth2.jwt.JwtClaimValidator;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Extracts caller identity (subject, tenant, roles) from a JWT in one step.
+ *
+ * <p>Tokens are verified and decoded locally with a {@link NimbusReactiveJwtDecoder}, which caches
+ * the identity provider's JWKS and refetches it when a token carries an unknown {@code kid}, and
+ * validated for expiry, issuer and audience (see {@link #validator(JwtClaimsProperties)}).
+ * Decoded claims are memoized per token hash until the token expires, so repeated calls with the
+ * same token cost nothing. If local decoding is not configured or the JWKS cannot be fetched, the
+ * three Sentinel-Gear extraction endpoints are called concurrently as a fallback. Tokens that fail
+ * verification are rejected with {@link UnauthorizedException} without falling back.</p>
+ */
+@Component
+public class JwtClaimsExtractor {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtClaimsExtractor.class);
+
+    private final ReactiveJwtDecoder decoder;
+    private final WebClient webClient;
+    private final JwtClaimsProperties properties;
+    private final Map<String, JwtClaims> decoded;
+
+    @Autowired
+    public JwtClaimsExtractor(
+            WebClient.Builder webClientBuilder,
+            @Value("${ironbucket.sentinel-gear.base-url:http://localhost:8080}") String sentinelGearBaseUrl,
+            IronBucketHttpClient httpClient,
+            JwtClaimsProperties properties
+    ) {
+        this(createDecoder(properties), httpClient.webClient(webClientBuilder, sentinelGearBaseUrl), properties);
+    }
+
+    JwtClaimsExtractor(ReactiveJwtDecoder decoder, WebClient webClient, JwtClaimsProperties properties) {
+        this.decoder = decoder;
+        this.webClient = webClient;
+        this.properties = properties;
+        this.decoded = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, JwtClaims> eldest) {
+                return size() > properties.getMaxCachedTokens();
+            }
+        };
+        log.info("JwtClaimsExtractor initialized ({} decoding)", decoder != null ? "local" : "remote");
+    }
+
+    private static ReactiveJwtDecoder createDecoder(JwtClaimsProperties properties) {
+        NimbusReactiveJwtDecoder decoder;
+        if (hasText(properties.getJwkSetUri())) {
+            decoder = NimbusReactiveJwtDecoder.withJwkSetUri(properties.getJwkSetUri()).build();
+        } else if (hasText(properties.getIssuerUri())) {
+            decoder = NimbusReactiveJwtDecoder.withIssuerLocation(properties.getIssuerUri()).build();
+        } else {
+            return null;
+        }
+        decoder.setJwtValidator(validator(properties));
+        return decoder;
+    }
+
+    /**
+     * Validator applied to every locally decoded token: expiry and not-before, the issuer when one
+     * is configured, and the audience when audiences are configured.
+     *
+     * @param properties issuer and accepted audiences
+     * @return the token validator
+     */
+    static OAuth2TokenValidator<Jwt> validator(JwtClaimsProperties properties) {
+        List<OAuth2TokenValidator<Jwt>> validators = new ArrayList<>();
+        if (hasText(properties.getIssuerUri())) {
+            validators.add(JwtValidators.createDefaultWithIssuer(properties.getIssuerUri()));
+        } else {
+            log.warn("No ironbucket.jwt.issuer-uri configured, the token issuer is not validated");
+            validators.add(JwtValidators.createDefault());
+        }
+        List<String> audiences = properties.getAudiences();
+        if (!audiences.isEmpty()) {
+            validators.add(new JwtClaimValidator<List<String>>(JwtClaimNames.AUD,
+                    aud -> aud != null && aud.stream().anyMatch(audiences::contains)));
+        }
+        return new DelegatingOAuth2TokenValidator<>(validators);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    /**
+     * Extract subject, tenant and roles from a JWT.
+     *
+     * @param jwtToken JWT bearer token
+     * @return Mono of the caller's claims
+     * @throws UnauthorizedException if the token is invalid or expired
+     */
+    public Mono<JwtClaims> extract(String jwtToken) {
+        if (jwtToken == null || jwtToken.isBlank()) {
+            throw new IllegalArgumentException("JWT token is required");
+        }
+        String tokenHash = hash(jwtToken);
+        return Mono.defer(() -> {
+            JwtClaims cached = cached(tokenHash);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            if (decoder == null) {
+                return extractRemotely(jwtToken);
+            }
+            return decoder.decode(jwtToken)
+                    .map(this::toClaims)
+                    .doOnNext(claims -> remember(tokenHash, claims))
+                    .onErrorResume(BadJwtException.class,
+                            e -> Mono.error(new UnauthorizedException("Invalid or expired JWT", e)))
+                    .onErrorResume(e -> e instanceof JwtException && !(e instanceof BadJwtException), e -> {
+                        log.warn("Local JWT decoding unavailable, falling back to Sentinel-Gear: {}", e.getMessage());
+                        return extractRemotely(jwtToken);
+                    });
+        });
+    }
+
+    /**
+     * Derive the caller's authorization scope for sharing reads between callers.
+     *
+     * <p>Sentinel-Gear authorizes by tenant and role, so callers with the same tenant and role set
+     * are entitled to the same answers. When tokens cannot be decoded locally, or carry no tenant,
+     * the scope is the token itself rather than paying for remote claim extraction or merging
+     * unrelated tenant-less callers.</p>
+     *
+     * @param jwtToken JWT bearer token
+     * @return Mono of an opaque scope identifier
+     */
+    public Mono<String> principalScope(String jwtToken) {
+        if (decoder == null) {
+            return Mono.just("token:" + hash(jwtToken));
+        }
+        return extract(jwtToken)
+                .map(claims -> claims.tenant() == null
+                        ? "token:" + hash(jwtToken)
+                        : "tenant:" + claims.tenant() + "|roles:" + new TreeSet<>(claims.roles()));
+    }
+
+    private JwtClaims toClaims(Jwt jwt) {
+        String tenant = jwt.getClaimAsString(properties.getTenantClaim());
+        List<String> roles = jwt.getClaimAsStringList(properties.getRolesClaim());
+        if (roles == null) {
+            Map<String, Object> realmAccess = jwt.getClaimAsMap("realm_access");
+            if (realmAccess != null && realmAccess.get("roles") instanceof List<?> realmRoles) {
+                roles = realmRoles.stream().map(String::valueOf).toList();
+            }
+        }
+        return new JwtClaims(jwt.getSubject(), tenant, roles, jwt.getExpiresAt());
+    }
+
+    private Mono<JwtClaims> extractRemotely(String jwtToken) {
+        Mono<String> subject = remoteClaim(jwtToken, "/api/v1/auth/extract/subject").bodyToMono(String.class);
+        Mono<String> tenant = remoteClaim(jwtToken, "/api/v1/auth/extract/tenant").bodyToMono(String.class);
+        Mono<List<String>> roles = remoteClaim(jwtToken, "/api/v1/auth/extract/roles")
+                .bodyToFlux(String.class)
+                .collectList();
+
+        // Remote results carry no expiry and are not memoized
+        return Mono.zip(subject, tenant, roles)
+                .map(claims -> new JwtClaims(claims.getT1(), claims.getT2(), claims.getT3(), null))
+                .doOnError(e -> log.error("Failed to extract claims from JWT", e))
+                .onErrorResume(WebClientResponseException.class, e -> {
+                    if (e.getStatusCode() == HttpStatus.UNAUTHORIZED) {
+                        return Mono.error(new UnauthorizedException("Invalid or expired JWT", e));
+                    }
+                    return Mono.error(new IronBucketServiceException("IronBucket service error: " + e.getMessage(), e));
+                });
+    }
+
+    private WebClient.ResponseSpec remoteClaim(String jwtToken, String uri) {
+        return webClient.post()
+                .uri(uri)
+                .header("Authorization", "Bearer " + jwtToken)
+                .retrieve();
+    }
+
+    private JwtClaims cached(String tokenHash) {
+        synchronized (decoded) {
+            JwtClaims claims = decoded.get(tokenHash);
+            if (claims != null && claims.isExpired(Instant.now())) {
+                decoded.remove(tokenHash);
+                return null;
+            }
+            return claims;
+        }
+    }
+
+    private void remember(String tokenHash, JwtClaims claims) {
+        if (claims.expiresAt() == null) {
+            return;
+        }
+        synchronized (decoded) {
+            decoded.put(tokenHash, claims);
+        }
+    }
+
+    private static String hash(String jwtToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(jwtToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
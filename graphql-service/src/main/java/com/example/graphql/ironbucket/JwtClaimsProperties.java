@@ -0,0 +1,57 @@
+package com.example.graphql.ironbucket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of local JWT claim decoding for IronBucket callers.
+ *
+ * <p>Signatures are verified against the JWKS at {@code jwk-set-uri}, or the one advertised by
+ * {@code issuer-uri}. With neither set, claims are always extracted remotely by Sentinel-Gear.
+ * Locally decoded tokens must be issued by {@code issuer-uri} (when set) and, when
+ * {@code audiences} is set, name one of them in {@code aud}.</p>
+ */
+@Component
+@ConfigurationProperties(prefix = "ironbucket.jwt")
+public class JwtClaimsProperties {
+    /** JWKS endpoint of the identity provider. */
+    private String jwkSetUri;
+    /** Issuer used for discovery when no JWKS endpoint is configured. */
+    private String issuerUri;
+    /** Accepted token audiences; empty accepts any audience. */
+    private List<String> audiences = new ArrayList<>();
+    /** Claim holding the tenant ID. */
+    private String tenantClaim = "tenant";
+    /** Claim holding the role list; Keycloak's realm_access.roles is used when absent. */
+    private String rolesClaim = "roles";
+    /** Maximum number of decoded tokens kept in memory. */
+    private int maxCachedTokens = 10_000;
+
+    /** @return JWKS endpoint */
+    public String getJwkSetUri() { return jwkSetUri; }
+    /** @param jwkSetUri JWKS endpoint */
+    public void setJwkSetUri(String jwkSetUri) { this.jwkSetUri = jwkSetUri; }
+    /** @return issuer for discovery */
+    public String getIssuerUri() { return issuerUri; }
+    /** @param issuerUri issuer for discovery */
+    public void setIssuerUri(String issuerUri) { this.issuerUri = issuerUri; }
+    /** @return accepted audiences */
+    public List<String> getAudiences() { return audiences; }
+    /** @param audiences accepted audiences */
+    public void setAudiences(List<String> audiences) { this.audiences = audiences; }
+    /** @return tenant claim name */
+    public String getTenantClaim() { return tenantClaim; }
+    /** @param tenantClaim tenant claim name */
+    public void setTenantClaim(String tenantClaim) { this.tenantClaim = tenantClaim; }
+    /** @return roles claim name */
+    public String getRolesClaim() { return rolesClaim; }
+    /** @param rolesClaim roles claim name */
+    public void setRolesClaim(String rolesClaim) { this.rolesClaim = rolesClaim; }
+    /** @return decoded token cache bound */
+    public int getMaxCachedTokens() { return maxCachedTokens; }
+    /** @param maxCachedTokens decoded token cache bound */
+    public void setMaxCachedTokens(int maxCachedTokens) { this.maxCachedTokens = maxCachedTokens; }
+}
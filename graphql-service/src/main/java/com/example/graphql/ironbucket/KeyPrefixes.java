@@ -0,0 +1,48 @@
+package com.example.graphql.ironbucket;
+
+import java.util.NavigableMap;
+import java.util.function.Consumer;
+
+/**
+ * Lookup of the key prefixes an object key falls under, among the prefixes of a sorted map.
+ */
+final class KeyPrefixes {
+
+    private KeyPrefixes() {
+    }
+
+    /**
+     * Pass the value of every prefix the object key starts with to the action. Every such prefix
+     * sorts at or below the key; the floor of the search either is one of them, or its common
+     * prefix with the key bounds the remaining candidates, so the search shrinks on every step.
+     *
+     * @param byPrefix values by key prefix
+     * @param objectKey object key
+     * @param action receives the value of each matching prefix, longest prefix first
+     */
+    static <V> void forEachContaining(NavigableMap<String, V> byPrefix, String objectKey, Consumer<? super V> action) {
+        String search = objectKey;
+        while (search != null) {
+            String prefix = byPrefix.floorKey(search);
+            if (prefix == null) {
+                return;
+            }
+            if (objectKey.startsWith(prefix)) {
+                action.accept(byPrefix.get(prefix));
+                search = prefix.isEmpty() ? null : prefix.substring(0, prefix.length() - 1);
+            } else {
+                search = search.substring(0, commonPrefixLength(prefix, search));
+            }
+        }
+    }
+
+    private static int commonPrefixLength(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                return i;
+            }
+        }
+        return length;
+    }
+}
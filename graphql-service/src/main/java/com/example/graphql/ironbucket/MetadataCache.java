@@ -0,0 +1,584 @@
+package com.example.graphql.ironbucket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Cache of IronBucket bucket and object metadata, partitioned by principal scope.
+ *
+ * <p>Entries are keyed by the caller's scope (see {@link JwtClaimsExtractor#principalScope}), so
+ * one tenant never sees another's answers. Found entries live for the configured TTL; not-found
+ * answers are cached for a shorter TTL so hot misses do not reach Sentinel-Gear either. Bucket
+ * lists are stored with a per-tenant index, which makes tenant-filtered listing a map lookup.</p>
+ *
+ * <p>Objects and object listings are stored with the ETag and Last-Modified validators Sentinel-Gear
+ * returned. Once such an entry expires it is kept and refreshed with a conditional request; a
+ * {@code 304 Not Modified} answer renews it without transferring the payload again.</p>
+ *
+ * <p>The cache is bounded by weight rather than entry count: a listing weighs one per object, any
+ * other entry one, and the least recently used entries are evicted beyond the maximum. Listings are
+ * streamed to the caller as they arrive and only buffered up to the per-entry maximum; larger ones
+ * are passed through without being cached. Concurrent loads of the same listing, with the same
+ * validators and in the same scope, share one stream through {@link SingleFlight#flux}.</p>
+ *
+ * <p>Writes through {@link IronBucketS3Service} invalidate the affected entries in every scope.
+ * Entries are indexed per bucket, by object key and by listing prefix, so an invalidation touches
+ * only the entries it drops. Each bucket has its own invalidation generation: a load that overlaps
+ * an invalidation of its bucket is returned but not stored, so a write can never be shadowed by a
+ * response fetched before it, while loads for other buckets are unaffected. Hits, misses and revalidations are counted in
+ * {@code ironbucket.metadata.cache.requests}, tagged by kind and result.</p>
+ */
+@Component
+public class MetadataCache {
+
+    private static final Logger log = LoggerFactory.getLogger(MetadataCache.class);
+
+    enum Kind { BUCKET_LIST, BUCKET, OBJECT, OBJECT_LIST }
+
+    private final JwtClaimsExtractor claimsExtractor;
+    private final SingleFlight singleFlight;
+    private final MetadataCacheProperties properties;
+    private final Map<Key, Entry> entries;
+    private long weight;
+    /** Index of the entries per bucket; guarded by {@link #entries}, like everything below it. */
+    private final Map<String, BucketEntries> buckets = new HashMap<>();
+    private final BucketEntries bucketLists = new BucketEntries();
+    private final List<BiConsumer<String, Collection<String>>> writeListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<S3Object>> storeListeners = new CopyOnWriteArrayList<>();
+    private final Map<Kind, Counter> hits = new EnumMap<>(Kind.class);
+    private final Map<Kind, Counter> misses = new EnumMap<>(Kind.class);
+    private final Map<Kind, Counter> revalidations = new EnumMap<>(Kind.class);
+
+    public MetadataCache(JwtClaimsExtractor claimsExtractor, SingleFlight singleFlight,
+                         MetadataCacheProperties properties, MeterRegistry meterRegistry) {
+        this.claimsExtractor = claimsExtractor;
+        this.singleFlight = singleFlight;
+        this.properties = properties;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true);
+        for (Kind kind : Kind.values()) {
+            hits.put(kind, counter(meterRegistry, kind, "hit"));
+            misses.put(kind, counter(meterRegistry, kind, "miss"));
+            revalidations.put(kind, counter(meterRegistry, kind, "revalidated"));
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, Kind kind, String result) {
+        return Counter.builder("ironbucket.metadata.cache.requests")
+                .description("IronBucket metadata cache lookups")
+                .tag("kind", kind.name().toLowerCase(Locale.ROOT))
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param jwtToken caller's JWT
+     * @param loader lists all buckets visible to the caller on a miss
+     * @return Flux of the caller's buckets
+     */
+    public Flux<S3Bucket> buckets(String jwtToken, Supplier<Flux<S3Bucket>> loader) {
+        return bucketIndex(jwtToken, loader).flatMapIterable(BucketIndex::buckets);
+    }
+
+    /**
+     * @param jwtToken caller's JWT
+     * @param tenantId owner tenant to filter by
+     * @param loader lists all buckets visible to the caller on a miss
+     * @return Flux of the caller's buckets owned by the tenant
+     */
+    public Flux<S3Bucket> bucketsOfTenant(String jwtToken, String tenantId, Supplier<Flux<S3Bucket>> loader) {
+        return bucketIndex(jwtToken, loader)
+                .flatMapIterable(index -> index.byTenant().getOrDefault(tenantId, List.of()));
+    }
+
+    /**
+     * @param jwtToken caller's JWT
+     * @param bucketName bucket name
+     * @param loader fetches the bucket on a miss
+     * @return Mono of the bucket, or {@link BucketNotFoundException}
+     */
+    public Mono<S3Bucket> bucket(String jwtToken, String bucketName, Supplier<Mono<S3Bucket>> loader) {
+        return lookup(jwtToken, Kind.BUCKET, bucketName, null, validators -> loader.get().map(Conditional::of),
+                BucketNotFoundException.class, () -> new BucketNotFoundException(bucketName));
+    }
+
+    /**
+     * @param jwtToken caller's JWT
+     * @param bucketName bucket name
+     * @param objectKey object key
+     * @param loader fetches the object metadata, conditionally if validators are given
+     * @return Mono of the object, or {@link ObjectNotFoundException}
+     */
+    public Mono<S3Object> object(String jwtToken, String bucketName, String objectKey,
+                                 Function<Validators, Mono<Conditional<S3Object>>> loader) {
+        return lookup(jwtToken, Kind.OBJECT, bucketName, objectKey, loader,
+                ObjectNotFoundException.class, () -> new ObjectNotFoundException(bucketName, objectKey));
+    }
+
+    /**
+     * @param jwtToken caller's JWT
+     * @param bucketName bucket name
+     * @param prefix listing prefix (optional)
+     * @param loader streams the objects, conditionally if validators are given
+     * @return Flux of the listed objects, streamed from the loader on a miss; identical concurrent
+     *         loads within the caller's scope share one stream, whether or not the cache is enabled
+     */
+    @SuppressWarnings("unchecked")
+    public Flux<S3Object> objects(String jwtToken, String bucketName, String prefix,
+                                  Function<Validators, Mono<Conditional<Flux<S3Object>>>> loader) {
+        String listingPrefix = prefix != null ? prefix : "";
+        if (!properties.isEnabled()) {
+            return singleFlight.flux(jwtToken, "listObjects", List.of(bucketName, listingPrefix, Validators.NONE),
+                    () -> loader.apply(Validators.NONE).flatMapMany(Conditional::value));
+        }
+        return claimsExtractor.principalScope(jwtToken).flatMapMany(scope -> {
+            Key key = new Key(scope, Kind.OBJECT_LIST, bucketName, listingPrefix);
+            Entry entry = get(key);
+            if (entry != null && entry.expiresAt().isAfter(Instant.now())) {
+                hits.get(Kind.OBJECT_LIST).increment();
+                return Flux.fromIterable((List<S3Object>) entry.value());
+            }
+
+            Validators validators = entry != null ? entry.validators() : Validators.NONE;
+            if (validators.isEmpty()) {
+                misses.get(Kind.OBJECT_LIST).increment();
+            }
+            return singleFlight.flux(jwtToken, "listObjects", List.of(bucketName, listingPrefix, validators), () -> {
+                Generation generation = acquire(bucketName);
+                return loader.apply(validators)
+                        .flatMapMany(result -> stream(key, entry, validators, result, generation))
+                        .doFinally(signal -> release(generation));
+            });
+        });
+    }
+
+    /** Pass a listing through, keeping a copy to cache unless it outgrows the per-entry maximum. */
+    @SuppressWarnings("unchecked")
+    private Flux<S3Object> stream(Key key, Entry entry, Validators validators, Conditional<Flux<S3Object>> result,
+                                  Generation generation) {
+        if (result.notModified() && entry != null) {
+            revalidations.get(Kind.OBJECT_LIST).increment();
+            put(key, new Entry(entry.value(), false, Instant.now().plus(properties.getTtl()), entry.validators()),
+                    generation);
+            return Flux.fromIterable((List<S3Object>) entry.value());
+        }
+        if (!validators.isEmpty()) {
+            misses.get(Kind.OBJECT_LIST).increment();
+        }
+        int maxEntryWeight = properties.getMaxEntryWeight();
+        List<S3Object> copy = new ArrayList<>();
+        return result.value()
+                .doOnNext(object -> {
+                    if (copy.size() <= maxEntryWeight) {
+                        copy.add(object);
+                    }
+                })
+                .doOnComplete(() -> {
+                    if (copy.size() <= maxEntryWeight) {
+                        put(key, new Entry(List.copyOf(copy), false, Instant.now().plus(properties.getTtl()),
+                                result.validators()), generation);
+                    }
+                });
+    }
+
+    /**
+     * Invalidate a bucket when a write to it terminates or is cancelled.
+     *
+     * <p>Invalidation happens before the result reaches the caller, so a read chained after the
+     * write cannot hit a stale entry; failed writes invalidate too, as they may have been applied.</p>
+     */
+    public <T> Mono<T> invalidatingBucket(String bucketName, Mono<T> write) {
+        return write.doOnTerminate(() -> invalidateBucket(bucketName))
+                .doOnCancel(() -> invalidateBucket(bucketName));
+    }
+
+    /** Invalidate an object when a write to it terminates or is cancelled. */
+    public <T> Mono<T> invalidatingObject(String bucketName, String objectKey, Mono<T> write) {
+        return write.doOnTerminate(() -> invalidateObject(bucketName, objectKey))
+                .doOnCancel(() -> invalidateObject(bucketName, objectKey));
+    }
+
+    /**
+     * Invalidate an object when an upload or copy to it terminates or is cancelled, like
+     * {@link #invalidatingObject}. If the write answers with the stored object, that object is passed
+     * to the {@link #onStore} callbacks instead of the {@link #onWrite} ones.
+     *
+     * @param stored extracts the stored object from the write's result; may return null
+     */
+    public <T> Mono<T> invalidatingStore(String bucketName, String objectKey, Mono<T> write,
+                                         Function<T, S3Object> stored) {
+        return Mono.defer(() -> {
+            AtomicBoolean reported = new AtomicBoolean();
+            Runnable invalidate = () -> {
+                if (!reported.get()) {
+                    invalidateObject(bucketName, objectKey);
+                }
+            };
+            return write.doOnNext(result -> {
+                        S3Object object = stored.apply(result);
+                        if (object != null && reported.compareAndSet(false, true)) {
+                            dropObjects(bucketName, Set.of(objectKey));
+                            storeListeners.forEach(listener -> listener.accept(object));
+                        }
+                    })
+                    .doOnTerminate(invalidate)
+                    .doOnCancel(invalidate);
+        });
+    }
+
+    /**
+     * Register a callback for every invalidation, i.e. every write through this service, other than
+     * those reported to {@link #onStore}. It receives the bucket and the written keys, or an empty
+     * collection when the bucket itself was created or deleted.
+     */
+    public void onWrite(BiConsumer<String, Collection<String>> listener) {
+        writeListeners.add(listener);
+    }
+
+    /**
+     * Register a callback for every object stored by an upload or copy through this service. It
+     * receives the object as Sentinel-Gear answered the write.
+     */
+    public void onStore(Consumer<S3Object> listener) {
+        storeListeners.add(listener);
+    }
+
+    /** Drop a bucket, its objects and all bucket lists, in every scope. */
+    public void invalidateBucket(String bucketName) {
+        synchronized (entries) {
+            int dropped = invalidate(null, bucketLists, bucketLists.all());
+            BucketEntries bucket = buckets.get(bucketName);
+            if (bucket != null) {
+                dropped += invalidate(bucketName, bucket, bucket.all());
+            }
+            log.debug("Metadata cache invalidated {} entries of bucket {}", dropped, bucketName);
+        }
+        writeListeners.forEach(listener -> listener.accept(bucketName, List.of()));
+    }
+
+    /** Drop one object and the listings that may contain it, in every scope. */
+    public void invalidateObject(String bucketName, String objectKey) {
+        invalidateObjects(bucketName, List.of(objectKey));
+    }
+
+    /** Drop objects and the listings that may contain them, in every scope, in one pass. */
+    public void invalidateObjects(String bucketName, Collection<String> objectKeys) {
+        Set<String> keys = Set.copyOf(objectKeys);
+        dropObjects(bucketName, keys);
+        if (!keys.isEmpty()) {
+            writeListeners.forEach(listener -> listener.accept(bucketName, keys));
+        }
+    }
+
+    private void dropObjects(String bucketName, Set<String> keys) {
+        synchronized (entries) {
+            BucketEntries bucket = buckets.get(bucketName);
+            if (bucket != null) {
+                Set<Key> affected = new HashSet<>();
+                for (String objectKey : keys) {
+                    affected.addAll(bucket.objects().getOrDefault(objectKey, Set.of()));
+                    bucket.listingsContaining(objectKey, affected);
+                }
+                int dropped = invalidate(bucketName, bucket, affected);
+                log.debug("Metadata cache invalidated {} entries of bucket {}", dropped, bucketName);
+            }
+        }
+    }
+
+    private Mono<BucketIndex> bucketIndex(String jwtToken, Supplier<Flux<S3Bucket>> loader) {
+        return lookup(jwtToken, Kind.BUCKET_LIST, null, null,
+                validators -> loader.get().collectList().map(buckets -> Conditional.of(BucketIndex.of(buckets))),
+                null, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Mono<T> lookup(String jwtToken, Kind kind, String bucketName, String keyOrPrefix,
+                               Function<Validators, Mono<Conditional<T>>> loader,
+                               Class<? extends RuntimeException> notFoundType,
+                               Supplier<RuntimeException> notFound) {
+        if (!properties.isEnabled()) {
+            return Mono.defer(() -> loader.apply(Validators.NONE)).map(Conditional::value);
+        }
+        return claimsExtractor.principalScope(jwtToken).flatMap(scope -> {
+            Key key = new Key(scope, kind, bucketName, keyOrPrefix);
+            Entry entry = get(key);
+            if (entry != null && entry.expiresAt().isAfter(Instant.now())) {
+                hits.get(kind).increment();
+                return entry.notFound() ? Mono.error(notFound.get()) : Mono.just((T) entry.value());
+            }
+
+            // A stale entry with validators is revalidated instead of refetched
+            Validators validators = entry != null ? entry.validators() : Validators.NONE;
+            if (validators.isEmpty()) {
+                misses.get(kind).increment();
+            }
+            return Mono.defer(() -> {
+                Generation generation = acquire(bucketName);
+                return load(key, entry, validators, loader, notFoundType, generation)
+                        .doFinally(signal -> release(generation));
+            });
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Mono<T> load(Key key, Entry entry, Validators validators,
+                             Function<Validators, Mono<Conditional<T>>> loader,
+                             Class<? extends RuntimeException> notFoundType, Generation generation) {
+        Kind kind = key.kind();
+        Mono<T> load = loader.apply(validators).map(result -> {
+            Instant expiresAt = Instant.now().plus(properties.getTtl());
+            if (result.notModified() && entry != null) {
+                revalidations.get(kind).increment();
+                put(key, new Entry(entry.value(), false, expiresAt, entry.validators()), generation);
+                return (T) entry.value();
+            }
+            if (!validators.isEmpty()) {
+                misses.get(kind).increment();
+            }
+            put(key, new Entry(result.value(), false, expiresAt, result.validators()), generation);
+            return result.value();
+        });
+        if (notFoundType == null) {
+            return load;
+        }
+        return load.doOnError(notFoundType, e -> put(key, new Entry(null, true,
+                Instant.now().plus(properties.getNegativeTtl()), Validators.NONE), generation));
+    }
+
+    /** @return the entry, stale ones included as long as they can be revalidated */
+    private Entry get(Key key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && !entry.expiresAt().isAfter(Instant.now()) && entry.validators().isEmpty()) {
+                remove(key);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void put(Key key, Entry entry, Generation generation) {
+        long entryWeight = weight(entry);
+        synchronized (entries) {
+            // Invalidations bump the generation under the same lock
+            if (generation.bucket().generation != generation.value()) {
+                return;
+            }
+            if (entryWeight > properties.getMaxEntryWeight()) {
+                remove(key);
+                return;
+            }
+            Entry previous = entries.put(key, entry);
+            weight += entryWeight - (previous != null ? weight(previous) : 0);
+            generation.bucket().add(key);
+            evict();
+        }
+    }
+
+    /** Evict least recently used entries until the cache is within its weight again. */
+    private void evict() {
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (weight > properties.getMaxWeight() && eldest.hasNext()) {
+            Map.Entry<Key, Entry> evicted = eldest.next();
+            eldest.remove();
+            weight -= weight(evicted.getValue());
+            unindex(evicted.getKey());
+        }
+    }
+
+    private void remove(Key key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            weight -= weight(removed);
+        }
+        unindex(key);
+    }
+
+    private static long weight(Entry entry) {
+        if (entry.value() instanceof List<?> list) {
+            return Math.max(1, list.size());
+        }
+        if (entry.value() instanceof BucketIndex index) {
+            return Math.max(1, index.buckets().size());
+        }
+        return 1;
+    }
+
+    /** Register a load; its bucket's index is kept while it runs so the generation survives. */
+    private Generation acquire(String bucketName) {
+        synchronized (entries) {
+            BucketEntries bucket = bucketName == null
+                    ? bucketLists : buckets.computeIfAbsent(bucketName, name -> new BucketEntries());
+            bucket.loads++;
+            return new Generation(bucketName, bucket, bucket.generation);
+        }
+    }
+
+    private void release(Generation generation) {
+        synchronized (entries) {
+            generation.bucket().loads--;
+            prune(generation.bucketName(), generation.bucket());
+        }
+    }
+
+    private void unindex(Key key) {
+        BucketEntries bucket = key.bucketName() == null ? bucketLists : buckets.get(key.bucketName());
+        if (bucket != null) {
+            bucket.remove(key);
+            prune(key.bucketName(), bucket);
+        }
+    }
+
+    private int invalidate(String bucketName, BucketEntries bucket, Collection<Key> affected) {
+        bucket.generation++;
+        int dropped = 0;
+        for (Key key : affected) {
+            if (entries.containsKey(key)) {
+                dropped++;
+            }
+            remove(key);
+        }
+        prune(bucketName, bucket);
+        return dropped;
+    }
+
+    /** Forget a bucket without entries or running loads; a later load starts a fresh generation. */
+    private void prune(String bucketName, BucketEntries bucket) {
+        if (bucketName != null && bucket.isUnused()) {
+            buckets.remove(bucketName, bucket);
+        }
+    }
+
+    /**
+     * Validators of a cached representation, sent as {@code If-None-Match} and
+     * {@code If-Modified-Since} when it is refreshed.
+     *
+     * @param etag ETag header value
+     * @param lastModified Last-Modified header value
+     */
+    public record Validators(String etag, String lastModified) {
+        public static final Validators NONE = new Validators(null, null);
+
+        /** @return true if neither validator is known */
+        public boolean isEmpty() {
+            return etag == null && lastModified == null;
+        }
+    }
+
+    /**
+     * Result of a possibly conditional fetch.
+     *
+     * @param value fetched value, null if not modified
+     * @param validators validators returned with the value
+     * @param notModified true if the server answered 304 Not Modified
+     */
+    public record Conditional<T>(T value, Validators validators, boolean notModified) {
+        public static <T> Conditional<T> of(T value) {
+            return new Conditional<>(value, Validators.NONE, false);
+        }
+
+        public static <T> Conditional<T> of(T value, String etag, String lastModified) {
+            return new Conditional<>(value, new Validators(etag, lastModified), false);
+        }
+
+        public static <T> Conditional<T> notModified() {
+            return new Conditional<>(null, Validators.NONE, true);
+        }
+    }
+
+    /** Cache key; keyOrPrefix is the object key or, for listings, the prefix. */
+    private record Key(String scope, Kind kind, String bucketName, String keyOrPrefix) {}
+
+    private record Entry(Object value, boolean notFound, Instant expiresAt, Validators validators) {}
+
+    /** Generation of a bucket's index when a load started. */
+    private record Generation(String bucketName, BucketEntries bucket, long value) {}
+
+    /**
+     * Keys of one bucket's entries: bucket entries, objects by key and listings by prefix. The
+     * prefixes are sorted, so the listings containing a key are found without scanning them all.
+     */
+    private static final class BucketEntries {
+        private final Set<Key> others = new HashSet<>();
+        private final Map<String, Set<Key>> objects = new HashMap<>();
+        private final NavigableMap<String, Set<Key>> listings = new TreeMap<>();
+        private long generation;
+        private int loads;
+
+        Map<String, Set<Key>> objects() {
+            return objects;
+        }
+
+        void add(Key key) {
+            switch (key.kind()) {
+                case OBJECT -> objects.computeIfAbsent(key.keyOrPrefix(), k -> new HashSet<>()).add(key);
+                case OBJECT_LIST -> listings.computeIfAbsent(key.keyOrPrefix(), k -> new HashSet<>()).add(key);
+                default -> others.add(key);
+            }
+        }
+
+        void remove(Key key) {
+            switch (key.kind()) {
+                case OBJECT -> removeFrom(objects, key);
+                case OBJECT_LIST -> removeFrom(listings, key);
+                default -> others.remove(key);
+            }
+        }
+
+        private static void removeFrom(Map<String, Set<Key>> index, Key key) {
+            Set<Key> keys = index.get(key.keyOrPrefix());
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                index.remove(key.keyOrPrefix());
+            }
+        }
+
+        /** Collect the listings whose prefix the object key starts with. */
+        void listingsContaining(String objectKey, Collection<Key> into) {
+            KeyPrefixes.forEachContaining(listings, objectKey, into::addAll);
+        }
+
+        List<Key> all() {
+            List<Key> all = new ArrayList<>(others);
+            objects.values().forEach(all::addAll);
+            listings.values().forEach(all::addAll);
+            return all;
+        }
+
+        boolean isUnused() {
+            return loads == 0 && others.isEmpty() && objects.isEmpty() && listings.isEmpty();
+        }
+    }
+
+    private record BucketIndex(List<S3Bucket> buckets, Map<String, List<S3Bucket>> byTenant) {
+        static BucketIndex of(List<S3Bucket> buckets) {
+            return new BucketIndex(List.copyOf(buckets),
+                    buckets.stream().collect(Collectors.groupingBy(S3Bucket::ownerTenant)));
+        }
+    }
+}
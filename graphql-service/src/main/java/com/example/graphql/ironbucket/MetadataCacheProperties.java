@@ -0,0 +1,45 @@
+package com.example.graphql.ironbucket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the IronBucket bucket and object metadata cache.
+ */
+@Component
+@ConfigurationProperties(prefix = "ironbucket.metadata-cache")
+public class MetadataCacheProperties {
+    /** Whether metadata reads are cached. */
+    private boolean enabled = true;
+    /** How long a found bucket, object or bucket list is served from cache. */
+    private Duration ttl = Duration.ofSeconds(60);
+    /** How long a not-found answer is served from cache. */
+    private Duration negativeTtl = Duration.ofSeconds(10);
+    /** Maximum total weight of cached entries across all tenants; a listing weighs one per object. */
+    private long maxWeight = 100_000;
+    /** Heaviest entry that is cached; larger listings are streamed through without being kept. */
+    private int maxEntryWeight = 1_000;
+
+    /** @return whether caching is enabled */
+    public boolean isEnabled() { return enabled; }
+    /** @param enabled whether caching is enabled */
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    /** @return positive entry TTL */
+    public Duration getTtl() { return ttl; }
+    /** @param ttl positive entry TTL */
+    public void setTtl(Duration ttl) { this.ttl = ttl; }
+    /** @return not-found entry TTL */
+    public Duration getNegativeTtl() { return negativeTtl; }
+    /** @param negativeTtl not-found entry TTL */
+    public void setNegativeTtl(Duration negativeTtl) { this.negativeTtl = negativeTtl; }
+    /** @return cache bound */
+    public long getMaxWeight() { return maxWeight; }
+    /** @param maxWeight cache bound */
+    public void setMaxWeight(long maxWeight) { this.maxWeight = maxWeight; }
+    /** @return largest cached entry */
+    public int getMaxEntryWeight() { return maxEntryWeight; }
+    /** @param maxEntryWeight largest cached entry */
+    public void setMaxEntryWeight(int maxEntryWeight) { this.maxEntryWeight = maxEntryWeight; }
+}
@@ -0,0 +1,44 @@
+package com.example.graphql.ironbucket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration of multipart uploads to IronBucket.
+ *
+ * <p>Sources are split into parts of {@code part-size} bytes which are uploaded with at most
+ * {@code concurrency} parts in flight. Completed parts are recorded in {@code state-directory}
+ * so an interrupted upload can be resumed.</p>
+ */
+@Component
+@ConfigurationProperties(prefix = "ironbucket.multipart")
+public class MultipartUploadProperties {
+    /** Size of every part except the last. */
+    private DataSize partSize = DataSize.ofMegabytes(8);
+    /** Maximum number of parts uploaded concurrently. */
+    private int concurrency = 4;
+    /** Size of the buffers parts are read into. */
+    private DataSize readBufferSize = DataSize.ofKilobytes(64);
+    /** Directory holding resumable upload state files. */
+    private Path stateDirectory = Path.of(System.getProperty("java.io.tmpdir"), "ironbucket-multipart");
+
+    /** @return part size */
+    public DataSize getPartSize() { return partSize; }
+    /** @param partSize part size */
+    public void setPartSize(DataSize partSize) { this.partSize = partSize; }
+    /** @return maximum parts in flight */
+    public int getConcurrency() { return concurrency; }
+    /** @param concurrency maximum parts in flight */
+    public void setConcurrency(int concurrency) { this.concurrency = concurrency; }
+    /** @return read buffer size */
+    public DataSize getReadBufferSize() { return readBufferSize; }
+    /** @param readBufferSize read buffer size */
+    public void setReadBufferSize(DataSize readBufferSize) { this.readBufferSize = readBufferSize; }
+    /** @return state file directory */
+    public Path getStateDirectory() { return stateDirectory; }
+    /** @param stateDirectory state file directory */
+    public void setStateDirectory(Path stateDirectory) { this.stateDirectory = stateDirectory; }
+}
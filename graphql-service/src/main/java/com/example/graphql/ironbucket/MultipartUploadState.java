@@ -0,0 +1,133 @@
+package com.example.graphql.ironbucket;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Resumable state of one multipart upload, persisted as a properties file.
+ *
+ * <p>The file records the upload ID, the source fingerprint (size, modification time and part size)
+ * and the ETag of every completed part. It is rewritten atomically after each part, so a crash
+ * loses at most the parts that were still in flight.</p>
+ */
+final class MultipartUploadState {
+
+    private static final String UPLOAD_ID = "uploadId";
+    private static final String SOURCE_SIZE = "sourceSize";
+    private static final String SOURCE_MODIFIED = "sourceModified";
+    private static final String PART_SIZE = "partSize";
+    private static final String PART_PREFIX = "part.";
+
+    private final Path file;
+    private final String uploadId;
+    private final long sourceSize;
+    private final long sourceModified;
+    private final long partSize;
+    private final SortedMap<Integer, String> completedParts = new TreeMap<>();
+
+    MultipartUploadState(Path file, String uploadId, long sourceSize, long sourceModified, long partSize) {
+        this.file = file;
+        this.uploadId = uploadId;
+        this.sourceSize = sourceSize;
+        this.sourceModified = sourceModified;
+        this.partSize = partSize;
+    }
+
+    /**
+     * Loads the state file if it exists.
+     *
+     * @param file state file
+     * @return the state, or null if there is none
+     * @throws IOException if the file cannot be read
+     */
+    static MultipartUploadState load(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        MultipartUploadState state = new MultipartUploadState(file,
+                properties.getProperty(UPLOAD_ID),
+                Long.parseLong(properties.getProperty(SOURCE_SIZE, "-1")),
+                Long.parseLong(properties.getProperty(SOURCE_MODIFIED, "-1")),
+                Long.parseLong(properties.getProperty(PART_SIZE, "-1")));
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(PART_PREFIX)) {
+                state.completedParts.put(Integer.parseInt(name.substring(PART_PREFIX.length())),
+                        properties.getProperty(name));
+            }
+        }
+        return state;
+    }
+
+    /**
+     * @return true if the state was recorded for the same source content and part size
+     */
+    boolean matches(long size, long modified, long partSize) {
+        return uploadId != null && sourceSize == size && sourceModified == modified && this.partSize == partSize;
+    }
+
+    String uploadId() {
+        return uploadId;
+    }
+
+    synchronized boolean isCompleted(int partNumber) {
+        return completedParts.containsKey(partNumber);
+    }
+
+    /** @return completed parts ordered by part number */
+    synchronized SortedMap<Integer, String> completedParts() {
+        return new TreeMap<>(completedParts);
+    }
+
+    /**
+     * Records a completed part and persists the state.
+     *
+     * @throws IOException if the state cannot be written
+     */
+    synchronized void complete(int partNumber, String etag) throws IOException {
+        completedParts.put(partNumber, etag);
+        save();
+    }
+
+    /**
+     * Writes the state to a temporary file and atomically replaces the state file.
+     *
+     * @throws IOException if the state cannot be written
+     */
+    synchronized void save() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(UPLOAD_ID, uploadId);
+        properties.setProperty(SOURCE_SIZE, Long.toString(sourceSize));
+        properties.setProperty(SOURCE_MODIFIED, Long.toString(sourceModified));
+        properties.setProperty(PART_SIZE, Long.toString(partSize));
+        for (Map.Entry<Integer, String> part : completedParts.entrySet()) {
+            properties.setProperty(PART_PREFIX + part.getKey(), part.getValue());
+        }
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            properties.store(out, "IronBucket multipart upload state");
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Deletes the state file once the upload is completed or aborted.
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
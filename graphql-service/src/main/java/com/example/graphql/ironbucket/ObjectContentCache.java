@@ -0,0 +1,275 @@
+package com.example.graphql.ironbucket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bounded local disk cache for hot object content.
+ *
+ * <p>Full downloads of objects that carry an ETag are written to {@link ObjectContentCacheProperties#getDirectory()}
+ * while they stream to the caller. Later downloads still go to Sentinel-Gear, so every request is
+ * authorized upstream, but send {@code If-None-Match}; on {@code 304 Not Modified} the cached file
+ * is memory-mapped and served without copying it onto the heap. The least recently used files are
+ * evicted once the cache exceeds its configured size.</p>
+ */
+@Component
+public class ObjectContentCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ObjectContentCache.class);
+
+    private final IronBucketS3Service s3Service;
+    private final ObjectContentCacheProperties properties;
+    private final Map<String, CachedContent> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public ObjectContentCache(IronBucketS3Service s3Service, ObjectContentCacheProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.s3Service = s3Service;
+        this.properties = properties;
+        this.hits = counter(meterRegistry, "hit");
+        this.misses = counter(meterRegistry, "miss");
+        this.evictions = Counter.builder("ironbucket.content.cache.evictions")
+                .description("Cached objects evicted to stay within the size limit")
+                .register(meterRegistry);
+        Gauge.builder("ironbucket.content.cache.size", this, ObjectContentCache::size)
+                .description("Bytes of object content cached on disk")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("ironbucket.content.cache.entries", this, ObjectContentCache::entries)
+                .description("Objects cached on disk")
+                .register(meterRegistry);
+        Gauge.builder("ironbucket.content.cache.hit.ratio", this, ObjectContentCache::hitRatio)
+                .description("Share of cacheable downloads served from disk")
+                .register(meterRegistry);
+        if (properties.isEnabled()) {
+            prepareDirectory(properties.getDirectory());
+            log.info("ObjectContentCache initialized at {} (max {})", properties.getDirectory(), properties.getMaxSize());
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("ironbucket.content.cache.requests")
+                .description("Object content downloads by cache outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /** @return whether content is cached */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Download full object content, serving it from disk when the cached copy is still current.
+     *
+     * @param jwtToken JWT bearer token
+     * @param bucketName Bucket name
+     * @param objectKey Object key
+     * @return Mono of the streaming response entity
+     */
+    public Mono<ResponseEntity<Flux<DataBuffer>>> download(String jwtToken, String bucketName, String objectKey) {
+        String indexKey = bucketName + "/" + objectKey;
+        return Mono.defer(() -> {
+            CachedContent cached = lookup(indexKey);
+            String etag = cached != null ? cached.etag() : null;
+            return s3Service.downloadObject(jwtToken, bucketName, objectKey, null, etag)
+                    .flatMap(upstream -> {
+                        if (cached != null && upstream.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                            return drain(upstream)
+                                    .then(serve(cached))
+                                    .onErrorResume(IOException.class, e -> {
+                                        log.warn("Cached content for {} unreadable, downloading again", indexKey, e);
+                                        remove(cached);
+                                        return download(jwtToken, bucketName, objectKey);
+                                    });
+                        }
+                        misses.increment();
+                        return Mono.just(store(indexKey, upstream));
+                    });
+        });
+    }
+
+    private Mono<ResponseEntity<Flux<DataBuffer>>> serve(CachedContent cached) {
+        return Mono.fromCallable(() -> {
+                    MappedByteBuffer mapped;
+                    try (FileChannel channel = FileChannel.open(cached.file(), StandardOpenOption.READ)) {
+                        // The mapping stays valid after the channel is closed
+                        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, cached.size());
+                    }
+                    hits.increment();
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.setContentLength(cached.size());
+                    headers.setETag(cached.etag());
+                    if (cached.contentType() != null) {
+                        headers.set(HttpHeaders.CONTENT_TYPE, cached.contentType());
+                    }
+                    if (cached.lastModified() != null) {
+                        headers.set(HttpHeaders.LAST_MODIFIED, cached.lastModified());
+                    }
+                    headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+                    DataBuffer body = DefaultDataBufferFactory.sharedInstance.wrap(mapped);
+                    return ResponseEntity.ok().headers(headers).body(Flux.just(body));
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private ResponseEntity<Flux<DataBuffer>> store(String indexKey, ResponseEntity<Flux<DataBuffer>> upstream) {
+        HttpHeaders headers = upstream.getHeaders();
+        String etag = headers.getETag();
+        long size = headers.getContentLength();
+        if (upstream.getStatusCode() != HttpStatus.OK || upstream.getBody() == null || etag == null
+                || size < 0 || size > properties.getMaxObjectSize().toBytes()) {
+            return upstream;
+        }
+        CachedContent content = new CachedContent(indexKey, etag,
+                properties.getDirectory().resolve(UUID.randomUUID() + ".bin"), size,
+                headers.getFirst(HttpHeaders.CONTENT_TYPE), headers.getFirst(HttpHeaders.LAST_MODIFIED));
+        Path temp = properties.getDirectory().resolve(UUID.randomUUID() + ".tmp");
+
+        // The caller receives each buffer once it has been written to the temp file
+        Flux<DataBuffer> body = Flux.using(
+                        () -> AsynchronousFileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW),
+                        channel -> DataBufferUtils.write(upstream.getBody(), channel)
+                                .concatWith(Mono.<DataBuffer>fromRunnable(() -> commit(temp, content))
+                                        .subscribeOn(Schedulers.boundedElastic())),
+                        ObjectContentCache::closeQuietly)
+                .doOnError(e -> deleteQuietly(temp))
+                .doOnCancel(() -> deleteQuietly(temp));
+        return ResponseEntity.status(upstream.getStatusCode()).headers(headers).body(body);
+    }
+
+    private void commit(Path temp, CachedContent content) {
+        try {
+            if (Files.size(temp) != content.size()) {
+                Files.deleteIfExists(temp);
+                return;
+            }
+            Files.move(temp, content.file(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to cache content of {}", content.indexKey(), e);
+            deleteQuietly(temp);
+            return;
+        }
+        synchronized (index) {
+            CachedContent replaced = index.put(content.indexKey(), content);
+            if (replaced != null) {
+                totalBytes -= replaced.size();
+                deleteQuietly(replaced.file());
+            }
+            totalBytes += content.size();
+            long maxBytes = properties.getMaxSize().toBytes();
+            Iterator<CachedContent> eldest = index.values().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                CachedContent evicted = eldest.next();
+                eldest.remove();
+                totalBytes -= evicted.size();
+                deleteQuietly(evicted.file());
+                evictions.increment();
+            }
+        }
+    }
+
+    private CachedContent lookup(String indexKey) {
+        synchronized (index) {
+            return index.get(indexKey);
+        }
+    }
+
+    private void remove(CachedContent content) {
+        synchronized (index) {
+            if (index.remove(content.indexKey(), content)) {
+                totalBytes -= content.size();
+            }
+        }
+        deleteQuietly(content.file());
+    }
+
+    /** @return bytes of content cached on disk */
+    long size() {
+        synchronized (index) {
+            return totalBytes;
+        }
+    }
+
+    /** @return number of cached objects */
+    int entries() {
+        synchronized (index) {
+            return index.size();
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total > 0 ? hits.count() / total : 0;
+    }
+
+    private static Mono<Void> drain(ResponseEntity<Flux<DataBuffer>> upstream) {
+        return upstream.getBody() != null
+                ? upstream.getBody().doOnNext(DataBufferUtils::release).then()
+                : Mono.empty();
+    }
+
+    /** Files left by a previous run are not indexed, so they are removed. */
+    private static void prepareDirectory(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            try (var files = Files.list(directory)) {
+                files.filter(file -> file.toString().endsWith(".bin") || file.toString().endsWith(".tmp"))
+                        .forEach(ObjectContentCache::deleteQuietly);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot prepare content cache directory " + directory, e);
+        }
+    }
+
+    private static void closeQuietly(AsynchronousFileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Failed to close cache file channel", e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Failed to delete cache file {}", file, e);
+        }
+    }
+
+    private record CachedContent(String indexKey, String etag, Path file, long size,
+                                 String contentType, String lastModified) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.graphql.ironbucket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration of the local disk cache for object content.
+ *
+ * <p>Objects up to {@code max-object-size} that carry an ETag are kept in {@code directory} until
+ * the cache exceeds {@code max-size}, when the least recently used ones are evicted. The cache is
+ * cleared on startup.</p>
+ */
+@Component
+@ConfigurationProperties(prefix = "ironbucket.content-cache")
+public class ObjectContentCacheProperties {
+    /** Whether object content is cached on local disk. */
+    private boolean enabled = false;
+    /** Directory holding cached content. */
+    private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "ironbucket-content-cache");
+    /** Total size of cached content. */
+    private DataSize maxSize = DataSize.ofGigabytes(1);
+    /** Largest object that is cached. */
+    private DataSize maxObjectSize = DataSize.ofMegabytes(16);
+
+    /** @return whether caching is enabled */
+    public boolean isEnabled() { return enabled; }
+    /** @param enabled whether caching is enabled */
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    /** @return cache directory */
+    public Path getDirectory() { return directory; }
+    /** @param directory cache directory */
+    public void setDirectory(Path directory) { this.directory = directory; }
+    /** @return total cache size */
+    public DataSize getMaxSize() { return maxSize; }
+    /** @param maxSize total cache size */
+    public void setMaxSize(DataSize maxSize) { this.maxSize = maxSize; }
+    /** @return largest cached object */
+    public DataSize getMaxObjectSize() { return maxObjectSize; }
+    /** @param maxObjectSize largest cached object */
+    public void setMaxObjectSize(DataSize maxObjectSize) { this.maxObjectSize = maxObjectSize; }
+}
@@ -0,0 +1,116 @@
+package com.example.graphql.ironbucket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTTP endpoint streaming object content from IronBucket.
+ *
+ * <p>GraphQL cannot carry binary bodies, so content is served here:
+ * {@code GET /api/v1/objects/{bucketName}/{objectKey}}. The caller's bearer token is forwarded to
+ * Sentinel-Gear, a {@code Range} header is passed through for partial and segmented downloads,
+ * and the upstream body is written to the response buffer by buffer without aggregation. Full
+ * downloads go through the {@link ObjectContentCache} when it is enabled.</p>
+ */
+@RestController
+@RequestMapping("/api/v1/objects")
+public class ObjectContentController {
+
+    private static final Logger log = LoggerFactory.getLogger(ObjectContentController.class);
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    /** Upstream response headers relevant to the client. */
+    private static final List<String> FORWARDED_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.CONTENT_LENGTH,
+            HttpHeaders.CONTENT_RANGE,
+            HttpHeaders.ACCEPT_RANGES,
+            HttpHeaders.ETAG,
+            HttpHeaders.LAST_MODIFIED,
+            HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.CONTENT_DISPOSITION);
+
+    private final IronBucketS3Service s3Service;
+    private final ObjectContentCache contentCache;
+
+    public ObjectContentController(IronBucketS3Service s3Service, ObjectContentCache contentCache) {
+        this.s3Service = s3Service;
+        this.contentCache = contentCache;
+    }
+
+    @GetMapping("/{bucketName}/{*objectKey}")
+    public Mono<ResponseEntity<Flux<DataBuffer>>> downloadObject(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @PathVariable String bucketName,
+            @PathVariable String objectKey
+    ) {
+        // {*objectKey} captures the remaining path including its leading slash
+        String key = objectKey.startsWith("/") ? objectKey.substring(1) : objectKey;
+        log.debug("HTTP: downloadObject - {}/{}, range={}", bucketName, key, range);
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+        String jwtToken = authorization.substring(BEARER_PREFIX.length());
+
+        return Mono.defer(() -> range == null && contentCache.isEnabled()
+                        ? contentCache.download(jwtToken, bucketName, key)
+                        : s3Service.downloadObject(jwtToken, bucketName, key, range))
+                .map(upstream -> {
+                    HttpHeaders headers = new HttpHeaders();
+                    for (String name : FORWARDED_HEADERS) {
+                        List<String> values = upstream.getHeaders().get(name);
+                        if (values != null) {
+                            headers.addAll(name, values);
+                        }
+                    }
+                    return ResponseEntity.status(upstream.getStatusCode())
+                            .headers(headers)
+                            .body(upstream.getBody() != null ? upstream.getBody() : Flux.<DataBuffer>empty());
+                });
+    }
+
+    @ExceptionHandler(ObjectNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleNotFound(ObjectNotFoundException ex) {
+        return error(HttpStatus.NOT_FOUND, "NOT_FOUND", ex.getMessage());
+    }
+
+    @ExceptionHandler(RangeNotSatisfiableException.class)
+    public ResponseEntity<Map<String, Object>> handleRangeNotSatisfiable(RangeNotSatisfiableException ex) {
+        return error(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, "RANGE_NOT_SATISFIABLE", ex.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidArgument(IllegalArgumentException ex) {
+        return error(HttpStatus.BAD_REQUEST, "INVALID_ARGUMENT", ex.getMessage());
+    }
+
+    @ExceptionHandler(IronBucketServiceException.class)
+    public ResponseEntity<Map<String, Object>> handleServiceError(IronBucketServiceException ex) {
+        return error(HttpStatus.BAD_GATEWAY, "IRONBUCKET_ERROR", ex.getMessage());
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String code, String message) {
+        return ResponseEntity.status(status).body(Map.of(
+                "code", code,
+                "message", message != null ? message : status.getReasonPhrase(),
+                "timestamp", System.currentTimeMillis()
+        ));
+    }
+}
@@ -0,0 +1,355 @@
+package com.example.graphql.ironbucket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory prefix tree of object keys per bucket, for folder browsing without listing requests.
+ *
+ * <p>Keys are split at {@code /} into a tree of folders. Every folder keeps its direct objects
+ * (size, last modification and content type; custom metadata is not indexed) and the total size
+ * and object count of everything below it, so a folder listing or a recursive size is a walk of
+ * as many nodes as the prefix has segments.</p>
+ *
+ * <p>A bucket's tree is filled by a background listing (see {@link FolderBrowsingService}) and
+ * kept current by the writes of {@link IronBucketS3Service}, {@link S3BulkOperationService} and
+ * {@link S3MultipartUploader}. Writes during the listing are applied at once and win over what
+ * the listing reports for the same keys. A tree is only served once its listing completed, and
+ * only until the configured maximum age after its listing started, since writes that bypass this
+ * service are never seen; an expired tree is listed again on the next browse.</p>
+ *
+ * <p>The index holds at most the configured number of keys and buckets, evicting the least
+ * recently browsed buckets first; buckets not browsed for the idle timeout are dropped, and a
+ * bucket that alone exceeds the key budget is not indexed until its rejection has idled out.</p>
+ */
+@Component
+public class ObjectKeyIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ObjectKeyIndex.class);
+
+    enum State { BUILDING, READY, TOO_LARGE }
+
+    private final ObjectKeyIndexProperties properties;
+    /** Trees by bucket, in access order. */
+    private final Map<String, BucketTree> trees = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalKeys;
+
+    public ObjectKeyIndex(ObjectKeyIndexProperties properties) {
+        this.properties = properties;
+    }
+
+    /** @return whether indexing is enabled */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Claim the listing of a bucket that is not indexed yet.
+     *
+     * @param bucketName bucket name
+     * @return true if the caller must list the bucket into the index, false if it is already
+     *         indexed, being listed, or rejected as too large
+     */
+    boolean startBuild(String bucketName) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        synchronized (trees) {
+            evictExpired(Instant.now());
+            if (trees.containsKey(bucketName)) {
+                return false;
+            }
+            trees.put(bucketName, new BucketTree());
+            enforceBounds(bucketName);
+            return true;
+        }
+    }
+
+    /** Add an object reported by the background listing. */
+    void loaded(String bucketName, S3Object object) {
+        synchronized (trees) {
+            BucketTree tree = trees.get(bucketName);
+            if (tree == null || tree.state != State.BUILDING || tree.touched.contains(object.key())) {
+                return;
+            }
+            adjust(tree.put(object));
+            if (tree.keys > properties.getMaxKeys()) {
+                log.info("Not indexing bucket {}: more than {} keys", bucketName, properties.getMaxKeys());
+                totalKeys -= tree.keys;
+                trees.put(bucketName, BucketTree.tooLarge());
+            } else {
+                enforceBounds(bucketName);
+            }
+        }
+    }
+
+    /** Mark a bucket's listing as complete, so its tree is served. */
+    void completeBuild(String bucketName) {
+        synchronized (trees) {
+            BucketTree tree = trees.get(bucketName);
+            if (tree != null && tree.state == State.BUILDING) {
+                tree.state = State.READY;
+                tree.touched.clear();
+                log.info("Indexed bucket {}: {} keys", bucketName, tree.keys);
+                enforceBounds(bucketName);
+            }
+        }
+    }
+
+    /** Discard a bucket whose listing failed, so the next browse lists it again. */
+    void abandonBuild(String bucketName) {
+        synchronized (trees) {
+            BucketTree tree = trees.get(bucketName);
+            if (tree != null && tree.state == State.BUILDING) {
+                drop(bucketName);
+            }
+        }
+    }
+
+    /**
+     * @param bucketName bucket name
+     * @param prefix folder prefix: empty or ending with {@code /}
+     * @param maxKeys maximum objects plus subfolders to return
+     * @return the folder's direct objects and subfolders, or null if the bucket is not indexed or
+     *         the folder holds more than {@code maxKeys} entries
+     */
+    S3ObjectConnection folder(String bucketName, String prefix, int maxKeys) {
+        synchronized (trees) {
+            Node node = readyNode(bucketName, prefix);
+            if (node == null) {
+                return null;
+            }
+            if (node.folders.size() + node.objects.size() > maxKeys) {
+                return null;
+            }
+            List<S3Object> objects = new ArrayList<>(node.objects.size());
+            node.objects.forEach((name, leaf) -> objects.add(new S3Object(prefix + name, bucketName,
+                    leaf.size(), leaf.lastModified(), leaf.contentType(), Map.of())));
+            List<String> commonPrefixes = node.folders.keySet().stream().map(name -> prefix + name + "/").toList();
+            return new S3ObjectConnection(objects, commonPrefixes, null);
+        }
+    }
+
+    /**
+     * @param bucketName bucket name
+     * @param prefix folder prefix: empty or ending with {@code /}
+     * @return recursive totals of the folder, or null if the bucket is not indexed
+     */
+    FolderSummary summary(String bucketName, String prefix) {
+        synchronized (trees) {
+            Node node = readyNode(bucketName, prefix);
+            return node != null ? new FolderSummary(bucketName, prefix, node.size, node.count) : null;
+        }
+    }
+
+    /** Record an uploaded, copied or updated object. */
+    void put(S3Object object) {
+        synchronized (trees) {
+            BucketTree tree = trees.get(object.bucketName());
+            if (tree != null && tree.state != State.TOO_LARGE) {
+                tree.touch(object.key());
+                adjust(tree.put(object));
+            }
+        }
+    }
+
+    /** Record deleted objects. */
+    void remove(String bucketName, Collection<String> keys) {
+        synchronized (trees) {
+            BucketTree tree = trees.get(bucketName);
+            if (tree != null && tree.state != State.TOO_LARGE) {
+                for (String key : keys) {
+                    tree.touch(key);
+                    adjust(tree.remove(key));
+                }
+            }
+        }
+    }
+
+    /** Forget a deleted bucket. */
+    void dropBucket(String bucketName) {
+        synchronized (trees) {
+            drop(bucketName);
+        }
+    }
+
+    /** @return number of keys indexed across all buckets */
+    long size() {
+        synchronized (trees) {
+            return totalKeys;
+        }
+    }
+
+    private Node readyNode(String bucketName, String prefix) {
+        BucketTree tree = trees.get(bucketName);
+        Instant now = Instant.now();
+        if (tree == null || tree.state != State.READY || tree.listedAt.isBefore(now.minus(properties.getMaxAge()))) {
+            return null;
+        }
+        tree.lastAccess = now;
+        Node node = tree.root.find(segments(prefix));
+        return node != null ? node : new Node();
+    }
+
+    private void adjust(long keyDelta) {
+        totalKeys += keyDelta;
+    }
+
+    private void drop(String bucketName) {
+        BucketTree removed = trees.remove(bucketName);
+        if (removed != null) {
+            totalKeys -= removed.keys;
+        }
+    }
+
+    private void evictExpired(Instant now) {
+        Instant idleSince = now.minus(properties.getIdleTimeout());
+        Instant listedSince = now.minus(properties.getMaxAge());
+        Iterator<BucketTree> iterator = trees.values().iterator();
+        while (iterator.hasNext()) {
+            BucketTree tree = iterator.next();
+            if (tree.state != State.BUILDING
+                    && (tree.lastAccess.isBefore(idleSince) || tree.listedAt.isBefore(listedSince))) {
+                iterator.remove();
+                totalKeys -= tree.keys;
+            }
+        }
+    }
+
+    /** Evict the least recently browsed buckets, other than {@code keep}, beyond the limits. */
+    private void enforceBounds(String keep) {
+        Iterator<Map.Entry<String, BucketTree>> eldest = trees.entrySet().iterator();
+        while ((totalKeys > properties.getMaxKeys() || trees.size() > properties.getMaxBuckets()) && eldest.hasNext()) {
+            Map.Entry<String, BucketTree> entry = eldest.next();
+            if (!entry.getKey().equals(keep)) {
+                eldest.remove();
+                totalKeys -= entry.getValue().keys;
+                log.debug("Evicted bucket {} from key index", entry.getKey());
+            }
+        }
+    }
+
+    /** Folder segments of a prefix that is empty or ends with {@code /}. */
+    private static String[] segments(String folderPath) {
+        return folderPath.isEmpty()
+                ? new String[0]
+                : folderPath.substring(0, folderPath.length() - 1).split("/", -1);
+    }
+
+    private static final class BucketTree {
+        final Node root = new Node();
+        /** Keys written while the listing runs; the listing must not overwrite them. */
+        final Set<String> touched = new HashSet<>();
+        State state = State.BUILDING;
+        /** When the listing started; the tree may miss writes made elsewhere since. */
+        final Instant listedAt = Instant.now();
+        Instant lastAccess = listedAt;
+        long keys;
+
+        static BucketTree tooLarge() {
+            BucketTree tree = new BucketTree();
+            tree.state = State.TOO_LARGE;
+            return tree;
+        }
+
+        void touch(String key) {
+            if (state == State.BUILDING) {
+                touched.add(key);
+            }
+        }
+
+        /** @return change in the number of keys */
+        long put(S3Object object) {
+            String key = object.key();
+            int slash = key.lastIndexOf('/');
+            Leaf leaf = new Leaf(object.size() != null ? object.size() : 0, object.lastModified(), object.contentType());
+            long delta = root.put(segments(key.substring(0, slash + 1)), 0, key.substring(slash + 1), leaf);
+            keys += delta;
+            return delta;
+        }
+
+        /** @return change in the number of keys */
+        long remove(String key) {
+            int slash = key.lastIndexOf('/');
+            long delta = root.remove(segments(key.substring(0, slash + 1)), 0, key.substring(slash + 1));
+            keys += delta;
+            return delta;
+        }
+    }
+
+    /** A folder with its direct objects, subfolders and recursive totals. */
+    private static final class Node {
+        final TreeMap<String, Node> folders = new TreeMap<>();
+        final TreeMap<String, Leaf> objects = new TreeMap<>();
+        long size;
+        long count;
+
+        Node find(String[] path) {
+            Node node = this;
+            for (String segment : path) {
+                node = node.folders.get(segment);
+                if (node == null) {
+                    return null;
+                }
+            }
+            return node;
+        }
+
+        long put(String[] path, int depth, String name, Leaf leaf) {
+            Leaf previous;
+            long delta;
+            if (depth == path.length) {
+                previous = objects.put(name, leaf);
+                delta = previous == null ? 1 : 0;
+                size += leaf.size() - (previous != null ? previous.size() : 0);
+                count += delta;
+                return delta;
+            }
+            Node child = folders.computeIfAbsent(path[depth], segment -> new Node());
+            long childSize = child.size;
+            delta = child.put(path, depth + 1, name, leaf);
+            size += child.size - childSize;
+            count += delta;
+            return delta;
+        }
+
+        long remove(String[] path, int depth, String name) {
+            if (depth == path.length) {
+                Leaf removed = objects.remove(name);
+                if (removed == null) {
+                    return 0;
+                }
+                size -= removed.size();
+                count--;
+                return -1;
+            }
+            Node child = folders.get(path[depth]);
+            if (child == null) {
+                return 0;
+            }
+            long childSize = child.size;
+            long delta = child.remove(path, depth + 1, name);
+            size += child.size - childSize;
+            count += delta;
+            if (child.count == 0) {
+                folders.remove(path[depth]);
+            }
+            return delta;
+        }
+    }
+
+    private record Leaf(long size, Instant lastModified, String contentType) {
+    }
+}
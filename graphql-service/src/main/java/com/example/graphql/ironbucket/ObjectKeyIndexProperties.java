@@ -0,0 +1,57 @@
+package com.example.graphql.ironbucket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the in-memory object key index used for folder browsing.
+ *
+ * <p>At most {@code max-keys} keys are indexed across at most {@code max-buckets} buckets; the
+ * least recently browsed buckets are evicted to stay within both, and buckets not browsed for
+ * {@code idle-timeout} are dropped. A bucket is listed again once its index is older than
+ * {@code max-age}, to pick up writes made other than through this service. A bucket with more keys
+ * than the whole budget is not indexed.</p>
+ */
+@Component
+@ConfigurationProperties(prefix = "ironbucket.key-index")
+public class ObjectKeyIndexProperties {
+    /** Whether browsed buckets are indexed in memory. */
+    private boolean enabled = false;
+    /** Maximum number of keys indexed across all buckets. */
+    private long maxKeys = 2_000_000;
+    /** Maximum number of indexed buckets. */
+    private int maxBuckets = 64;
+    /** How long an unbrowsed bucket stays indexed. */
+    private Duration idleTimeout = Duration.ofMinutes(30);
+    /** How long after its listing started a bucket's index is served. */
+    private Duration maxAge = Duration.ofMinutes(10);
+    /** Number of folders listed in parallel while building an index. */
+    private int listingParallelism = 4;
+
+    /** @return whether indexing is enabled */
+    public boolean isEnabled() { return enabled; }
+    /** @param enabled whether indexing is enabled */
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    /** @return maximum indexed keys */
+    public long getMaxKeys() { return maxKeys; }
+    /** @param maxKeys maximum indexed keys */
+    public void setMaxKeys(long maxKeys) { this.maxKeys = maxKeys; }
+    /** @return maximum indexed buckets */
+    public int getMaxBuckets() { return maxBuckets; }
+    /** @param maxBuckets maximum indexed buckets */
+    public void setMaxBuckets(int maxBuckets) { this.maxBuckets = maxBuckets; }
+    /** @return idle timeout */
+    public Duration getIdleTimeout() { return idleTimeout; }
+    /** @param idleTimeout idle timeout */
+    public void setIdleTimeout(Duration idleTimeout) { this.idleTimeout = idleTimeout; }
+    /** @return maximum age of a bucket's index */
+    public Duration getMaxAge() { return maxAge; }
+    /** @param maxAge maximum age of a bucket's index */
+    public void setMaxAge(Duration maxAge) { this.maxAge = maxAge; }
+    /** @return folders listed in parallel */
+    public int getListingParallelism() { return listingParallelism; }
+    /** @param listingParallelism folders listed in parallel */
+    public void setListingParallelism(int listingParallelism) { this.listingParallelism = listingParallelism; }
+}
@@ -0,0 +1,46 @@
+package com.example.graphql.ironbucket;
+
+/**
+ * Outcome of one object in a bulk operation, with the operation's progress so far.
+ *
+ * @param bucketName Bucket of the object
+ * @param key Object key
+ * @param success Whether the operation succeeded for this object
+ * @param errorCode Machine-readable failure code, null on success
+ * @param message Failure description, null on success
+ * @param completed Number of objects processed so far, including this one
+ */
+public record ObjectOperationResult(
+    String bucketName,
+    String key,
+    boolean success,
+    String errorCode,
+    String message,
+    long completed
+) {
+    static ObjectOperationResult succeeded(String bucketName, String key) {
+        return new ObjectOperationResult(bucketName, key, true, null, null, 0);
+    }
+
+    static ObjectOperationResult failed(String bucketName, String key, String errorCode, String message) {
+        return new ObjectOperationResult(bucketName, key, false, errorCode, message, 0);
+    }
+
+    static ObjectOperationResult failed(String bucketName, String key, Throwable error) {
+        String errorCode = switch (error) {
+            case ObjectNotFoundException ex -> "NOT_FOUND";
+            case BucketNotFoundException ex -> "NOT_FOUND";
+            case UnauthorizedException ex -> "UNAUTHORIZED";
+            case ForbiddenException ex -> "FORBIDDEN";
+            case IllegalArgumentException ex -> "INVALID_ARGUMENT";
+            case SentinelGearOverloadedException ex -> "SERVICE_OVERLOADED";
+            default -> "IRONBUCKET_ERROR";
+        };
+        return failed(bucketName, key, errorCode, error.getMessage());
+    }
+
+    /** @return this result stamped with the operation's progress */
+    ObjectOperationResult withCompleted(long completed) {
+        return new ObjectOperationResult(bucketName, key, success, errorCode, message, completed);
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.graphql.ironbucket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Adaptive concurrency limits and circuit breakers for Sentinel-Gear, per endpoint group.
+ *
+ * <p>Installed as an exchange filter on every WebClient created by {@link IronBucketHttpClient}, so
+ * it guards each attempt separately: retries pass through it again and are rejected once the
+ * endpoint group is overloaded instead of piling onto in-flight requests. A call first needs the
+ * group's {@link CircuitBreaker} to be closed (or a half-open probe slot), then a permit from its
+ * {@link AdaptiveConcurrencyLimit}; otherwise it fails at once with
+ * {@link SentinelGearOverloadedException}. Latency is measured until response headers arrive.
+ * Server errors, {@code 429 Too Many Requests} and transport errors count as failures; other
+ * client errors are answers and count as successes.</p>
+ *
+ * <p>Calls are grouped by endpoint: {@code buckets}, {@code objects} (metadata, listings, presigning,
+ * copies), {@code content} (object content and multipart parts) and the first path segment below
+ * {@code /api/v1} for everything else. Per group, the limit, calls in flight and circuit state are
+ * published as {@code ironbucket.sentinel.concurrency.limit}, {@code ironbucket.sentinel.inflight}
+ * and {@code ironbucket.sentinel.circuit.state} (0 closed, 1 half open, 2 open); rejections are
+ * counted in {@code ironbucket.sentinel.rejections}, tagged by reason.</p>
+ *
+ * <p>Retries are bounded separately per calling service by a {@link RetryBudget}, which also pays
+ * for hedged requests: {@link #retrySpec(String)} retries a failed call only while the service's
+ * budget has tokens left, so an outage cannot multiply traffic by the number of attempts. The
+ * balance is published as {@code ironbucket.sentinel.retry.budget} and denied retries are counted
+ * in {@code ironbucket.sentinel.retries.denied}, both tagged by service.</p>
+ */
+@Component
+public class OverloadProtection {
+
+    private static final Logger log = LoggerFactory.getLogger(OverloadProtection.class);
+
+    private final OverloadProtectionProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, EndpointGuard> guards = new ConcurrentHashMap<>();
+    private final Map<String, RetryBudget> retryBudgets = new ConcurrentHashMap<>();
+
+    public OverloadProtection(OverloadProtectionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** @return filter guarding every exchange of a WebClient */
+    public ExchangeFilterFunction filter() {
+        return (request, next) -> {
+            if (!properties.isEnabled()) {
+                return next.exchange(request);
+            }
+            EndpointGuard guard = guards.computeIfAbsent(endpointGroup(request), this::newGuard);
+            return Mono.defer(() -> {
+                Permit permit = guard.acquire();
+                long start = System.nanoTime();
+                return next.exchange(request)
+                        .doOnNext(response -> permit.complete(System.nanoTime() - start, isFailure(response.statusCode())))
+                        .doOnError(e -> permit.complete(System.nanoTime() - start, true))
+                        .doOnCancel(permit::release);
+            });
+        };
+    }
+
+    /**
+     * Retry spec for idempotent Sentinel-Gear calls of a service.
+     *
+     * <p>Retries unavailable and timed-out calls with exponential backoff, up to three times, as long
+     * as the service's retry budget allows. Every subscription counts as a request towards the
+     * budget.</p>
+     *
+     * @param service name of the calling service, sharing one budget
+     * @return reusable retry spec
+     */
+    public Retry retrySpec(String service) {
+        RetryBudget budget = retryBudget(service);
+        Counter denied = Counter.builder("ironbucket.sentinel.retries.denied")
+                .description("Sentinel-Gear retries not sent because the retry budget was spent")
+                .tag("service", service)
+                .register(meterRegistry);
+        RetryBackoffSpec backoff = Retry.backoff(3, Duration.ofMillis(100))
+                .maxBackoff(Duration.ofSeconds(2))
+                .filter(throwable -> isRetryable(throwable) && withdraw(budget, denied))
+                .doBeforeRetry(signal -> log.warn("Retrying {} request, attempt: {}", service, signal.totalRetries() + 1));
+        return new Retry() {
+            @Override
+            public Publisher<?> generateCompanion(Flux<RetrySignal> retrySignals) {
+                budget.deposit();
+                return backoff.generateCompanion(retrySignals);
+            }
+        };
+    }
+
+    /** @return retry budget shared by the calls of a service */
+    RetryBudget retryBudget(String service) {
+        return retryBudgets.computeIfAbsent(service, this::newRetryBudget);
+    }
+
+    private boolean withdraw(RetryBudget budget, Counter denied) {
+        if (!properties.isEnabled() || budget.tryWithdraw()) {
+            return true;
+        }
+        denied.increment();
+        return false;
+    }
+
+    private static boolean isRetryable(Throwable throwable) {
+        return throwable instanceof WebClientResponseException.ServiceUnavailable
+                || throwable instanceof WebClientResponseException.GatewayTimeout;
+    }
+
+    private RetryBudget newRetryBudget(String service) {
+        RetryBudget budget = new RetryBudget(properties, System::nanoTime);
+        Gauge.builder("ironbucket.sentinel.retry.budget", budget, RetryBudget::balance)
+                .description("Retries and hedges a service may currently send to Sentinel-Gear")
+                .tag("service", service)
+                .register(meterRegistry);
+        return budget;
+    }
+
+    /** @return endpoint group of a request, by its path below {@code /api/v1} */
+    static String endpointGroup(ClientRequest request) {
+        String[] segments = request.url().getRawPath().split("/");
+        // "", "api", "v1", group, ...
+        if (segments.length < 4) {
+            return "other";
+        }
+        String group = segments[3].toLowerCase(Locale.ROOT);
+        if (!group.equals("buckets") || segments.length < 6 || !segments[5].equals("objects")) {
+            return group;
+        }
+        String path = request.url().getRawPath();
+        return path.endsWith("/content") || path.contains("/multipart/") ? "content" : "objects";
+    }
+
+    private static boolean isFailure(HttpStatusCode status) {
+        return status.is5xxServerError() || status.value() == 429;
+    }
+
+    private EndpointGuard newGuard(String group) {
+        EndpointGuard guard = new EndpointGuard(group,
+                new AdaptiveConcurrencyLimit(properties.getInitialLimit(), properties.getMinLimit(),
+                        properties.getMaxLimit(), properties.getSmoothing()),
+                new CircuitBreaker(properties, System::nanoTime),
+                rejections(group, SentinelGearOverloadedException.Reason.CIRCUIT_OPEN),
+                rejections(group, SentinelGearOverloadedException.Reason.CONCURRENCY_LIMIT));
+        Gauge.builder("ironbucket.sentinel.concurrency.limit", guard.limit(), AdaptiveConcurrencyLimit::limit)
+                .description("Adaptive concurrency limit of Sentinel-Gear calls")
+                .tag("group", group)
+                .register(meterRegistry);
+        Gauge.builder("ironbucket.sentinel.inflight", guard.limit(), AdaptiveConcurrencyLimit::inFlight)
+                .description("Sentinel-Gear calls in flight")
+                .tag("group", group)
+                .register(meterRegistry);
+        Gauge.builder("ironbucket.sentinel.circuit.state", guard.breaker(), breaker -> breaker.state().ordinal())
+                .description("Circuit state: 0 closed, 1 half open, 2 open")
+                .tag("group", group)
+                .register(meterRegistry);
+        return guard;
+    }
+
+    private Counter rejections(String group, SentinelGearOverloadedException.Reason reason) {
+        return Counter.builder("ironbucket.sentinel.rejections")
+                .description("Sentinel-Gear calls rejected without being sent")
+                .tag("group", group)
+                .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+    }
+
+    private record EndpointGuard(String group, AdaptiveConcurrencyLimit limit, CircuitBreaker breaker,
+                                 Counter circuitRejections, Counter limitRejections) {
+
+        Permit acquire() {
+            CircuitBreaker.State before = breaker.state();
+            CircuitBreaker.Admission admission = breaker.tryAcquire();
+            if (admission == CircuitBreaker.Admission.REJECTED) {
+                circuitRejections.increment();
+                throw new SentinelGearOverloadedException(group, SentinelGearOverloadedException.Reason.CIRCUIT_OPEN,
+                        breaker.retryAfter());
+            }
+            if (!limit.tryAcquire()) {
+                breaker.release(admission);
+                limitRejections.increment();
+                throw new SentinelGearOverloadedException(group,
+                        SentinelGearOverloadedException.Reason.CONCURRENCY_LIMIT, Duration.ZERO);
+            }
+            if (admission == CircuitBreaker.Admission.PROBE && before == CircuitBreaker.State.OPEN) {
+                log.info("Probing Sentinel-Gear {} endpoints", group);
+            }
+            return new Permit(this, admission);
+        }
+    }
+
+    /** An admitted call; completed or released exactly once. */
+    private static final class Permit {
+        private final EndpointGuard guard;
+        private final CircuitBreaker.Admission admission;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        Permit(EndpointGuard guard, CircuitBreaker.Admission admission) {
+            this.guard = guard;
+            this.admission = admission;
+        }
+
+        void complete(long rttNanos, boolean failed) {
+            if (done.compareAndSet(false, true)) {
+                guard.limit().complete(rttNanos, failed);
+                CircuitBreaker.State before = guard.breaker().state();
+                guard.breaker().complete(admission, failed);
+                CircuitBreaker.State after = guard.breaker().state();
+                if (before != after) {
+                    log.warn("Sentinel-Gear {} circuit {} -> {}", guard.group(), before, after);
+                }
+            }
+        }
+
+        void release() {
+            if (done.compareAndSet(false, true)) {
+                guard.limit().release();
+                guard.breaker().release(admission);
+            }
+        }
+    }
+}
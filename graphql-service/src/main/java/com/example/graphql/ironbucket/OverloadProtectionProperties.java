@@ -0,0 +1,104 @@
+package com.example.graphql.ironbucket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the concurrency limits and circuit breakers guarding Sentinel-Gear calls.
+ *
+ * <p>Each endpoint group starts at {@code initial-limit} concurrent calls; the limit then follows
+ * observed latency between {@code min-limit} and {@code max-limit}. A group's circuit opens once
+ * at least {@code failure-rate-threshold} of the last {@code sliding-window-size} calls failed
+ * (after {@code minimum-calls}), stays open for {@code open-duration}, then admits
+ * {@code half-open-probes} trial calls that must all succeed to close it again.</p>
+ *
+ * <p>Retries and hedged requests of each service draw on a retry budget: every request adds
+ * {@code retry-budget-ratio} of a token, every retry or hedge spends one, and
+ * {@code retry-budget-min-per-second} tokens are added per second regardless of traffic, up to
+ * {@code retry-budget-max-tokens}.</p>
+ */
+@Component
+@ConfigurationProperties(prefix = "ironbucket.overload-protection")
+public class OverloadProtectionProperties {
+    /** Whether Sentinel-Gear calls are limited and guarded by circuit breakers. */
+    private boolean enabled = true;
+    /** Concurrency limit per endpoint group before any latency was observed. */
+    private int initialLimit = 50;
+    /** Lowest concurrency limit. */
+    private int minLimit = 4;
+    /** Highest concurrency limit. */
+    private int maxLimit = 200;
+    /** Weight of each latency sample when adjusting the limit, between 0 and 1. */
+    private double smoothing = 0.2;
+    /** Share of failed calls that opens the circuit. */
+    private double failureRateThreshold = 0.5;
+    /** Calls recorded before the failure rate is evaluated. */
+    private int minimumCalls = 20;
+    /** Number of most recent calls the failure rate is computed over. */
+    private int slidingWindowSize = 100;
+    /** How long an open circuit rejects calls before probing. */
+    private Duration openDuration = Duration.ofSeconds(10);
+    /** Trial calls admitted while half open. */
+    private int halfOpenProbes = 3;
+    /** Retries and hedges allowed per request sent, between 0 and 1. */
+    private double retryBudgetRatio = 0.1;
+    /** Retries and hedges allowed per second regardless of traffic. */
+    private double retryBudgetMinPerSecond = 10;
+    /** Upper bound on saved-up retries and hedges. */
+    private int retryBudgetMaxTokens = 100;
+
+    /** @return whether protection is enabled */
+    public boolean isEnabled() { return enabled; }
+    /** @param enabled whether protection is enabled */
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    /** @return initial concurrency limit */
+    public int getInitialLimit() { return initialLimit; }
+    /** @param initialLimit initial concurrency limit */
+    public void setInitialLimit(int initialLimit) { this.initialLimit = initialLimit; }
+    /** @return lowest concurrency limit */
+    public int getMinLimit() { return minLimit; }
+    /** @param minLimit lowest concurrency limit */
+    public void setMinLimit(int minLimit) { this.minLimit = minLimit; }
+    /** @return highest concurrency limit */
+    public int getMaxLimit() { return maxLimit; }
+    /** @param maxLimit highest concurrency limit */
+    public void setMaxLimit(int maxLimit) { this.maxLimit = maxLimit; }
+    /** @return limit smoothing factor */
+    public double getSmoothing() { return smoothing; }
+    /** @param smoothing limit smoothing factor */
+    public void setSmoothing(double smoothing) { this.smoothing = smoothing; }
+    /** @return failure rate opening the circuit */
+    public double getFailureRateThreshold() { return failureRateThreshold; }
+    /** @param failureRateThreshold failure rate opening the circuit */
+    public void setFailureRateThreshold(double failureRateThreshold) { this.failureRateThreshold = failureRateThreshold; }
+    /** @return calls recorded before evaluating the failure rate */
+    public int getMinimumCalls() { return minimumCalls; }
+    /** @param minimumCalls calls recorded before evaluating the failure rate */
+    public void setMinimumCalls(int minimumCalls) { this.minimumCalls = minimumCalls; }
+    /** @return failure rate window size */
+    public int getSlidingWindowSize() { return slidingWindowSize; }
+    /** @param slidingWindowSize failure rate window size */
+    public void setSlidingWindowSize(int slidingWindowSize) { this.slidingWindowSize = slidingWindowSize; }
+    /** @return open circuit duration */
+    public Duration getOpenDuration() { return openDuration; }
+    /** @param openDuration open circuit duration */
+    public void setOpenDuration(Duration openDuration) { this.openDuration = openDuration; }
+    /** @return trial calls while half open */
+    public int getHalfOpenProbes() { return halfOpenProbes; }
+    /** @param halfOpenProbes trial calls while half open */
+    public void setHalfOpenProbes(int halfOpenProbes) { this.halfOpenProbes = halfOpenProbes; }
+    /** @return retries allowed per request */
+    public double getRetryBudgetRatio() { return retryBudgetRatio; }
+    /** @param retryBudgetRatio retries allowed per request */
+    public void setRetryBudgetRatio(double retryBudgetRatio) { this.retryBudgetRatio = retryBudgetRatio; }
+    /** @return retries allowed per second regardless of traffic */
+    public double getRetryBudgetMinPerSecond() { return retryBudgetMinPerSecond; }
+    /** @param retryBudgetMinPerSecond retries allowed per second regardless of traffic */
+    public void setRetryBudgetMinPerSecond(double retryBudgetMinPerSecond) { this.retryBudgetMinPerSecond = retryBudgetMinPerSecond; }
+    /** @return upper bound on saved-up retries */
+    public int getRetryBudgetMaxTokens() { return retryBudgetMaxTokens; }
+    /** @param retryBudgetMaxTokens upper bound on saved-up retries */
+    public void setRetryBudgetMaxTokens(int retryBudgetMaxTokens) { this.retryBudgetMaxTokens = retryBudgetMaxTokens; }
+}
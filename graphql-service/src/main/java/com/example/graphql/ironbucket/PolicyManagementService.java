@@ -11,7 +11,6 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 
-import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
@@ -28,16 +27,17 @@ public class PolicyManagementService {
     private static final Logger log = LoggerFactory.getLogger(PolicyManagementService.class);
 
     private final WebClient webClient;
+    private final Retry retrySpec;
     private final String sentinelGearBaseUrl;
 
     public PolicyManagementService(
             WebClient.Builder webClientBuilder,
-            @Value("${ironbucket.sentinel-gear.base-url:http://localhost:8080}") String sentinelGearBaseUrl
+            @Value("${ironbucket.sentinel-gear.base-url:http://localhost:8080}") String sentinelGearBaseUrl,
+            IronBucketHttpClient httpClient
     ) {
         this.sentinelGearBaseUrl = sentinelGearBaseUrl;
-        this.webClient = webClientBuilder
-                .baseUrl(sentinelGearBaseUrl)
-                .build();
+        this.webClient = httpClient.webClient(webClientBuilder, sentinelGearBaseUrl);
+        this.retrySpec = httpClient.retrySpec("policies");
         log.info("PolicyManagementService initialized with Sentinel-Gear at {}", sentinelGearBaseUrl);
     }
 
@@ -53,7 +53,7 @@ public class PolicyManagementService {
                 .retrieve()
                 .bodyToFlux(PolicyRuleDto.class)
                 .map(this::toPolicy)
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to list policies", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -71,7 +71,7 @@ public class PolicyManagementService {
                 .retrieve()
                 .bodyToMono(PolicyRuleDto.class)
                 .map(this::toPolicy)
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get policy: {}", policyId, e))
                 .onErrorResume(WebClientResponseException.class, e -> {
                     if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
@@ -94,7 +94,7 @@ public class PolicyManagementService {
                 .retrieve()
                 .bodyToMono(PolicyRuleDto.class)
                 .map(this::toPolicy)
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnSuccess(policy -> log.info("Created policy: {}", policy.id()))
                 .doOnError(e -> log.error("Failed to create policy", e))
                 .onErrorResume(WebClientResponseException.class, e -> {
@@ -119,7 +119,7 @@ public class PolicyManagementService {
                 .retrieve()
                 .bodyToMono(PolicyRuleDto.class)
                 .map(this::toPolicy)
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnSuccess(policy -> log.info("Updated policy: {}", policyId))
                 .doOnError(e -> log.error("Failed to update policy: {}", policyId, e))
                 .onErrorResume(WebClientResponseException.class, e -> {
@@ -146,7 +146,7 @@ public class PolicyManagementService {
                 .retrieve()
                 .toBodilessEntity()
                 .map(response -> true)
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnSuccess(result -> log.info("Deleted policy: {}", policyId))
                 .doOnError(e -> log.error("Failed to delete policy: {}", policyId, e))
                 .onErrorResume(WebClientResponseException.class, e -> {
@@ -190,7 +190,7 @@ public class PolicyManagementService {
                 .retrieve()
                 .bodyToMono(PolicyValidationResultDto.class)
                 .map(dto -> new PolicyValidationResult(dto.valid(), dto.errors()))
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to validate policy", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -237,7 +237,7 @@ public class PolicyManagementService {
                         dto.matchedPolicies(),
                         dto.reason()
                 ))
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to dry-run policy", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -256,7 +256,7 @@ public class PolicyManagementService {
                 .retrieve()
                 .bodyToMono(PolicyEvaluationResultDto.class)
                 .map(dto -> PolicyDecision.valueOf(dto.decision()))
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to dry-run policy", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -275,7 +275,7 @@ public class PolicyManagementService {
                 .bodyToFlux(PolicyVersionDto.class)
                 .map(dto -> new PolicyVersion(dto.policyId(), dto.version(), dto.createdAt(), 
                                                dto.createdBy(), dto.changeDescription()))
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to get policy versions: {}", policyId, e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -293,7 +293,7 @@ public class PolicyManagementService {
                 .retrieve()
                 .bodyToMono(PolicyRuleDto.class)
                 .map(this::toPolicy)
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnSuccess(policy -> log.info("Rolled back policy {} to version {}", policyId, version))
                 .doOnError(e -> log.error("Failed to rollback policy: {}", policyId, e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
@@ -315,7 +315,7 @@ public class PolicyManagementService {
                                             dto.addedRoles(), dto.removedRoles(),
                                             dto.addedBuckets(), dto.removedBuckets(),
                                             dto.addedOperations(), dto.removedOperations()))
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to compare policy versions: {}", policyId, e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -338,7 +338,7 @@ public class PolicyManagementService {
                         dto.matchedPolicies(),
                         dto.reason()
                 ))
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to evaluate policy: {}", policyId, e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -363,7 +363,7 @@ public class PolicyManagementService {
                         dto.failedConditions(),
                         dto.reason()
                 ))
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to explain policy: {}", policyId, e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -381,7 +381,7 @@ public class PolicyManagementService {
                 .retrieve()
                 .bodyToFlux(PolicyRuleDto.class)
                 .map(this::toPolicy)
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to create default policies for tenant: {}", tenant, e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -406,7 +406,7 @@ public class PolicyManagementService {
                         dto.message(),
                         dto.filesCount()
                 ))
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to export policies to Git", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -424,7 +424,7 @@ public class PolicyManagementService {
                 .retrieve()
                 .bodyToFlux(PolicyRuleDto.class)
                 .map(this::toPolicy)
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to import policies from Git", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -443,7 +443,7 @@ public class PolicyManagementService {
                 .bodyToMono(PolicySyncResultDto.class)
                 .map(dto -> new PolicySyncResult(dto.success(), dto.syncTime(), dto.policiesAdded(),
                                                   dto.policiesUpdated(), dto.policiesDeleted(), dto.errors()))
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to sync policies with Git", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -462,7 +462,7 @@ public class PolicyManagementService {
                 .bodyToMono(GitCommitResultDto.class)
                 .map(dto -> new GitCommitResult(dto.success(), dto.commitHash(), dto.branch(),
                                                  dto.commitTime(), dto.message(), dto.filesCount()))
-                .retryWhen(retrySpec())
+                .retryWhen(retrySpec)
                 .doOnError(e -> log.error("Failed to commit policies to Git", e))
                 .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
     }
@@ -503,14 +503,6 @@ public class PolicyManagementService {
         return Mono.error(new IronBucketServiceException("IronBucket policy service error: " + e.getMessage(), e));
     }
 
-    private Retry retrySpec() {
-        return Retry.backoff(3, Duration.ofMillis(100))
-                .maxBackoff(Duration.ofSeconds(2))
-                .filter(throwable -> throwable instanceof WebClientResponseException.ServiceUnavailable
-                        || throwable instanceof WebClientResponseException.GatewayTimeout)
-                .doBeforeRetry(signal -> log.warn("Retrying request, attempt: {}", signal.totalRetries() + 1));
-    }
-
     // --- DTOs ---
 
     record PolicyRuleDto(
@@ -0,0 +1,19 @@
+package com.example.graphql.ironbucket;
+
+import java.time.Instant;
+
+/**
+ * A presigned URL granting temporary access to an object.
+ *
+ * @param bucketName Bucket of the object
+ * @param key Object key
+ * @param url Presigned URL
+ * @param expiresAt When the URL stops being accepted
+ */
+public record PresignedUrl(
+    String bucketName,
+    String key,
+    String url,
+    Instant expiresAt
+) {
+}
@@ -0,0 +1,147 @@
+package com.example.graphql.ironbucket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache of issued presigned URLs, partitioned by principal scope.
+ *
+ * <p>URLs are keyed by the caller's scope (see {@link JwtClaimsExtractor#principalScope}), bucket,
+ * key and requested lifetime. A URL is reused while its remaining lifetime is at least the
+ * configured fraction of the requested one, so a caller gets a URL valid for nearly as long as it
+ * asked and never for longer. Its expiry is computed from the time the request was sent, so it never
+ * outlives the URL Sentinel-Gear issued. Hits and misses are counted in
+ * {@code ironbucket.presigned.url.cache.requests}.</p>
+ */
+@Component
+public class PresignedUrlCache {
+
+    private final JwtClaimsExtractor claimsExtractor;
+    private final PresignedUrlCacheProperties properties;
+    private final Map<Key, PresignedUrl> entries;
+    private final Counter hits;
+    private final Counter misses;
+
+    public PresignedUrlCache(JwtClaimsExtractor claimsExtractor, PresignedUrlCacheProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.claimsExtractor = claimsExtractor;
+        this.properties = properties;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PresignedUrl> eldest) {
+                return size() > properties.getMaxEntries();
+            }
+        };
+        this.hits = counter(meterRegistry, "hit");
+        this.misses = counter(meterRegistry, "miss");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("ironbucket.presigned.url.cache.requests")
+                .description("Presigned URL cache lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param jwtToken caller's JWT
+     * @param bucketName bucket name
+     * @param objectKey object key
+     * @param lifetimeSeconds requested lifetime
+     * @param issuer issues a URL with that lifetime on a miss
+     * @return Mono of a URL valid for at least the configured fraction of the lifetime, and at most the lifetime
+     */
+    public Mono<PresignedUrl> url(String jwtToken, String bucketName, String objectKey, int lifetimeSeconds,
+                                  Supplier<Mono<String>> issuer) {
+        return urls(jwtToken, bucketName, List.of(objectKey), lifetimeSeconds,
+                missing -> issuer.get().map(url -> Map.of(objectKey, url)))
+                .next();
+    }
+
+    /**
+     * @param jwtToken caller's JWT
+     * @param bucketName bucket name
+     * @param objectKeys object keys
+     * @param lifetimeSeconds requested lifetime
+     * @param issuer issues URLs with that lifetime for the keys that missed, by key
+     * @return Flux of URLs in key order, each valid for at least the configured fraction of the lifetime,
+     *         and at most the lifetime
+     */
+    public Flux<PresignedUrl> urls(String jwtToken, String bucketName, List<String> objectKeys, int lifetimeSeconds,
+                                   Function<List<String>, Mono<Map<String, String>>> issuer) {
+        if (!properties.isEnabled()) {
+            Instant issuedAt = Instant.now();
+            return issuer.apply(objectKeys)
+                    .flatMapIterable(urls -> resolve(bucketName, objectKeys, urls, issuedAt, lifetimeSeconds));
+        }
+        return claimsExtractor.principalScope(jwtToken).flatMapMany(scope -> {
+            Instant now = Instant.now();
+            // URLs of the same lifetime were issued no later than now, so they expire before the
+            // requested lifetime is over; they are reused while enough of it remains
+            long minRemainingMillis = (long) Math.ceil(lifetimeSeconds * 1000L
+                    * Math.clamp(properties.getMinRemainingRatio(), 0.0, 1.0));
+            Instant usableUntil = now.plusMillis(minRemainingMillis);
+            Map<String, PresignedUrl> cached = new HashMap<>();
+            List<String> missing = new ArrayList<>();
+            synchronized (entries) {
+                for (String objectKey : objectKeys) {
+                    Key key = new Key(scope, bucketName, objectKey, lifetimeSeconds);
+                    PresignedUrl url = entries.get(key);
+                    if (url != null && !url.expiresAt().isBefore(usableUntil)) {
+                        cached.put(objectKey, url);
+                    } else {
+                        if (url != null) {
+                            entries.remove(key);
+                        }
+                        missing.add(objectKey);
+                    }
+                }
+            }
+            hits.increment(cached.size());
+            misses.increment(missing.size());
+            if (missing.isEmpty()) {
+                return Flux.fromIterable(objectKeys).map(cached::get);
+            }
+            return issuer.apply(missing).flatMapIterable(urls -> {
+                List<PresignedUrl> issued = resolve(bucketName, missing, urls, now, lifetimeSeconds);
+                synchronized (entries) {
+                    for (PresignedUrl url : issued) {
+                        entries.put(new Key(scope, bucketName, url.key(), lifetimeSeconds), url);
+                    }
+                }
+                issued.forEach(url -> cached.put(url.key(), url));
+                return objectKeys.stream().map(cached::get).filter(Objects::nonNull).toList();
+            });
+        });
+    }
+
+    private static List<PresignedUrl> resolve(String bucketName, List<String> objectKeys, Map<String, String> urls,
+                                              Instant issuedAt, int lifetimeSeconds) {
+        Instant expiresAt = issuedAt.plusSeconds(lifetimeSeconds);
+        List<PresignedUrl> resolved = new ArrayList<>(objectKeys.size());
+        for (String objectKey : objectKeys) {
+            String url = urls.get(objectKey);
+            if (url == null) {
+                throw new IronBucketServiceException("No presigned URL returned for " + bucketName + "/" + objectKey);
+            }
+            resolved.add(new PresignedUrl(bucketName, objectKey, url, expiresAt));
+        }
+        return resolved;
+    }
+
+    private record Key(String scope, String bucketName, String objectKey, int lifetimeSeconds) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.graphql.ironbucket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration of the presigned URL cache.
+ *
+ * <p>A cached URL is handed out again while its remaining lifetime is at least
+ * {@code min-remaining-ratio} of the lifetime requested.</p>
+ */
+@Component
+@ConfigurationProperties(prefix = "ironbucket.presigned-url-cache")
+public class PresignedUrlCacheProperties {
+    /** Whether issued URLs are reused. */
+    private boolean enabled = true;
+    /** Fraction of the requested lifetime a URL must still be valid for to be handed out again. */
+    private double minRemainingRatio = 0.8;
+    /** Maximum number of cached URLs across all tenants. */
+    private int maxEntries = 50_000;
+
+    /** @return whether caching is enabled */
+    public boolean isEnabled() { return enabled; }
+    /** @param enabled whether caching is enabled */
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    /** @return minimum remaining fraction of the requested lifetime */
+    public double getMinRemainingRatio() { return minRemainingRatio; }
+    /** @param minRemainingRatio minimum remaining fraction of the requested lifetime */
+    public void setMinRemainingRatio(double minRemainingRatio) { this.minRemainingRatio = minRemainingRatio; }
+    /** @return maximum cached URLs */
+    public int getMaxEntries() { return maxEntries; }
+    /** @param maxEntries maximum cached URLs */
+    public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+}
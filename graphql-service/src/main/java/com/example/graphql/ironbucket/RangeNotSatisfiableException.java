@@ -0,0 +1,11 @@
+package com.example.graphql.ironbucket;
+
+/**
+ * Thrown when a requested byte range lies outside the object.
+ */
+public class RangeNotSatisfiableException extends RuntimeException {
+    
+    public RangeNotSatisfiableException(String bucketName, String objectKey, String range, Throwable cause) {
+        super(String.format("Range %s not satisfiable for object: %s/%s", range, bucketName, objectKey), cause);
+    }
+}
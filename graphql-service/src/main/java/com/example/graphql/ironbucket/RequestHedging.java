@@ -0,0 +1,182 @@
+package com.example.graphql.ironbucket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hedged requests for idempotent Sentinel-Gear reads.
+ *
+ * <p>The latency of recent original calls is tracked per operation; hedges are not sampled, so
+ * fast hedges cannot pull the percentile down and trigger ever more hedging. Once enough calls were
+ * seen, a call that has not answered within the configured percentile of those latencies is sent a
+ * second time, and whichever answers first (with a value, an empty result or an error) wins while
+ * the other is cancelled. This takes occasional slow upstream replicas out of the tail at the cost of a few
+ * percent extra reads. Hedges are paid from the calling service's {@link RetryBudget}, like
+ * retries, so a general slowdown cannot double the load on Sentinel-Gear.</p>
+ *
+ * <p>Only use it for reads that are safe to send twice. Per operation, hedges sent, hedges that
+ * answered first and hedges denied by the budget are counted in {@code ironbucket.hedging.sent},
+ * {@code ironbucket.hedging.won} and {@code ironbucket.hedging.denied}.</p>
+ */
+@Component
+public class RequestHedging {
+
+    /** Latencies kept per operation. */
+    private static final int SAMPLE_WINDOW = 512;
+
+    /** Samples recorded before the hedge delay is recomputed. */
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final RequestHedgingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+    public RequestHedging(RequestHedgingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Hedge an idempotent call.
+     *
+     * @param operation name of the operation whose latencies determine the hedge delay
+     * @param budget retry budget paying for hedges
+     * @param call the call, subscribed once more for a hedge
+     * @return the first answer
+     */
+    <T> Mono<T> hedge(String operation, RetryBudget budget, Mono<T> call) {
+        if (!properties.isEnabled()) {
+            return call;
+        }
+        return hedge(operation, budget, call.flux()).singleOrEmpty();
+    }
+
+    /**
+     * Hedge an idempotent call; the source answering first supplies all elements.
+     *
+     * @param operation name of the operation whose latencies determine the hedge delay
+     * @param budget retry budget paying for hedges
+     * @param call the call, subscribed once more for a hedge
+     * @return elements of the first answer
+     */
+    <T> Flux<T> hedge(String operation, RetryBudget budget, Flux<T> call) {
+        if (!properties.isEnabled()) {
+            return call;
+        }
+        Operation op = operations.computeIfAbsent(operation, this::newOperation);
+        return Flux.defer(() -> {
+            long delayNanos = delayNanos(op);
+            long start = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            Runnable record = () -> {
+                if (recorded.compareAndSet(false, true)) {
+                    op.latencies().record(System.nanoTime() - start);
+                }
+            };
+            // An original cancelled for a faster hedge took at least as long as it ran; counting that
+            // keeps the slow tail in the window without waiting for the original to finish
+            Flux<T> original = call
+                    .doOnEach(signal -> {
+                        if (!signal.isOnError()) {
+                            record.run();
+                        }
+                    })
+                    .doOnCancel(record);
+            if (delayNanos < 0) {
+                return original;
+            }
+            AtomicBoolean answered = new AtomicBoolean();
+            Duration delay = Duration.ofNanos(Math.max(delayNanos, properties.getMinDelay().toNanos()));
+            return Flux.firstWithSignal(
+                    original.doOnEach(signal -> answered.set(true)),
+                    hedgeAfter(delay, op, budget, call, answered));
+        });
+    }
+
+    /**
+     * @param operation operation name
+     * @return the percentile of the operation's recent original call latencies in nanoseconds, -1
+     *         while too few calls were seen to hedge
+     */
+    long delayNanos(String operation) {
+        return delayNanos(operations.computeIfAbsent(operation, this::newOperation));
+    }
+
+    private long delayNanos(Operation op) {
+        return op.latencies().percentile(properties.getPercentile(), properties.getMinSamples());
+    }
+
+    private <T> Flux<T> hedgeAfter(Duration delay, Operation op, RetryBudget budget, Flux<T> call,
+                                   AtomicBoolean answered) {
+        return Mono.delay(delay).flatMapMany(tick -> {
+            if (!budget.tryWithdraw()) {
+                op.denied().increment();
+                return Flux.never();
+            }
+            op.sent().increment();
+            return call.doOnEach(signal -> {
+                if (answered.compareAndSet(false, true)) {
+                    op.won().increment();
+                }
+            });
+        });
+    }
+
+    private Operation newOperation(String operation) {
+        return new Operation(new LatencyWindow(),
+                counter("ironbucket.hedging.sent", "Hedged requests sent", operation),
+                counter("ironbucket.hedging.won", "Hedged requests answering before the original", operation),
+                counter("ironbucket.hedging.denied", "Hedged requests not sent because the retry budget was spent",
+                        operation));
+    }
+
+    private Counter counter(String name, String description, String operation) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private record Operation(LatencyWindow latencies, Counter sent, Counter won, Counter denied) {}
+
+    /** Ring buffer of recent latencies with a cached percentile. */
+    static final class LatencyWindow {
+        private final long[] samples = new long[SAMPLE_WINDOW];
+        private int next;
+        private int recorded;
+        private int sinceComputed;
+        private long percentileNanos = -1;
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            if (recorded < samples.length) {
+                recorded++;
+            }
+            sinceComputed++;
+        }
+
+        /** @return the percentile of recent latencies in nanoseconds, -1 while fewer than minSamples were recorded */
+        synchronized long percentile(double percentile, int minSamples) {
+            if (recorded < Math.clamp(minSamples, 1, samples.length)) {
+                return -1;
+            }
+            if (percentileNanos < 0 || sinceComputed >= RECOMPUTE_EVERY) {
+                long[] sorted = Arrays.copyOf(samples, recorded);
+                Arrays.sort(sorted);
+                percentileNanos = sorted[Math.clamp((long) Math.ceil(percentile * recorded) - 1, 0, recorded - 1)];
+                sinceComputed = 0;
+            }
+            return percentileNanos;
+        }
+    }
+}
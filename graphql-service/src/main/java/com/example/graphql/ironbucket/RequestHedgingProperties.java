@@ -0,0 +1,43 @@
+package com.example.graphql.ironbucket;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Configuration of hedged requests for idempotent Sentinel-Gear reads.
+ *
+ * <p>Once an operation has {@code min-samples} recorded latencies, a second request is sent if the
+ * first has not answered within the {@code percentile} of recent latencies (at least
+ * {@code min-delay}); the first answer wins and the other request is cancelled.</p>
+ */
+@Component
+@ConfigurationProperties(prefix = "ironbucket.hedging")
+public class RequestHedgingProperties {
+    /** Whether idempotent reads are hedged. */
+    private boolean enabled = false;
+    /** Latency percentile after which a hedge is sent, between 0 and 1. */
+    private double percentile = 0.95;
+    /** Latencies recorded per operation before hedging starts. */
+    private int minSamples = 100;
+    /** Lower bound on the hedge delay. */
+    private Duration minDelay = Duration.ofMillis(10);
+
+    /** @return whether hedging is enabled */
+    public boolean isEnabled() { return enabled; }
+    /** @param enabled whether hedging is enabled */
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    /** @return hedge delay percentile */
+    public double getPercentile() { return percentile; }
+    /** @param percentile hedge delay percentile */
+    public void setPercentile(double percentile) { this.percentile = percentile; }
+    /** @return latencies recorded before hedging */
+    public int getMinSamples() { return minSamples; }
+    /** @param minSamples latencies recorded before hedging */
+    public void setMinSamples(int minSamples) { this.minSamples = minSamples; }
+    /** @return lower bound on the hedge delay */
+    public Duration getMinDelay() { return minDelay; }
+    /** @param minDelay lower bound on the hedge delay */
+    public void setMinDelay(Duration minDelay) { this.minDelay = minDelay; }
+}
@@ -0,0 +1,57 @@
+package com.example.graphql.ironbucket;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket bounding the extra requests (retries and hedges) a service sends to Sentinel-Gear.
+ *
+ * <p>Every request deposits a fraction of a token and every extra request withdraws a whole one,
+ * so extra traffic cannot exceed that fraction of the service's traffic. A small time-based refill
+ * keeps retries possible for services with little traffic; the balance is capped so a long healthy
+ * period does not build up a burst of retries for the next outage.</p>
+ */
+final class RetryBudget {
+
+    private final double depositRatio;
+    private final double refillPerNano;
+    private final double maxTokens;
+    private final LongSupplier nanoClock;
+    private double tokens;
+    private long refilledAt;
+
+    RetryBudget(OverloadProtectionProperties properties, LongSupplier nanoClock) {
+        this.depositRatio = properties.getRetryBudgetRatio();
+        this.refillPerNano = properties.getRetryBudgetMinPerSecond() / 1e9;
+        this.maxTokens = Math.max(1, properties.getRetryBudgetMaxTokens());
+        this.nanoClock = nanoClock;
+        this.tokens = Math.min(maxTokens, properties.getRetryBudgetMinPerSecond());
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    /** Record a request. */
+    synchronized void deposit() {
+        tokens = Math.min(maxTokens, tokens + depositRatio);
+    }
+
+    /** @return true if an extra request may be sent; its token is then spent */
+    synchronized boolean tryWithdraw() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /** @return tokens currently available */
+    synchronized double balance() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(maxTokens, tokens + (now - refilledAt) * refillPerNano);
+        refilledAt = now;
+    }
+}
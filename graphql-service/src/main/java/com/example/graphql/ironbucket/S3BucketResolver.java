@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
 import org.springframework.stereotype.Controller;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -21,10 +22,12 @@ public class S3BucketResolver {
 
     private final IronBucketS3Service s3Service;
     private final CrudFeatures features;
+    private final BucketUsageService usageService;
 
-    public S3BucketResolver(IronBucketS3Service s3Service, CrudFeatures features) {
+    public S3BucketResolver(IronBucketS3Service s3Service, CrudFeatures features, BucketUsageService usageService) {
         this.s3Service = s3Service;
         this.features = features;
+        this.usageService = usageService;
     }
 
     @QueryMapping
@@ -39,6 +42,12 @@ public class S3BucketResolver {
         return s3Service.getBucket(jwtToken, bucketName);
     }
 
+    @SchemaMapping(typeName = "S3Bucket")
+    public Mono<BucketUsage> usage(S3Bucket bucket, @Argument String jwtToken, @Argument String prefix) {
+        log.debug("GraphQL: S3Bucket.usage - {}, prefix={}", bucket.name(), prefix);
+        return usageService.usage(jwtToken, bucket.name(), prefix);
+    }
+
     @MutationMapping
     public Mono<S3Bucket> createBucket(
             @Argument String jwtToken,
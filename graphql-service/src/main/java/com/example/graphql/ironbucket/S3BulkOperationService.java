@@ -0,0 +1,309 @@
+package com.example.graphql.ironbucket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Bulk object operations against IronBucket through Sentinel-Gear.
+ *
+ * <p>Keys are processed in batches through Sentinel-Gear's multi-object endpoints
+ * ({@code POST /api/v1/buckets/{bucket}/objects/delete} and {@code .../objects/metadata}), several
+ * batches at a time. If Sentinel-Gear does not offer them (it answers 405 or 501), this is remembered and operations fan
+ * out to the single-object calls of {@link IronBucketS3Service} with bounded concurrency instead.
+ * Either way, results are streamed per key as they become known, stamped with the running count
+ * of processed keys, and one failing key never aborts the rest. {@link #summarize} reduces such a
+ * stream to counts and the failed keys, so callers never have to hold a result per key.</p>
+ *
+ * <p>Prefix copies and moves use Sentinel-Gear's server-side copy per object, with the same
+ * bounded concurrency and result stream.</p>
+ */
+@Service
+public class S3BulkOperationService {
+
+    private static final Logger log = LoggerFactory.getLogger(S3BulkOperationService.class);
+
+    private final WebClient webClient;
+    private final Retry retrySpec;
+    private final IronBucketS3Service s3Service;
+    private final MetadataCache metadataCache;
+    private final ObjectKeyIndex objectKeyIndex;
+    private final BulkOperationProperties properties;
+    private final AtomicBoolean multiObjectSupported = new AtomicBoolean(true);
+
+    public S3BulkOperationService(
+            WebClient.Builder webClientBuilder,
+            @Value("${ironbucket.sentinel-gear.base-url:http://localhost:8080}") String sentinelGearBaseUrl,
+            IronBucketHttpClient httpClient,
+            IronBucketS3Service s3Service,
+            MetadataCache metadataCache,
+            ObjectKeyIndex objectKeyIndex,
+            BulkOperationProperties properties
+    ) {
+        this.webClient = httpClient.webClient(webClientBuilder, sentinelGearBaseUrl);
+        this.retrySpec = httpClient.retrySpec("bulk");
+        this.s3Service = s3Service;
+        this.metadataCache = metadataCache;
+        this.objectKeyIndex = objectKeyIndex;
+        this.properties = properties;
+    }
+
+    /**
+     * Delete objects given either as a key list or as a key prefix.
+     *
+     * <p>Keys that do not exist count as deleted, as with S3 multi-object delete. A prefix is listed
+     * while deleting, so arbitrarily large prefixes never have to fit in memory.</p>
+     *
+     * @param jwtToken JWT bearer token
+     * @param bucketName Bucket name
+     * @param keys Keys to delete (exclusive with prefix)
+     * @param prefix Non-blank prefix whose objects are deleted (exclusive with keys)
+     * @return Flux of per-key results with progress
+     */
+    public Flux<ObjectOperationResult> deleteObjects(String jwtToken, String bucketName,
+                                                     List<String> keys, String prefix) {
+        validateJwt(jwtToken);
+        validateBucketName(bucketName);
+        Flux<String> selected = selectKeys(jwtToken, bucketName, keys, prefix);
+
+        return process(selected,
+                batch -> multiObject(jwtToken, bucketName, "delete", batch, null),
+                key -> s3Service.deleteObject(jwtToken, bucketName, key)
+                        .onErrorResume(ObjectNotFoundException.class, e -> Mono.just(true))
+                        .map(deleted -> ObjectOperationResult.succeeded(bucketName, key)),
+                bucketName)
+                .doOnComplete(() -> log.info("Bulk delete finished in bucket: {}", bucketName));
+    }
+
+    /**
+     * Replace custom metadata on many objects.
+     *
+     * @param jwtToken JWT bearer token
+     * @param bucketName Bucket name
+     * @param keys Keys to update
+     * @param metadata Metadata to set on every object
+     * @return Flux of per-key results with progress
+     */
+    public Flux<ObjectOperationResult> setObjectsMetadata(String jwtToken, String bucketName,
+                                                          List<String> keys, Map<String, String> metadata) {
+        validateJwt(jwtToken);
+        validateBucketName(bucketName);
+        if (keys == null || keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one object key is required");
+        }
+        if (metadata == null) {
+            throw new IllegalArgumentException("Metadata cannot be null");
+        }
+
+        return process(Flux.fromIterable(keys),
+                batch -> multiObject(jwtToken, bucketName, "metadata", batch, metadata),
+                key -> s3Service.setObjectMetadata(jwtToken, bucketName, key, metadata)
+                        .map(updated -> ObjectOperationResult.succeeded(bucketName, key)),
+                bucketName)
+                .doOnComplete(() -> log.info("Bulk metadata update finished in bucket: {}", bucketName));
+    }
+
+    /**
+     * Copy or move every object below a prefix to another bucket and/or prefix, server-side.
+     *
+     * <p>Each key keeps its path relative to the source prefix. Objects are listed while copying
+     * and up to the configured concurrency are copied at once. Results name the target objects.</p>
+     *
+     * @param jwtToken JWT bearer token
+     * @param sourceBucket Bucket to copy from
+     * @param sourcePrefix Non-blank prefix of the objects to copy
+     * @param targetBucket Bucket to copy to
+     * @param targetPrefix Prefix replacing the source prefix (defaults to the source prefix)
+     * @param move Whether to delete each source after it was copied
+     * @return Flux of per-key results with progress
+     */
+    public Flux<ObjectOperationResult> copyObjects(String jwtToken, String sourceBucket, String sourcePrefix,
+                                                   String targetBucket, String targetPrefix, boolean move) {
+        validateJwt(jwtToken);
+        validateBucketName(sourceBucket);
+        validateBucketName(targetBucket);
+        if (sourcePrefix == null || sourcePrefix.isBlank()) {
+            throw new IllegalArgumentException("Source prefix cannot be blank");
+        }
+        String prefix = targetPrefix != null ? targetPrefix : sourcePrefix;
+        if (sourceBucket.equals(targetBucket) && prefix.startsWith(sourcePrefix)) {
+            // The listing would pick up the copies it is creating
+            throw new IllegalArgumentException("Target prefix cannot lie within the source prefix");
+        }
+
+        return s3Service.listObjectsSharded(jwtToken, sourceBucket, sourcePrefix, null, 1, true)
+                .map(S3Object::key)
+                .flatMap(key -> {
+                    String targetKey = prefix + key.substring(sourcePrefix.length());
+                    return Mono.defer(() -> move
+                                    ? s3Service.moveObject(jwtToken, sourceBucket, key, targetBucket, targetKey)
+                                    : s3Service.copyObject(jwtToken, sourceBucket, key, targetBucket, targetKey))
+                            .map(copy -> ObjectOperationResult.succeeded(targetBucket, targetKey))
+                            .onErrorResume(e -> Mono.just(ObjectOperationResult.failed(targetBucket, targetKey, e)));
+                }, Math.max(1, properties.getConcurrency()))
+                .index((index, result) -> result.withCompleted(index + 1))
+                .doOnComplete(() -> log.info("Bulk {} finished: {}/{} -> {}/{}", move ? "move" : "copy",
+                        sourceBucket, sourcePrefix, targetBucket, prefix));
+    }
+
+    /**
+     * Reduce per-key results to a summary listing only failures, up to the configured maximum.
+     *
+     * @param results per-key results of a bulk operation
+     * @return Mono of the summary, once the operation finished
+     */
+    public Mono<BulkOperationSummary> summarize(Flux<ObjectOperationResult> results) {
+        return BulkOperationSummary.of(results, properties.getMaxReportedFailures());
+    }
+
+    private Flux<String> selectKeys(String jwtToken, String bucketName, List<String> keys, String prefix) {
+        if ((keys == null) == (prefix == null)) {
+            throw new IllegalArgumentException("Exactly one of keys or prefix is required");
+        }
+        if (keys != null) {
+            if (keys.isEmpty()) {
+                throw new IllegalArgumentException("At least one object key is required");
+            }
+            return Flux.fromIterable(keys);
+        }
+        if (prefix.isBlank()) {
+            // Guards against wiping a whole bucket by accident
+            throw new IllegalArgumentException("Prefix cannot be blank");
+        }
+        return s3Service.listObjectsSharded(jwtToken, bucketName, prefix, null, 1, true)
+                .map(S3Object::key);
+    }
+
+    private Flux<ObjectOperationResult> process(Flux<String> keys,
+                                                Function<List<String>, Flux<ObjectOperationResult>> batchCall,
+                                                Function<String, Mono<ObjectOperationResult>> singleCall,
+                                                String bucketName) {
+        Function<String, Mono<ObjectOperationResult>> guarded = key -> Mono.defer(() -> singleCall.apply(key))
+                .onErrorResume(e -> Mono.just(ObjectOperationResult.failed(bucketName, key, e)));
+
+        return keys.buffer(Math.max(1, properties.getBatchSize()))
+                .flatMap(batch -> multiObjectSupported.get()
+                        ? batchCall.apply(batch)
+                                .onErrorResume(MultiObjectUnsupportedException.class,
+                                        e -> Flux.fromIterable(batch).flatMap(guarded, properties.getConcurrency()))
+                        : Flux.fromIterable(batch).flatMap(guarded, properties.getConcurrency()),
+                        Math.max(1, properties.getBatchConcurrency()))
+                .index((index, result) -> result.withCompleted(index + 1));
+    }
+
+    /**
+     * One multi-object request; keys missing from the response are reported as failed.
+     */
+    private Flux<ObjectOperationResult> multiObject(String jwtToken, String bucketName, String operation,
+                                                    List<String> batch, Map<String, String> metadata) {
+        List<ObjectKey> objects = batch.stream().map(ObjectKey::new).toList();
+        return webClient.post()
+                .uri("/api/v1/buckets/{bucketName}/objects/{operation}", bucketName, operation)
+                .header("Authorization", "Bearer " + jwtToken)
+                .bodyValue(new MultiObjectRequest(objects, metadata))
+                .retrieve()
+                .bodyToMono(MultiObjectResponse.class)
+                .retryWhen(retrySpec)
+                .map(response -> {
+                    metadataCache.invalidateObjects(bucketName, batch);
+                    List<ObjectOperationResult> results = toResults(bucketName, batch, response);
+                    if ("delete".equals(operation)) {
+                        objectKeyIndex.remove(bucketName, results.stream()
+                                .filter(ObjectOperationResult::success)
+                                .map(ObjectOperationResult::key)
+                                .toList());
+                    }
+                    return results;
+                })
+                .doOnError(e -> metadataCache.invalidateObjects(bucketName, batch))
+                .flatMapIterable(results -> results)
+                .onErrorResume(e -> {
+                    // 404 also means the bucket does not exist, so only 405 and 501 show that the
+                    // endpoint itself is missing
+                    if (e instanceof WebClientResponseException response
+                            && (response.getStatusCode() == HttpStatus.METHOD_NOT_ALLOWED
+                                || response.getStatusCode() == HttpStatus.NOT_IMPLEMENTED)) {
+                        if (multiObjectSupported.compareAndSet(true, false)) {
+                            log.warn("Sentinel-Gear has no multi-object endpoints, fanning out single-object calls");
+                        }
+                        return Flux.error(new MultiObjectUnsupportedException());
+                    }
+                    if (e instanceof WebClientResponseException response
+                            && response.getStatusCode() == HttpStatus.NOT_FOUND) {
+                        BucketNotFoundException missing = new BucketNotFoundException(bucketName, e);
+                        return Flux.fromIterable(batch).map(key -> ObjectOperationResult.failed(bucketName, key, missing));
+                    }
+                    log.error("Multi-object {} failed in bucket {}", operation, bucketName, e);
+                    return Flux.fromIterable(batch).map(key -> ObjectOperationResult.failed(bucketName, key, e));
+                });
+    }
+
+    private static List<ObjectOperationResult> toResults(String bucketName, List<String> batch,
+                                                         MultiObjectResponse response) {
+        List<ObjectOperationResult> results = new ArrayList<>(batch.size());
+        Set<String> answered = new HashSet<>();
+        for (ObjectKey done : nonNull(response.succeeded())) {
+            if (answered.add(done.key())) {
+                results.add(ObjectOperationResult.succeeded(bucketName, done.key()));
+            }
+        }
+        for (ObjectError error : nonNull(response.errors())) {
+            if (answered.add(error.key())) {
+                results.add(ObjectOperationResult.failed(bucketName, error.key(), error.code(), error.message()));
+            }
+        }
+        for (String key : batch) {
+            if (!answered.contains(key)) {
+                results.add(ObjectOperationResult.failed(bucketName, key, "NO_RESULT",
+                        "Sentinel-Gear did not report a result for this key"));
+            }
+        }
+        return results;
+    }
+
+    private static <T> List<T> nonNull(List<T> list) {
+        return list != null ? list : List.of();
+    }
+
+    private void validateJwt(String jwtToken) {
+        if (jwtToken == null || jwtToken.isBlank()) {
+            throw new IllegalArgumentException("JWT token is required");
+        }
+    }
+
+    private void validateBucketName(String bucketName) {
+        if (bucketName == null || bucketName.isBlank()) {
+            throw new IllegalArgumentException("Bucket name cannot be null or blank");
+        }
+    }
+
+    /** Signals that the batch must be redone with single-object calls. */
+    private static final class MultiObjectUnsupportedException extends RuntimeException {
+        MultiObjectUnsupportedException() {
+            super(null, null, false, false);
+        }
+    }
+
+    // --- DTOs for wire format ---
+
+    record ObjectKey(String key) {}
+    record MultiObjectRequest(List<ObjectKey> objects, Map<String, String> metadata) {}
+    record ObjectError(String key, String code, String message) {}
+    /** Deleted or updated keys are both reported as {@code succeeded}. */
+    record MultiObjectResponse(List<ObjectKey> succeeded, List<ObjectError> errors) {}
+}
@@ -0,0 +1,382 @@
+package com.example.graphql.ironbucket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel, resumable multipart uploads to IronBucket through Sentinel-Gear.
+ *
+ * <p>A file is split into fixed-size parts which are read straight from disk and uploaded with
+ * bounded concurrency. Every completed part's ETag is recorded in a {@link MultipartUploadState}
+ * file keyed by bucket, object key and source path; calling {@link #uploadFile} again after an
+ * interruption resumes the same upload and only sends the missing parts. The upload is finished
+ * with a complete call listing all parts in order.</p>
+ *
+ * <p>State recorded for a different source or part size is discarded and its upload aborted. If
+ * Sentinel-Gear no longer knows a resumed upload (it expired or was aborted), the state is
+ * discarded and the upload starts over.</p>
+ */
+@Service
+public class S3MultipartUploader {
+
+    private static final Logger log = LoggerFactory.getLogger(S3MultipartUploader.class);
+
+    /** Upper bound on the number of parts of one upload (S3 limit). */
+    static final int MAX_PARTS = 10_000;
+
+    private final WebClient webClient;
+    private final Retry retrySpec;
+    private final MultipartUploadProperties properties;
+    private final MetadataCache metadataCache;
+    private final ObjectKeyIndex objectKeyIndex;
+
+    public S3MultipartUploader(
+            WebClient.Builder webClientBuilder,
+            @Value("${ironbucket.sentinel-gear.base-url:http://localhost:8080}") String sentinelGearBaseUrl,
+            IronBucketHttpClient httpClient,
+            MultipartUploadProperties properties,
+            MetadataCache metadataCache,
+            ObjectKeyIndex objectKeyIndex
+    ) {
+        this.webClient = httpClient.webClient(webClientBuilder, sentinelGearBaseUrl);
+        this.retrySpec = httpClient.retrySpec("multipart");
+        this.properties = properties;
+        this.metadataCache = metadataCache;
+        this.objectKeyIndex = objectKeyIndex;
+    }
+
+    /**
+     * Upload a file as a multipart upload, resuming a previous interrupted attempt if possible.
+     *
+     * @param jwtToken JWT bearer token
+     * @param bucketName Bucket name
+     * @param objectKey Object key
+     * @param file File to upload
+     * @param contentType MIME type (defaults to application/octet-stream)
+     * @param metadata Custom metadata (optional)
+     * @return Mono of the completed object
+     */
+    public Mono<S3Object> uploadFile(String jwtToken, String bucketName, String objectKey, Path file,
+                                     String contentType, Map<String, String> metadata) {
+        validateJwt(jwtToken);
+        validateBucketName(bucketName);
+        validateObjectKey(objectKey);
+        if (file == null || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Upload source must be a regular file: " + file);
+        }
+        long partSize = properties.getPartSize().toBytes();
+        if (partSize <= 0) {
+            throw new IllegalArgumentException("Part size must be positive");
+        }
+
+        Mono<S3Object> upload = Mono.fromCallable(() ->
+                        new Source(file, Files.size(file), Files.getLastModifiedTime(file).toMillis()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(source -> {
+                    int partCount = partCount(source.size(), partSize);
+                    if (partCount > MAX_PARTS) {
+                        return Mono.error(new IllegalArgumentException(
+                                "Upload of " + source.size() + " bytes needs " + partCount
+                                        + " parts, more than " + MAX_PARTS + "; increase the part size"));
+                    }
+                    Path stateFile = stateFile(bucketName, objectKey, file);
+                    Mono<S3Object> fresh = Mono.defer(() -> initiateAndTransfer(jwtToken, bucketName, objectKey,
+                            source, partSize, partCount, stateFile, contentType, metadata));
+                    return resume(jwtToken, bucketName, objectKey, source, partSize, stateFile)
+                            .flatMap(state -> transfer(jwtToken, bucketName, objectKey, source, partSize,
+                                                       partCount, state)
+                                    .onErrorResume(UploadNotFoundException.class, e -> {
+                                        // Expired or aborted on the server: its parts are gone
+                                        log.warn("Multipart upload {} for {}/{} no longer exists, starting over",
+                                                state.uploadId(), bucketName, objectKey);
+                                        return discard(state).then(fresh);
+                                    }))
+                            .switchIfEmpty(fresh);
+                })
+                .doOnSuccess(obj -> log.info("Completed multipart upload: {}/{}", bucketName, objectKey))
+                .doOnNext(objectKeyIndex::put)
+                .doOnError(e -> log.error("Multipart upload failed: {}/{}", bucketName, objectKey, e));
+        return metadataCache.invalidatingStore(bucketName, objectKey, upload, object -> object);
+    }
+
+    /**
+     * Abort the multipart upload recorded for a file and discard its resumable state.
+     *
+     * @param jwtToken JWT bearer token
+     * @param bucketName Bucket name
+     * @param objectKey Object key
+     * @param file Upload source
+     * @return Mono of true if an upload was aborted, false if none was recorded
+     */
+    public Mono<Boolean> abortUpload(String jwtToken, String bucketName, String objectKey, Path file) {
+        validateJwt(jwtToken);
+        validateBucketName(bucketName);
+        validateObjectKey(objectKey);
+
+        Path stateFile = stateFile(bucketName, objectKey, file);
+        return Mono.fromCallable(() -> MultipartUploadState.load(stateFile))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(state -> abort(jwtToken, bucketName, objectKey, state.uploadId())
+                        .then(discard(state))
+                        .thenReturn(true))
+                .defaultIfEmpty(false)
+                .doOnSuccess(aborted -> log.info("Aborted multipart upload: {}/{} ({})", bucketName, objectKey, aborted))
+                .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
+    }
+
+    /**
+     * Loads the recorded state of an earlier attempt. State recorded for a different source or part
+     * size is discarded and its upload aborted, so its parts do not linger on the server.
+     */
+    private Mono<MultipartUploadState> resume(String jwtToken, String bucketName, String objectKey,
+                                              Source source, long partSize, Path stateFile) {
+        return Mono.fromCallable(() -> MultipartUploadState.load(stateFile))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(state -> {
+                    if (state.matches(source.size(), source.modified(), partSize)) {
+                        log.info("Resuming multipart upload {} for {}/{} ({} parts done)",
+                                state.uploadId(), bucketName, objectKey, state.completedParts().size());
+                        return Mono.just(state);
+                    }
+                    log.warn("Discarding stale multipart state for {}/{}: source or part size changed",
+                            bucketName, objectKey);
+                    Mono<Void> abort = state.uploadId() == null
+                            ? Mono.empty()
+                            : abort(jwtToken, bucketName, objectKey, state.uploadId())
+                                    .onErrorResume(e -> {
+                                        log.warn("Failed to abort stale multipart upload {} for {}/{}",
+                                                state.uploadId(), bucketName, objectKey, e);
+                                        return Mono.empty();
+                                    });
+                    return abort.then(discard(state)).then(Mono.<MultipartUploadState>empty());
+                });
+    }
+
+    private Mono<S3Object> initiateAndTransfer(String jwtToken, String bucketName, String objectKey,
+                                               Source source, long partSize, int partCount, Path stateFile,
+                                               String contentType, Map<String, String> metadata) {
+        return initiate(jwtToken, bucketName, objectKey, contentType, metadata)
+                .flatMap(uploadId -> Mono.fromCallable(() -> {
+                    MultipartUploadState state = new MultipartUploadState(stateFile, uploadId,
+                            source.size(), source.modified(), partSize);
+                    state.save();
+                    return state;
+                }).subscribeOn(Schedulers.boundedElastic()))
+                .flatMap(state -> transfer(jwtToken, bucketName, objectKey, source, partSize, partCount, state)
+                        .onErrorResume(UploadNotFoundException.class, e -> discard(state)
+                                .then(Mono.error(new IronBucketServiceException(e.getMessage(), e)))));
+    }
+
+    private Mono<S3Object> transfer(String jwtToken, String bucketName, String objectKey, Source source,
+                                    long partSize, int partCount, MultipartUploadState state) {
+        return uploadParts(jwtToken, bucketName, objectKey, source, partSize, partCount, state)
+                .then(Mono.defer(() -> completeUpload(jwtToken, bucketName, objectKey, state)));
+    }
+
+    private Mono<Void> abort(String jwtToken, String bucketName, String objectKey, String uploadId) {
+        return webClient.delete()
+                .uri("/api/v1/buckets/{bucketName}/objects/{objectKey}/multipart/{uploadId}",
+                     bucketName, objectKey, uploadId)
+                .header("Authorization", "Bearer " + jwtToken)
+                .retrieve()
+                .toBodilessEntity()
+                .retryWhen(retrySpec)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
+                .then();
+    }
+
+    private Mono<Void> discard(MultipartUploadState state) {
+        return Mono.<Void>fromRunnable(() -> {
+                    try {
+                        state.delete();
+                    } catch (IOException e) {
+                        throw new IronBucketServiceException("Failed to discard multipart upload state", e);
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private Mono<String> initiate(String jwtToken, String bucketName, String objectKey,
+                                  String contentType, Map<String, String> metadata) {
+        return webClient.post()
+                .uri("/api/v1/buckets/{bucketName}/objects/{objectKey}/multipart", bucketName, objectKey)
+                .header("Authorization", "Bearer " + jwtToken)
+                .headers(headers -> {
+                    headers.set("x-amz-content-type", contentType != null
+                            ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+                    if (metadata != null) {
+                        metadata.forEach((name, value) -> headers.set(
+                                IronBucketS3Service.METADATA_HEADER_PREFIX + name.toLowerCase(Locale.ROOT), value));
+                    }
+                })
+                .retrieve()
+                .bodyToMono(InitiateMultipartResponse.class)
+                .map(InitiateMultipartResponse::uploadId)
+                .retryWhen(retrySpec)
+                .doOnNext(uploadId -> log.info("Initiated multipart upload {} for {}/{}", uploadId, bucketName, objectKey))
+                .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
+    }
+
+    private Mono<Void> uploadParts(String jwtToken, String bucketName, String objectKey, Source source,
+                                   long partSize, int partCount, MultipartUploadState state) {
+        return Flux.fromStream(IntStream.rangeClosed(1, partCount).boxed())
+                .filter(partNumber -> !state.isCompleted(partNumber))
+                .flatMap(partNumber -> {
+                    long offset = (partNumber - 1) * partSize;
+                    long length = Math.min(partSize, source.size() - offset);
+                    return uploadPart(jwtToken, bucketName, objectKey, state.uploadId(), partNumber,
+                                      source.file(), offset, length)
+                            .flatMap(etag -> Mono.fromRunnable(() -> recordPart(state, partNumber, etag))
+                                    .subscribeOn(Schedulers.boundedElastic()));
+                }, Math.max(1, properties.getConcurrency()))
+                .then();
+    }
+
+    private Mono<String> uploadPart(String jwtToken, String bucketName, String objectKey, String uploadId,
+                                    int partNumber, Path file, long offset, long length) {
+        int bufferSize = (int) properties.getReadBufferSize().toBytes();
+        // Re-created per subscription so a retried part re-reads its slice of the file
+        Flux<DataBuffer> content = DataBufferUtils.takeUntilByteCount(
+                DataBufferUtils.readAsynchronousFileChannel(
+                        () -> AsynchronousFileChannel.open(file, StandardOpenOption.READ),
+                        offset, DefaultDataBufferFactory.sharedInstance, bufferSize),
+                length);
+
+        return webClient.put()
+                .uri("/api/v1/buckets/{bucketName}/objects/{objectKey}/multipart/{uploadId}/parts/{partNumber}",
+                     bucketName, objectKey, uploadId, partNumber)
+                .header("Authorization", "Bearer " + jwtToken)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(length)
+                .body(BodyInserters.fromDataBuffers(content))
+                .retrieve()
+                .toBodilessEntity()
+                .flatMap(response -> {
+                    String etag = response.getHeaders().getETag();
+                    return etag != null
+                            ? Mono.just(etag)
+                            : Mono.error(new IronBucketServiceException("No ETag returned for part " + partNumber));
+                })
+                .retryWhen(retrySpec)
+                .doOnNext(etag -> log.debug("Uploaded part {} of {}/{} ({} bytes)", partNumber, bucketName, objectKey, length))
+                .onErrorResume(WebClientResponseException.NotFound.class,
+                        e -> Mono.error(new UploadNotFoundException(uploadId, e)))
+                .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
+    }
+
+    private void recordPart(MultipartUploadState state, int partNumber, String etag) {
+        try {
+            state.complete(partNumber, etag);
+        } catch (IOException e) {
+            throw new IronBucketServiceException("Failed to record multipart upload state", e);
+        }
+    }
+
+    private Mono<S3Object> completeUpload(String jwtToken, String bucketName, String objectKey,
+                                          MultipartUploadState state) {
+        List<CompletedPart> parts = state.completedParts().entrySet().stream()
+                .map(part -> new CompletedPart(part.getKey(), part.getValue()))
+                .toList();
+
+        return webClient.post()
+                .uri("/api/v1/buckets/{bucketName}/objects/{objectKey}/multipart/{uploadId}/complete",
+                     bucketName, objectKey, state.uploadId())
+                .header("Authorization", "Bearer " + jwtToken)
+                .bodyValue(new CompleteMultipartRequest(parts))
+                .retrieve()
+                .bodyToMono(IronBucketS3Service.S3ObjectDto.class)
+                .map(dto -> new S3Object(dto.key(), dto.bucketName(), dto.size(), dto.lastModified(),
+                                         dto.contentType(), dto.metadata()))
+                .retryWhen(retrySpec)
+                .flatMap(object -> Mono.fromCallable(() -> {
+                    state.delete();
+                    return object;
+                }).subscribeOn(Schedulers.boundedElastic()))
+                .onErrorResume(WebClientResponseException.NotFound.class,
+                        e -> Mono.error(new UploadNotFoundException(state.uploadId(), e)))
+                .onErrorResume(WebClientResponseException.class, this::handleWebClientError);
+    }
+
+    static int partCount(long size, long partSize) {
+        // An empty source is still uploaded as one empty part
+        return (int) Math.max(1, (size + partSize - 1) / partSize);
+    }
+
+    private Path stateFile(String bucketName, String objectKey, Path file) {
+        String identity = bucketName + '\n' + objectKey + '\n' + file.toAbsolutePath().normalize();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(identity.getBytes(StandardCharsets.UTF_8));
+            return properties.getStateDirectory().resolve(HexFormat.of().formatHex(digest) + ".properties");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // --- Validation ---
+
+    private void validateJwt(String jwtToken) {
+        if (jwtToken == null || jwtToken.isBlank()) {
+            throw new IllegalArgumentException("JWT token is required");
+        }
+    }
+
+    private void validateBucketName(String bucketName) {
+        if (bucketName == null || bucketName.isBlank()) {
+            throw new IllegalArgumentException("Bucket name cannot be null or blank");
+        }
+    }
+
+    private void validateObjectKey(String objectKey) {
+        if (objectKey == null || objectKey.isBlank()) {
+            throw new IllegalArgumentException("Object key cannot be null or blank");
+        }
+    }
+
+    // --- Error Handling ---
+
+    private <T> Mono<T> handleWebClientError(WebClientResponseException e) {
+        log.error("WebClient error: status={}, body={}", e.getStatusCode(), e.getResponseBodyAsString());
+        return Mono.error(new IronBucketServiceException("IronBucket service error: " + e.getMessage(), e));
+    }
+
+    /** Sentinel-Gear no longer knows the upload ID, e.g. because the upload expired. */
+    private static final class UploadNotFoundException extends RuntimeException {
+        UploadNotFoundException(String uploadId, Throwable cause) {
+            super("Multipart upload " + uploadId + " not found", cause);
+        }
+    }
+
+    // --- DTOs for wire format ---
+
+    private record Source(Path file, long size, long modified) {}
+    record InitiateMultipartResponse(String uploadId) {}
+    record CompletedPart(int partNumber, String etag) {}
+    record CompleteMultipartRequest(List<CompletedPart> parts) {}
+}
@@ -0,0 +1,34 @@
+package com.example.graphql.ironbucket;
+
+import java.util.List;
+
+/**
+ * One page of an object listing.
+ *
+ * <p>With a delimiter, keys sharing a prefix up to the next delimiter are rolled up into
+ * {@code commonPrefixes} (virtual folders) instead of being listed individually.</p>
+ *
+ * @param objects Objects on this page, in key order
+ * @param commonPrefixes Virtual folders on this page, in key order
+ * @param nextContinuationToken Token for the next page, null on the last page
+ */
+public record S3ObjectConnection(
+    List<S3Object> objects,
+    List<String> commonPrefixes,
+    String nextContinuationToken
+) {
+    public S3ObjectConnection {
+        objects = objects != null ? List.copyOf(objects) : List.of();
+        commonPrefixes = commonPrefixes != null ? List.copyOf(commonPrefixes) : List.of();
+    }
+
+    /** @return true if another page can be fetched with {@link #nextContinuationToken()} */
+    public boolean hasNextPage() {
+        return nextContinuationToken != null && !nextContinuationToken.isBlank();
+    }
+
+    /** @return number of objects and common prefixes on this page */
+    public int keyCount() {
+        return objects.size() + commonPrefixes.size();
+    }
+}
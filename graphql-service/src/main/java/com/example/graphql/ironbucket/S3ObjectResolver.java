@@ -5,9 +5,13 @@ import org.slf4j.LoggerFactory;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
 import org.springframework.stereotype.Controller;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -20,9 +24,14 @@ public class S3ObjectResolver {
     private static final Logger log = LoggerFactory.getLogger(S3ObjectResolver.class);
 
     private final IronBucketS3Service s3Service;
+    private final S3BulkOperationService bulkOperations;
+    private final FolderBrowsingService folderBrowsing;
 
-    public S3ObjectResolver(IronBucketS3Service s3Service) {
+    public S3ObjectResolver(IronBucketS3Service s3Service, S3BulkOperationService bulkOperations,
+                            FolderBrowsingService folderBrowsing) {
         this.s3Service = s3Service;
+        this.bulkOperations = bulkOperations;
+        this.folderBrowsing = folderBrowsing;
     }
 
     @QueryMapping
@@ -35,6 +44,40 @@ public class S3ObjectResolver {
         return s3Service.listObjects(jwtToken, bucketName, prefix);
     }
 
+    @QueryMapping
+    public Mono<S3ObjectConnection> listObjectsPage(
+            @Argument String jwtToken,
+            @Argument String bucketName,
+            @Argument String prefix,
+            @Argument String delimiter,
+            @Argument Integer maxKeys,
+            @Argument String continuationToken
+    ) {
+        log.debug("GraphQL: listObjectsPage - bucket={}, prefix={}, delimiter={}", bucketName, prefix, delimiter);
+        return folderBrowsing.listObjectsPage(jwtToken, bucketName, prefix, delimiter, maxKeys, continuationToken);
+    }
+
+    @QueryMapping
+    public Mono<FolderSummary> folderSummary(
+            @Argument String jwtToken,
+            @Argument String bucketName,
+            @Argument String prefix
+    ) {
+        log.debug("GraphQL: folderSummary - bucket={}, prefix={}", bucketName, prefix);
+        return folderBrowsing.folderSummary(jwtToken, bucketName, prefix);
+    }
+
+    @SchemaMapping(typeName = "S3Object")
+    public List<MetadataEntry> metadata(S3Object object) {
+        if (object.metadata() == null) {
+            return List.of();
+        }
+        return object.metadata().entrySet().stream()
+                .map(entry -> new MetadataEntry(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparing(MetadataEntry::key))
+                .toList();
+    }
+
     @QueryMapping
     public Mono<S3Object> getObject(
             @Argument String jwtToken,
@@ -66,6 +109,17 @@ public class S3ObjectResolver {
         return s3Service.getPresignedUrl(jwtToken, bucketName, objectKey, expiresIn);
     }
 
+    @QueryMapping
+    public Flux<PresignedUrl> getPresignedUrls(
+            @Argument String jwtToken,
+            @Argument String bucketName,
+            @Argument List<String> objectKeys,
+            @Argument int expiresIn
+    ) {
+        log.debug("GraphQL: getPresignedUrls - {} ({} keys)", bucketName, objectKeys.size());
+        return s3Service.getPresignedUrls(jwtToken, bucketName, objectKeys, expiresIn);
+    }
+
     @MutationMapping
     public Mono<S3Object> uploadObject(
             @Argument String jwtToken,
@@ -89,4 +143,71 @@ public class S3ObjectResolver {
         log.debug("GraphQL: setObjectMetadata - {}/{}", bucketName, objectKey);
         return s3Service.setObjectMetadata(jwtToken, bucketName, objectKey, metadata);
     }
+
+    @MutationMapping
+    public Mono<S3Object> copyObject(
+            @Argument String jwtToken,
+            @Argument String sourceBucket,
+            @Argument String sourceKey,
+            @Argument String targetBucket,
+            @Argument String targetKey
+    ) {
+        log.debug("GraphQL: copyObject - {}/{} -> {}/{}", sourceBucket, sourceKey, targetBucket, targetKey);
+        return s3Service.copyObject(jwtToken, sourceBucket, sourceKey, targetBucket, targetKey);
+    }
+
+    @MutationMapping
+    public Mono<S3Object> moveObject(
+            @Argument String jwtToken,
+            @Argument String sourceBucket,
+            @Argument String sourceKey,
+            @Argument String targetBucket,
+            @Argument String targetKey
+    ) {
+        log.debug("GraphQL: moveObject - {}/{} -> {}/{}", sourceBucket, sourceKey, targetBucket, targetKey);
+        return s3Service.moveObject(jwtToken, sourceBucket, sourceKey, targetBucket, targetKey);
+    }
+
+    @MutationMapping
+    public Mono<BulkOperationSummary> copyObjects(
+            @Argument String jwtToken,
+            @Argument String sourceBucket,
+            @Argument String sourcePrefix,
+            @Argument String targetBucket,
+            @Argument String targetPrefix,
+            @Argument Boolean move
+    ) {
+        log.debug("GraphQL: copyObjects - {}/{} -> {}/{}, move={}", sourceBucket, sourcePrefix,
+                targetBucket, targetPrefix, move);
+        return bulkOperations.summarize(bulkOperations.copyObjects(jwtToken, sourceBucket, sourcePrefix,
+                targetBucket, targetPrefix, Boolean.TRUE.equals(move)));
+    }
+
+    @MutationMapping
+    public Mono<BulkOperationSummary> deleteObjects(
+            @Argument String jwtToken,
+            @Argument String bucketName,
+            @Argument List<String> keys,
+            @Argument String prefix
+    ) {
+        log.debug("GraphQL: deleteObjects - bucket={}, keys={}, prefix={}",
+                bucketName, keys != null ? keys.size() : null, prefix);
+        return bulkOperations.summarize(bulkOperations.deleteObjects(jwtToken, bucketName, keys, prefix));
+    }
+
+    @MutationMapping
+    public Mono<BulkOperationSummary> setObjectsMetadata(
+            @Argument String jwtToken,
+            @Argument String bucketName,
+            @Argument List<String> keys,
+            @Argument List<MetadataEntry> metadata
+    ) {
+        log.debug("GraphQL: setObjectsMetadata - bucket={}, keys={}", bucketName, keys.size());
+        Map<String, String> values = new LinkedHashMap<>();
+        metadata.forEach(entry -> values.put(entry.key(), entry.value()));
+        return bulkOperations.summarize(bulkOperations.setObjectsMetadata(jwtToken, bucketName, keys, values));
+    }
+
+    /** GraphQL representation of one custom metadata pair, also bound from MetadataEntryInput. */
+    record MetadataEntry(String key, String value) {}
 }
@@ -0,0 +1,40 @@
+package com.example.graphql.ironbucket;
+
+import java.time.Duration;
+
+/**
+ * Thrown without calling Sentinel-Gear when an endpoint group is overloaded: its circuit is open,
+ * or its adaptive concurrency limit is reached.
+ */
+public class SentinelGearOverloadedException extends RuntimeException {
+
+    /** Why the call was rejected. */
+    public enum Reason { CIRCUIT_OPEN, CONCURRENCY_LIMIT }
+
+    private final String endpointGroup;
+    private final Reason reason;
+    private final Duration retryAfter;
+
+    public SentinelGearOverloadedException(String endpointGroup, Reason reason, Duration retryAfter) {
+        super(String.format("Sentinel-Gear %s endpoints overloaded (%s), retry after %d ms",
+                endpointGroup, reason, retryAfter.toMillis()));
+        this.endpointGroup = endpointGroup;
+        this.reason = reason;
+        this.retryAfter = retryAfter;
+    }
+
+    /** @return endpoint group the call belonged to */
+    public String getEndpointGroup() {
+        return endpointGroup;
+    }
+
+    /** @return why the call was rejected */
+    public Reason getReason() {
+        return reason;
+    }
+
+    /** @return how long callers should wait before trying again */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.graphql.ironbucket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent IronBucket reads into one upstream request.
+ *
+ * <p>Calls are keyed by the caller's principal scope (tenant and roles), the operation and its
+ * arguments (see {@link JwtClaimsExtractor#principalScope}). The first caller starts the request;
+ * callers arriving while it is in flight subscribe to the same result, and the entry is evicted as
+ * soon as the request terminates, so nothing is cached beyond the request itself.</p>
+ */
+@Component
+public class SingleFlight {
+
+    private static final Logger log = LoggerFactory.getLogger(SingleFlight.class);
+
+    private final JwtClaimsExtractor claimsExtractor;
+    private final Map<Key, Mono<?>> monos = new ConcurrentHashMap<>();
+    private final Map<Key, Flux<?>> fluxes = new ConcurrentHashMap<>();
+
+    public SingleFlight(JwtClaimsExtractor claimsExtractor) {
+        this.claimsExtractor = claimsExtractor;
+    }
+
+    /**
+     * Run a single-valued read, sharing it with identical calls in flight.
+     *
+     * @param jwtToken caller's JWT, determining the principal scope
+     * @param operation operation name
+     * @param arguments call arguments
+     * @param call the upstream request
+     * @return Mono of the shared result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> mono(String jwtToken, String operation, List<?> arguments, Supplier<Mono<T>> call) {
+        return claimsExtractor.principalScope(jwtToken).flatMap(scope -> {
+            Key key = new Key(scope, operation, arguments);
+            return (Mono<T>) monos.computeIfAbsent(key, k -> {
+                log.trace("Single-flight start: {}", operation);
+                // cache() lets late joiners of a finished flight still see its result
+                return Mono.defer(call)
+                        .doFinally(signal -> monos.remove(k))
+                        .cache();
+            });
+        });
+    }
+
+    /**
+     * Run a multi-valued read, sharing it with identical calls in flight.
+     *
+     * <p>Callers joining mid-stream receive the elements already emitted first. The upstream
+     * request is cancelled once every caller has cancelled.</p>
+     *
+     * @param jwtToken caller's JWT, determining the principal scope
+     * @param operation operation name
+     * @param arguments call arguments
+     * @param call the upstream request
+     * @return Flux of the shared elements
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T> flux(String jwtToken, String operation, List<?> arguments, Supplier<Flux<T>> call) {
+        return claimsExtractor.principalScope(jwtToken).flatMapMany(scope -> {
+            Key key = new Key(scope, operation, arguments);
+            return (Flux<T>) fluxes.computeIfAbsent(key, k -> {
+                log.trace("Single-flight start: {}", operation);
+                return Flux.defer(call)
+                        .doFinally(signal -> fluxes.remove(k))
+                        .replay()
+                        .refCount();
+            });
+        });
+    }
+
+    /** @return number of requests currently in flight */
+    int inFlight() {
+        return monos.size() + fluxes.size();
+    }
+
+    private record Key(String scope, String operation, List<?> arguments) {}
+}
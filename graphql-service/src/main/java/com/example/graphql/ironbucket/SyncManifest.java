@@ -0,0 +1,98 @@
+package com.example.graphql.ironbucket;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Last synced state of a local directory, persisted as a properties file.
+ *
+ * <p>Each object key maps to the size, modification time and SHA-256 digest of the file it was
+ * uploaded from. A file whose size and modification time still match is assumed unchanged and
+ * is not read again.</p>
+ */
+final class SyncManifest {
+
+    /**
+     * Recorded state of one synced file.
+     *
+     * @param size File size in bytes
+     * @param modified Modification time in milliseconds
+     * @param sha256 Hex SHA-256 digest of the content
+     */
+    record Entry(long size, long modified, String sha256) {
+
+        boolean matches(long size, long modified) {
+            return this.size == size && this.modified == modified;
+        }
+    }
+
+    private final Path file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    SyncManifest(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the manifest file, or starts an empty manifest if there is none.
+     *
+     * @param file manifest file
+     * @return the manifest
+     * @throws IOException if the file cannot be read
+     */
+    static SyncManifest load(Path file) throws IOException {
+        SyncManifest manifest = new SyncManifest(file);
+        if (!Files.isRegularFile(file)) {
+            return manifest;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        for (String key : properties.stringPropertyNames()) {
+            String[] fields = properties.getProperty(key).split(",", 3);
+            if (fields.length == 3) {
+                manifest.entries.put(key, new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[2]));
+            }
+        }
+        return manifest;
+    }
+
+    Entry get(String key) {
+        return entries.get(key);
+    }
+
+    void put(String key, Entry entry) {
+        entries.put(key, entry);
+    }
+
+    /** Drops entries of keys that are no longer present locally. */
+    void retainAll(Predicate<String> present) {
+        entries.keySet().removeIf(present.negate());
+    }
+
+    /**
+     * Writes the manifest to a temporary file and atomically replaces the manifest file.
+     *
+     * @throws IOException if the manifest cannot be written
+     */
+    void save() throws IOException {
+        Properties properties = new Properties();
+        entries.forEach((key, entry) ->
+                properties.setProperty(key, entry.size() + "," + entry.modified() + "," + entry.sha256()));
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            properties.store(out, "IronBucket directory sync manifest");
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.graphql.ironbucket;
+
+import java.util.List;
+
+/**
+ * Outcome of a directory-to-bucket sync, or the plan of a dry run.
+ *
+ * @param bucketName Target bucket
+ * @param prefix Key prefix the directory is mirrored under
+ * @param dryRun Whether nothing was changed and the lists are only planned
+ * @param uploaded Keys uploaded (or to upload)
+ * @param deleted Keys deleted (or to delete)
+ * @param unchanged Number of files already up to date
+ * @param failures Objects whose upload or deletion failed
+ */
+public record SyncReport(
+    String bucketName,
+    String prefix,
+    boolean dryRun,
+    List<String> uploaded,
+    List<String> deleted,
+    int unchanged,
+    List<ObjectOperationResult> failures
+) {
+}
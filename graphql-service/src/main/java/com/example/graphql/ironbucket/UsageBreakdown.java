@@ -0,0 +1,15 @@
+package com.example.graphql.ironbucket;
+
+/**
+ * One histogram bucket of a usage breakdown.
+ *
+ * @param label Content type, or age bracket such as {@code <7d}
+ * @param size Total size in bytes of the objects in the bucket
+ * @param objectCount Number of objects in the bucket
+ */
+public record UsageBreakdown(
+    String label,
+    long size,
+    long objectCount
+) {
+}
@@ -0,0 +1,9 @@
+-- V1.2__Add_Item_Query_Indexes.sql
+-- Indexes backing the filter and orderBy arguments of item queries
+
+-- Sorting and range filters on last update
+CREATE INDEX IF NOT EXISTS idx_items_updated_at ON items(updated_at DESC);
+
+-- Sorted/prefix-filtered children of a parent
+CREATE INDEX IF NOT EXISTS idx_items_parent_id_name ON items(parent_id, name);
+CREATE INDEX IF NOT EXISTS idx_items_parent_id_updated_at ON items(parent_id, updated_at DESC);
@@ -0,0 +1,20 @@
+-- V1.3__Add_Item_Tombstones.sql
+-- Supports deferred subtree deletion: a subtree root is detached and tombstoned at once,
+-- descendants are reclaimed in bounded batches by a background job.
+
+-- Tombstone marker; a non-null value hides the item and its whole subtree from reads
+ALTER TABLE items ADD COLUMN deleted_at TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_items_deleted_at ON items(deleted_at);
+
+-- Progress of pending and completed deferred deletions (no FK: the root row is reclaimed last)
+CREATE TABLE IF NOT EXISTS item_deletions (
+    root_id VARCHAR(36) PRIMARY KEY,
+    requested_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    total_items BIGINT,
+    reclaimed_items BIGINT NOT NULL DEFAULT 0,
+    completed_at TIMESTAMP
+);
+
+COMMENT ON COLUMN items.deleted_at IS 'Tombstone timestamp set by deferred subtree deletion';
+COMMENT ON TABLE item_deletions IS 'Progress tracking for deferred subtree deletions';
@@ -0,0 +1,15 @@
+-- V1.4__Add_Item_Outbox.sql
+-- Transactional outbox for item change events. Rows are written in the same transaction as
+-- the item mutation and drained in batches by the outbox relay.
+
+CREATE TABLE IF NOT EXISTS item_outbox (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    item_id VARCHAR(36) NOT NULL,
+    event_type VARCHAR(32) NOT NULL,
+    name VARCHAR(255),
+    description TEXT,
+    parent_id VARCHAR(36),
+    occurred_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE item_outbox IS 'Pending item change events awaiting publication';
@@ -0,0 +1,14 @@
+-- V1.5__Add_Idempotency_Keys.sql
+-- Idempotency keys for item mutations. A row is claimed (result NULL) before the mutation runs
+-- and completed with the result afterwards; retries within the TTL replay the stored result.
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    request_key VARCHAR(200) PRIMARY KEY,
+    result VARCHAR(64),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys(expires_at);
+
+COMMENT ON TABLE idempotency_keys IS 'Results of item mutations keyed by operation and client idempotency key';
@@ -0,0 +1,7 @@
+-- V1.6__Add_Item_Version.sql
+-- Optimistic locking: updates are conditional on the version the writer read
+-- (UPDATE ... WHERE id = ? AND version = ?) and increment it.
+
+ALTER TABLE items ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN items.version IS 'Optimistic-locking version, incremented on every update';
@@ -0,0 +1,7 @@
+-- V1.7__Add_Idempotency_Request_Hash.sql
+-- Idempotency keys are scoped by caller and remember a hash of the mutation arguments, so a key
+-- reused for a different request is rejected instead of replaying an unrelated result.
+
+ALTER TABLE idempotency_keys ADD COLUMN request_hash VARCHAR(64);
+
+COMMENT ON COLUMN idempotency_keys.request_hash IS 'SHA-256 of the operation and arguments of the original request';
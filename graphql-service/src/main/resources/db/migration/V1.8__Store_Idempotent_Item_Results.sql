@@ -0,0 +1,7 @@
+-- V1.8__Store_Idempotent_Item_Results.sql
+-- Item mutations store the item they returned as JSON, so a retry replays the original response
+-- rather than the item's current state. Results stored earlier hold the item ID and are still read.
+
+ALTER TABLE idempotency_keys ALTER COLUMN result SET DATA TYPE TEXT;
+
+COMMENT ON COLUMN idempotency_keys.result IS 'Encoded result of the original request: item JSON, or a scalar';
@@ -0,0 +1,57 @@
+package com.example.graphql;
+
+import graphql.GraphQLContext;
+import graphql.execution.CoercedVariables;
+import graphql.language.IntValue;
+import graphql.language.StringValue;
+import graphql.schema.Coercing;
+import graphql.schema.CoercingParseLiteralException;
+import graphql.schema.CoercingParseValueException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for the custom GraphQL scalars.
+ */
+class GraphqlScalarConfigTest {
+
+    private static final long BEYOND_INT = Integer.MAX_VALUE + 1L;
+
+    @SuppressWarnings("unchecked")
+    private final Coercing<Long, Long> coercing = (Coercing<Long, Long>) GraphqlScalarConfig.LONG.getCoercing();
+    private final GraphQLContext context = GraphQLContext.getDefault();
+
+    @Test
+    @DisplayName("should serialize versions beyond the Int range")
+    void testSerialize() {
+        assertThat(coercing.serialize(BEYOND_INT, context, Locale.ROOT)).isEqualTo(BEYOND_INT);
+    }
+
+    @Test
+    @DisplayName("should parse variables given as numbers or numeric strings")
+    void testParseValue() {
+        assertThat(coercing.parseValue(7, context, Locale.ROOT)).isEqualTo(7L);
+        assertThat(coercing.parseValue(BEYOND_INT, context, Locale.ROOT)).isEqualTo(BEYOND_INT);
+        assertThat(coercing.parseValue(String.valueOf(BEYOND_INT), context, Locale.ROOT)).isEqualTo(BEYOND_INT);
+        assertThatThrownBy(() -> coercing.parseValue("seven", context, Locale.ROOT))
+                .isInstanceOf(CoercingParseValueException.class);
+    }
+
+    @Test
+    @DisplayName("should parse literals and reject values beyond 64 bits")
+    void testParseLiteral() {
+        assertThat(coercing.parseLiteral(new IntValue(BigInteger.valueOf(BEYOND_INT)), CoercedVariables.emptyVariables(),
+                context, Locale.ROOT)).isEqualTo(BEYOND_INT);
+        assertThat(coercing.parseLiteral(new StringValue("42"), CoercedVariables.emptyVariables(),
+                context, Locale.ROOT)).isEqualTo(42L);
+        assertThatThrownBy(() -> coercing.parseLiteral(new IntValue(BigInteger.TWO.pow(64)),
+                CoercedVariables.emptyVariables(), context, Locale.ROOT))
+                .isInstanceOf(CoercingParseLiteralException.class);
+    }
+}
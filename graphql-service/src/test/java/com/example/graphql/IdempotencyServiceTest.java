@@ -0,0 +1,205 @@
+package com.example.graphql;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for replaying mutations by idempotency key.
+ */
+class IdempotencyServiceTest {
+
+    private static final List<String> ARGUMENTS = List.of("TestItem");
+
+    @Mock
+    private IdempotencyRepository repository;
+
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    private IdempotencyProperties properties;
+    private IdempotencyService service;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        properties = new IdempotencyProperties();
+        service = new IdempotencyService(repository, properties, transactionalOperator);
+        executions = new AtomicInteger();
+        when(repository.complete(anyString(), anyString(), any(LocalDateTime.class))).thenReturn(Mono.just(1));
+        when(repository.deleteById(anyString())).thenReturn(Mono.empty());
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private Mono<String> execute(String key, List<?> arguments) {
+        return service.execute("createItem", key, arguments,
+                () -> Mono.fromSupplier(() -> "item-" + executions.incrementAndGet()),
+                result -> result,
+                Mono::just);
+    }
+
+    private Mono<String> execute(String key) {
+        return execute(key, ARGUMENTS);
+    }
+
+    /** Stored record for the key as written by the original request. */
+    private IdempotencyRecord storedRecord(String result) {
+        ArgumentCaptor<String> requestKey = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> requestHash = ArgumentCaptor.forClass(String.class);
+        when(repository.claim(anyString(), anyString(), any(LocalDateTime.class))).thenReturn(Mono.just(1));
+        execute("probe").block();
+        verify(repository).claim(requestKey.capture(), requestHash.capture(), any(LocalDateTime.class));
+        executions.set(0);
+        return new IdempotencyRecord(requestKey.getValue().replace(":probe", ":key-1"), requestHash.getValue(),
+                result, LocalDateTime.now(ZoneOffset.UTC).plusHours(1));
+    }
+
+    @Test
+    @DisplayName("should run the mutation once and replay the result for retries")
+    void testExecute_ReplaysCachedResult() {
+        when(repository.claim(anyString(), anyString(), any(LocalDateTime.class))).thenReturn(Mono.just(1));
+
+        StepVerifier.create(execute("key-1")).expectNext("item-1").verifyComplete();
+        StepVerifier.create(execute("key-1")).expectNext("item-1").verifyComplete();
+
+        assertThat(executions).hasValue(1);
+        verify(repository).complete(anyString(), eq("item-1"), any(LocalDateTime.class));
+        verify(repository, times(1)).claim(anyString(), anyString(), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("should claim with a short lease and extend it to the TTL on completion")
+    void testExecute_LeaseExtendedOnComplete() {
+        properties.setLease(Duration.ofSeconds(30));
+        ArgumentCaptor<LocalDateTime> leaseExpiry = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> resultExpiry = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(repository.claim(anyString(), anyString(), any(LocalDateTime.class))).thenReturn(Mono.just(1));
+
+        execute("key-1").block();
+
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        verify(repository).claim(anyString(), anyString(), leaseExpiry.capture());
+        verify(repository).complete(anyString(), eq("item-1"), resultExpiry.capture());
+        assertThat(leaseExpiry.getValue()).isCloseTo(now.plusSeconds(30), within(5, ChronoUnit.SECONDS));
+        assertThat(resultExpiry.getValue()).isCloseTo(now.plus(properties.getTtl()), within(5, ChronoUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("should run claim, mutation and result in one transaction")
+    void testExecute_Transactional() {
+        when(repository.claim(anyString(), anyString(), any(LocalDateTime.class))).thenReturn(Mono.just(1));
+
+        execute("key-1").block();
+
+        verify(transactionalOperator).transactional(any(Mono.class));
+    }
+
+    @Test
+    @DisplayName("should replay a result stored by another instance")
+    void testExecute_ReplaysStoredResult() {
+        IdempotencyRecord stored = storedRecord("item-7");
+        when(repository.claim(anyString(), anyString(), any(LocalDateTime.class)))
+                .thenReturn(Mono.error(new DataIntegrityViolationException("duplicate key")));
+        when(repository.findById(stored.requestKey())).thenReturn(Mono.just(stored));
+
+        StepVerifier.create(execute("key-1")).expectNext("item-7").verifyComplete();
+
+        assertThat(executions).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("should reject a key reused with different arguments")
+    void testExecute_KeyReused() {
+        IdempotencyRecord stored = storedRecord("item-7");
+        when(repository.claim(anyString(), anyString(), any(LocalDateTime.class)))
+                .thenReturn(Mono.error(new DataIntegrityViolationException("duplicate key")));
+        when(repository.findById(stored.requestKey())).thenReturn(Mono.just(stored));
+
+        StepVerifier.create(execute("key-1", List.of("OtherItem")))
+                .expectError(IdempotencyKeyReusedException.class)
+                .verify();
+        assertThat(executions).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("should scope keys by caller")
+    void testExecute_ScopedByPrincipal() {
+        ArgumentCaptor<String> requestKeys = ArgumentCaptor.forClass(String.class);
+        when(repository.claim(anyString(), anyString(), any(LocalDateTime.class))).thenReturn(Mono.just(1));
+
+        execute("key-1").contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                new TestingAuthenticationToken("alice", null, "ROLE_USER"))).block();
+        execute("key-1").contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                new TestingAuthenticationToken("bob", null, "ROLE_USER"))).block();
+
+        assertThat(executions).hasValue(2);
+        verify(repository, times(2)).claim(requestKeys.capture(), anyString(), any(LocalDateTime.class));
+        assertThat(requestKeys.getAllValues()).doesNotHaveDuplicates()
+                .allSatisfy(key -> assertThat(key).startsWith("createItem:").endsWith(":key-1"));
+    }
+
+    @Test
+    @DisplayName("should reject a retry while the original request is still running")
+    void testExecute_InProgress() {
+        IdempotencyRecord stored = storedRecord(null);
+        when(repository.claim(anyString(), anyString(), any(LocalDateTime.class)))
+                .thenReturn(Mono.error(new DataIntegrityViolationException("duplicate key")));
+        when(repository.findById(stored.requestKey())).thenReturn(Mono.just(stored));
+
+        StepVerifier.create(execute("key-1"))
+                .expectError(IdempotentRequestInProgressException.class)
+                .verify();
+        assertThat(executions).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("should leave the key to the rolled back transaction when the mutation fails")
+    void testExecute_RollsBackOnFailure() {
+        when(repository.claim(anyString(), anyString(), any(LocalDateTime.class))).thenReturn(Mono.just(1));
+
+        StepVerifier.create(service.execute("createItem", "key-1", ARGUMENTS,
+                        () -> Mono.<String>error(new ItemDatabaseException("Database error")),
+                        result -> result, Mono::just))
+                .expectError(ItemDatabaseException.class)
+                .verify();
+
+        verify(transactionalOperator).transactional(any(Mono.class));
+        verify(repository, never()).complete(anyString(), anyString(), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("should reject keys longer than 128 characters")
+    void testExecute_KeyTooLong() {
+        StepVerifier.create(execute("k".repeat(129)))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        verify(repository, never()).claim(anyString(), anyString(), any(LocalDateTime.class));
+    }
+}
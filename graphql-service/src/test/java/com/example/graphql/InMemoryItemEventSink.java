@@ -0,0 +1,52 @@
+package com.example.graphql;
+
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * In-process {@link ItemEventSink} retaining the most recent events.
+ *
+ * <p>Test double only: events are lost on restart, so the application never registers it.</p>
+ */
+class InMemoryItemEventSink implements ItemEventSink {
+
+    private static final int CAPACITY = 10_000;
+
+    private final Deque<ItemChangeEvent> events = new ArrayDeque<>();
+
+    @Override
+    public Mono<Void> publish(List<ItemChangeEvent> batch) {
+        return Mono.fromRunnable(() -> {
+            synchronized (events) {
+                for (ItemChangeEvent event : batch) {
+                    if (events.size() == CAPACITY) {
+                        events.removeFirst();
+                    }
+                    events.addLast(event);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return snapshot of retained events, oldest first
+     */
+    public List<ItemChangeEvent> events() {
+        synchronized (events) {
+            return new ArrayList<>(events);
+        }
+    }
+
+    /**
+     * Discards all retained events.
+     */
+    public void clear() {
+        synchronized (events) {
+            events.clear();
+        }
+    }
+}
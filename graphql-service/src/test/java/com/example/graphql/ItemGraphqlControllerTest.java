@@ -4,13 +4,21 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -21,6 +29,7 @@ import static org.mockito.Mockito.when;
 class ItemGraphqlControllerTest {
 
     private ItemService service;
+    private IdempotencyService idempotency;
     private ItemGraphqlController controller;
 
     private final Item testItem = new Item("1", "TestItem", "A test item");
@@ -29,7 +38,10 @@ class ItemGraphqlControllerTest {
     void setup() {
         service = Mockito.mock(ItemService.class);
         controller = new ItemGraphqlController();
+        idempotency = Mockito.mock(IdempotencyService.class);
         ReflectionTestUtils.setField(controller, "service", service);
+        ReflectionTestUtils.setField(controller, "idempotency", idempotency);
+        ReflectionTestUtils.setField(controller, "jsonMapper", JsonMapper.builder().build());
     }
 
     @Nested
@@ -41,7 +53,7 @@ class ItemGraphqlControllerTest {
         void testItemsQuery_returnsItems() {
             when(service.getAllItems()).thenReturn(Flux.just(testItem));
 
-            StepVerifier.create(controller.items())
+            StepVerifier.create(controller.items(null, null))
                     .expectNext(testItem)
                     .verifyComplete();
         }
@@ -51,7 +63,7 @@ class ItemGraphqlControllerTest {
         void testItemsQuery_returnsEmptyList() {
             when(service.getAllItems()).thenReturn(Flux.empty());
 
-            StepVerifier.create(controller.items())
+            StepVerifier.create(controller.items(null, null))
                     .verifyComplete();
         }
 
@@ -61,7 +73,7 @@ class ItemGraphqlControllerTest {
             when(service.getAllItems())
                     .thenReturn(Flux.error(new ItemOperationDisabledException("Read operation is disabled")));
 
-            StepVerifier.create(controller.items())
+            StepVerifier.create(controller.items(null, null))
                     .expectError(ItemOperationDisabledException.class)
                     .verify();
         }
@@ -72,7 +84,7 @@ class ItemGraphqlControllerTest {
             when(service.getAllItems())
                     .thenReturn(Flux.error(new ItemDatabaseException("Connection failed")));
 
-            StepVerifier.create(controller.items())
+            StepVerifier.create(controller.items(null, null))
                     .expectError(ItemDatabaseException.class)
                     .verify();
         }
@@ -83,10 +95,22 @@ class ItemGraphqlControllerTest {
             Item item2 = new Item("2", "TestItem2", "Another test item");
             when(service.getAllItems()).thenReturn(Flux.just(testItem, item2));
 
-            StepVerifier.create(controller.items())
+            StepVerifier.create(controller.items(null, null))
                     .expectNext(testItem, item2)
                     .verifyComplete();
         }
+
+        @Test
+        @DisplayName("should push filter and ordering down to the service")
+        void testItemsQuery_withFilter() {
+            ItemFilter filter = new ItemFilter("Test", null, null, null, null, null, null);
+            ItemOrderBy orderBy = new ItemOrderBy(ItemSortField.NAME, null);
+            when(service.findItems(null, filter, orderBy)).thenReturn(Flux.just(testItem));
+
+            StepVerifier.create(controller.items(filter, orderBy))
+                    .expectNext(testItem)
+                    .verifyComplete();
+        }
     }
 
     @Nested
@@ -146,7 +170,7 @@ class ItemGraphqlControllerTest {
         void testCreateItemMutation_createsItem() {
             when(service.createItem(any(Item.class))).thenReturn(Mono.just(testItem));
 
-            StepVerifier.create(controller.createItem("TestItem", "A test item", null))
+            StepVerifier.create(controller.createItem("TestItem", "A test item", null, null))
                     .expectNext(testItem)
                     .verifyComplete();
         }
@@ -154,7 +178,7 @@ class ItemGraphqlControllerTest {
         @Test
         @DisplayName("should reject null name")
         void testCreateItemMutation_nullName() {
-            StepVerifier.create(controller.createItem(null, "A test item", null))
+            StepVerifier.create(controller.createItem(null, "A test item", null, null))
                     .expectError(IllegalArgumentException.class)
                     .verify();
         }
@@ -162,7 +186,7 @@ class ItemGraphqlControllerTest {
         @Test
         @DisplayName("should reject blank name")
         void testCreateItemMutation_blankName() {
-            StepVerifier.create(controller.createItem("   ", "A test item", null))
+            StepVerifier.create(controller.createItem("   ", "A test item", null, null))
                     .expectError(IllegalArgumentException.class)
                     .verify();
         }
@@ -173,7 +197,7 @@ class ItemGraphqlControllerTest {
             Item itemNoDesc = new Item("1", "TestItem", null);
             when(service.createItem(any(Item.class))).thenReturn(Mono.just(itemNoDesc));
 
-            StepVerifier.create(controller.createItem("TestItem", null, null))
+            StepVerifier.create(controller.createItem("TestItem", null, null, null))
                     .expectNext(itemNoDesc)
                     .verifyComplete();
         }
@@ -184,7 +208,7 @@ class ItemGraphqlControllerTest {
             when(service.createItem(any(Item.class)))
                     .thenReturn(Mono.error(new ItemOperationDisabledException("Create operation is disabled")));
 
-            StepVerifier.create(controller.createItem("TestItem", "A test item", null))
+            StepVerifier.create(controller.createItem("TestItem", "A test item", null, null))
                     .expectError(ItemOperationDisabledException.class)
                     .verify();
         }
@@ -195,10 +219,54 @@ class ItemGraphqlControllerTest {
             when(service.createItem(any(Item.class)))
                     .thenReturn(Mono.error(new ItemDatabaseException("Database error")));
 
-            StepVerifier.create(controller.createItem("TestItem", "A test item", null))
+            StepVerifier.create(controller.createItem("TestItem", "A test item", null, null))
                     .expectError(ItemDatabaseException.class)
                     .verify();
         }
+
+        @Test
+        @DisplayName("should route through idempotency service when key is given")
+        void testCreateItemMutation_withIdempotencyKey() {
+            when(idempotency.<Item>execute(eq("createItem"), eq("key-1"), any(), any(), any(), any()))
+                    .thenReturn(Mono.just(testItem));
+
+            StepVerifier.create(controller.createItem("TestItem", "A test item", null, "key-1"))
+                    .expectNext(testItem)
+                    .verifyComplete();
+            verify(service, never()).createItem(any(Item.class));
+        }
+
+        @Test
+        @DisplayName("should replay the item the original request returned, not its current state")
+        @SuppressWarnings("unchecked")
+        void testCreateItemMutation_replaysStoredItem() {
+            Item created = new Item("1", "TestItem", "A test item", null, 0L, LocalDateTime.of(2026, 1, 2, 3, 4, 5));
+            ArgumentCaptor<Function<Item, String>> encoder = ArgumentCaptor.forClass(Function.class);
+            ArgumentCaptor<Function<String, Mono<Item>>> decoder = ArgumentCaptor.forClass(Function.class);
+            when(idempotency.<Item>execute(eq("createItem"), eq("key-1"), any(), any(), encoder.capture(),
+                    decoder.capture())).thenReturn(Mono.just(created));
+            controller.createItem("TestItem", "A test item", null, "key-1").block();
+
+            StepVerifier.create(decoder.getValue().apply(encoder.getValue().apply(created)))
+                    .expectNext(created)
+                    .verifyComplete();
+            verify(service, never()).getItemById(any());
+        }
+
+        @Test
+        @DisplayName("should replay a key stored as a bare item ID with the item's current state")
+        @SuppressWarnings("unchecked")
+        void testCreateItemMutation_replaysLegacyItemId() {
+            ArgumentCaptor<Function<String, Mono<Item>>> decoder = ArgumentCaptor.forClass(Function.class);
+            when(idempotency.<Item>execute(eq("createItem"), eq("key-1"), any(), any(), any(), decoder.capture()))
+                    .thenReturn(Mono.just(testItem));
+            when(service.getItemById("1")).thenReturn(Mono.just(testItem));
+            controller.createItem("TestItem", "A test item", null, "key-1").block();
+
+            StepVerifier.create(decoder.getValue().apply("1"))
+                    .expectNext(testItem)
+                    .verifyComplete();
+        }
     }
 
     @Nested
@@ -209,10 +277,10 @@ class ItemGraphqlControllerTest {
         @DisplayName("should update item name and description")
         void testUpdateItemMutation_updatesItem() {
             Item updatedItem = new Item("1", "Updated", "Updated desc");
-            when(service.updateItem("1", "Updated", "Updated desc"))
+            when(service.updateItem("1", "Updated", "Updated desc", null))
                     .thenReturn(Mono.just(updatedItem));
 
-            StepVerifier.create(controller.updateItem("1", "Updated", "Updated desc"))
+            StepVerifier.create(controller.updateItem("1", "Updated", "Updated desc", null, null))
                     .expectNext(updatedItem)
                     .verifyComplete();
         }
@@ -220,7 +288,7 @@ class ItemGraphqlControllerTest {
         @Test
         @DisplayName("should reject null ID")
         void testUpdateItemMutation_nullId() {
-            StepVerifier.create(controller.updateItem(null, "Updated", null))
+            StepVerifier.create(controller.updateItem(null, "Updated", null, null, null))
                     .expectError(IllegalArgumentException.class)
                     .verify();
         }
@@ -228,7 +296,7 @@ class ItemGraphqlControllerTest {
         @Test
         @DisplayName("should reject blank ID")
         void testUpdateItemMutation_blankId() {
-            StepVerifier.create(controller.updateItem("   ", "Updated", null))
+            StepVerifier.create(controller.updateItem("   ", "Updated", null, null, null))
                     .expectError(IllegalArgumentException.class)
                     .verify();
         }
@@ -237,10 +305,10 @@ class ItemGraphqlControllerTest {
         @DisplayName("should update item with partial fields")
         void testUpdateItemMutation_updatePartial() {
             Item updatedItem = new Item("1", "Updated", "A test item");
-            when(service.updateItem("1", "Updated", null))
+            when(service.updateItem("1", "Updated", null, null))
                     .thenReturn(Mono.just(updatedItem));
 
-            StepVerifier.create(controller.updateItem("1", "Updated", null))
+            StepVerifier.create(controller.updateItem("1", "Updated", null, null, null))
                     .expectNext(updatedItem)
                     .verifyComplete();
         }
@@ -248,10 +316,10 @@ class ItemGraphqlControllerTest {
         @Test
         @DisplayName("should return error when item not found")
         void testUpdateItemMutation_itemNotFound() {
-            when(service.updateItem("999", "Updated", null))
+            when(service.updateItem("999", "Updated", null, null))
                     .thenReturn(Mono.error(new ItemNotFoundException("999")));
 
-            StepVerifier.create(controller.updateItem("999", "Updated", null))
+            StepVerifier.create(controller.updateItem("999", "Updated", null, null, null))
                     .expectError(ItemNotFoundException.class)
                     .verify();
         }
@@ -259,10 +327,10 @@ class ItemGraphqlControllerTest {
         @Test
         @DisplayName("should return error when update is disabled")
         void testUpdateItemMutation_updateDisabled() {
-            when(service.updateItem("1", "Updated", null))
+            when(service.updateItem("1", "Updated", null, null))
                     .thenReturn(Mono.error(new ItemOperationDisabledException("Update operation is disabled")));
 
-            StepVerifier.create(controller.updateItem("1", "Updated", null))
+            StepVerifier.create(controller.updateItem("1", "Updated", null, null, null))
                     .expectError(ItemOperationDisabledException.class)
                     .verify();
         }
@@ -270,10 +338,10 @@ class ItemGraphqlControllerTest {
         @Test
         @DisplayName("should handle database error during update")
         void testUpdateItemMutation_databaseError() {
-            when(service.updateItem("1", "Updated", null))
+            when(service.updateItem("1", "Updated", null, null))
                     .thenReturn(Mono.error(new ItemDatabaseException("Database error")));
 
-            StepVerifier.create(controller.updateItem("1", "Updated", null))
+            StepVerifier.create(controller.updateItem("1", "Updated", null, null, null))
                     .expectError(ItemDatabaseException.class)
                     .verify();
         }
@@ -288,7 +356,17 @@ class ItemGraphqlControllerTest {
         void testDeleteItemMutation_deletesItem() {
             when(service.deleteItem("1")).thenReturn(Mono.just(true));
 
-            StepVerifier.create(controller.deleteItem("1"))
+            StepVerifier.create(controller.deleteItem("1", null, null))
+                    .expectNext(true)
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("should tombstone subtree in deferred mode")
+        void testDeleteItemMutation_deferred() {
+            when(service.deleteItemDeferred("1")).thenReturn(Mono.just(true));
+
+            StepVerifier.create(controller.deleteItem("1", ItemDeleteMode.DEFERRED, null))
                     .expectNext(true)
                     .verifyComplete();
         }
@@ -296,7 +374,7 @@ class ItemGraphqlControllerTest {
         @Test
         @DisplayName("should reject null ID")
         void testDeleteItemMutation_nullId() {
-            StepVerifier.create(controller.deleteItem(null))
+            StepVerifier.create(controller.deleteItem(null, null, null))
                     .expectError(IllegalArgumentException.class)
                     .verify();
         }
@@ -304,7 +382,7 @@ class ItemGraphqlControllerTest {
         @Test
         @DisplayName("should reject blank ID")
         void testDeleteItemMutation_blankId() {
-            StepVerifier.create(controller.deleteItem("   "))
+            StepVerifier.create(controller.deleteItem("   ", null, null))
                     .expectError(IllegalArgumentException.class)
                     .verify();
         }
@@ -315,7 +393,7 @@ class ItemGraphqlControllerTest {
             when(service.deleteItem("999"))
                     .thenReturn(Mono.error(new ItemNotFoundException("999")));
 
-            StepVerifier.create(controller.deleteItem("999"))
+            StepVerifier.create(controller.deleteItem("999", null, null))
                     .expectError(ItemNotFoundException.class)
                     .verify();
         }
@@ -326,7 +404,7 @@ class ItemGraphqlControllerTest {
             when(service.deleteItem("1"))
                     .thenReturn(Mono.error(new ItemOperationDisabledException("Delete operation is disabled")));
 
-            StepVerifier.create(controller.deleteItem("1"))
+            StepVerifier.create(controller.deleteItem("1", null, null))
                     .expectError(ItemOperationDisabledException.class)
                     .verify();
         }
@@ -337,7 +415,7 @@ class ItemGraphqlControllerTest {
             when(service.deleteItem("1"))
                     .thenReturn(Mono.error(new ItemDatabaseException("Database error")));
 
-            StepVerifier.create(controller.deleteItem("1"))
+            StepVerifier.create(controller.deleteItem("1", null, null))
                     .expectError(ItemDatabaseException.class)
                     .verify();
         }
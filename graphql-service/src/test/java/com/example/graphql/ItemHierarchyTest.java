@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -36,6 +37,12 @@ class ItemHierarchyTest {
     @Mock
     private CrudFeatures features;
 
+    @Mock
+    private ItemEventOutbox outbox;
+
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
     @InjectMocks
     private ItemService service;
 
@@ -55,6 +62,10 @@ class ItemHierarchyTest {
         when(features.isCreateEnabled()).thenReturn(true);
         when(features.isUpdateEnabled()).thenReturn(true);
         when(features.isDeleteEnabled()).thenReturn(true);
+        // Outbox writes succeed and run in the caller's (mocked) transaction
+        when(outbox.append(any(ItemChangeType.class), any(Item.class))).thenReturn(Mono.empty());
+        when(outbox.append(any(ItemChangeType.class), anyString())).thenReturn(Mono.empty());
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
     }
 
     @Nested
@@ -0,0 +1,89 @@
+package com.example.graphql;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for draining the item outbox in batches.
+ */
+class ItemOutboxRelayTest {
+
+    @Mock
+    private ItemOutboxRepository repository;
+
+    private InMemoryItemEventSink sink;
+    private ItemOutboxProperties properties;
+    private ItemOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        sink = new InMemoryItemEventSink();
+        properties = new ItemOutboxProperties();
+        properties.setBatchSize(2);
+        relay = new ItemOutboxRelay(repository, sink, properties);
+        when(repository.deleteByIdIn(anyCollection())).thenReturn(Mono.just(2));
+    }
+
+    @Test
+    @DisplayName("should publish and delete full batches until the outbox is drained")
+    void testDrain_MultipleBatches() {
+        when(repository.findBatch(anyInt()))
+                .thenReturn(Flux.just(event(1L), event(2L)))
+                .thenReturn(Flux.just(event(3L)));
+
+        StepVerifier.create(relay.drain())
+                .expectNext(3L)
+                .verifyComplete();
+
+        assertThat(sink.events()).extracting(ItemChangeEvent::id).containsExactly(1L, 2L, 3L);
+        verify(repository).deleteByIdIn(List.of(1L, 2L));
+        verify(repository).deleteByIdIn(List.of(3L));
+    }
+
+    @Test
+    @DisplayName("should keep events in the outbox when publishing fails")
+    void testDrain_SinkFailure() {
+        ItemEventSink failingSink = events -> Mono.error(new IllegalStateException("broker down"));
+        relay = new ItemOutboxRelay(repository, failingSink, properties);
+        when(repository.findBatch(anyInt())).thenReturn(Flux.just(event(1L)));
+
+        StepVerifier.create(relay.drain())
+                .expectNext(0L)
+                .verifyComplete();
+
+        verify(repository, never()).deleteByIdIn(anyCollection());
+    }
+
+    @Test
+    @DisplayName("should refuse to start without a configured sink")
+    void testRequiresSink() {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+
+        assertThatThrownBy(() -> new ItemOutboxRelay(repository, beans.getBeanProvider(ItemEventSink.class), properties))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("items.outbox.sink");
+    }
+
+    private ItemChangeEvent event(long id) {
+        return new ItemChangeEvent(id, "item-" + id, ItemChangeType.CREATED, "Item", null, null, LocalDateTime.now());
+    }
+}
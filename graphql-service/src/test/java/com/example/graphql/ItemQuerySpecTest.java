@@ -0,0 +1,82 @@
+package com.example.graphql;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for compiling item filters and ordering into SQL.
+ */
+class ItemQuerySpecTest {
+
+    @Test
+    @DisplayName("should only hide tombstoned subtrees and sort newest first without a filter")
+    void testNoFilter() {
+        ItemQuerySpec spec = ItemQuerySpec.of(null, null, null);
+
+        assertThat(spec.sql()).isEqualTo(ItemRepository.VISIBLE_ITEMS_CTE
+                + "SELECT i.* FROM items i WHERE i.id IN (SELECT id FROM visible)"
+                + " ORDER BY i.created_at DESC, i.id ASC");
+        assertThat(spec.bindings()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should bind name predicates and escape LIKE wildcards")
+    void testNamePredicates() {
+        ItemFilter filter = new ItemFilter("50%_off", "Sale", null, null, null, null, null);
+
+        ItemQuerySpec spec = ItemQuerySpec.of("parent-1", filter, null);
+
+        assertThat(spec.sql()).contains("i.parent_id = :parentId")
+                .contains("i.name LIKE :namePrefix")
+                .contains("LOWER(i.name) LIKE :nameContains");
+        assertThat(spec.bindings())
+                .containsEntry("parentId", "parent-1")
+                .containsEntry("namePrefix", "50\\%\\_off%")
+                .containsEntry("nameContains", "%sale%");
+    }
+
+    @Test
+    @DisplayName("should compile timestamp ranges into bound parameters")
+    void testRanges() {
+        Instant from = Instant.parse("2025-01-01T00:00:00Z");
+        Instant to = Instant.parse("2025-02-01T00:00:00Z");
+        ItemFilter filter = new ItemFilter(null, null, from, to, null, to, null);
+
+        ItemQuerySpec spec = ItemQuerySpec.of(null, filter, null);
+
+        assertThat(spec.sql()).contains("i.created_at >= :createdAfter")
+                .contains("i.created_at < :createdBefore")
+                .contains("i.updated_at < :updatedBefore")
+                .doesNotContain(":updatedAfter");
+        assertThat(spec.bindings())
+                .containsEntry("createdAfter", LocalDateTime.of(2025, 1, 1, 0, 0))
+                .hasSize(3);
+    }
+
+    @Test
+    @DisplayName("should use EXISTS subquery for hasChildren")
+    void testHasChildren() {
+        ItemFilter withChildren = new ItemFilter(null, null, null, null, null, null, true);
+        ItemFilter leaves = new ItemFilter(null, null, null, null, null, null, false);
+
+        assertThat(ItemQuerySpec.of(null, withChildren, null).sql())
+                .contains(" EXISTS (SELECT 1 FROM items c WHERE c.parent_id = i.id)")
+                .doesNotContain("NOT EXISTS");
+        assertThat(ItemQuerySpec.of(null, leaves, null).sql())
+                .contains("NOT EXISTS (SELECT 1 FROM items c WHERE c.parent_id = i.id)");
+    }
+
+    @Test
+    @DisplayName("should order by the mapped column with id tiebreaker")
+    void testOrderBy() {
+        ItemQuerySpec spec = ItemQuerySpec.of(null, null, new ItemOrderBy(ItemSortField.UPDATED_AT, Sort.Direction.DESC));
+
+        assertThat(spec.sql()).endsWith("ORDER BY i.updated_at DESC, i.id ASC");
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.graphql;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.r2dbc.test.autoconfigure.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Database tests for item persistence and queries, run against an in-memory H2 database
+ * migrated with the application's Flyway scripts.
+ */
+@DataR2dbcTest(properties = "spring.flyway.enabled=false")
+@Import(R2dbcAuditingConfig.class)
+class ItemRepositoryTest {
+
+    private static final String DATABASE = "item_repository_test;MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private ItemRepository repository;
+
+    @Autowired
+    private ItemDeletionRepository deletions;
+
+    @Autowired
+    private R2dbcEntityTemplate template;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.r2dbc.url", () -> "r2dbc:h2:mem:///" + DATABASE);
+        registry.add("spring.r2dbc.username", () -> "sa");
+        registry.add("spring.r2dbc.password", () -> "");
+    }
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure()
+                .dataSource("jdbc:h2:mem:" + DATABASE, "sa", "")
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+    }
+
+    @BeforeEach
+    void setUp() {
+        template.getDatabaseClient().sql("DELETE FROM item_deletions").then().block();
+        template.getDatabaseClient().sql("DELETE FROM items").then().block();
+    }
+
+    private Item save(String name, Item parent) {
+        return repository.save(new Item(null, name, null, parent == null ? null : parent.id())).block();
+    }
+
+    private void tombstone(Item root) {
+        repository.tombstone(root.id()).then(deletions.register(root.id())).block();
+    }
+
+    @Nested
+    @DisplayName("Last update time")
+    class UpdatedAt {
+
+        @Test
+        @DisplayName("should set updatedAt on insert and advance it on update")
+        void testUpdatedAtWritten() throws InterruptedException {
+            Item created = repository.save(new Item(null, "Report", "Draft")).block();
+            assertThat(created.updatedAt()).isNotNull();
+
+            Thread.sleep(20);
+            Item updated = repository.save(new Item(created.id(), "Report", "Final", null, created.version())).block();
+
+            Item stored = repository.findById(created.id()).block();
+            assertThat(stored.updatedAt()).isEqualTo(updated.updatedAt()).isAfter(created.updatedAt());
+        }
+
+        @Test
+        @DisplayName("should filter and sort on the time of the last update")
+        void testFilterAndSortOnUpdatedAt() throws InterruptedException {
+            Item first = repository.save(new Item(null, "First", null)).block();
+            Item second = repository.save(new Item(null, "Second", null)).block();
+            Thread.sleep(20);
+            Instant cutoff = Instant.now();
+            Thread.sleep(20);
+            repository.save(new Item(first.id(), "First", "Edited", null, first.version())).block();
+
+            List<Item> updatedSince = ItemQuerySpec
+                    .of(null, new ItemFilter(null, null, null, null, cutoff, null, null), null)
+                    .execute(template).collectList().block();
+            List<Item> byUpdate = ItemQuerySpec
+                    .of(null, null, new ItemOrderBy(ItemSortField.UPDATED_AT, Sort.Direction.DESC))
+                    .execute(template).collectList().block();
+
+            assertThat(updatedSince).extracting(Item::id).containsExactly(first.id());
+            assertThat(updatedSince.getFirst().updatedAt().toInstant(ZoneOffset.UTC)).isAfter(cutoff);
+            assertThat(byUpdate).extracting(Item::id).containsExactly(first.id(), second.id());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tombstoned subtrees")
+    class Tombstones {
+
+        @Test
+        @DisplayName("should hide a tombstoned subtree from every read")
+        void testTombstonedSubtreeHidden() {
+            Item root = save("Root", null);
+            Item archive = save("Archive", root);
+            Item nested = save("Nested", archive);
+            Item kept = save("Kept", root);
+
+            tombstone(archive);
+
+            assertThat(repository.findAll().collectList().block())
+                    .extracting(Item::id).containsExactlyInAnyOrder(root.id(), kept.id());
+            assertThat(repository.findById(nested.id()).blockOptional()).isEmpty();
+            assertThat(repository.existsById(archive.id()).block()).isFalse();
+            assertThat(repository.findByParentId(archive.id()).collectList().block()).isEmpty();
+            assertThat(repository.findByParentId(root.id()).collectList().block())
+                    .extracting(Item::id).containsExactly(kept.id());
+            assertThat(ItemQuerySpec.of(null, null, null).execute(template).collectList().block())
+                    .extracting(Item::id).containsExactlyInAnyOrder(root.id(), kept.id());
+            assertThat(ItemQuerySpec.of(archive.id(), null, null).execute(template).collectList().block())
+                    .isEmpty();
+        }
+
+        @Test
+        @DisplayName("should reclaim a tombstoned subtree in batches and record progress")
+        void testReclaimSubtree() {
+            Item root = save("Root", null);
+            Item wide = save("Wide", root);
+            for (int i = 0; i < 5; i++) {
+                save("Leaf " + i, wide);
+            }
+            Item deep = root;
+            for (int i = 0; i < 4; i++) {
+                deep = save("Level " + i, deep);
+            }
+            Item other = save("Other", null);
+            ItemDeletionProperties properties = new ItemDeletionProperties();
+            properties.setBatchSize(2);
+            properties.setBatchPause(Duration.ZERO);
+            ItemSubtreeReclaimer reclaimer = new ItemSubtreeReclaimer(repository, deletions, properties);
+
+            tombstone(root);
+            reclaimer.reclaimPending().block();
+
+            ItemDeletion deletion = deletions.findById(root.id()).block();
+            assertThat(deletion.status()).isEqualTo(ItemDeletion.Status.COMPLETED);
+            assertThat(deletion.totalItems()).isEqualTo(10L);
+            assertThat(deletion.reclaimedItems()).isEqualTo(10L);
+            assertThat(template.getDatabaseClient().sql("SELECT COUNT(*) FROM items")
+                    .map(row -> row.get(0, Long.class)).one().block()).isEqualTo(1L);
+            assertThat(repository.findById(other.id()).blockOptional()).isPresent();
+        }
+    }
+}
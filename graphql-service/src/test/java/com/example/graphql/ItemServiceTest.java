@@ -7,10 +7,14 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.LocalDateTime;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.never;
@@ -35,6 +39,15 @@ class ItemServiceTest {
     @Mock
     private CrudFeatures features;
 
+    @Mock
+    private ItemEventOutbox outbox;
+
+    @Mock
+    private ItemDeletionRepository deletions;
+
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
     @InjectMocks
     private ItemService service;
 
@@ -49,6 +62,10 @@ class ItemServiceTest {
         when(features.isCreateEnabled()).thenReturn(true);
         when(features.isUpdateEnabled()).thenReturn(true);
         when(features.isDeleteEnabled()).thenReturn(true);
+        // Outbox writes succeed and run in the caller's (mocked) transaction
+        when(outbox.append(any(ItemChangeType.class), any(Item.class))).thenReturn(Mono.empty());
+        when(outbox.append(any(ItemChangeType.class), anyString())).thenReturn(Mono.empty());
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
     }
 
     @Nested
@@ -182,6 +199,19 @@ class ItemServiceTest {
                     .verifyComplete();
         }
 
+        @Test
+        @DisplayName("should record a CREATED event in the outbox")
+        void testCreateItem_RecordsOutboxEvent() {
+            Item savedItem = new Item("1", "NewItem", "New Description");
+            when(repository.save(any(Item.class))).thenReturn(Mono.just(savedItem));
+
+            StepVerifier.create(service.createItem(new Item(null, "NewItem", "New Description")))
+                    .expectNext(savedItem)
+                    .verifyComplete();
+
+            verify(outbox).append(ItemChangeType.CREATED, savedItem);
+        }
+
         @Test
         @DisplayName("should create item without description")
         void testCreateItem_NoDescription() {
@@ -242,7 +272,7 @@ class ItemServiceTest {
             when(repository.findById("1")).thenReturn(Mono.just(testItem));
             when(repository.save(any(Item.class))).thenReturn(Mono.just(updated));
 
-            StepVerifier.create(service.updateItem("1", "Updated", "Updated Description"))
+            StepVerifier.create(service.updateItem("1", "Updated", "Updated Description", null))
                     .expectNext(updated)
                     .verifyComplete();
         }
@@ -254,7 +284,7 @@ class ItemServiceTest {
             when(repository.findById("1")).thenReturn(Mono.just(testItem));
             when(repository.save(any(Item.class))).thenReturn(Mono.just(updated));
 
-            StepVerifier.create(service.updateItem("1", "Updated", null))
+            StepVerifier.create(service.updateItem("1", "Updated", null, null))
                     .expectNext(updated)
                     .verifyComplete();
         }
@@ -264,7 +294,7 @@ class ItemServiceTest {
         void testUpdateItem_NotFound() {
             when(repository.findById("999")).thenReturn(Mono.empty());
 
-            StepVerifier.create(service.updateItem("999", "Updated", null))
+            StepVerifier.create(service.updateItem("999", "Updated", null, null))
                     .expectError(ItemNotFoundException.class)
                     .verify();
         }
@@ -274,7 +304,7 @@ class ItemServiceTest {
         void testUpdateItem_UpdateDisabled() {
             when(features.isUpdateEnabled()).thenReturn(false);
 
-            StepVerifier.create(service.updateItem("1", "Updated", null))
+            StepVerifier.create(service.updateItem("1", "Updated", null, null))
                     .expectError(ItemOperationDisabledException.class)
                     .verify();
         }
@@ -286,7 +316,7 @@ class ItemServiceTest {
             when(repository.save(any(Item.class)))
                     .thenReturn(Mono.error(new RuntimeException("DB Error")));
 
-            StepVerifier.create(service.updateItem("1", "Updated", null))
+            StepVerifier.create(service.updateItem("1", "Updated", null, null))
                     .expectError(ItemDatabaseException.class)
                     .verify();
         }
@@ -296,7 +326,7 @@ class ItemServiceTest {
         void testUpdateItem_NoRepositoryCall() {
             when(features.isUpdateEnabled()).thenReturn(false);
 
-            StepVerifier.create(service.updateItem("1", "Updated", null))
+            StepVerifier.create(service.updateItem("1", "Updated", null, null))
                     .expectError(ItemOperationDisabledException.class)
                     .verify();
 
@@ -311,10 +341,36 @@ class ItemServiceTest {
             when(repository.findById("1")).thenReturn(Mono.just(testItem));
             when(repository.save(any(Item.class))).thenReturn(Mono.just(updated));
 
-            StepVerifier.create(service.updateItem("1", "  ", "New Description"))
+            StepVerifier.create(service.updateItem("1", "  ", "New Description", null))
                     .expectNext(updated)
                     .verifyComplete();
         }
+
+        @Test
+        @DisplayName("should reject a stale expected version without writing")
+        void testUpdateItem_StaleExpectedVersion() {
+            when(repository.findById("1"))
+                    .thenReturn(Mono.just(new Item("1", "TestItem", "Test Description", null, 3L)));
+
+            StepVerifier.create(service.updateItem("1", "Updated", null, 2L))
+                    .expectError(ItemVersionConflictException.class)
+                    .verify();
+
+            verify(repository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("should map a lost optimistic-locking race to a version conflict")
+        void testUpdateItem_ConcurrentModification() {
+            when(repository.findById("1"))
+                    .thenReturn(Mono.just(new Item("1", "TestItem", "Test Description", null, 3L)));
+            when(repository.save(any(Item.class)))
+                    .thenReturn(Mono.error(new OptimisticLockingFailureException("version mismatch")));
+
+            StepVerifier.create(service.updateItem("1", "Updated", null, 3L))
+                    .expectError(ItemVersionConflictException.class)
+                    .verify();
+        }
     }
 
     @Nested
@@ -389,4 +445,140 @@ class ItemServiceTest {
             verify(repository, never()).deleteById(anyString());
         }
     }
+
+    @Nested
+    @DisplayName("deleteItemDeferred")
+    class DeleteItemDeferredTests {
+
+        @Test
+        @DisplayName("should tombstone the subtree and register the deletion")
+        void testDeleteItemDeferred_Success() {
+            when(repository.existsById("1")).thenReturn(Mono.just(true));
+            when(repository.tombstone("1")).thenReturn(Mono.just(1));
+            when(deletions.register("1")).thenReturn(Mono.just(1));
+
+            StepVerifier.create(service.deleteItemDeferred("1"))
+                    .expectNext(true)
+                    .verifyComplete();
+
+            verify(deletions).register("1");
+            verify(outbox).append(ItemChangeType.SUBTREE_DELETED, "1");
+            verify(repository, never()).deleteById(anyString());
+        }
+
+        @Test
+        @DisplayName("should return error when item not found")
+        void testDeleteItemDeferred_NotFound() {
+            when(repository.existsById("999")).thenReturn(Mono.just(false));
+
+            StepVerifier.create(service.deleteItemDeferred("999"))
+                    .expectError(ItemNotFoundException.class)
+                    .verify();
+
+            verify(repository, never()).tombstone(anyString());
+        }
+
+        @Test
+        @DisplayName("should return error when the item was tombstoned concurrently")
+        void testDeleteItemDeferred_AlreadyTombstoned() {
+            when(repository.existsById("1")).thenReturn(Mono.just(true));
+            when(repository.tombstone("1")).thenReturn(Mono.just(0));
+
+            StepVerifier.create(service.deleteItemDeferred("1"))
+                    .expectError(ItemNotFoundException.class)
+                    .verify();
+
+            verify(deletions, never()).register(anyString());
+        }
+
+        @Test
+        @DisplayName("should return error when delete is disabled")
+        void testDeleteItemDeferred_DeleteDisabled() {
+            when(features.isDeleteEnabled()).thenReturn(false);
+
+            StepVerifier.create(service.deleteItemDeferred("1"))
+                    .expectError(ItemOperationDisabledException.class)
+                    .verify();
+        }
+
+        @Test
+        @DisplayName("should wrap database errors")
+        void testDeleteItemDeferred_DatabaseError() {
+            when(repository.existsById("1")).thenReturn(Mono.just(true));
+            when(repository.tombstone("1")).thenReturn(Mono.error(new RuntimeException("DB Error")));
+
+            StepVerifier.create(service.deleteItemDeferred("1"))
+                    .expectError(ItemDatabaseException.class)
+                    .verify();
+        }
+    }
+
+    @Nested
+    @DisplayName("moveItemToParent")
+    class MoveItemToParentTests {
+
+        @Test
+        @DisplayName("should move an item under a visible parent")
+        void testMoveItemToParent_Success() {
+            Item moved = new Item("1", "TestItem", "Test Description", "2", null);
+            when(repository.findById("1")).thenReturn(Mono.just(testItem));
+            when(repository.existsById("2")).thenReturn(Mono.just(true));
+            when(repository.isValidParent("1", "2")).thenReturn(Mono.just(true));
+            when(repository.save(any(Item.class))).thenReturn(Mono.just(moved));
+
+            StepVerifier.create(service.moveItemToParent("1", "2", null))
+                    .expectNext(moved)
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("should refuse to move an item into a subtree pending deletion")
+        void testMoveItemToParent_TombstonedParent() {
+            when(repository.findById("1")).thenReturn(Mono.just(testItem));
+            // Tombstoned rows are hidden from existsById but still satisfy the foreign key
+            when(repository.existsById("2")).thenReturn(Mono.just(false));
+            when(repository.isValidParent("1", "2")).thenReturn(Mono.just(true));
+
+            StepVerifier.create(service.moveItemToParent("1", "2", null))
+                    .expectErrorMatches(e -> e instanceof ItemNotFoundException && e.getMessage().contains("'2'"))
+                    .verify();
+            verify(repository, never()).save(any(Item.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("getItemDeletion")
+    class GetItemDeletionTests {
+
+        @Test
+        @DisplayName("should return the progress of a deferred deletion")
+        void testGetItemDeletion_Success() {
+            ItemDeletion deletion = new ItemDeletion("1", LocalDateTime.now(), 10L, 4, null);
+            when(deletions.findById("1")).thenReturn(Mono.just(deletion));
+
+            StepVerifier.create(service.getItemDeletion("1"))
+                    .expectNextMatches(d -> d.status() == ItemDeletion.Status.IN_PROGRESS)
+                    .verifyComplete();
+        }
+
+        @Test
+        @DisplayName("should return error when no deletion exists")
+        void testGetItemDeletion_NotFound() {
+            when(deletions.findById("999")).thenReturn(Mono.empty());
+
+            StepVerifier.create(service.getItemDeletion("999"))
+                    .expectError(ItemNotFoundException.class)
+                    .verify();
+        }
+
+        @Test
+        @DisplayName("should return error when read is disabled")
+        void testGetItemDeletion_ReadDisabled() {
+            when(features.isReadEnabled()).thenReturn(false);
+
+            StepVerifier.create(service.getItemDeletion("1"))
+                    .expectError(ItemOperationDisabledException.class)
+                    .verify();
+        }
+    }
 }
@@ -0,0 +1,220 @@
+package com.example.graphql.ironbucket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for bucket usage aggregation against the local Sentinel-Gear stub.
+ */
+@DisplayName("BucketUsageService Tests")
+class BucketUsageServiceTest {
+
+    private static final String JWT = "test-jwt";
+    private static final String BUCKET = "media";
+
+    private IronBucketFixture fixture;
+    private SentinelGearStub stub;
+    private IronBucketS3Service s3Service;
+    private BucketUsageProperties properties;
+    private BucketUsageService usageService;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new IronBucketFixture();
+        stub = fixture.stub;
+        s3Service = fixture.s3Service;
+        properties = new BucketUsageProperties();
+        properties.setMinRefreshInterval(Duration.ZERO);
+        usageService = new BucketUsageService(s3Service, fixture.claims, fixture.metadataCache, properties,
+                fixture.meterRegistry);
+
+        stub.putObject(BUCKET, "videos/a.mp4", new byte[100]);
+        stub.putObject(BUCKET, "videos/2024/b.mp4", new byte[200]);
+        stub.putObject(BUCKET, "images/c.png", new byte[30]);
+        stub.putObject(BUCKET, "readme.txt", new byte[5]);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    @DisplayName("should total a bucket and a prefix from a listing")
+    void testUsage_Totals() {
+        StepVerifier.create(usageService.usage(JWT, BUCKET, null))
+                .assertNext(usage -> {
+                    assertThat(usage.size()).isEqualTo(335);
+                    assertThat(usage.objectCount()).isEqualTo(4);
+                    assertThat(usage.stale()).isFalse();
+                })
+                .verifyComplete();
+        StepVerifier.create(usageService.usage(JWT, BUCKET, "videos/"))
+                .assertNext(usage -> {
+                    assertThat(usage.prefix()).isEqualTo("videos/");
+                    assertThat(usage.size()).isEqualTo(300);
+                    assertThat(usage.objectCount()).isEqualTo(2);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("should answer repeated requests without listing again")
+    void testUsage_Kept() {
+        usageService.usage(JWT, BUCKET, "videos/").block();
+        int listings = stub.listRequests();
+
+        BucketUsage usage = usageService.usage(JWT, BUCKET, "videos/").block();
+
+        assertThat(usage.size()).isEqualTo(300);
+        assertThat(usage.stale()).isFalse();
+        assertThat(stub.listRequests()).isEqualTo(listings);
+    }
+
+    @Test
+    @DisplayName("should add uploads below the prefix to the totals without listing again")
+    void testUsage_UploadApplied() {
+        properties.setMinRefreshInterval(Duration.ofHours(1));
+        usageService.usage(JWT, BUCKET, "videos/").block();
+        usageService.usage(JWT, BUCKET, "").block();
+        int listings = stub.listRequests();
+        s3Service.uploadObject(JWT, BUCKET, "videos/c.mp4", new byte[50], "video/mp4", Map.of()).block();
+        s3Service.uploadObject(JWT, BUCKET, "videos/c.mp4", new byte[70], "video/mp4", Map.of()).block();
+
+        BucketUsage videos = usageService.usage(JWT, BUCKET, "videos/").block();
+        BucketUsage bucket = usageService.usage(JWT, BUCKET, "").block();
+
+        assertThat(videos.size()).isEqualTo(370);
+        assertThat(videos.objectCount()).isEqualTo(3);
+        assertThat(videos.stale()).isTrue();
+        assertThat(videos.byContentType()).containsExactly(new UsageBreakdown("application/octet-stream", 370, 3));
+        assertThat(bucket.size()).isEqualTo(405);
+        assertThat(stub.listRequests()).isEqualTo(listings);
+    }
+
+    @Test
+    @DisplayName("should reconcile totals with applied uploads after the minimum refresh interval")
+    void testUsage_UploadReconciled() throws InterruptedException {
+        usageService.usage(JWT, BUCKET, "videos/").block();
+        int listings = stub.listRequests();
+        s3Service.uploadObject(JWT, BUCKET, "videos/c.mp4", new byte[50], "video/mp4", Map.of()).block();
+
+        BucketUsage adjusted = usageService.usage(JWT, BUCKET, "videos/").block();
+
+        assertThat(adjusted.stale()).isTrue();
+        assertThat(adjusted.size()).isEqualTo(350);
+        assertThat(awaitFresh("videos/").size()).isEqualTo(350);
+        assertThat(stub.listRequests()).isGreaterThan(listings);
+    }
+
+    @Test
+    @DisplayName("should flag totals stale after a deletion below the prefix and reconcile them")
+    void testUsage_DeleteReconciled() throws InterruptedException {
+        usageService.usage(JWT, BUCKET, "videos/").block();
+        s3Service.deleteObject(JWT, BUCKET, "videos/a.mp4").block();
+
+        BucketUsage stale = usageService.usage(JWT, BUCKET, "videos/").block();
+
+        assertThat(stale.stale()).isTrue();
+        assertThat(stale.size()).isEqualTo(300);
+        assertThat(awaitFresh("videos/").size()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("should keep totals of prefixes a write does not fall under")
+    void testUsage_WriteElsewhere() {
+        usageService.usage(JWT, BUCKET, "videos/").block();
+        int listings = stub.listRequests();
+        s3Service.deleteObject(JWT, BUCKET, "images/c.png").block();
+
+        BucketUsage usage = usageService.usage(JWT, BUCKET, "videos/").block();
+
+        assertThat(usage.stale()).isFalse();
+        assertThat(stub.listRequests()).isEqualTo(listings);
+    }
+
+    @Test
+    @DisplayName("should share one listing between concurrent first requests")
+    void testUsage_ConcurrentFirstRequests() {
+        Mono.zip(usageService.usage(JWT, BUCKET, "images/"), usageService.usage(JWT, BUCKET, "images/")).block();
+
+        // One listing discovers the shards of images/, whose single object needs no further page
+        assertThat(stub.listRequests()).isOne();
+    }
+
+    @Test
+    @DisplayName("should list on every request when disabled")
+    void testUsage_Disabled() {
+        properties.setEnabled(false);
+
+        usageService.usage(JWT, BUCKET, "images/").block();
+        usageService.usage(JWT, BUCKET, "images/").block();
+
+        assertThat(stub.listRequests()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should break totals down by content type and age")
+    void testTally_Breakdowns() {
+        Instant now = Instant.parse("2026-06-01T00:00:00Z");
+        BucketUsageService.UsageTally tally = new BucketUsageService.UsageTally(now);
+        tally.add(new S3Object("a.txt", BUCKET, 10L, now.minus(Duration.ofHours(1)), "text/plain; charset=UTF-8", null));
+        tally.add(new S3Object("b.txt", BUCKET, 20L, now.minus(Duration.ofDays(3)), "TEXT/PLAIN", null));
+        tally.add(new S3Object("c.bin", BUCKET, 100L, now.minus(Duration.ofDays(400)), null, null));
+        tally.add(new S3Object("d.bin", BUCKET, null, null, "application/octet-stream", null));
+
+        BucketUsage usage = tally.toUsage(BUCKET, "");
+
+        assertThat(usage.size()).isEqualTo(130);
+        assertThat(usage.objectCount()).isEqualTo(4);
+        assertThat(usage.computedAt()).isEqualTo(now);
+        assertThat(usage.byContentType()).containsExactly(
+                new UsageBreakdown("unknown", 100, 1),
+                new UsageBreakdown("text/plain", 30, 2),
+                new UsageBreakdown("application/octet-stream", 0, 1));
+        assertThat(usage.byAge()).containsExactly(
+                new UsageBreakdown("<1d", 10, 1),
+                new UsageBreakdown("<7d", 20, 1),
+                new UsageBreakdown(">=1y", 100, 1),
+                new UsageBreakdown("unknown", 0, 1));
+    }
+
+    @Test
+    @DisplayName("should take back removed objects from every breakdown")
+    void testTally_Remove() {
+        Instant now = Instant.parse("2026-06-01T00:00:00Z");
+        BucketUsageService.UsageTally tally = new BucketUsageService.UsageTally(now);
+        S3Object image = new S3Object("a.png", BUCKET, 10L, now, "image/png", null);
+        tally.add(new S3Object("b.txt", BUCKET, 20L, now, "text/plain", null));
+        tally.add(image);
+        tally.remove(image);
+
+        BucketUsage usage = tally.toUsage(BUCKET, "");
+
+        assertThat(usage.size()).isEqualTo(20);
+        assertThat(usage.objectCount()).isEqualTo(1);
+        assertThat(usage.byContentType()).containsExactly(new UsageBreakdown("text/plain", 20, 1));
+        assertThat(usage.byAge()).containsExactly(new UsageBreakdown("<1d", 20, 1));
+    }
+
+    private BucketUsage awaitFresh(String prefix) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        BucketUsage usage = usageService.usage(JWT, BUCKET, prefix).block();
+        while (usage.stale() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            usage = usageService.usage(JWT, BUCKET, prefix).block();
+        }
+        assertThat(usage.stale()).isFalse();
+        return usage;
+    }
+}
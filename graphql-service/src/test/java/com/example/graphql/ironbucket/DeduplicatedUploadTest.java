@@ -0,0 +1,125 @@
+package com.example.graphql.ironbucket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for content-addressed deduplicating uploads against the local Sentinel-Gear stub.
+ */
+@DisplayName("Deduplicated upload Tests")
+class DeduplicatedUploadTest {
+
+    private static final String JWT = "test-jwt";
+    private static final String BUCKET = "artifacts";
+
+    private IronBucketFixture fixture;
+    private SentinelGearStub stub;
+    private IronBucketS3Service service;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new IronBucketFixture();
+        stub = fixture.stub;
+        service = fixture.s3Service;
+        content = new byte[20_000];
+        new Random(7).nextBytes(content);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    @DisplayName("should copy identical content server-side instead of uploading it again")
+    void testUpload_IdenticalContentIsCopied() {
+        StepVerifier.create(service.uploadObjectDeduplicated(JWT, BUCKET, "build-1", chunks(content), null, Map.of()))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(service.uploadObjectDeduplicated(JWT, BUCKET, "build-2", chunks(content), null, Map.of()))
+                .assertNext(object -> assertThat(object.key()).isEqualTo("build-2"))
+                .verifyComplete();
+
+        assertThat(stub.contentUploads()).isOne();
+        assertThat(stub.copyRequests()).isOne();
+        assertThat(stub.object(BUCKET, "build-2")).isEqualTo(content);
+        assertThat(stub.metadata(BUCKET, "build-2"))
+                .containsEntry(IronBucketS3Service.CONTENT_SHA256_METADATA, stub.metadata(BUCKET, "build-1")
+                        .get(IronBucketS3Service.CONTENT_SHA256_METADATA));
+    }
+
+    @Test
+    @DisplayName("should upload when the remembered object no longer holds the content")
+    void testUpload_ChangedSourceIsUploaded() {
+        StepVerifier.create(service.uploadObjectDeduplicated(JWT, BUCKET, "build-1", chunks(content), null, Map.of()))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(service.uploadObject(JWT, BUCKET, "build-1", new byte[content.length], null, Map.of()))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        StepVerifier.create(service.uploadObjectDeduplicated(JWT, BUCKET, "build-2", chunks(content), null, Map.of()))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        // The copy is rejected by its ETag and overwritten by the upload
+        assertThat(stub.contentUploads()).isEqualTo(3);
+        assertThat(stub.copyRequests()).isOne();
+        assertThat(stub.object(BUCKET, "build-2")).isEqualTo(content);
+    }
+
+    @Test
+    @DisplayName("should not trust a content digest set as metadata")
+    void testUpload_ForgedDigestIgnored() {
+        StepVerifier.create(service.uploadObjectDeduplicated(JWT, BUCKET, "build-1", chunks(content), null, Map.of()))
+                .expectNextCount(1)
+                .verifyComplete();
+        String digest = stub.metadata(BUCKET, "build-1").get(IronBucketS3Service.CONTENT_SHA256_METADATA);
+        StepVerifier.create(service.uploadObject(JWT, BUCKET, "forged", new byte[content.length], null,
+                        Map.of(IronBucketS3Service.CONTENT_SHA256_METADATA, digest)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        StepVerifier.create(service.uploadObjectDeduplicated(JWT, BUCKET, "build-2", chunks(content), null, Map.of()))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(stub.object(BUCKET, "build-2")).isEqualTo(content);
+        assertThat(stub.copyRequests()).isOne();
+    }
+
+    @Test
+    @DisplayName("should only reuse content uploaded by the same principal")
+    void testUpload_ScopedByPrincipal() {
+        StepVerifier.create(service.uploadObjectDeduplicated(JWT, BUCKET, "build-1", chunks(content), null, Map.of()))
+                .expectNextCount(1)
+                .verifyComplete();
+        // Without local decoding every token is its own scope
+        StepVerifier.create(service.uploadObjectDeduplicated("other-jwt", BUCKET, "build-2", chunks(content), null,
+                        Map.of()))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(stub.contentUploads()).isEqualTo(2);
+        assertThat(stub.copyRequests()).isZero();
+    }
+
+    private static Flux<DataBuffer> chunks(byte[] bytes) {
+        return Flux.range(0, (bytes.length + 4095) / 4096)
+                .map(i -> DefaultDataBufferFactory.sharedInstance.wrap(
+                        Arrays.copyOfRange(bytes, i * 4096, Math.min(bytes.length, (i + 1) * 4096))));
+    }
+}
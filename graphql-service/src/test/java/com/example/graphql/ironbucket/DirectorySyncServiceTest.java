@@ -0,0 +1,218 @@
+package com.example.graphql.ironbucket;
+
+import com.example.graphql.ironbucket.DirectorySyncService.LocalFile;
+import com.example.graphql.ironbucket.DirectorySyncService.LocalFileState;
+import com.example.graphql.ironbucket.DirectorySyncService.LocalScan;
+import com.example.graphql.ironbucket.DirectorySyncService.SyncPlan;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests for directory-to-bucket sync: the planning rules, and full runs against the local
+ * Sentinel-Gear stub.
+ */
+@DisplayName("DirectorySyncService Tests")
+class DirectorySyncServiceTest {
+
+    private static final String JWT = "test-jwt";
+    private static final String BUCKET = "builds";
+
+    @Nested
+    @DisplayName("Planning")
+    class Planning {
+
+        @Test
+        @DisplayName("should upload new files and files whose content changed since the last sync")
+        void testPlan_NewAndChanged() {
+            Map<String, LocalFileState> local = Map.of(
+                    "new", state("new", 3, "aaa", null),
+                    "changed", state("changed", 3, "bbb", "old"),
+                    "same", state("same", 3, "ccc", "ccc"));
+            Map<String, S3Object> remote = Map.of(
+                    "changed", object("changed", 3, null),
+                    "same", object("same", 3, null));
+
+            SyncPlan plan = DirectorySyncService.plan(scan(local), remote, false);
+
+            assertThat(plan.uploads()).extracting(LocalFile::key).containsExactly("changed", "new");
+            assertThat(plan.unchanged()).extracting(LocalFile::key).containsExactly("same");
+            assertThat(plan.deletions()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should prefer the digest stored with the object over the manifest")
+        void testPlan_RemoteDigest() {
+            Map<String, LocalFileState> local = Map.of(
+                    "a", state("a", 3, "aaa", null),
+                    "b", state("b", 3, "bbb", "bbb"));
+            Map<String, S3Object> remote = Map.of(
+                    "a", object("a", 3, "aaa"),
+                    "b", object("b", 3, "overwritten"));
+
+            SyncPlan plan = DirectorySyncService.plan(scan(local), remote, false);
+
+            assertThat(plan.uploads()).extracting(LocalFile::key).containsExactly("b");
+            assertThat(plan.unchanged()).extracting(LocalFile::key).containsExactly("a");
+        }
+
+        @Test
+        @DisplayName("should upload when the object size differs and delete only on request")
+        void testPlan_SizeAndDeletions() {
+            Map<String, LocalFileState> local = Map.of("a", state("a", 4, "aaa", "aaa"));
+            Map<String, S3Object> remote = Map.of(
+                    "a", object("a", 3, null),
+                    "stale", object("stale", 1, null));
+
+            assertThat(DirectorySyncService.plan(scan(local), remote, false).deletions()).isEmpty();
+            SyncPlan plan = DirectorySyncService.plan(scan(local), remote, true);
+            assertThat(plan.uploads()).extracting(LocalFile::key).containsExactly("a");
+            assertThat(plan.deletions()).containsExactly("stale");
+        }
+
+        @Test
+        @DisplayName("should neither upload nor delete objects of unreadable files and directories")
+        void testPlan_Unreadable() {
+            Map<String, LocalFileState> local = Map.of("a", state("a", 3, "aaa", null));
+            Map<String, S3Object> remote = Map.of(
+                    "locked.bin", object("locked.bin", 1, null),
+                    "private/key.pem", object("private/key.pem", 1, null),
+                    "private-notes", object("private-notes", 1, null));
+
+            SyncPlan plan = DirectorySyncService.plan(new LocalScan(local,
+                    Map.of("locked.bin", "Cannot read", "private", "Cannot read")), remote, true);
+
+            assertThat(plan.uploads()).extracting(LocalFile::key).containsExactly("a");
+            assertThat(plan.deletions()).containsExactly("private-notes");
+        }
+
+        private LocalScan scan(Map<String, LocalFileState> local) {
+            return new LocalScan(local, Map.of());
+        }
+
+        private LocalFileState state(String key, long size, String sha256, String syncedSha256) {
+            return new LocalFileState(new LocalFile(key, Path.of(key), size, 0, sha256), syncedSha256);
+        }
+
+        private S3Object object(String key, long size, String sha256) {
+            return new S3Object(key, BUCKET, size, null, null,
+                    sha256 != null ? Map.of(IronBucketS3Service.CONTENT_SHA256_METADATA, sha256) : Map.of());
+        }
+    }
+
+    @Nested
+    @DisplayName("Sync runs")
+    class SyncRuns {
+
+        @TempDir
+        Path tempDir;
+
+        private IronBucketFixture fixture;
+        private SentinelGearStub stub;
+        private DirectorySyncService service;
+        private Path source;
+
+        @BeforeEach
+        void setUp() throws IOException {
+            fixture = new IronBucketFixture();
+            stub = fixture.stub;
+            DirectorySyncProperties properties = new DirectorySyncProperties();
+            properties.setManifestDirectory(tempDir.resolve("manifests"));
+            service = new DirectorySyncService(fixture.s3Service, properties);
+
+            source = Files.createDirectories(tempDir.resolve("out"));
+            Files.writeString(source.resolve("app.jar"), "jar", StandardCharsets.UTF_8);
+            Files.writeString(source.resolve("app.pom"), "pom", StandardCharsets.UTF_8);
+        }
+
+        @AfterEach
+        void tearDown() {
+            fixture.close();
+        }
+
+        @Test
+        @DisplayName("should upload only what changed since the previous run")
+        void testSync_Incremental() throws IOException {
+            StepVerifier.create(service.sync(JWT, source, BUCKET, null, true, false))
+                    .assertNext(report -> assertThat(report.uploaded()).containsExactly("app.jar", "app.pom"))
+                    .verifyComplete();
+
+            StepVerifier.create(service.sync(JWT, source, BUCKET, null, true, false))
+                    .assertNext(report -> {
+                        assertThat(report.uploaded()).isEmpty();
+                        assertThat(report.unchanged()).isEqualTo(2);
+                    })
+                    .verifyComplete();
+
+            Files.writeString(source.resolve("app.jar"), "jar2", StandardCharsets.UTF_8);
+            Files.delete(source.resolve("app.pom"));
+            StepVerifier.create(service.sync(JWT, source, BUCKET, null, true, false))
+                    .assertNext(report -> {
+                        assertThat(report.uploaded()).containsExactly("app.jar");
+                        assertThat(report.deleted()).containsExactly("app.pom");
+                        assertThat(report.failures()).isEmpty();
+                    })
+                    .verifyComplete();
+
+            assertThat(stub.contentUploads()).isEqualTo(3);
+            assertThat(stub.object(BUCKET, "app.jar")).isEqualTo("jar2".getBytes(StandardCharsets.UTF_8));
+            assertThat(stub.object(BUCKET, "app.pom")).isNull();
+        }
+
+        @Test
+        @DisplayName("should report an unreadable file as a failure and keep its object")
+        void testSync_UnreadableFile() throws IOException {
+            Path locked = source.resolve("locked.bin");
+            Files.writeString(locked, "secret", StandardCharsets.UTF_8);
+            stub.putObject(BUCKET, "locked.bin", new byte[1]);
+            try {
+                Files.setPosixFilePermissions(locked, Set.of());
+            } catch (UnsupportedOperationException e) {
+                assumeTrue(false, "POSIX permissions not supported");
+            }
+            // Privileged users read the file regardless of its permissions
+            assumeFalse(Files.isReadable(locked), "file still readable");
+
+            StepVerifier.create(service.sync(JWT, source, BUCKET, null, true, false))
+                    .assertNext(report -> {
+                        assertThat(report.uploaded()).containsExactly("app.jar", "app.pom");
+                        assertThat(report.deleted()).isEmpty();
+                        assertThat(report.failures()).singleElement().satisfies(failure -> {
+                            assertThat(failure.key()).isEqualTo("locked.bin");
+                            assertThat(failure.errorCode()).isEqualTo("UNREADABLE");
+                        });
+                    })
+                    .verifyComplete();
+
+            assertThat(stub.object(BUCKET, "locked.bin")).isNotNull();
+        }
+
+        @Test
+        @DisplayName("should only report planned changes in a dry run")
+        void testSync_DryRun() {
+            StepVerifier.create(service.sync(JWT, source, BUCKET, null, true, true))
+                    .assertNext(report -> {
+                        assertThat(report.dryRun()).isTrue();
+                        assertThat(report.uploaded()).containsExactly("app.jar", "app.pom");
+                    })
+                    .verifyComplete();
+
+            assertThat(stub.contentUploads()).isZero();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.graphql.ironbucket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * IronBucket services wired against a fresh {@link SentinelGearStub}, with default settings.
+ *
+ * <p>The services read their properties on every call, so tests adjust the exposed properties
+ * after creating the fixture. Close it after each test to release the connection pool and stop
+ * the stub.</p>
+ */
+final class IronBucketFixture implements AutoCloseable {
+
+    final SentinelGearStub stub = new SentinelGearStub();
+    final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    final MetadataCacheProperties metadataCacheProperties = new MetadataCacheProperties();
+    final PresignedUrlCacheProperties presignedUrlCacheProperties = new PresignedUrlCacheProperties();
+    final ObjectKeyIndexProperties objectKeyIndexProperties = new ObjectKeyIndexProperties();
+    final IronBucketHttpClient httpClient = new IronBucketHttpClient(new IronBucketHttpProperties(),
+            new OverloadProtection(new OverloadProtectionProperties(), meterRegistry));
+    /** Without local decoding every token is its own principal scope. */
+    final JwtClaimsExtractor claims = new JwtClaimsExtractor(null, WebClient.create(stub.baseUrl()),
+            new JwtClaimsProperties());
+    final SingleFlight singleFlight = new SingleFlight(claims);
+    final MetadataCache metadataCache = new MetadataCache(claims, singleFlight, metadataCacheProperties,
+            meterRegistry);
+    final ObjectKeyIndex objectKeyIndex = new ObjectKeyIndex(objectKeyIndexProperties);
+    final IronBucketS3Service s3Service = new IronBucketS3Service(WebClient.builder(), stub.baseUrl(), httpClient,
+            claims, singleFlight, metadataCache,
+            new PresignedUrlCache(claims, presignedUrlCacheProperties, meterRegistry), objectKeyIndex,
+            new RequestHedging(new RequestHedgingProperties(), meterRegistry));
+
+    @Override
+    public void close() {
+        httpClient.destroy();
+        stub.close();
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.graphql.ironbucket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.channel.ChannelOption;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the shared Sentinel-Gear HTTP client configuration.
+ */
+@DisplayName("IronBucketHttpClient Tests")
+class IronBucketHttpClientTest {
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private IronBucketHttpProperties properties;
+    private DisposableServer server;
+    private IronBucketHttpClient client;
+
+    @BeforeEach
+    void setUp() {
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .doOnConnection(connection -> connections.incrementAndGet())
+                .route(routes -> routes
+                        .get("/fast", (request, response) -> response.sendString(Mono.just("ok")))
+                        .get("/slow-headers", (request, response) ->
+                                Mono.delay(Duration.ofSeconds(2)).then(response.sendString(Mono.just("late")).then()))
+                        .get("/stalled-body", (request, response) ->
+                                response.sendString(Flux.concat(Mono.just("partial"), Mono.never()))))
+                .bindNow();
+        properties = new IronBucketHttpProperties();
+        properties.setMaxConnections(7);
+        properties.setConnectTimeout(Duration.ofMillis(1500));
+        properties.setResponseTimeout(Duration.ofMillis(300));
+        properties.setReadTimeout(Duration.ofMillis(300));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.destroy();
+        }
+        server.disposeNow();
+    }
+
+    private WebClient webClient() {
+        client = new IronBucketHttpClient(properties,
+                new OverloadProtection(new OverloadProtectionProperties(), new SimpleMeterRegistry()));
+        return client.webClient(WebClient.builder(), "http://localhost:" + server.port());
+    }
+
+    private Mono<String> get(WebClient webClient, String path) {
+        return webClient.get().uri(path).retrieve().bodyToMono(String.class);
+    }
+
+    @Test
+    @DisplayName("should apply pool size, connect timeout, compression and protocol settings")
+    void testSettingsApplied() {
+        properties.setH2c(true);
+        properties.setCompression(false);
+        webClient();
+
+        assertThat(client.connectionProvider().maxConnections()).isEqualTo(7);
+        assertThat(client.httpClient().configuration().options())
+                .containsEntry(ChannelOption.CONNECT_TIMEOUT_MILLIS, 1500);
+        assertThat(client.httpClient().configuration().responseTimeout()).isEqualTo(Duration.ofMillis(300));
+        assertThat(client.httpClient().configuration().protocols())
+                .containsExactlyInAnyOrder(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        assertThat(client.httpClient().configuration().isAcceptGzip()).isFalse();
+    }
+
+    @Test
+    @DisplayName("should speak HTTP/1.1 only unless h2c is enabled")
+    void testHttp11ByDefault() {
+        webClient();
+
+        assertThat(client.httpClient().configuration().protocols()).containsExactly(HttpProtocol.HTTP11);
+        assertThat(client.httpClient().configuration().isAcceptGzip()).isTrue();
+    }
+
+    @Test
+    @DisplayName("should fail a call whose response headers do not arrive in time")
+    void testResponseTimeout() {
+        StepVerifier.create(get(webClient(), "/slow-headers"))
+                .expectError()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("should fail a call whose response body stalls")
+    void testReadTimeout() {
+        StepVerifier.create(get(webClient(), "/stalled-body"))
+                .expectError()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("should keep idle pooled connections open past the read timeout")
+    void testIdleConnectionReused() throws InterruptedException {
+        WebClient webClient = webClient();
+
+        StepVerifier.create(get(webClient, "/fast")).expectNext("ok").verifyComplete();
+        Thread.sleep(properties.getReadTimeout().multipliedBy(3).toMillis());
+        StepVerifier.create(get(webClient, "/fast")).expectNext("ok").verifyComplete();
+
+        assertThat(connections).hasValue(1);
+    }
+}
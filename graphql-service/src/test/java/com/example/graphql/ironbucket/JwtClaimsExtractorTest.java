@@ -0,0 +1,140 @@
+package com.example.graphql.ironbucket;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for local JWT claim decoding and memoization.
+ */
+@DisplayName("JwtClaimsExtractor Tests")
+class JwtClaimsExtractorTest {
+
+    private RSAKey signingKey;
+    private AtomicInteger decodes;
+    private JwtClaimsExtractor extractor;
+
+    @BeforeEach
+    void setUp() throws JOSEException {
+        signingKey = new RSAKeyGenerator(2048).keyID("test-key").generate();
+        ReactiveJwtDecoder verifying = NimbusReactiveJwtDecoder.withPublicKey(signingKey.toRSAPublicKey()).build();
+        decodes = new AtomicInteger();
+        ReactiveJwtDecoder counting = token -> {
+            decodes.incrementAndGet();
+            return verifying.decode(token);
+        };
+        extractor = new JwtClaimsExtractor(counting, WebClient.create("http://localhost:1"), new JwtClaimsProperties());
+    }
+
+    @Test
+    @DisplayName("should decode subject, tenant and roles in one step")
+    void testExtract_AllClaims() throws JOSEException {
+        String token = sign(signingKey, Map.of("tenant", "acme", "roles", List.of("admin", "reader")));
+
+        StepVerifier.create(extractor.extract(token))
+                .assertNext(claims -> {
+                    assertThat(claims.subject()).isEqualTo("user-1");
+                    assertThat(claims.tenant()).isEqualTo("acme");
+                    assertThat(claims.roles()).containsExactly("admin", "reader");
+                    assertThat(claims.expiresAt()).isAfter(Instant.now());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("should read Keycloak realm roles when the roles claim is absent")
+    void testExtract_RealmRoles() throws JOSEException {
+        String token = sign(signingKey, Map.of("tenant", "acme", "realm_access", Map.of("roles", List.of("auditor"))));
+
+        StepVerifier.create(extractor.extract(token))
+                .assertNext(claims -> assertThat(claims.roles()).containsExactly("auditor"))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("should memoize decoded claims per token")
+    void testExtract_Memoized() throws JOSEException {
+        String token = sign(signingKey, Map.of("tenant", "acme"));
+
+        StepVerifier.create(extractor.extract(token)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(extractor.extract(token)).expectNextCount(1).verifyComplete();
+
+        assertThat(decodes).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("should reject tokens signed with an unknown key without falling back")
+    void testExtract_InvalidSignature() throws JOSEException {
+        RSAKey otherKey = new RSAKeyGenerator(2048).keyID("other-key").generate();
+        String token = sign(otherKey, Map.of("tenant", "acme"));
+
+        StepVerifier.create(extractor.extract(token))
+                .expectError(UnauthorizedException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("should reject tokens from another issuer or for another audience")
+    void testExtract_IssuerAndAudienceValidated() throws JOSEException {
+        JwtClaimsProperties properties = new JwtClaimsProperties();
+        properties.setIssuerUri("https://idp.example.com/realms/main");
+        properties.setAudiences(List.of("ironbucket"));
+        NimbusReactiveJwtDecoder decoder = NimbusReactiveJwtDecoder.withPublicKey(signingKey.toRSAPublicKey()).build();
+        decoder.setJwtValidator(JwtClaimsExtractor.validator(properties));
+        extractor = new JwtClaimsExtractor(decoder, WebClient.create("http://localhost:1"), properties);
+
+        String valid = sign(signingKey, Map.of("iss", "https://idp.example.com/realms/main", "aud", "ironbucket"));
+        String otherIssuer = sign(signingKey, Map.of("iss", "https://evil.example.com", "aud", "ironbucket"));
+        String otherAudience = sign(signingKey, Map.of("iss", "https://idp.example.com/realms/main", "aud", "billing"));
+
+        StepVerifier.create(extractor.extract(valid)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(extractor.extract(otherIssuer)).expectError(UnauthorizedException.class).verify();
+        StepVerifier.create(extractor.extract(otherAudience)).expectError(UnauthorizedException.class).verify();
+    }
+
+    @Test
+    @DisplayName("should scope callers by tenant and roles, or by token without a tenant")
+    void testPrincipalScope() throws JOSEException {
+        String first = sign(signingKey, Map.of("tenant", "acme", "roles", List.of("reader", "admin")));
+        String second = sign(signingKey, Map.of("tenant", "acme", "roles", List.of("admin", "reader"), "jti", "2"));
+        String tenantless = sign(signingKey, Map.of("roles", List.of("reader")));
+        String otherTenantless = sign(signingKey, Map.of("roles", List.of("reader"), "jti", "2"));
+
+        assertThat(extractor.principalScope(first).block()).isEqualTo(extractor.principalScope(second).block());
+        assertThat(extractor.principalScope(tenantless).block())
+                .startsWith("token:")
+                .isNotEqualTo(extractor.principalScope(otherTenantless).block());
+    }
+
+    private static String sign(RSAKey key, Map<String, Object> claims) throws JOSEException {
+        JWTClaimsSet.Builder builder = new JWTClaimsSet.Builder()
+                .subject("user-1")
+                .issueTime(new Date())
+                .expirationTime(Date.from(Instant.now().plusSeconds(300)));
+        claims.forEach(builder::claim);
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+                builder.build());
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+}
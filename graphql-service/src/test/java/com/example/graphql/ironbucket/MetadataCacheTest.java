@@ -0,0 +1,295 @@
+package com.example.graphql.ironbucket;
+
+import com.example.graphql.ironbucket.MetadataCache.Conditional;
+import com.example.graphql.ironbucket.MetadataCache.Validators;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the scoped IronBucket metadata cache.
+ */
+@DisplayName("MetadataCache Tests")
+class MetadataCacheTest {
+
+    private static final String JWT = "jwt-a";
+
+    private AtomicInteger loads;
+    private SimpleMeterRegistry meterRegistry;
+    private JwtClaimsExtractor claims;
+    private MetadataCache cache;
+
+    @BeforeEach
+    void setUp() {
+        loads = new AtomicInteger();
+        meterRegistry = new SimpleMeterRegistry();
+        // Without local decoding every token is its own scope
+        claims = new JwtClaimsExtractor(null, WebClient.create("http://localhost:1"), new JwtClaimsProperties());
+        cache = new MetadataCache(claims, new SingleFlight(claims), new MetadataCacheProperties(), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("should serve repeated reads from cache and count hits and misses")
+    void testObject_CachedAfterFirstLoad() {
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(cache.object(JWT, "bucket", "key", this::loadObject))
+                    .assertNext(object -> assertThat(object.key()).isEqualTo("key"))
+                    .verifyComplete();
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(count("object", "miss")).isEqualTo(1);
+        assertThat(count("object", "hit")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should cache not-found answers")
+    void testBucket_NegativeCaching() {
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(cache.bucket(JWT, "missing", () -> {
+                        loads.incrementAndGet();
+                        return Mono.error(new BucketNotFoundException("missing"));
+                    }))
+                    .expectError(BucketNotFoundException.class)
+                    .verify();
+        }
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("should reload an object after it was invalidated")
+    void testInvalidateObject() {
+        cache.object(JWT, "bucket", "key", this::loadObject).block();
+        cache.object(JWT, "bucket", "other", this::loadObject).block();
+
+        cache.invalidateObject("bucket", "key");
+        cache.object(JWT, "bucket", "key", this::loadObject).block();
+        cache.object(JWT, "bucket", "other", this::loadObject).block();
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("should answer tenant listings from the cached bucket list")
+    void testBucketsOfTenant_Indexed() {
+        Flux<S3Bucket> all = Flux.just(
+                new S3Bucket("acme-logs", Instant.EPOCH, "acme"),
+                new S3Bucket("acme-data", Instant.EPOCH, "acme"),
+                new S3Bucket("other-data", Instant.EPOCH, "other"));
+
+        StepVerifier.create(cache.buckets(JWT, () -> countLoad(all)))
+                .expectNextCount(3)
+                .verifyComplete();
+        StepVerifier.create(cache.bucketsOfTenant(JWT, "acme", () -> countLoad(all)).map(S3Bucket::name))
+                .expectNext("acme-logs", "acme-data")
+                .verifyComplete();
+        StepVerifier.create(cache.bucketsOfTenant(JWT, "nobody", () -> countLoad(all)))
+                .verifyComplete();
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("should keep scopes apart")
+    void testScopesAreSeparate() {
+        cache.object(JWT, "bucket", "key", this::loadObject).block();
+        cache.object("jwt-b", "bucket", "key", this::loadObject).block();
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("should not store a load that overlapped an invalidation")
+    void testInvalidationDuringLoad() {
+        Sinks.One<S3Object> upstream = Sinks.one();
+        StepVerifier.create(cache.object(JWT, "bucket", "key", validators -> {
+                    loads.incrementAndGet();
+                    return upstream.asMono().map(Conditional::of);
+                }))
+                .then(() -> {
+                    cache.invalidateObject("bucket", "key");
+                    upstream.tryEmitValue(object("key"));
+                })
+                .expectNextCount(1)
+                .verifyComplete();
+
+        cache.object(JWT, "bucket", "key", this::loadObject).block();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("should store a load that overlapped an invalidation of another bucket")
+    void testInvalidationOfOtherBucketDuringLoad() {
+        Sinks.One<S3Object> upstream = Sinks.one();
+        StepVerifier.create(cache.object(JWT, "bucket", "key", validators -> {
+                    loads.incrementAndGet();
+                    return upstream.asMono().map(Conditional::of);
+                }))
+                .then(() -> {
+                    cache.invalidateObject("other", "key");
+                    cache.invalidateBucket("other");
+                    upstream.tryEmitValue(object("key"));
+                })
+                .expectNextCount(1)
+                .verifyComplete();
+
+        cache.object(JWT, "bucket", "key", this::loadObject).block();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("should invalidate only the listings whose prefix the written key starts with")
+    void testInvalidateObject_Listings() {
+        List<String> prefixes = List.of("", "logs/", "logs/2024/", "logs/2025/", "logs/2024/01/", "data/",
+                "logs/2024/01/b");
+        for (String prefix : prefixes) {
+            cache.objects(JWT, "bucket", prefix, this::loadListing).blockLast();
+        }
+
+        cache.invalidateObject("bucket", "logs/2024/01/app.log");
+        for (String prefix : prefixes) {
+            cache.objects(JWT, "bucket", prefix, this::loadListing).blockLast();
+        }
+
+        // "", "logs/", "logs/2024/" and "logs/2024/01/" were reloaded
+        assertThat(loads).hasValue(prefixes.size() + 4);
+    }
+
+    @Test
+    @DisplayName("should stream listings above the entry weight without caching them")
+    void testObjects_LargeListingNotCached() {
+        MetadataCacheProperties properties = new MetadataCacheProperties();
+        properties.setMaxEntryWeight(10);
+        cache = new MetadataCache(claims, new SingleFlight(claims), properties, meterRegistry);
+
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(cache.objects(JWT, "bucket", "large/", validators -> loadListing(11)))
+                    .expectNextCount(11)
+                    .verifyComplete();
+            StepVerifier.create(cache.objects(JWT, "bucket", "small/", validators -> loadListing(10)))
+                    .expectNextCount(10)
+                    .verifyComplete();
+        }
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("should share one streamed load between concurrent listings, cached or not")
+    void testObjects_ConcurrentListingsShareLoad() {
+        for (boolean enabled : new boolean[]{true, false}) {
+            MetadataCacheProperties properties = new MetadataCacheProperties();
+            properties.setEnabled(enabled);
+            cache = new MetadataCache(claims, new SingleFlight(claims), properties, meterRegistry);
+            loads.set(0);
+            Sinks.Many<S3Object> upstream = Sinks.many().unicast().onBackpressureBuffer();
+            Function<Validators, Mono<Conditional<Flux<S3Object>>>> loader = validators -> {
+                loads.incrementAndGet();
+                return Mono.just(Conditional.of(upstream.asFlux()));
+            };
+
+            StepVerifier.create(Flux.merge(cache.objects(JWT, "bucket", "logs/", loader),
+                            cache.objects(JWT, "bucket", "logs/", loader)))
+                    .then(() -> {
+                        upstream.tryEmitNext(object("logs/a"));
+                        upstream.tryEmitComplete();
+                    })
+                    .expectNextCount(2)
+                    .verifyComplete();
+
+            assertThat(loads).hasValue(1);
+        }
+    }
+
+    @Test
+    @DisplayName("should evict least recently used entries beyond the total weight")
+    void testObjects_EvictedByWeight() {
+        MetadataCacheProperties properties = new MetadataCacheProperties();
+        properties.setMaxWeight(10);
+        cache = new MetadataCache(claims, new SingleFlight(claims), properties, meterRegistry);
+
+        cache.objects(JWT, "bucket", "a/", validators -> loadListing(4)).blockLast();
+        cache.objects(JWT, "bucket", "b/", validators -> loadListing(4)).blockLast();
+        cache.object(JWT, "bucket", "key", this::loadObject).block();
+        // Another four objects push out the least recently used listing
+        cache.objects(JWT, "bucket", "c/", validators -> loadListing(4)).blockLast();
+        cache.objects(JWT, "bucket", "b/", validators -> loadListing(4)).blockLast();
+        cache.objects(JWT, "bucket", "c/", validators -> loadListing(4)).blockLast();
+        cache.objects(JWT, "bucket", "a/", validators -> loadListing(4)).blockLast();
+
+        assertThat(loads).hasValue(5);
+    }
+
+    @Test
+    @DisplayName("should revalidate stale entries and keep them on 304")
+    void testObject_RevalidatedWhenStale() {
+        MetadataCacheProperties properties = new MetadataCacheProperties();
+        properties.setTtl(Duration.ZERO);
+        cache = new MetadataCache(claims, new SingleFlight(claims), properties, meterRegistry);
+        List<Validators> sent = new ArrayList<>();
+        Function<Validators, Mono<Conditional<S3Object>>> loader = validators -> {
+            sent.add(validators);
+            return Mono.just("\"v1\"".equals(validators.etag())
+                    ? Conditional.<S3Object>notModified()
+                    : Conditional.of(object("key"), "\"v1\"", "Thu, 01 Jan 1970 00:00:00 GMT"));
+        };
+
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(cache.object(JWT, "bucket", "key", loader))
+                    .assertNext(object -> assertThat(object.key()).isEqualTo("key"))
+                    .verifyComplete();
+        }
+
+        assertThat(sent).hasSize(3);
+        assertThat(sent.get(0).isEmpty()).isTrue();
+        assertThat(sent.get(2).etag()).isEqualTo("\"v1\"");
+        assertThat(sent.get(2).lastModified()).isEqualTo("Thu, 01 Jan 1970 00:00:00 GMT");
+        assertThat(count("object", "miss")).isEqualTo(1);
+        assertThat(count("object", "revalidated")).isEqualTo(2);
+    }
+
+    private Mono<Conditional<S3Object>> loadObject(Validators validators) {
+        loads.incrementAndGet();
+        return Mono.just(Conditional.of(object("key")));
+    }
+
+    private Mono<Conditional<Flux<S3Object>>> loadListing(Validators validators) {
+        return loadListing(1);
+    }
+
+    private Mono<Conditional<Flux<S3Object>>> loadListing(int size) {
+        loads.incrementAndGet();
+        return Mono.just(Conditional.of(Flux.range(0, size).map(i -> object("key-" + i))));
+    }
+
+    private <T> Flux<T> countLoad(Flux<T> source) {
+        loads.incrementAndGet();
+        return source;
+    }
+
+    private static S3Object object(String key) {
+        return new S3Object(key, "bucket", 1L, Instant.EPOCH, "text/plain", Map.of());
+    }
+
+    private double count(String kind, String result) {
+        return meterRegistry.get("ironbucket.metadata.cache.requests")
+                .tag("kind", kind).tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.graphql.ironbucket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the local content cache against the Sentinel-Gear stub.
+ */
+@DisplayName("ObjectContentCache Tests")
+class ObjectContentCacheTest {
+
+    private static final String JWT = "test-jwt";
+    private static final String BUCKET = "test-bucket";
+    private static final byte[] CONTENT = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path tempDir;
+
+    private IronBucketFixture fixture;
+    private SentinelGearStub stub;
+    private SimpleMeterRegistry meterRegistry;
+    private ObjectContentCache cache;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new IronBucketFixture();
+        stub = fixture.stub;
+        meterRegistry = fixture.meterRegistry;
+        ObjectContentCacheProperties properties = new ObjectContentCacheProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(tempDir);
+        properties.setMaxSize(DataSize.ofBytes(CONTENT.length * 2L));
+        cache = new ObjectContentCache(fixture.s3Service, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    @DisplayName("should serve repeated downloads from disk after revalidation")
+    void testDownload_ServesCachedCopy() {
+        stub.putObject(BUCKET, "docs", CONTENT);
+
+        StepVerifier.create(content("docs")).assertNext(bytes -> assertThat(bytes).isEqualTo(CONTENT)).verifyComplete();
+        StepVerifier.create(content("docs")).assertNext(bytes -> assertThat(bytes).isEqualTo(CONTENT)).verifyComplete();
+
+        assertThat(stub.contentTransfers()).isOne();
+        assertThat(stub.notModifiedResponses()).isOne();
+        assertThat(cache.entries()).isOne();
+        assertThat(meterRegistry.get("ironbucket.content.cache.hit.ratio").gauge().value()).isEqualTo(0.5);
+    }
+
+    @Test
+    @DisplayName("should download again once the object has changed")
+    void testDownload_ChangedObject() {
+        stub.putObject(BUCKET, "docs", CONTENT);
+        StepVerifier.create(content("docs")).expectNextCount(1).verifyComplete();
+
+        byte[] changed = "fedcba9876543210".getBytes(StandardCharsets.US_ASCII);
+        stub.putObject(BUCKET, "docs", changed);
+
+        StepVerifier.create(content("docs")).assertNext(bytes -> assertThat(bytes).isEqualTo(changed)).verifyComplete();
+        assertThat(stub.contentTransfers()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(changed.length);
+    }
+
+    @Test
+    @DisplayName("should evict the least recently used object beyond the size limit")
+    void testDownload_EvictsLeastRecentlyUsed() {
+        stub.putObject(BUCKET, "a", CONTENT);
+        stub.putObject(BUCKET, "b", CONTENT);
+        stub.putObject(BUCKET, "c", CONTENT);
+
+        StepVerifier.create(content("a").then(content("b")).then(content("a")).then(content("c")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(cache.entries()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(CONTENT.length * 2L);
+        assertThat(meterRegistry.get("ironbucket.content.cache.evictions").counter().count()).isOne();
+
+        // "b" was evicted, "a" is still cached
+        StepVerifier.create(content("a").then(content("b"))).expectNextCount(1).verifyComplete();
+        assertThat(stub.contentTransfers()).isEqualTo(4);
+    }
+
+    private Mono<byte[]> content(String key) {
+        return cache.download(JWT, BUCKET, key)
+                .flatMap(entity -> DataBufferUtils.join(entity.getBody()))
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                });
+    }
+}
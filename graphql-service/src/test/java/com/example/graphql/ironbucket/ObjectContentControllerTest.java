@@ -0,0 +1,93 @@
+package com.example.graphql.ironbucket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for streaming object content through the download endpoint against the Sentinel-Gear stub.
+ */
+@DisplayName("ObjectContentController Tests")
+class ObjectContentControllerTest {
+
+    private static final String AUTHORIZATION = "Bearer test-jwt";
+    private static final byte[] CONTENT = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private IronBucketFixture fixture;
+    private SentinelGearStub stub;
+    private ObjectContentController controller;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new IronBucketFixture();
+        stub = fixture.stub;
+        stub.putObject("test-bucket", "docs", CONTENT);
+        IronBucketS3Service s3Service = fixture.s3Service;
+        controller = new ObjectContentController(s3Service,
+                new ObjectContentCache(s3Service, new ObjectContentCacheProperties(), fixture.meterRegistry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    @DisplayName("should stream the whole object")
+    void testDownload_FullContent() {
+        StepVerifier.create(controller.downloadObject(AUTHORIZATION, null, "test-bucket", "/docs")
+                        .flatMap(entity -> DataBufferUtils.join(entity.getBody())
+                                .map(buffer -> {
+                                    byte[] bytes = new byte[buffer.readableByteCount()];
+                                    buffer.read(bytes);
+                                    DataBufferUtils.release(buffer);
+                                    assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.OK);
+                                    return bytes;
+                                })))
+                .assertNext(bytes -> assertThat(bytes).isEqualTo(CONTENT))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("should pass a byte range through and return partial content")
+    void testDownload_Range() {
+        StepVerifier.create(controller.downloadObject(AUTHORIZATION, "bytes=4-7", "test-bucket", "/docs"))
+                .assertNext(entity -> {
+                    assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+                    assertThat(entity.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 4-7/16");
+                    StepVerifier.create(DataBufferUtils.join(entity.getBody())
+                                    .map(buffer -> buffer.toString(StandardCharsets.US_ASCII)))
+                            .expectNext("4567")
+                            .verifyComplete();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("should map missing objects and unsatisfiable ranges to typed errors")
+    void testDownload_Errors() {
+        StepVerifier.create(controller.downloadObject(AUTHORIZATION, null, "test-bucket", "/missing"))
+                .expectError(ObjectNotFoundException.class)
+                .verify();
+        StepVerifier.create(controller.downloadObject(AUTHORIZATION, "bytes=100-", "test-bucket", "/docs"))
+                .expectError(RangeNotSatisfiableException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("should reject requests without a bearer token")
+    void testDownload_Unauthorized() {
+        StepVerifier.create(controller.downloadObject(null, null, "test-bucket", "/docs"))
+                .assertNext(entity -> assertThat(entity.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED))
+                .verifyComplete();
+    }
+}
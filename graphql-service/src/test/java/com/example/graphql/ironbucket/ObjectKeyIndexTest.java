@@ -0,0 +1,181 @@
+package com.example.graphql.ironbucket;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the in-memory object key prefix tree.
+ */
+@DisplayName("ObjectKeyIndex Tests")
+class ObjectKeyIndexTest {
+
+    private static final String BUCKET = "docs";
+
+    private ObjectKeyIndexProperties properties;
+    private ObjectKeyIndex index;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ObjectKeyIndexProperties();
+        properties.setEnabled(true);
+        index = new ObjectKeyIndex(properties);
+    }
+
+    private static S3Object object(String bucket, String key, long size) {
+        return new S3Object(key, bucket, size, Instant.now(), "text/plain", null);
+    }
+
+    private void build(String bucket, S3Object... objects) {
+        assertThat(index.startBuild(bucket)).isTrue();
+        for (S3Object object : objects) {
+            index.loaded(bucket, object);
+        }
+        index.completeBuild(bucket);
+    }
+
+    @Test
+    @DisplayName("should list a folder's direct objects and subfolders")
+    void testFolder() {
+        build(BUCKET, object(BUCKET, "readme.txt", 1), object(BUCKET, "a/one.txt", 2),
+                object(BUCKET, "a/b/two.txt", 3), object(BUCKET, "c/three.txt", 4));
+
+        S3ObjectConnection root = index.folder(BUCKET, "", 1000);
+        S3ObjectConnection a = index.folder(BUCKET, "a/", 1000);
+
+        assertThat(root.objects()).extracting(S3Object::key).containsExactly("readme.txt");
+        assertThat(root.commonPrefixes()).containsExactly("a/", "c/");
+        assertThat(root.hasNextPage()).isFalse();
+        assertThat(a.objects()).extracting(S3Object::key).containsExactly("a/one.txt");
+        assertThat(a.commonPrefixes()).containsExactly("a/b/");
+        assertThat(index.folder(BUCKET, "missing/", 1000).keyCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("should keep recursive totals current across writes and deletes")
+    void testSummary() {
+        build(BUCKET, object(BUCKET, "a/one.txt", 2), object(BUCKET, "a/b/two.txt", 3));
+
+        index.put(object(BUCKET, "a/b/two.txt", 30));
+        index.put(object(BUCKET, "a/b/c/four.txt", 5));
+        index.remove(BUCKET, List.of("a/one.txt", "not/there.txt"));
+
+        assertThat(index.summary(BUCKET, "")).isEqualTo(new FolderSummary(BUCKET, "", 35, 2));
+        assertThat(index.summary(BUCKET, "a/b/")).isEqualTo(new FolderSummary(BUCKET, "a/b/", 35, 2));
+        assertThat(index.size()).isEqualTo(2);
+
+        index.remove(BUCKET, List.of("a/b/two.txt", "a/b/c/four.txt"));
+
+        assertThat(index.folder(BUCKET, "", 1000).commonPrefixes()).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("should not serve a bucket before its listing completed")
+    void testBuilding() {
+        assertThat(index.startBuild(BUCKET)).isTrue();
+        index.loaded(BUCKET, object(BUCKET, "a.txt", 1));
+
+        assertThat(index.startBuild(BUCKET)).isFalse();
+        assertThat(index.folder(BUCKET, "", 1000)).isNull();
+        assertThat(index.summary(BUCKET, "")).isNull();
+    }
+
+    @Test
+    @DisplayName("should let writes during the listing win over listed entries")
+    void testWritesDuringBuild() {
+        assertThat(index.startBuild(BUCKET)).isTrue();
+        index.put(object(BUCKET, "new.txt", 10));
+        index.remove(BUCKET, List.of("gone.txt"));
+        index.loaded(BUCKET, object(BUCKET, "new.txt", 1));
+        index.loaded(BUCKET, object(BUCKET, "gone.txt", 1));
+        index.completeBuild(BUCKET);
+
+        assertThat(index.summary(BUCKET, "")).isEqualTo(new FolderSummary(BUCKET, "", 10, 1));
+    }
+
+    @Test
+    @DisplayName("should not serve folders that do not fit in one page")
+    void testFolderTooLargeForPage() {
+        build(BUCKET, object(BUCKET, "a.txt", 1), object(BUCKET, "b.txt", 1), object(BUCKET, "c/d.txt", 1));
+
+        assertThat(index.folder(BUCKET, "", 2)).isNull();
+        assertThat(index.folder(BUCKET, "", 3).keyCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("should reject buckets larger than the key budget")
+    void testTooLarge() {
+        properties.setMaxKeys(2);
+        assertThat(index.startBuild(BUCKET)).isTrue();
+        index.loaded(BUCKET, object(BUCKET, "a.txt", 1));
+        index.loaded(BUCKET, object(BUCKET, "b.txt", 1));
+        index.loaded(BUCKET, object(BUCKET, "c.txt", 1));
+        index.completeBuild(BUCKET);
+
+        assertThat(index.folder(BUCKET, "", 1000)).isNull();
+        assertThat(index.startBuild(BUCKET)).isFalse();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("should evict the least recently browsed bucket beyond the bucket limit")
+    void testEviction() {
+        properties.setMaxBuckets(2);
+        build("first", object("first", "a.txt", 1));
+        build("second", object("second", "a.txt", 1));
+        index.folder("first", "", 1000);
+
+        build("third", object("third", "a.txt", 1));
+
+        assertThat(index.folder("first", "", 1000)).isNotNull();
+        assertThat(index.folder("second", "", 1000)).isNull();
+        assertThat(index.folder("third", "", 1000)).isNotNull();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should drop idle and deleted buckets")
+    void testIdleAndDeleted() throws InterruptedException {
+        build(BUCKET, object(BUCKET, "a.txt", 1));
+        index.dropBucket(BUCKET);
+        assertThat(index.folder(BUCKET, "", 1000)).isNull();
+
+        properties.setIdleTimeout(Duration.ofMillis(1));
+        build(BUCKET, object(BUCKET, "a.txt", 1));
+        Thread.sleep(10);
+        assertThat(index.startBuild("other")).isTrue();
+
+        assertThat(index.folder(BUCKET, "", 1000)).isNull();
+    }
+
+    @Test
+    @DisplayName("should list a bucket again once its index exceeds the maximum age, even if browsed")
+    void testMaxAge() throws InterruptedException {
+        properties.setMaxAge(Duration.ofMillis(50));
+        build(BUCKET, object(BUCKET, "a.txt", 1));
+        assertThat(index.folder(BUCKET, "", 1000)).isNotNull();
+        assertThat(index.startBuild(BUCKET)).isFalse();
+
+        Thread.sleep(60);
+        assertThat(index.folder(BUCKET, "", 1000)).isNull();
+        assertThat(index.startBuild(BUCKET)).isTrue();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("should index nothing while disabled")
+    void testDisabled() {
+        properties.setEnabled(false);
+
+        assertThat(index.startBuild(BUCKET)).isFalse();
+        index.put(object(BUCKET, "a.txt", 1));
+        assertThat(index.size()).isZero();
+    }
+}
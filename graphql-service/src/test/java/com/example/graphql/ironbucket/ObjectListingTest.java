@@ -0,0 +1,95 @@
+package com.example.graphql.ironbucket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for paginated and prefix-sharded listing against the Sentinel-Gear stub.
+ */
+@DisplayName("Object listing Tests")
+class ObjectListingTest {
+
+    private static final String JWT = "test-jwt";
+    private static final String BUCKET = "test-bucket";
+
+    private IronBucketFixture fixture;
+    private SentinelGearStub stub;
+    private IronBucketS3Service service;
+    private List<String> allKeys;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new IronBucketFixture();
+        stub = fixture.stub;
+        service = fixture.s3Service;
+        allKeys = new ArrayList<>();
+        for (String folder : List.of("a/", "b/", "c/")) {
+            for (int i = 0; i < 1500; i++) {
+                allKeys.add(folder + String.format("%05d", i));
+            }
+        }
+        allKeys.add("a.txt");
+        allKeys.add("z.txt");
+        allKeys.forEach(key -> stub.putObject(BUCKET, key, new byte[1]));
+        allKeys.sort(String::compareTo);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    @DisplayName("should list one folder level with common prefixes")
+    void testListObjectsPage_Delimiter() {
+        StepVerifier.create(service.listObjectsPage(JWT, BUCKET, null, "/", 1000, null))
+                .assertNext(page -> {
+                    assertThat(page.objects()).extracting(S3Object::key).containsExactly("a.txt", "z.txt");
+                    assertThat(page.commonPrefixes()).containsExactly("a/", "b/", "c/");
+                    assertThat(page.hasNextPage()).isFalse();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("should continue a listing from the continuation token")
+    void testListObjectsPage_Continuation() {
+        StepVerifier.create(service.listObjectsPage(JWT, BUCKET, "a/", null, 1000, null)
+                        .flatMap(first -> service.listObjectsPage(JWT, BUCKET, "a/", null, 1000,
+                                first.nextContinuationToken())))
+                .assertNext(second -> {
+                    assertThat(second.objects()).hasSize(500);
+                    assertThat(second.objects().get(0).key()).isEqualTo("a/01000");
+                    assertThat(second.hasNextPage()).isFalse();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("should list all shards concurrently in global key order")
+    void testListObjectsSharded_Ordered() {
+        StepVerifier.create(service.listObjectsSharded(JWT, BUCKET, null, "/", 3, true)
+                        .map(S3Object::key)
+                        .collectList())
+                .assertNext(keys -> assertThat(keys).isEqualTo(allKeys))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("should list every key exactly once in unordered mode")
+    void testListObjectsSharded_Unordered() {
+        StepVerifier.create(service.listObjectsSharded(JWT, BUCKET, null, "/", 3, false)
+                        .map(S3Object::key)
+                        .collectList())
+                .assertNext(keys -> assertThat(keys).containsExactlyInAnyOrderElementsOf(allKeys))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.graphql.ironbucket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for conditional refresh of cached object metadata against the local Sentinel-Gear stub.
+ */
+@DisplayName("Object metadata revalidation Tests")
+class ObjectMetadataRevalidationTest {
+
+    private static final String JWT = "test-jwt";
+    private static final String BUCKET = "test-bucket";
+
+    private IronBucketFixture fixture;
+    private SentinelGearStub stub;
+    private IronBucketS3Service service;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new IronBucketFixture();
+        stub = fixture.stub;
+        // Entries are stale immediately, so every read refreshes
+        fixture.metadataCacheProperties.setTtl(Duration.ZERO);
+        service = fixture.s3Service;
+        stub.putObject(BUCKET, "report", new byte[10]);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    @DisplayName("should refresh an unchanged object with 304 Not Modified")
+    void testGetObject_NotModified() {
+        for (int i = 0; i < 3; i++) {
+            StepVerifier.create(service.getObject(JWT, BUCKET, "report"))
+                    .assertNext(object -> assertThat(object.size()).isEqualTo(10))
+                    .verifyComplete();
+        }
+
+        assertThat(stub.metadataRequests()).isEqualTo(3);
+        assertThat(stub.notModifiedResponses()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should pick up a changed object on refresh")
+    void testGetObject_Modified() {
+        service.getObject(JWT, BUCKET, "report").block();
+        stub.putObject(BUCKET, "report", new byte[20]);
+
+        StepVerifier.create(service.getObject(JWT, BUCKET, "report"))
+                .assertNext(object -> assertThat(object.size()).isEqualTo(20))
+                .verifyComplete();
+        assertThat(stub.notModifiedResponses()).isZero();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.graphql.ironbucket;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for raw-body object uploads against the local Sentinel-Gear stub.
+ */
+@DisplayName("Object upload Tests")
+class ObjectUploadTest {
+
+    private static final String JWT = "test-jwt";
+    private static final String BUCKET = "uploads";
+
+    @TempDir
+    Path tempDir;
+
+    private IronBucketFixture fixture;
+    private SentinelGearStub stub;
+    private IronBucketS3Service service;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new IronBucketFixture();
+        stub = fixture.stub;
+        service = fixture.s3Service;
+        content = new byte[20_000];
+        new Random(11).nextBytes(content);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    @DisplayName("should send a byte array as the raw body with its length and metadata headers")
+    void testUploadObject_RawBody() {
+        StepVerifier.create(service.uploadObject(JWT, BUCKET, "report.bin", content, "application/pdf",
+                        Map.of("Owner", "alice")))
+                .assertNext(object -> assertThat(object.key()).isEqualTo("report.bin"))
+                .verifyComplete();
+
+        assertThat(stub.object(BUCKET, "report.bin")).isEqualTo(content);
+        assertThat(stub.metadata(BUCKET, "report.bin")).containsExactlyEntriesOf(Map.of("owner", "alice"));
+        HttpHeaders headers = stub.uploadHeaders().getFirst();
+        assertThat(headers.get("Content-Length")).isEqualTo(String.valueOf(content.length));
+        assertThat(headers.get("Content-Type")).isEqualTo("application/pdf");
+        assertThat(headers.get("x-amz-meta-owner")).isEqualTo("alice");
+        assertThat(headers.contains("Transfer-Encoding")).isFalse();
+    }
+
+    @Test
+    @DisplayName("should stream buffers with Content-Length when the length is known")
+    void testUploadObjectStream_KnownLength() {
+        StepVerifier.create(service.uploadObjectStream(JWT, BUCKET, "known.bin", chunks(content), content.length,
+                        null, Map.of()))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(stub.object(BUCKET, "known.bin")).isEqualTo(content);
+        HttpHeaders headers = stub.uploadHeaders().getFirst();
+        assertThat(headers.get("Content-Length")).isEqualTo(String.valueOf(content.length));
+        assertThat(headers.get("Content-Type")).isEqualTo("application/octet-stream");
+    }
+
+    @Test
+    @DisplayName("should stream buffers with chunked transfer when the length is unknown")
+    void testUploadObjectStream_Chunked() {
+        StepVerifier.create(service.uploadObjectStream(JWT, BUCKET, "chunked.bin", chunks(content), -1,
+                        null, Map.of("source", "camera")))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(stub.object(BUCKET, "chunked.bin")).isEqualTo(content);
+        assertThat(stub.metadata(BUCKET, "chunked.bin")).containsEntry("source", "camera");
+        HttpHeaders headers = stub.uploadHeaders().getFirst();
+        assertThat(headers.contains("Content-Length")).isFalse();
+        assertThat(headers.get("Transfer-Encoding")).isEqualToIgnoringCase("chunked");
+    }
+
+    @Test
+    @DisplayName("should not retry a stream upload, as the stream was already consumed")
+    void testUploadObjectStream_NotRetried() {
+        stub.failUploads(1);
+
+        StepVerifier.create(service.uploadObjectStream(JWT, BUCKET, "once.bin", chunks(content), content.length,
+                        null, Map.of()))
+                .expectError(IronBucketServiceException.class)
+                .verify();
+
+        assertThat(stub.uploadHeaders()).hasSize(1);
+        assertThat(stub.object(BUCKET, "once.bin")).isNull();
+    }
+
+    @Test
+    @DisplayName("should retry a file upload, re-reading the file")
+    void testUploadObjectFile_Retried() throws IOException {
+        Path file = Files.write(tempDir.resolve("upload.bin"), content);
+        stub.failUploads(1);
+
+        StepVerifier.create(service.uploadObjectFile(JWT, BUCKET, "file.bin", file, null, Map.of("origin", "disk")))
+                .assertNext(object -> assertThat(object.key()).isEqualTo("file.bin"))
+                .verifyComplete();
+
+        assertThat(stub.uploadHeaders()).hasSize(2)
+                .allSatisfy(headers -> assertThat(headers.get("Content-Length"))
+                        .isEqualTo(String.valueOf(content.length)));
+        assertThat(stub.contentUploads()).isOne();
+        assertThat(stub.object(BUCKET, "file.bin")).isEqualTo(content);
+        assertThat(stub.metadata(BUCKET, "file.bin")).containsEntry("origin", "disk");
+    }
+
+    private static Flux<DataBuffer> chunks(byte[] bytes) {
+        return Flux.range(0, (bytes.length + 4095) / 4096)
+                .map(i -> DefaultDataBufferFactory.sharedInstance.wrap(
+                        Arrays.copyOfRange(bytes, i * 4096, Math.min(bytes.length, (i + 1) * 4096))));
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.graphql.ironbucket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for the adaptive concurrency limits and circuit breakers guarding Sentinel-Gear calls.
+ */
+@DisplayName("OverloadProtection Tests")
+class OverloadProtectionTest {
+
+    @Nested
+    @DisplayName("Adaptive concurrency limit")
+    class Limit {
+
+        private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 100, 0.2);
+
+        /** Fill the limit, then complete every call with the given latency. */
+        private void round(long rttMillis, boolean dropped) {
+            int acquired = 0;
+            while (limit.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limit.complete(TimeUnit.MILLISECONDS.toNanos(rttMillis), dropped);
+            }
+        }
+
+        @Test
+        @DisplayName("should reject calls beyond the limit")
+        void testRejectsBeyondLimit() {
+            for (int i = 0; i < 10; i++) {
+                assertThat(limit.tryAcquire()).isTrue();
+            }
+
+            assertThat(limit.tryAcquire()).isFalse();
+            limit.release();
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+
+        @Test
+        @DisplayName("should grow while latency stays at the baseline")
+        void testGrowsWithStableLatency() {
+            for (int i = 0; i < 5; i++) {
+                round(10, false);
+            }
+
+            assertThat(limit.limit()).isGreaterThan(10);
+            assertThat(limit.inFlight()).isZero();
+        }
+
+        @Test
+        @DisplayName("should shrink when latency rises above the baseline")
+        void testShrinksWithRisingLatency() {
+            for (int i = 0; i < 10; i++) {
+                round(10, false);
+            }
+            int grown = limit.limit();
+
+            for (int i = 0; i < 5; i++) {
+                round(200, false);
+            }
+
+            assertThat(limit.limit()).isLessThan(grown);
+        }
+
+        @Test
+        @DisplayName("should back off on dropped calls but not below the minimum")
+        void testBacksOffOnDrops() {
+            round(10, true);
+            assertThat(limit.limit()).isLessThan(10);
+
+            for (int i = 0; i < 50; i++) {
+                round(10, true);
+            }
+            assertThat(limit.limit()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("should not grow while mostly unused")
+        void testDoesNotGrowWhenIdle() {
+            for (int i = 0; i < 20; i++) {
+                assertThat(limit.tryAcquire()).isTrue();
+                limit.complete(TimeUnit.MILLISECONDS.toNanos(10), false);
+            }
+
+            assertThat(limit.limit()).isEqualTo(10);
+        }
+    }
+
+    @Nested
+    @DisplayName("Circuit breaker")
+    class Breaker {
+
+        private final AtomicLong clock = new AtomicLong();
+        private CircuitBreaker breaker;
+
+        @BeforeEach
+        void setUp() {
+            OverloadProtectionProperties properties = new OverloadProtectionProperties();
+            properties.setMinimumCalls(4);
+            properties.setSlidingWindowSize(10);
+            properties.setOpenDuration(Duration.ofSeconds(10));
+            properties.setHalfOpenProbes(2);
+            breaker = new CircuitBreaker(properties, clock::get);
+        }
+
+        private void call(boolean failed) {
+            CircuitBreaker.Admission admission = breaker.tryAcquire();
+            assertThat(admission).isNotEqualTo(CircuitBreaker.Admission.REJECTED);
+            breaker.complete(admission, failed);
+        }
+
+        private void open() {
+            call(false);
+            call(true);
+            call(false);
+            call(true);
+            assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        }
+
+        @Test
+        @DisplayName("should stay closed below the failure rate threshold")
+        void testStaysClosed() {
+            for (int i = 0; i < 9; i++) {
+                call(i % 4 == 0);
+            }
+
+            assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        }
+
+        @Test
+        @DisplayName("should reject calls while open")
+        void testRejectsWhileOpen() {
+            open();
+            clock.addAndGet(Duration.ofSeconds(4).toNanos());
+
+            assertThat(breaker.tryAcquire()).isEqualTo(CircuitBreaker.Admission.REJECTED);
+            assertThat(breaker.retryAfter()).isEqualTo(Duration.ofSeconds(6));
+        }
+
+        @Test
+        @DisplayName("should close after the half-open probes succeed")
+        void testClosesAfterProbes() {
+            open();
+            clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+            CircuitBreaker.Admission first = breaker.tryAcquire();
+            CircuitBreaker.Admission second = breaker.tryAcquire();
+            assertThat(first).isEqualTo(CircuitBreaker.Admission.PROBE);
+            assertThat(second).isEqualTo(CircuitBreaker.Admission.PROBE);
+            assertThat(breaker.tryAcquire()).isEqualTo(CircuitBreaker.Admission.REJECTED);
+
+            breaker.complete(first, false);
+            breaker.complete(second, false);
+
+            assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+            assertThat(breaker.tryAcquire()).isEqualTo(CircuitBreaker.Admission.ADMITTED);
+        }
+
+        @Test
+        @DisplayName("should open again when a probe fails")
+        void testReopensOnFailedProbe() {
+            open();
+            clock.addAndGet(Duration.ofSeconds(10).toNanos());
+
+            breaker.complete(breaker.tryAcquire(), true);
+
+            assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+            assertThat(breaker.retryAfter()).isEqualTo(Duration.ofSeconds(10));
+        }
+
+        @Test
+        @DisplayName("should free the probe slot of a cancelled probe")
+        void testReleasesCancelledProbe() {
+            open();
+            clock.addAndGet(Duration.ofSeconds(10).toNanos());
+            CircuitBreaker.Admission first = breaker.tryAcquire();
+            breaker.tryAcquire();
+
+            breaker.release(first);
+
+            assertThat(breaker.tryAcquire()).isEqualTo(CircuitBreaker.Admission.PROBE);
+        }
+    }
+
+    @Nested
+    @DisplayName("Exchange filter")
+    class Filter {
+
+        private OverloadProtectionProperties properties;
+        private OverloadProtection protection;
+
+        @BeforeEach
+        void setUp() {
+            properties = new OverloadProtectionProperties();
+            properties.setMinimumCalls(4);
+            protection = new OverloadProtection(properties, new SimpleMeterRegistry());
+        }
+
+        private WebClient client(AtomicInteger sent, HttpStatus status) {
+            return WebClient.builder()
+                    .exchangeFunction(request -> {
+                        sent.incrementAndGet();
+                        return Mono.just(ClientResponse.create(status).build());
+                    })
+                    .filter(protection.filter())
+                    .baseUrl("http://sentinel-gear")
+                    .build();
+        }
+
+        @Test
+        @DisplayName("should fail fast once the circuit of an endpoint group opened")
+        void testFailsFastWhenOpen() {
+            AtomicInteger sent = new AtomicInteger();
+            WebClient client = client(sent, HttpStatus.SERVICE_UNAVAILABLE);
+            for (int i = 0; i < 4; i++) {
+                client.get().uri("/api/v1/buckets/b").retrieve().toBodilessEntity().onErrorComplete().block();
+            }
+
+            StepVerifier.create(client.get().uri("/api/v1/buckets/b").retrieve().toBodilessEntity())
+                    .expectErrorSatisfies(e -> {
+                        assertThat(e).isInstanceOf(SentinelGearOverloadedException.class);
+                        SentinelGearOverloadedException overloaded = (SentinelGearOverloadedException) e;
+                        assertThat(overloaded.getEndpointGroup()).isEqualTo("buckets");
+                        assertThat(overloaded.getReason()).isEqualTo(SentinelGearOverloadedException.Reason.CIRCUIT_OPEN);
+                    })
+                    .verify();
+            assertThat(sent.get()).isEqualTo(4);
+
+            // Other endpoint groups are unaffected
+            StepVerifier.create(client.get().uri("/api/v1/policies").retrieve().toBodilessEntity())
+                    .expectError(WebClientResponseException.class)
+                    .verify();
+        }
+
+        @Test
+        @DisplayName("should count client errors as answers")
+        void testClientErrorsKeepCircuitClosed() {
+            AtomicInteger sent = new AtomicInteger();
+            WebClient client = client(sent, HttpStatus.NOT_FOUND);
+            for (int i = 0; i < 10; i++) {
+                client.get().uri("/api/v1/buckets/b").retrieve().toBodilessEntity().onErrorComplete().block();
+            }
+
+            assertThat(sent.get()).isEqualTo(10);
+        }
+
+        @Test
+        @DisplayName("should pass every call through when disabled")
+        void testDisabled() {
+            properties.setEnabled(false);
+            AtomicInteger sent = new AtomicInteger();
+            WebClient client = client(sent, HttpStatus.SERVICE_UNAVAILABLE);
+            for (int i = 0; i < 10; i++) {
+                client.get().uri("/api/v1/buckets/b").retrieve().toBodilessEntity().onErrorComplete().block();
+            }
+
+            assertThat(sent.get()).isEqualTo(10);
+        }
+
+        @Test
+        @DisplayName("should group calls by endpoint")
+        void testEndpointGroups() {
+            assertThat(group("/api/v1/buckets")).isEqualTo("buckets");
+            assertThat(group("/api/v1/buckets/b")).isEqualTo("buckets");
+            assertThat(group("/api/v1/buckets/b/objects")).isEqualTo("objects");
+            assertThat(group("/api/v1/buckets/b/objects/a%2Fb/metadata")).isEqualTo("objects");
+            assertThat(group("/api/v1/buckets/b/objects/a%2Fb/content")).isEqualTo("content");
+            assertThat(group("/api/v1/buckets/b/objects/k/multipart/u1/parts/3")).isEqualTo("content");
+            assertThat(group("/api/v1/audit/logs/count")).isEqualTo("audit");
+            assertThat(group("/health")).isEqualTo("other");
+        }
+
+        private String group(String path) {
+            return OverloadProtection.endpointGroup(
+                    ClientRequest.create(HttpMethod.GET, URI.create("http://sentinel-gear" + path)).build());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.graphql.ironbucket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for presigned URL reuse and batch presigning against the local Sentinel-Gear stub.
+ */
+@DisplayName("PresignedUrlCache Tests")
+class PresignedUrlCacheTest {
+
+    private static final String JWT = "test-jwt";
+    private static final String BUCKET = "gallery";
+
+    private IronBucketFixture fixture;
+    private SentinelGearStub stub;
+    private PresignedUrlCacheProperties properties;
+    private IronBucketS3Service service;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new IronBucketFixture();
+        stub = fixture.stub;
+        properties = fixture.presignedUrlCacheProperties;
+        service = fixture.s3Service;
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    @DisplayName("should reuse a URL only for requests with the same lifetime")
+    void testGetPresignedUrl_Reused() {
+        String first = service.getPresignedUrl(JWT, BUCKET, "a.png", 3600).block();
+        String second = service.getPresignedUrl(JWT, BUCKET, "a.png", 3600).block();
+        String shorter = service.getPresignedUrl(JWT, BUCKET, "a.png", 30).block();
+
+        assertThat(second).isEqualTo(first);
+        assertThat(shorter).isNotEqualTo(first);
+        assertThat(stub.presignRequests()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should issue a new URL once less than the required share of its lifetime remains")
+    void testGetPresignedUrl_MinRemaining() {
+        properties.setMinRemainingRatio(1.0);
+
+        String first = service.getPresignedUrl(JWT, BUCKET, "a.png", 60).block();
+        String second = service.getPresignedUrl(JWT, BUCKET, "a.png", 60).block();
+
+        assertThat(second).isNotEqualTo(first);
+        assertThat(stub.presignRequests()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should never report a URL valid for longer than requested")
+    void testGetPresignedUrls_NotExtended() {
+        Instant requested = Instant.now();
+
+        StepVerifier.create(service.getPresignedUrls(JWT, BUCKET, List.of("a.png"), 30))
+                .assertNext(url -> assertThat(url.expiresAt()).isBetween(requested.plusSeconds(30),
+                        Instant.now().plusSeconds(30)))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("should presign a batch in one call and serve later lookups from cache")
+    void testGetPresignedUrls_Batch() {
+        StepVerifier.create(service.getPresignedUrls(JWT, BUCKET, List.of("a.png", "b.png", "a.png", "c.png"), 600))
+                .assertNext(url -> assertThat(url.key()).isEqualTo("a.png"))
+                .assertNext(url -> assertThat(url.key()).isEqualTo("b.png"))
+                .assertNext(url -> assertThat(url.key()).isEqualTo("c.png"))
+                .verifyComplete();
+        StepVerifier.create(service.getPresignedUrl(JWT, BUCKET, "b.png", 600))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(stub.multiObjectRequests()).isOne();
+        assertThat(stub.presignRequests()).isZero();
+    }
+
+    @Test
+    @DisplayName("should presign keys one by one when batches are not supported")
+    void testGetPresignedUrls_FanOut() {
+        stub.disableMultiObject();
+
+        StepVerifier.create(service.getPresignedUrls(JWT, BUCKET, List.of("a.png", "b.png", "c.png"), 600))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        assertThat(stub.presignRequests()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("should keep presigning in batches after a 404 for a missing bucket")
+    void testGetPresignedUrls_MissingBucketKeepsBatching() {
+        stub.removeBucket("missing-bucket");
+
+        StepVerifier.create(service.getPresignedUrls(JWT, "missing-bucket", List.of("a.png", "b.png"), 600))
+                .expectError(BucketNotFoundException.class)
+                .verify();
+        StepVerifier.create(service.getPresignedUrls(JWT, BUCKET, List.of("a.png", "b.png"), 600))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        assertThat(stub.multiObjectRequests()).isOne();
+        assertThat(stub.presignRequests()).isZero();
+    }
+}
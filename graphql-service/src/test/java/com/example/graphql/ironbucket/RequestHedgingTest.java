@@ -0,0 +1,223 @@
+package com.example.graphql.ironbucket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for hedged reads and the retry budgets paying for hedges and retries.
+ */
+@DisplayName("RequestHedging Tests")
+class RequestHedgingTest {
+
+    @Nested
+    @DisplayName("Retry budget")
+    class Budget {
+
+        private final AtomicLong clock = new AtomicLong();
+        private OverloadProtectionProperties properties;
+
+        @BeforeEach
+        void setUp() {
+            properties = new OverloadProtectionProperties();
+            properties.setRetryBudgetRatio(0.5);
+            properties.setRetryBudgetMinPerSecond(2);
+            properties.setRetryBudgetMaxTokens(4);
+        }
+
+        @Test
+        @DisplayName("should allow a fraction of requests as retries")
+        void testDepositsPerRequest() {
+            RetryBudget budget = new RetryBudget(properties, clock::get);
+            assertThat(budget.tryWithdraw()).isTrue();
+            assertThat(budget.tryWithdraw()).isTrue();
+            assertThat(budget.tryWithdraw()).isFalse();
+
+            budget.deposit();
+            assertThat(budget.tryWithdraw()).isFalse();
+            budget.deposit();
+            assertThat(budget.tryWithdraw()).isTrue();
+        }
+
+        @Test
+        @DisplayName("should refill over time up to the maximum")
+        void testRefillsOverTime() {
+            RetryBudget budget = new RetryBudget(properties, clock::get);
+            budget.tryWithdraw();
+            budget.tryWithdraw();
+
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+            assertThat(budget.balance()).isCloseTo(1.0, within(1e-9));
+
+            clock.addAndGet(TimeUnit.MINUTES.toNanos(1));
+            assertThat(budget.balance()).isCloseTo(4.0, within(1e-9));
+        }
+
+        @Test
+        @DisplayName("should stop retrying once the service's budget is spent")
+        void testRetrySpecDeniesWhenSpent() {
+            properties.setRetryBudgetMinPerSecond(0);
+            properties.setRetryBudgetRatio(1);
+            OverloadProtection protection = new OverloadProtection(properties, new SimpleMeterRegistry());
+            AtomicInteger attempts = new AtomicInteger();
+            Mono<String> unavailable = Mono.defer(() -> {
+                attempts.incrementAndGet();
+                return Mono.error(WebClientResponseException.create(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                        "Service Unavailable", new HttpHeaders(), new byte[0], null));
+            });
+
+            // One request deposits one token: a single retry before the error surfaces
+            StepVerifier.create(unavailable.retryWhen(protection.retrySpec("test")))
+                    .expectError(WebClientResponseException.ServiceUnavailable.class)
+                    .verify(Duration.ofSeconds(5));
+
+            assertThat(attempts.get()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Hedging")
+    class Hedging {
+
+        private RequestHedgingProperties properties;
+        private RequestHedging hedging;
+        private RetryBudget budget;
+
+        @BeforeEach
+        void setUp() {
+            properties = new RequestHedgingProperties();
+            properties.setEnabled(true);
+            properties.setMinSamples(1);
+            properties.setMinDelay(Duration.ofMillis(20));
+            hedging = new RequestHedging(properties, new SimpleMeterRegistry());
+            budget = new RetryBudget(new OverloadProtectionProperties(), System::nanoTime);
+        }
+
+        /** First subscription answers after a second, later ones at once. */
+        private Mono<String> slowThenFast(AtomicInteger calls) {
+            return Mono.defer(() -> calls.incrementAndGet() == 2
+                    ? Mono.just("slow").delayElement(Duration.ofSeconds(1))
+                    : Mono.just("fast-" + calls.get()));
+        }
+
+        @Test
+        @DisplayName("should send a hedge once the call exceeds the latency percentile")
+        void testHedgesSlowCall() {
+            AtomicInteger calls = new AtomicInteger();
+            Mono<String> call = slowThenFast(calls);
+            hedging.hedge("op", budget, call).block();
+
+            StepVerifier.create(hedging.hedge("op", budget, call))
+                    .expectNext("fast-3")
+                    .expectComplete()
+                    .verify(Duration.ofMillis(500));
+            assertThat(calls.get()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("should sample the original call's latency, not the faster hedge's")
+        void testSamplesOriginal() {
+            AtomicInteger calls = new AtomicInteger();
+            Mono<String> call = slowThenFast(calls);
+            hedging.hedge("op", budget, call).block();
+
+            StepVerifier.create(hedging.hedge("op", budget, call))
+                    .expectNext("fast-3")
+                    .expectComplete()
+                    .verify(Duration.ofMillis(500));
+
+            // The original ran for at least the hedge delay before it was cancelled
+            assertThat(hedging.delayNanos("op")).isGreaterThanOrEqualTo(Duration.ofMillis(20).toNanos());
+        }
+
+        @Test
+        @DisplayName("should not hedge calls answering in time")
+        void testNoHedgeForFastCall() {
+            AtomicInteger calls = new AtomicInteger();
+            Mono<String> call = Mono.fromSupplier(() -> "fast-" + calls.incrementAndGet());
+
+            for (int i = 0; i < 5; i++) {
+                hedging.hedge("op", budget, call).block();
+            }
+
+            assertThat(calls.get()).isEqualTo(5);
+        }
+
+        @Test
+        @DisplayName("should keep waiting for the original when the budget is spent")
+        void testBudgetSpent() {
+            OverloadProtectionProperties spent = new OverloadProtectionProperties();
+            spent.setRetryBudgetMinPerSecond(0);
+            budget = new RetryBudget(spent, System::nanoTime);
+            AtomicInteger calls = new AtomicInteger();
+            Mono<String> call = slowThenFast(calls);
+            hedging.hedge("op", budget, call).block();
+
+            StepVerifier.create(hedging.hedge("op", budget, call))
+                    .expectNext("slow")
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(5));
+            assertThat(calls.get()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("should take all elements from the answering source")
+        void testFluxFromOneSource() {
+            AtomicInteger calls = new AtomicInteger();
+            Flux<Integer> call = Flux.defer(() -> calls.incrementAndGet() == 2
+                    ? Flux.just(1, 2).delaySubscription(Duration.ofSeconds(1))
+                    : Flux.just(calls.get(), calls.get()));
+            hedging.hedge("op", budget, call).blockLast();
+
+            StepVerifier.create(hedging.hedge("op", budget, call))
+                    .expectNext(3, 3)
+                    .expectComplete()
+                    .verify(Duration.ofMillis(500));
+        }
+
+        @Test
+        @DisplayName("should pass calls through when disabled")
+        void testDisabled() {
+            properties.setEnabled(false);
+            AtomicInteger calls = new AtomicInteger();
+            Mono<String> call = slowThenFast(calls);
+            hedging.hedge("op", budget, call).block();
+
+            StepVerifier.create(hedging.hedge("op", budget, call))
+                    .expectNext("slow")
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(5));
+            assertThat(calls.get()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("should compute the percentile of recent latencies")
+        void testLatencyPercentile() {
+            RequestHedging.LatencyWindow window = new RequestHedging.LatencyWindow();
+            assertThat(window.percentile(0.95, 1)).isEqualTo(-1);
+
+            for (int i = 1; i <= 100; i++) {
+                window.record(i);
+            }
+
+            assertThat(window.percentile(0.95, 100)).isEqualTo(95);
+            assertThat(window.percentile(0.5, 200)).isEqualTo(-1);
+        }
+    }
+}
@@ -17,6 +17,7 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -35,6 +36,9 @@ class S3BucketResolverTest {
     @Mock
     private CrudFeatures features;
 
+    @Mock
+    private BucketUsageService usageService;
+
     @InjectMocks
     private S3BucketResolver resolver;
 
@@ -90,6 +94,29 @@ class S3BucketResolverTest {
         }
     }
 
+    @Nested
+    @DisplayName("Field: S3Bucket.usage")
+    class Usage {
+
+        @Test
+        @DisplayName("Should resolve usage of the bucket below the prefix")
+        void shouldResolveUsage() {
+            // Given
+            S3Bucket bucket = new S3Bucket("media-bucket", Instant.now(), "test-tenant");
+            BucketUsage usage = new BucketUsage("media-bucket", "videos/", 2048L, 2L,
+                List.of(new UsageBreakdown("video/mp4", 2048L, 2L)),
+                List.of(new UsageBreakdown("<7d", 2048L, 2L)), Instant.now(), false);
+            when(usageService.usage(anyString(), eq("media-bucket"), eq("videos/"))).thenReturn(Mono.just(usage));
+
+            // When
+            BucketUsage result = resolver.usage(bucket, mockJwtToken, "videos/").block();
+
+            // Then
+            assertThat(result.size()).isEqualTo(2048L);
+            verify(usageService).usage(mockJwtToken, "media-bucket", "videos/");
+        }
+    }
+
     @Nested
     @DisplayName("Query: getBucket")
     class GetBucket {
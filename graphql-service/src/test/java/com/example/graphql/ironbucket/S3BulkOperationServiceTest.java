@@ -0,0 +1,152 @@
+package com.example.graphql.ironbucket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for bulk object operations against the local Sentinel-Gear stub.
+ */
+@DisplayName("S3BulkOperationService Tests")
+class S3BulkOperationServiceTest {
+
+    private static final String JWT = "test-jwt";
+    private static final String BUCKET = "test-bucket";
+
+    private IronBucketFixture fixture;
+    private SentinelGearStub stub;
+    private BulkOperationProperties properties;
+    private S3BulkOperationService bulkOperations;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new IronBucketFixture();
+        stub = fixture.stub;
+        properties = new BulkOperationProperties();
+        properties.setBatchSize(100);
+        bulkOperations = new S3BulkOperationService(WebClient.builder(), stub.baseUrl(), fixture.httpClient,
+                fixture.s3Service, fixture.metadataCache, fixture.objectKeyIndex, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.close();
+    }
+
+    @Test
+    @DisplayName("should delete a prefix in multi-object batches with running progress")
+    void testDeleteObjects_PrefixInBatches() {
+        for (int i = 0; i < 250; i++) {
+            stub.putObject(BUCKET, String.format("logs/%03d", i), new byte[1]);
+        }
+        stub.putObject(BUCKET, "keep.txt", new byte[1]);
+
+        List<ObjectOperationResult> results = bulkOperations.deleteObjects(JWT, BUCKET, null, "logs/")
+                .collectList().block();
+
+        assertThat(results).hasSize(250).allMatch(ObjectOperationResult::success);
+        assertThat(results).extracting(ObjectOperationResult::completed)
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, 250).boxed().toList());
+        assertThat(stub.multiObjectRequests()).isEqualTo(3);
+        assertThat(stub.deleteRequests()).isZero();
+        assertThat(stub.object(BUCKET, "logs/000")).isNull();
+        assertThat(stub.object(BUCKET, "keep.txt")).isNotNull();
+    }
+
+    @Test
+    @DisplayName("should summarize results with only the first failures listed")
+    void testSummarize_FailuresOnly() {
+        properties.setMaxReportedFailures(2);
+        Flux<ObjectOperationResult> results = Flux.range(0, 10).map(i -> i % 3 == 0
+                ? ObjectOperationResult.failed(BUCKET, "key-" + i, "NOT_FOUND", "missing")
+                : ObjectOperationResult.succeeded(BUCKET, "key-" + i));
+
+        BulkOperationSummary summary = bulkOperations.summarize(results).block();
+
+        assertThat(summary.processed()).isEqualTo(10);
+        assertThat(summary.succeeded()).isEqualTo(6);
+        assertThat(summary.failed()).isEqualTo(4);
+        assertThat(summary.failures()).extracting(ObjectOperationResult::key).containsExactly("key-0", "key-3");
+        assertThat(summary.failuresTruncated()).isTrue();
+    }
+
+    @Test
+    @DisplayName("should fan out single deletes when multi-object delete is unavailable")
+    void testDeleteObjects_FallbackFanOut() {
+        stub.disableMultiObject();
+        List.of("a", "b", "c").forEach(key -> stub.putObject(BUCKET, key, new byte[1]));
+
+        List<ObjectOperationResult> results = bulkOperations.deleteObjects(JWT, BUCKET, List.of("a", "b", "c", "gone"), null)
+                .collectList().block();
+
+        // Missing keys count as deleted, as with S3 multi-object delete
+        assertThat(results).hasSize(4).allMatch(ObjectOperationResult::success);
+        assertThat(stub.deleteRequests()).isEqualTo(4);
+        assertThat(stub.object(BUCKET, "a")).isNull();
+    }
+
+    @Test
+    @DisplayName("should keep multi-object batches after a 404 for a missing bucket")
+    void testDeleteObjects_MissingBucketKeepsBatching() {
+        stub.removeBucket("missing-bucket");
+        stub.putObject(BUCKET, "a", new byte[1]);
+
+        List<ObjectOperationResult> missing = bulkOperations
+                .deleteObjects(JWT, "missing-bucket", List.of("a", "b"), null).collectList().block();
+        List<ObjectOperationResult> results = bulkOperations
+                .deleteObjects(JWT, BUCKET, List.of("a"), null).collectList().block();
+
+        assertThat(missing).hasSize(2).noneMatch(ObjectOperationResult::success)
+                .extracting(ObjectOperationResult::errorCode).containsOnly("NOT_FOUND");
+        assertThat(results).singleElement().matches(ObjectOperationResult::success);
+        assertThat(stub.multiObjectRequests()).isEqualTo(1);
+        assertThat(stub.deleteRequests()).isZero();
+    }
+
+    @Test
+    @DisplayName("should move a prefix to another bucket with server-side copies")
+    void testCopyObjects_MovePrefix() {
+        stub.putObject(BUCKET, "docs/a.txt", new byte[]{1});
+        stub.putObject(BUCKET, "docs/sub/b.txt", new byte[]{2});
+        stub.putObject(BUCKET, "other.txt", new byte[]{3});
+
+        List<ObjectOperationResult> results = bulkOperations
+                .copyObjects(JWT, BUCKET, "docs/", "archive-bucket", "2024/docs/", true)
+                .collectList().block();
+
+        assertThat(results).allMatch(ObjectOperationResult::success)
+                .extracting(ObjectOperationResult::key)
+                .containsExactlyInAnyOrder("2024/docs/a.txt", "2024/docs/sub/b.txt");
+        assertThat(stub.copyRequests()).isEqualTo(2);
+        assertThat(stub.object("archive-bucket", "2024/docs/sub/b.txt")).containsExactly(2);
+        assertThat(stub.object(BUCKET, "docs/a.txt")).isNull();
+        assertThat(stub.object(BUCKET, "other.txt")).isNotNull();
+    }
+
+    @Test
+    @DisplayName("should reject copying a prefix into itself")
+    void testCopyObjects_TargetWithinSource() {
+        assertThatThrownBy(() -> bulkOperations.copyObjects(JWT, BUCKET, "docs/", BUCKET, "docs/copy/", false))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("should require exactly one of keys or a non-blank prefix")
+    void testDeleteObjects_Selection() {
+        assertThatThrownBy(() -> bulkOperations.deleteObjects(JWT, BUCKET, List.of("a"), "logs/"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bulkOperations.deleteObjects(JWT, BUCKET, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bulkOperations.deleteObjects(JWT, BUCKET, null, " "))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
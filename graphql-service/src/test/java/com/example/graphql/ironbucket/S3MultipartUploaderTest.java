@@ -0,0 +1,165 @@
+package com.example.graphql.ironbucket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for multipart uploads against the local Sentinel-Gear stub.
+ */
+@DisplayName("S3MultipartUploader Tests")
+class S3MultipartUploaderTest {
+
+    private static final String JWT = "test-jwt";
+    private static final String BUCKET = "test-bucket";
+    private static final String KEY = "large.bin";
+
+    @TempDir
+    Path tempDir;
+
+    private SentinelGearStub stub;
+    private IronBucketHttpClient httpClient;
+    private MultipartUploadProperties properties;
+    private S3MultipartUploader uploader;
+    private Path source;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stub = new SentinelGearStub();
+        httpClient = new IronBucketHttpClient(new IronBucketHttpProperties(),
+                new OverloadProtection(new OverloadProtectionProperties(), new SimpleMeterRegistry()));
+        JwtClaimsExtractor claims = new JwtClaimsExtractor(null, WebClient.create(stub.baseUrl()), new JwtClaimsProperties());
+        properties = new MultipartUploadProperties();
+        properties.setPartSize(DataSize.ofKilobytes(16));
+        properties.setReadBufferSize(DataSize.ofKilobytes(4));
+        properties.setStateDirectory(tempDir.resolve("state"));
+        uploader = new S3MultipartUploader(WebClient.builder(), stub.baseUrl(), httpClient, properties,
+                new MetadataCache(claims, new SingleFlight(claims), new MetadataCacheProperties(),
+                        new SimpleMeterRegistry()),
+                new ObjectKeyIndex(new ObjectKeyIndexProperties()));
+
+        content = new byte[40 * 1024 + 123];
+        new Random(42).nextBytes(content);
+        source = Files.write(tempDir.resolve("source.bin"), content);
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClient.destroy();
+        stub.close();
+    }
+
+    @Test
+    @DisplayName("should upload all parts in parallel and assemble them in order")
+    void testUploadFile_AllParts() throws IOException {
+        StepVerifier.create(uploader.uploadFile(JWT, BUCKET, KEY, source, null, null))
+                .assertNext(object -> assertThat(object.size()).isEqualTo(content.length))
+                .verifyComplete();
+
+        assertThat(stub.object(BUCKET, KEY)).isEqualTo(content);
+        assertThat(stub.partRequests()).containsExactlyInAnyOrder(1, 2, 3);
+        assertThat(stateFiles()).isZero();
+    }
+
+    @Test
+    @DisplayName("should resume an interrupted upload with only the missing parts")
+    void testUploadFile_ResumesAfterFailure() throws IOException {
+        properties.setConcurrency(1);
+        stub.failPart(3);
+
+        StepVerifier.create(uploader.uploadFile(JWT, BUCKET, KEY, source, null, null))
+                .expectError(IronBucketServiceException.class)
+                .verify();
+        assertThat(stateFiles()).isOne();
+
+        stub.healPart(3);
+        stub.partRequests().clear();
+
+        StepVerifier.create(uploader.uploadFile(JWT, BUCKET, KEY, source, null, null))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(stub.initiateRequests()).isOne();
+        assertThat(stub.partRequests()).containsExactly(3);
+        assertThat(stub.object(BUCKET, KEY)).isEqualTo(content);
+        assertThat(stateFiles()).isZero();
+    }
+
+    @Test
+    @DisplayName("should abort the recorded upload when the source changed")
+    void testUploadFile_AbortsStaleUpload() throws IOException {
+        properties.setConcurrency(1);
+        stub.failPart(3);
+        StepVerifier.create(uploader.uploadFile(JWT, BUCKET, KEY, source, null, null))
+                .expectError(IronBucketServiceException.class)
+                .verify();
+        stub.healPart(3);
+
+        byte[] changed = new byte[20 * 1024];
+        new Random(7).nextBytes(changed);
+        Files.write(source, changed);
+
+        StepVerifier.create(uploader.uploadFile(JWT, BUCKET, KEY, source, null, null))
+                .assertNext(object -> assertThat(object.size()).isEqualTo(changed.length))
+                .verifyComplete();
+
+        assertThat(stub.abortRequests()).isOne();
+        assertThat(stub.initiateRequests()).isEqualTo(2);
+        assertThat(stub.object(BUCKET, KEY)).isEqualTo(changed);
+        assertThat(stateFiles()).isZero();
+    }
+
+    @Test
+    @DisplayName("should start over when the resumed upload expired on the server")
+    void testUploadFile_RestartsExpiredUpload() throws IOException {
+        properties.setConcurrency(1);
+        stub.failPart(3);
+        StepVerifier.create(uploader.uploadFile(JWT, BUCKET, KEY, source, null, null))
+                .expectError(IronBucketServiceException.class)
+                .verify();
+        stub.healPart(3);
+        stub.expireUploads();
+        stub.partRequests().clear();
+
+        StepVerifier.create(uploader.uploadFile(JWT, BUCKET, KEY, source, null, null))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(stub.initiateRequests()).isEqualTo(2);
+        assertThat(stub.partRequests()).containsExactly(3, 1, 2, 3);
+        assertThat(stub.object(BUCKET, KEY)).isEqualTo(content);
+        assertThat(stateFiles()).isZero();
+    }
+
+    @Test
+    @DisplayName("should split sources into ceil(size / partSize) parts")
+    void testPartCount() {
+        assertThat(S3MultipartUploader.partCount(0, 10)).isEqualTo(1);
+        assertThat(S3MultipartUploader.partCount(10, 10)).isEqualTo(1);
+        assertThat(S3MultipartUploader.partCount(11, 10)).isEqualTo(2);
+    }
+
+    private long stateFiles() throws IOException {
+        Path stateDirectory = properties.getStateDirectory();
+        if (!Files.isDirectory(stateDirectory)) {
+            return 0;
+        }
+        try (var files = Files.list(stateDirectory)) {
+            return files.filter(file -> file.toString().endsWith(".properties")).count();
+        }
+    }
+}
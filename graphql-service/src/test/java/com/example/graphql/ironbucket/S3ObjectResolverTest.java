@@ -12,8 +12,10 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -28,6 +30,12 @@ class S3ObjectResolverTest {
     @Mock
     private IronBucketS3Service s3Service;
 
+    @Mock
+    private S3BulkOperationService bulkOperations;
+
+    @Mock
+    private FolderBrowsingService folderBrowsing;
+
     @InjectMocks
     private S3ObjectResolver resolver;
 
@@ -219,4 +227,96 @@ class S3ObjectResolverTest {
             verify(s3Service).setObjectMetadata(mockJwtToken, bucketName, objectKey, metadata);
         }
     }
+
+    @Nested
+    @DisplayName("Query: listObjectsPage")
+    class ListObjectsPage {
+
+        @Test
+        @DisplayName("Should return one folder level with a continuation token")
+        void shouldListOnePage() {
+            // Given
+            String bucketName = "test-bucket";
+            S3ObjectConnection page = new S3ObjectConnection(
+                List.of(new S3Object("docs/readme.txt", bucketName, 10L, Instant.now(), "text/plain", null)),
+                List.of("docs/2024/", "docs/2025/"),
+                "token-2");
+            when(folderBrowsing.listObjectsPage(anyString(), eq(bucketName), eq("docs/"), eq("/"), eq(100), isNull()))
+                .thenReturn(Mono.just(page));
+
+            // When
+            S3ObjectConnection result = resolver.listObjectsPage(mockJwtToken, bucketName, "docs/", "/", 100, null).block();
+
+            // Then
+            assertThat(result.commonPrefixes()).containsExactly("docs/2024/", "docs/2025/");
+            assertThat(result.hasNextPage()).isTrue();
+            assertThat(result.keyCount()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should expose metadata as sorted key/value entries")
+        void shouldMapMetadataEntries() {
+            S3Object object = new S3Object("file.txt", "test-bucket", 1L, Instant.now(), "text/plain",
+                Map.of("owner", "alice", "classification", "internal"));
+
+            assertThat(resolver.metadata(object))
+                .extracting(S3ObjectResolver.MetadataEntry::key)
+                .containsExactly("classification", "owner");
+        }
+    }
+
+    @Nested
+    @DisplayName("Mutation: copyObjects")
+    class CopyObjects {
+
+        @Test
+        @DisplayName("Should summarize the copies, listing failed targets only")
+        void shouldSummarizeCopies() {
+            // Given
+            when(bulkOperations.copyObjects(anyString(), eq("source"), eq("docs/"), eq("target"), isNull(), eq(true)))
+                .thenReturn(Flux.just(
+                    new ObjectOperationResult("target", "docs/a.txt", true, null, null, 1),
+                    new ObjectOperationResult("target", "docs/b.txt", false, "FORBIDDEN", "denied", 2),
+                    new ObjectOperationResult("target", "docs/c.txt", true, null, null, 3)));
+            when(bulkOperations.summarize(any()))
+                .thenAnswer(invocation -> BulkOperationSummary.of(invocation.getArgument(0), 10));
+
+            // When
+            BulkOperationSummary summary = resolver.copyObjects(mockJwtToken, "source", "docs/", "target",
+                null, true).block();
+
+            // Then
+            assertThat(summary.processed()).isEqualTo(3);
+            assertThat(summary.failed()).isEqualTo(1);
+            assertThat(summary.failures()).extracting(ObjectOperationResult::key).containsExactly("docs/b.txt");
+            assertThat(summary.failuresTruncated()).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Mutation: setObjectsMetadata")
+    class SetObjectsMetadata {
+
+        @Test
+        @DisplayName("Should pass metadata entries to the bulk operation as a map and summarize the results")
+        void shouldConvertMetadataEntries() {
+            // Given
+            List<String> keys = List.of("a.txt", "b.txt");
+            when(bulkOperations.setObjectsMetadata(anyString(), eq("test-bucket"), eq(keys),
+                    eq(Map.of("owner", "alice"))))
+                .thenReturn(Flux.just(
+                    new ObjectOperationResult("test-bucket", "a.txt", true, null, null, 1),
+                    new ObjectOperationResult("test-bucket", "b.txt", false, "NOT_FOUND", "missing", 2)));
+            when(bulkOperations.summarize(any()))
+                .thenAnswer(invocation -> BulkOperationSummary.of(invocation.getArgument(0), 10));
+
+            // When
+            BulkOperationSummary summary = resolver.setObjectsMetadata(mockJwtToken, "test-bucket", keys,
+                List.of(new S3ObjectResolver.MetadataEntry("owner", "alice"))).block();
+
+            // Then
+            assertThat(summary.succeeded()).isEqualTo(1);
+            assertThat(summary.failures()).extracting(ObjectOperationResult::key).containsExactly("b.txt");
+        }
+    }
 }
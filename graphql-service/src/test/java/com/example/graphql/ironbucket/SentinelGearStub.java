@@ -0,0 +1,465 @@
+package com.example.graphql.ironbucket;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for the Sentinel-Gear object API, for offline tests.
+ *
+ * <p>Implements paginated listing, object metadata with ETag revalidation, single and
+ * multi-object delete, server-side copy, raw content upload, download with single byte ranges and ETag
+ * revalidation, single and batch presigning, and the multipart
+ * endpoints on an ephemeral local port, keeping objects in memory. Individual
+ * parts can be made to fail to simulate an interrupted transfer.</p>
+ */
+final class SentinelGearStub implements AutoCloseable {
+
+    private static final String OBJECT_PATH = "/api/v1/buckets/{bucket}/objects/{key}";
+    private static final Pattern COPY_SOURCE = Pattern.compile(
+            "\"sourceBucket\"\\s*:\\s*\"([^\"]*)\"\\s*,\\s*\"sourceKey\"\\s*:\\s*\"([^\"]*)\"");
+    private static final Pattern JSON_KEY = Pattern.compile("\"key\"\\s*:\\s*\"([^\"]*)\"");
+    private static final Pattern JSON_STRING = Pattern.compile("\"([^\"]*)\"");
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> metadata = new ConcurrentHashMap<>();
+    private final Map<String, SortedMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final List<Integer> partRequests = new CopyOnWriteArrayList<>();
+    private final Set<Integer> failingParts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger initiateRequests = new AtomicInteger();
+    private final AtomicInteger abortRequests = new AtomicInteger();
+    private final AtomicInteger listRequests = new AtomicInteger();
+    private final AtomicInteger metadataRequests = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+    private final AtomicInteger deleteRequests = new AtomicInteger();
+    private final AtomicInteger multiObjectRequests = new AtomicInteger();
+    private final AtomicInteger copyRequests = new AtomicInteger();
+    private final AtomicInteger contentTransfers = new AtomicInteger();
+    private final AtomicInteger contentUploads = new AtomicInteger();
+    private final List<HttpHeaders> uploadHeaders = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failingUploads = new AtomicInteger();
+    private final AtomicInteger presignRequests = new AtomicInteger();
+    private final Set<String> missingBuckets = ConcurrentHashMap.newKeySet();
+    private volatile boolean multiObjectEnabled = true;
+    private final DisposableServer server;
+
+    SentinelGearStub() {
+        this.server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes
+                        .get("/api/v1/buckets/{bucket}/objects", (request, response) -> {
+                            listRequests.incrementAndGet();
+                            return sendJson(response, listPage(request.param("bucket"),
+                                    new QueryStringDecoder(request.uri()).parameters()));
+                        })
+                        .get(OBJECT_PATH, (request, response) -> {
+                            metadataRequests.incrementAndGet();
+                            String bucket = request.param("bucket");
+                            String key = request.param("key");
+                            byte[] body = objects.get(bucket + "/" + key);
+                            if (body == null) {
+                                return Mono.from(response.status(HttpResponseStatus.NOT_FOUND).send());
+                            }
+                            String etag = etag(body);
+                            if (etag.equals(request.requestHeaders().get("If-None-Match"))) {
+                                notModifiedResponses.incrementAndGet();
+                                return Mono.from(response.status(HttpResponseStatus.NOT_MODIFIED)
+                                        .header("ETag", etag).send());
+                            }
+                            return sendObject(response.header("ETag", etag), bucket, key, body.length);
+                        })
+                        .delete(OBJECT_PATH, (request, response) -> {
+                            deleteRequests.incrementAndGet();
+                            byte[] removed = objects.remove(request.param("bucket") + "/" + keyParam(request));
+                            return Mono.from(response.status(removed != null
+                                    ? HttpResponseStatus.NO_CONTENT : HttpResponseStatus.NOT_FOUND).send());
+                        })
+                        .post(OBJECT_PATH + "/copy", (request, response) ->
+                                request.receive().aggregate().asString().defaultIfEmpty("").flatMap(body -> {
+                                    Matcher source = COPY_SOURCE.matcher(body);
+                                    byte[] content = source.find() ? objects.get(source.group(1) + "/" + source.group(2)) : null;
+                                    if (content == null) {
+                                        return Mono.from(response.status(HttpResponseStatus.NOT_FOUND).send());
+                                    }
+                                    copyRequests.incrementAndGet();
+                                    String bucket = request.param("bucket");
+                                    String key = keyParam(request);
+                                    objects.put(bucket + "/" + key, content);
+                                    metadata.put(bucket + "/" + key,
+                                            metadata.getOrDefault(source.group(1) + "/" + source.group(2), Map.of()));
+                                    return sendObject(response.header("ETag", etag(content)), bucket, key,
+                                            content.length);
+                                }))
+                        .post("/api/v1/buckets/{bucket}/objects/delete", (request, response) -> {
+                            if (!multiObjectEnabled) {
+                                return Mono.from(response.status(HttpResponseStatus.NOT_IMPLEMENTED).send());
+                            }
+                            if (missingBuckets.contains(request.param("bucket"))) {
+                                return Mono.from(response.status(HttpResponseStatus.NOT_FOUND).send());
+                            }
+                            multiObjectRequests.incrementAndGet();
+                            String bucket = request.param("bucket");
+                            return request.receive().aggregate().asString().defaultIfEmpty("").flatMap(body -> {
+                                StringBuilder json = new StringBuilder("{\"succeeded\":[");
+                                Matcher keys = JSON_KEY.matcher(body);
+                                for (int i = 0; keys.find(); i++) {
+                                    objects.remove(bucket + "/" + keys.group(1));
+                                    json.append(i > 0 ? "," : "").append("{\"key\":\"").append(keys.group(1)).append("\"}");
+                                }
+                                return sendJson(response, json.append("],\"errors\":[]}").toString());
+                            });
+                        })
+                        .post(OBJECT_PATH + "/presign", (request, response) -> {
+                            presignRequests.incrementAndGet();
+                            return Mono.from(response.header("Content-Type", "text/plain")
+                                    .sendString(Mono.just(presignedUrl(request.param("bucket"), keyParam(request)))));
+                        })
+                        .post("/api/v1/buckets/{bucket}/objects/presign", (request, response) -> {
+                            if (!multiObjectEnabled) {
+                                return Mono.from(response.status(HttpResponseStatus.NOT_IMPLEMENTED).send());
+                            }
+                            if (missingBuckets.contains(request.param("bucket"))) {
+                                return Mono.from(response.status(HttpResponseStatus.NOT_FOUND).send());
+                            }
+                            multiObjectRequests.incrementAndGet();
+                            String bucket = request.param("bucket");
+                            return request.receive().aggregate().asString().defaultIfEmpty("").flatMap(body -> {
+                                StringBuilder json = new StringBuilder("{\"urls\":[");
+                                Matcher keys = JSON_STRING.matcher(body.substring(body.indexOf('[') + 1));
+                                for (int i = 0; keys.find(); i++) {
+                                    json.append(i > 0 ? "," : "").append("{\"key\":\"").append(keys.group(1))
+                                            .append("\",\"url\":\"").append(presignedUrl(bucket, keys.group(1))).append("\"}");
+                                }
+                                return sendJson(response, json.append("]}").toString());
+                            });
+                        })
+                        .get(OBJECT_PATH + "/content", (request, response) -> {
+                            byte[] body = objects.get(request.param("bucket") + "/" + request.param("key"));
+                            if (body == null) {
+                                return Mono.from(response.status(HttpResponseStatus.NOT_FOUND).send());
+                            }
+                            String etag = etag(body);
+                            if (etag.equals(request.requestHeaders().get("If-None-Match"))) {
+                                notModifiedResponses.incrementAndGet();
+                                return Mono.from(response.status(HttpResponseStatus.NOT_MODIFIED)
+                                        .header("ETag", etag).send());
+                            }
+                            contentTransfers.incrementAndGet();
+                            String range = request.requestHeaders().get("Range");
+                            if (range == null) {
+                                return Mono.from(response.header("Content-Length", String.valueOf(body.length))
+                                        .header("ETag", etag)
+                                        .header("Accept-Ranges", "bytes")
+                                        .sendByteArray(Mono.just(body)));
+                            }
+                            String[] bounds = range.substring("bytes=".length()).split("-");
+                            int start = Integer.parseInt(bounds[0]);
+                            int end = bounds.length > 1 ? Math.min(Integer.parseInt(bounds[1]), body.length - 1) : body.length - 1;
+                            if (start >= body.length) {
+                                return Mono.from(response.status(HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE).send());
+                            }
+                            byte[] slice = Arrays.copyOfRange(body, start, end + 1);
+                            return Mono.from(response.status(HttpResponseStatus.PARTIAL_CONTENT)
+                                    .header("Content-Range", "bytes " + start + "-" + end + "/" + body.length)
+                                    .header("Content-Length", String.valueOf(slice.length))
+                                    .sendByteArray(Mono.just(slice)));
+                        })
+                        .put(OBJECT_PATH + "/content", (request, response) ->
+                                request.receive().aggregate().asByteArray().defaultIfEmpty(new byte[0])
+                                        .flatMap(body -> {
+                                            uploadHeaders.add(request.requestHeaders().copy());
+                                            if (failingUploads.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                                                return Mono.from(response.status(HttpResponseStatus.SERVICE_UNAVAILABLE).send());
+                                            }
+                                            String bucket = request.param("bucket");
+                                            String key = request.param("key");
+                                            contentUploads.incrementAndGet();
+                                            Map<String, String> userMetadata = new TreeMap<>();
+                                            request.requestHeaders().forEach(header -> {
+                                                String name = header.getKey().toLowerCase(Locale.ROOT);
+                                                if (name.startsWith("x-amz-meta-")) {
+                                                    userMetadata.put(name.substring("x-amz-meta-".length()), header.getValue());
+                                                }
+                                            });
+                                            objects.put(bucket + "/" + key, body);
+                                            metadata.put(bucket + "/" + key, userMetadata);
+                                            return sendObject(response.header("ETag", etag(body)), bucket, key, body.length);
+                                        }))
+                        .post(OBJECT_PATH + "/multipart", (request, response) -> {
+                            initiateRequests.incrementAndGet();
+                            String uploadId = UUID.randomUUID().toString();
+                            uploads.put(uploadId, new TreeMap<>());
+                            return sendJson(response, "{\"uploadId\":\"" + uploadId + "\"}");
+                        })
+                        .delete(OBJECT_PATH + "/multipart/{uploadId}", (request, response) -> {
+                            abortRequests.incrementAndGet();
+                            HttpResponseStatus status = uploads.remove(request.param("uploadId")) != null
+                                    ? HttpResponseStatus.NO_CONTENT : HttpResponseStatus.NOT_FOUND;
+                            return Mono.from(response.status(status).send());
+                        })
+                        .put(OBJECT_PATH + "/multipart/{uploadId}/parts/{part}", (request, response) ->
+                                request.receive().aggregate().asByteArray().defaultIfEmpty(new byte[0])
+                                        .flatMap(body -> {
+                                            int part = Integer.parseInt(request.param("part"));
+                                            partRequests.add(part);
+                                            SortedMap<Integer, byte[]> parts = uploads.get(request.param("uploadId"));
+                                            if (parts == null) {
+                                                return Mono.from(response.status(HttpResponseStatus.NOT_FOUND).send());
+                                            }
+                                            if (failingParts.contains(part)) {
+                                                return Mono.from(response.status(HttpResponseStatus.INTERNAL_SERVER_ERROR).send());
+                                            }
+                                            synchronized (parts) {
+                                                parts.put(part, body);
+                                            }
+                                            return Mono.from(response.header("ETag", "\"etag-" + part + "\"").send());
+                                        }))
+                        .post(OBJECT_PATH + "/multipart/{uploadId}/complete", (request, response) ->
+                                request.receive().aggregate().asString().defaultIfEmpty("")
+                                        .flatMap(body -> {
+                                            SortedMap<Integer, byte[]> parts = uploads.remove(request.param("uploadId"));
+                                            if (parts == null) {
+                                                return Mono.from(response.status(HttpResponseStatus.NOT_FOUND).send());
+                                            }
+                                            ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+                                            synchronized (parts) {
+                                                parts.values().forEach(assembled::writeBytes);
+                                            }
+                                            String bucket = request.param("bucket");
+                                            String key = request.param("key");
+                                            objects.put(bucket + "/" + key, assembled.toByteArray());
+                                            return sendObject(response, bucket, key, assembled.size());
+                                        })))
+                .bindNow();
+    }
+
+    /** ListObjectsV2-style page: keys after the continuation token, delimiter roll-up, max-keys. */
+    private String listPage(String bucket, Map<String, List<String>> query) {
+        String prefix = first(query, "prefix", "");
+        String delimiter = first(query, "delimiter", null);
+        String after = first(query, "continuation-token", "");
+        int maxKeys = Integer.parseInt(first(query, "max-keys", "1000"));
+
+        List<String> keys = new ArrayList<>();
+        List<String> prefixes = new ArrayList<>();
+        String last = null;
+        boolean truncated = false;
+        TreeMap<String, byte[]> sorted = new TreeMap<>(objects);
+        for (Map.Entry<String, byte[]> entry : sorted.tailMap(bucket + "/" + prefix).entrySet()) {
+            String key = entry.getKey().substring(bucket.length() + 1);
+            if (!entry.getKey().startsWith(bucket + "/") || !key.startsWith(prefix)) {
+                break;
+            }
+            String item = key;
+            if (delimiter != null) {
+                int index = key.indexOf(delimiter, prefix.length());
+                if (index >= 0) {
+                    item = key.substring(0, index + delimiter.length());
+                }
+            }
+            if (item.compareTo(after) <= 0 || item.equals(last)) {
+                continue;
+            }
+            if (keys.size() + prefixes.size() == maxKeys) {
+                truncated = true;
+                break;
+            }
+            if (item.equals(key)) {
+                keys.add(key);
+            } else {
+                prefixes.add(item);
+            }
+            last = item;
+        }
+
+        StringBuilder json = new StringBuilder("{\"objects\":[");
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            json.append(i > 0 ? "," : "").append("{\"key\":\"").append(key).append("\",\"bucketName\":\"")
+                .append(bucket).append("\",\"size\":").append(objects.get(bucket + "/" + key).length).append('}');
+        }
+        json.append("],\"commonPrefixes\":[");
+        for (int i = 0; i < prefixes.size(); i++) {
+            json.append(i > 0 ? "," : "").append('"').append(prefixes.get(i)).append('"');
+        }
+        json.append(']');
+        if (truncated) {
+            json.append(",\"nextContinuationToken\":\"").append(last).append('"');
+        }
+        return json.append('}').toString();
+    }
+
+    private static String presignedUrl(String bucket, String key) {
+        return "http://localhost/" + bucket + "/" + key + "?signature=" + UUID.randomUUID();
+    }
+
+    private static String etag(byte[] body) {
+        return "\"" + Integer.toHexString(Arrays.hashCode(body)) + "\"";
+    }
+
+    /** Object keys arrive percent-encoded, with {@code /} as {@code %2F}. */
+    private static String keyParam(HttpServerRequest request) {
+        return QueryStringDecoder.decodeComponent(request.param("key"));
+    }
+
+    private static String first(Map<String, List<String>> query, String name, String defaultValue) {
+        List<String> values = query.get(name);
+        return values != null && !values.isEmpty() ? values.get(0) : defaultValue;
+    }
+
+    private Mono<Void> sendObject(HttpServerResponse response, String bucket, String key, long size) {
+        StringBuilder json = new StringBuilder("{\"key\":\"").append(key).append("\",\"bucketName\":\"").append(bucket)
+                .append("\",\"size\":").append(size).append(",\"contentType\":\"application/octet-stream\",\"metadata\":{");
+        String separator = "";
+        for (Map.Entry<String, String> entry : metadata.getOrDefault(bucket + "/" + key, Map.of()).entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\":\"").append(entry.getValue()).append('"');
+            separator = ",";
+        }
+        return sendJson(response, json.append("}}").toString());
+    }
+
+    private static Mono<Void> sendJson(HttpServerResponse response, String json) {
+        return Mono.from(response.header("Content-Type", "application/json").sendString(Mono.just(json)));
+    }
+
+    /** @return base URL to configure as the Sentinel-Gear base URL */
+    String baseUrl() {
+        return "http://localhost:" + server.port();
+    }
+
+    /** @return stored content of an object, or null */
+    byte[] object(String bucket, String key) {
+        return objects.get(bucket + "/" + key);
+    }
+
+    /** Store an object directly, bypassing the upload endpoints. */
+    void putObject(String bucket, String key, byte[] content) {
+        objects.put(bucket + "/" + key, content);
+    }
+
+    /** @return part numbers in the order their upload requests arrived */
+    List<Integer> partRequests() {
+        return partRequests;
+    }
+
+    /** @return number of initiated multipart uploads */
+    int initiateRequests() {
+        return initiateRequests.get();
+    }
+
+    /** @return number of aborted multipart uploads */
+    int abortRequests() {
+        return abortRequests.get();
+    }
+
+    /** Forget all multipart uploads in progress, as Sentinel-Gear does when they expire. */
+    void expireUploads() {
+        uploads.clear();
+    }
+
+    /** @return number of listing page requests */
+    int listRequests() {
+        return listRequests.get();
+    }
+
+    /** @return number of object metadata requests */
+    int metadataRequests() {
+        return metadataRequests.get();
+    }
+
+    /** @return number of metadata and content requests answered with 304 Not Modified */
+    int notModifiedResponses() {
+        return notModifiedResponses.get();
+    }
+
+    /** @return number of single-object delete requests */
+    int deleteRequests() {
+        return deleteRequests.get();
+    }
+
+    /** @return number of multi-object requests */
+    int multiObjectRequests() {
+        return multiObjectRequests.get();
+    }
+
+    /** @return number of server-side copies */
+    int copyRequests() {
+        return copyRequests.get();
+    }
+
+    /** @return number of single-object presign requests */
+    int presignRequests() {
+        return presignRequests.get();
+    }
+
+    /** @return number of raw content uploads that were stored */
+    int contentUploads() {
+        return contentUploads.get();
+    }
+
+    /** @return custom metadata stored with an object by upload or copy */
+    Map<String, String> metadata(String bucket, String key) {
+        return metadata.getOrDefault(bucket + "/" + key, Map.of());
+    }
+
+    /** @return number of content downloads that sent a body */
+    int contentTransfers() {
+        return contentTransfers.get();
+    }
+
+    /** @return request headers of every raw content upload, failed ones included, in arrival order */
+    List<HttpHeaders> uploadHeaders() {
+        return uploadHeaders;
+    }
+
+    /** Make the next raw content uploads fail with 503, as an overloaded gateway would. */
+    void failUploads(int count) {
+        failingUploads.set(count);
+    }
+
+    /** Answer multi-object requests with 501, as a Sentinel-Gear without them would. */
+    void disableMultiObject() {
+        multiObjectEnabled = false;
+    }
+
+    /** Answer multi-object requests for the bucket with 404, as for a bucket that does not exist. */
+    void removeBucket(String bucket) {
+        missingBuckets.add(bucket);
+    }
+
+    /** Make uploads of the given part fail with 500 until {@link #healPart} is called. */
+    void failPart(int partNumber) {
+        failingParts.add(partNumber);
+    }
+
+    void healPart(int partNumber) {
+        failingParts.remove(partNumber);
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+}
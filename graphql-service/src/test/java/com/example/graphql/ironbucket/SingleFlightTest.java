@@ -0,0 +1,121 @@
+package com.example.graphql.ironbucket;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for coalescing of identical concurrent reads.
+ */
+@DisplayName("SingleFlight Tests")
+class SingleFlightTest {
+
+    private AtomicInteger calls;
+    private SingleFlight singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        calls = new AtomicInteger();
+        // Tokens are "<subject>:<tenant>"; all callers share one role
+        JwtClaimsExtractor extractor = new JwtClaimsExtractor(token -> Mono.just(Jwt.withTokenValue(token)
+                .header("alg", "none")
+                .subject(token.split(":")[0])
+                .claim("tenant", token.split(":")[1])
+                .claim("roles", List.of("reader"))
+                .expiresAt(Instant.now().plusSeconds(300))
+                .build()), WebClient.create("http://localhost:1"), new JwtClaimsProperties());
+        singleFlight = new SingleFlight(extractor);
+    }
+
+    @Test
+    @DisplayName("should share one request between callers of the same scope")
+    void testMono_SharedWithinScope() {
+        Sinks.One<String> upstream = Sinks.one();
+        Mono<String> first = singleFlight.mono("alice:acme", "getBucket", List.of("b"), () -> call(upstream));
+        Mono<String> second = singleFlight.mono("bob:acme", "getBucket", List.of("b"), () -> call(upstream));
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> upstream.tryEmitValue("bucket"))
+                .assertNext(results -> {
+                    assertThat(results.getT1()).isEqualTo("bucket");
+                    assertThat(results.getT2()).isEqualTo("bucket");
+                })
+                .verifyComplete();
+        assertThat(calls).hasValue(1);
+        assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("should not share requests across tenants or arguments")
+    void testMono_SeparateScopes() {
+        Sinks.One<String> upstream = Sinks.one();
+        Mono<String> acme = singleFlight.mono("alice:acme", "getBucket", List.of("b"), () -> call(upstream));
+        Mono<String> other = singleFlight.mono("carol:other", "getBucket", List.of("b"), () -> call(upstream));
+        Mono<String> otherBucket = singleFlight.mono("alice:acme", "getBucket", List.of("c"), () -> call(upstream));
+
+        StepVerifier.create(Mono.zip(acme, other, otherBucket))
+                .then(() -> upstream.tryEmitValue("bucket"))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("should start a new request once the previous one completed")
+    void testMono_EvictedOnCompletion() {
+        StepVerifier.create(singleFlight.mono("alice:acme", "getObject", List.of("b", "k"),
+                        () -> { calls.incrementAndGet(); return Mono.just("v1"); }))
+                .expectNext("v1")
+                .verifyComplete();
+        StepVerifier.create(singleFlight.mono("alice:acme", "getObject", List.of("b", "k"),
+                        () -> { calls.incrementAndGet(); return Mono.just("v2"); }))
+                .expectNext("v2")
+                .verifyComplete();
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("should replay elements already emitted to callers joining a listing")
+    void testFlux_LateJoinerSeesAllElements() {
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        Flux<String> listing = Flux.defer(() -> {
+            calls.incrementAndGet();
+            return upstream.asFlux();
+        });
+
+        List<String> joined = new CopyOnWriteArrayList<>();
+
+        StepVerifier.create(singleFlight.flux("alice:acme", "listObjects", List.of("b"), () -> listing))
+                .then(() -> upstream.tryEmitNext("a"))
+                .expectNext("a")
+                .then(() -> singleFlight.flux("bob:acme", "listObjects", List.of("b"), () -> listing)
+                        .subscribe(joined::add))
+                .then(() -> {
+                    upstream.tryEmitNext("b");
+                    upstream.tryEmitComplete();
+                })
+                .expectNext("b")
+                .verifyComplete();
+        assertThat(joined).containsExactly("a", "b");
+        assertThat(calls).hasValue(1);
+        assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    private Mono<String> call(Sinks.One<String> upstream) {
+        calls.incrementAndGet();
+        return upstream.asMono();
+    }
+}